@@ -4,12 +4,14 @@ export enum EJobType {
   INTEGRITY_CHECK = 'INTEGRITY_CHECK',
   EXPORT_ARCHIVE = 'EXPORT_ARCHIVE',
   REINDEX_SEARCH = 'REINDEX_SEARCH',
+  OPTIMIZE_SEARCH_INDEX = 'OPTIMIZE_SEARCH_INDEX',
 }
 
 export const EJobTypeList = [
   EJobType.INTEGRITY_CHECK,
   EJobType.EXPORT_ARCHIVE,
   EJobType.REINDEX_SEARCH,
+  EJobType.OPTIMIZE_SEARCH_INDEX,
 ] as const;
 
 export type EJobTypeType = typeof EJobTypeList[number];
@@ -18,4 +20,5 @@ export const EJobTypeLabels: Record<EJobTypeType, string> = {
   [EJobType.INTEGRITY_CHECK]: 'Integrity Check',
   [EJobType.EXPORT_ARCHIVE]: 'Export Archive',
   [EJobType.REINDEX_SEARCH]: 'Reindex Search',
+  [EJobType.OPTIMIZE_SEARCH_INDEX]: 'Optimize Search Index',
 };
@@ -1665,7 +1665,7 @@ export interface components {
             reply?: string;
         };
         /** @enum {string} */
-        EJobType: "INTEGRITY_CHECK" | "EXPORT_ARCHIVE" | "REINDEX_SEARCH";
+        EJobType: "INTEGRITY_CHECK" | "EXPORT_ARCHIVE" | "REINDEX_SEARCH" | "OPTIMIZE_SEARCH_INDEX";
         CreateActionMessage: {
             name: string;
             description?: string;
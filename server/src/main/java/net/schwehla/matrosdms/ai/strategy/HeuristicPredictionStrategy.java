@@ -430,7 +430,7 @@ public class HeuristicPredictionStrategy implements IPredictionStrategy {
 			Map<String, Candidate> uuidToCandidate = new HashMap<>();
 			int total = 0;
 
-			for (MSearchResult item : results.getContent()) {
+			for (MSearchResult item : results) {
 				List<String> tags = item.getTags();
 				if (tags == null) continue;
 				for (String tag : tags) {
@@ -477,10 +477,11 @@ public class HeuristicPredictionStrategy implements IPredictionStrategy {
 	}
 
 	/**
-	 * Fulltext nearest-neighbour lookup: extracts key terms from the document text,
-	 * searches the whole corpus for similar documents, and majority-votes their KIND tags.
+	 * Nearest-neighbour lookup: finds the documents sharing the most distinctive
+	 * terms with the text ("more like this" on the index statistics) and
+	 * majority-votes their KIND tags.
 	 *
-	 * Optionally scoped to a specific context (AND filter) to reduce false positives.
+	 * Optionally scoped to a specific context to reduce false positives.
 	 *
 	 * @return true if a kind was inferred from neighbours
 	 */
@@ -492,42 +493,14 @@ public class HeuristicPredictionStrategy implements IPredictionStrategy {
 				Collectors.toMap(c -> c.name().toLowerCase(), c -> c, (a, b) -> a));
 
 		try {
-			// Extract 3-5 meaningful terms (≥5 chars) from the beginning of the text for the query
-			String[] tokens = normalizedText.split("\\s+");
-			String queryTerms = java.util.Arrays.stream(tokens)
-					.filter(t -> t.length() >= 5 && t.matches("[a-zA-ZäöüÄÖÜßA-z]+"))
-					.limit(5)
-					.collect(Collectors.joining(" "));
-
-			if (queryTerms.isBlank()) return false;
-
-			SearchCriteria searchCriteria;
-			if (limitToContextUuid != null) {
-				// AND(context=X, fulltext contains terms)
-				SearchCriteria contextFilter = new SearchCriteria();
-				contextFilter.setField(ESearchDimension.CONTEXT);
-				contextFilter.setOperator(EOperator.EQ);
-				contextFilter.setValue(limitToContextUuid);
-
-				SearchCriteria textFilter = SearchCriteria.forText(queryTerms);
-
-				SearchCriteria group = new SearchCriteria();
-				group.setType(net.schwehla.matrosdms.search.SearchCriteria.Type.GROUP);
-				group.setLogic(net.schwehla.matrosdms.search.SearchCriteria.Logic.AND);
-				group.setChildren(java.util.List.of(contextFilter, textFilter));
-				searchCriteria = group;
-			} else {
-				searchCriteria = SearchCriteria.forText(queryTerms);
-			}
-
-			Page<MSearchResult> results = searchService.search(searchCriteria, 0, 5);
-			if (!results.hasContent()) return false;
+			List<MSearchResult> results = searchService.findMoreLikeThisText(normalizedText, limitToContextUuid, 5);
+			if (results.isEmpty()) return false;
 
 			// Majority vote on tags across similar documents
 			Map<String, Integer> votes = new LinkedHashMap<>();
 			Map<String, Candidate> uuidToCandidate = new HashMap<>();
 
-			for (MSearchResult item : results.getContent()) {
+			for (MSearchResult item : results) {
 				List<String> tags = item.getTags();
 				if (tags == null) continue;
 				for (String tag : tags) {
@@ -555,7 +528,7 @@ public class HeuristicPredictionStrategy implements IPredictionStrategy {
 			p.setSummary(p.getSummary() != null ? p.getSummary() + "; " + summary : summary);
 
 			log.debug("Heuristic similarity: kind='{}' from {}/{} neighbours",
-					winnerCandidate.name(), winner.getValue(), results.getContent().size());
+					winnerCandidate.name(), winner.getValue(), results.size());
 			return true;
 
 		} catch (Exception e) {
@@ -26,6 +26,7 @@ import org.springframework.stereotype.Component;
 import net.schwehla.matrosdms.domain.core.EArchiveFilter;
 import net.schwehla.matrosdms.search.SearchCriteria;
 import net.schwehla.matrosdms.service.InboxWatchService;
+import net.schwehla.matrosdms.service.IndexMaintenanceService;
 import net.schwehla.matrosdms.service.SearchService;
 import net.schwehla.matrosdms.service.auth.RefreshTokenCleanupJob;
 import net.schwehla.matrosdms.service.domain.ActionService;
@@ -67,6 +68,8 @@ public class SpringBootAfterStarter implements ApplicationListener<ApplicationRe
 	AttributeService attributeService;
 	@Autowired
 	ActionService actionService;
+	@Autowired
+	IndexMaintenanceService indexMaintenanceService;
 
 	// NEW: Inject Cleanup Job
 	@Autowired
@@ -101,6 +104,28 @@ public class SpringBootAfterStarter implements ApplicationListener<ApplicationRe
 		// 3. Data Warm-up & Housekeeping
 		CompletableFuture.runAsync(this::warmUpSystem);
 
+		// Attribute values indexed before typed attribute fields existed
+		CompletableFuture.runAsync(() -> {
+			try {
+				int scheduled = attributeService.reindexUntypedAttributes();
+				if (scheduled > 0) {
+					log.info("Typed attribute fields missing in the index: {} attributes scheduled for reindex",
+							scheduled);
+				}
+			} catch (Exception e) {
+				log.warn("Typed attribute check skipped: {}", e.getMessage());
+			}
+		});
+
+		// Empty index with items: switched index encryption or a deleted index folder
+		CompletableFuture.runAsync(() -> {
+			try {
+				indexMaintenanceService.rebuildIfEmpty();
+			} catch (Exception e) {
+				log.warn("Empty index check skipped: {}", e.getMessage());
+			}
+		});
+
 		// NEW: Cleanup tokens immediately (for desktop/dev usage patterns)
 		CompletableFuture.runAsync(() -> {
 			try {
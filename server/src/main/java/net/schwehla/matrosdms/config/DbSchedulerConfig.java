@@ -7,7 +7,10 @@
  */
 package net.schwehla.matrosdms.config;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.concurrent.CancellationException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,18 +19,31 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import com.github.kagkarlsson.scheduler.task.Task;
+import com.github.kagkarlsson.scheduler.task.helper.RecurringTask;
 import com.github.kagkarlsson.scheduler.task.helper.Tasks;
+import com.github.kagkarlsson.scheduler.task.schedule.FixedDelay;
+import com.github.kagkarlsson.scheduler.task.schedule.Schedules;
 
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
 import net.schwehla.matrosdms.domain.admin.EJobType;
+import net.schwehla.matrosdms.domain.admin.ReindexScope;
 import net.schwehla.matrosdms.domain.api.EBroadcastSource;
 import net.schwehla.matrosdms.domain.api.EBroadcastType;
 import net.schwehla.matrosdms.entity.admin.DBAdminJob;
 import net.schwehla.matrosdms.entity.admin.DBAdminJob.JobStatus;
+import net.schwehla.matrosdms.exception.IndexVerificationException;
 import net.schwehla.matrosdms.messagebus.VUEMessageBus;
 import net.schwehla.matrosdms.repository.AdminJobRepository;
-import net.schwehla.matrosdms.service.SearchService;
+import net.schwehla.matrosdms.service.DeferredOcrService;
+import net.schwehla.matrosdms.service.DependentReindexService;
+import net.schwehla.matrosdms.service.IndexMaintenanceService;
+import net.schwehla.matrosdms.service.IndexQueueService;
+import net.schwehla.matrosdms.service.ItemEmbeddingService;
+import net.schwehla.matrosdms.service.PassageIndexService;
+import net.schwehla.matrosdms.service.ReindexService;
 import net.schwehla.matrosdms.service.domain.AdminService;
 import net.schwehla.matrosdms.service.message.IntegrityReport;
+import net.schwehla.matrosdms.service.pipeline.DeferredOcrRequest;
 
 @Configuration
 public class DbSchedulerConfig {
@@ -38,6 +54,13 @@ public class DbSchedulerConfig {
 	public static final String TASK_INDEX_ITEM = "index-item";
 	public static final String TASK_INTEGRITY = "integrity-check";
 	public static final String TASK_EXPORT = "export-archive";
+	public static final String TASK_DEFERRED_OCR = "deferred-ocr";
+	public static final String TASK_INDEX_QUEUE = "index-queue";
+	public static final String TASK_DEPENDENT_REINDEX = "dependent-reindex";
+	public static final String TASK_EMBEDDING_BACKFILL = "embedding-backfill";
+	public static final String TASK_PASSAGE_INDEX = "passage-index";
+	public static final String TASK_OPTIMIZE_INDEX = "optimize-index";
+	public static final String TASK_OPTIMIZE_INDEX_NIGHTLY = "optimize-index-nightly";
 
 	// Inject MessageBus to notify UI when long-running jobs finish
 	@Autowired
@@ -45,25 +68,108 @@ public class DbSchedulerConfig {
 
 	// --- BEAN DEFINITIONS ---
 
+	// Superseded by the index queue; kept so instances scheduled before the upgrade still run
 	@Bean
-	public Task<Long> indexItemTask(SearchService searchService) {
+	public Task<Long> indexItemTask(IndexQueueService indexQueueService) {
 		return Tasks.oneTime(TASK_INDEX_ITEM, Long.class)
 				.execute((inst, ctx) -> {
 					Long itemId = inst.getData();
-					log.debug("JOB [Index]: Indexing Item ID: {}", itemId);
-					searchService.indexSingleItem(itemId);
+					log.debug("JOB [Index]: Queueing Item ID: {}", itemId);
+					indexQueueService.enqueue(itemId);
 				});
 	}
 
 	@Bean
-	public Task<Void> reindexTask(SearchService searchService, AdminJobRepository jobRepo) {
-		return Tasks.oneTime(TASK_REINDEX_ALL, Void.class)
+	public RecurringTask<Void> indexQueueTask(IndexQueueService indexQueueService, AppServerSpringConfig config) {
+		return Tasks.recurring(TASK_INDEX_QUEUE, FixedDelay.of(config.getIndexing().getQueue().getPollInterval()))
 				.execute((inst, ctx) -> {
+					int consumed = indexQueueService.drain();
+					if (consumed > 0) {
+						log.debug("JOB [Index Queue]: {} changes indexed", consumed);
+					}
+				});
+	}
+
+	@Bean
+	public RecurringTask<Void> embeddingBackfillTask(ItemEmbeddingService itemEmbeddingService,
+			AppServerSpringConfig config) {
+		return Tasks
+				.recurring(TASK_EMBEDDING_BACKFILL, FixedDelay.of(config.getAi().getEmbedding().getBackfillInterval()))
+				.execute((inst, ctx) -> itemEmbeddingService.backfill());
+	}
+
+	@Bean
+	public RecurringTask<Void> passageIndexTask(PassageIndexService passageIndexService,
+			AppServerSpringConfig config) {
+		return Tasks.recurring(TASK_PASSAGE_INDEX, FixedDelay.of(config.getAi().getRag().getIndexInterval()))
+				.execute((inst, ctx) -> {
+					try {
+						passageIndexService.indexBacklog();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+	}
+
+	@Bean
+	public Task<ReindexScope> reindexTask(ReindexService reindexService, AdminJobRepository jobRepo) {
+		return Tasks.oneTime(TASK_REINDEX_ALL, ReindexScope.class)
+				.execute((inst, ctx) -> {
+					// Instances without data (manual trigger, older versions) rebuild everything
+					ReindexScope scope = inst.getData() != null ? inst.getData() : ReindexScope.all();
 					DBAdminJob job = createJobLog(jobRepo, EJobType.REINDEX_SEARCH, "Reindexing Lucene...");
 					try {
-						log.info("JOB [Reindex All]: Starting...");
-						searchService.reindexAll();
-						completeJobLog(jobRepo, job, "Reindex Complete");
+						log.info("JOB [Reindex]: Starting ({})...", scope.describe());
+						reindexService.reindex(scope, job.getId());
+						completeJobLog(jobRepo, job, "Reindex Complete (" + scope.describe() + ")");
+					} catch (CancellationException | IndexVerificationException e) {
+						// Not rethrown: a failed one-time task would be retried
+						failJobLog(jobRepo, job, e);
+					} catch (InterruptedException e) {
+						failJobLog(jobRepo, job, e);
+						Thread.currentThread().interrupt();
+						throw new IllegalStateException("Reindex interrupted", e);
+					} catch (Exception e) {
+						failJobLog(jobRepo, job, e);
+						throw e;
+					}
+				});
+	}
+
+	@Bean
+	public Task<ReindexScope> dependentReindexTask(DependentReindexService dependentReindexService,
+			AdminJobRepository jobRepo) {
+		return Tasks.oneTime(TASK_DEPENDENT_REINDEX, ReindexScope.class)
+				.execute((inst, ctx) -> {
+					ReindexScope scope = inst.getData();
+					DBAdminJob job = createJobLog(jobRepo, EJobType.REINDEX_SEARCH,
+							"Reindexing items of " + scope.describe() + "...");
+					try {
+						long failed = dependentReindexService.run(inst.getId(), scope, job.getId());
+						completeJobLog(jobRepo, job, "Dependent Reindex Complete (" + scope.describe()
+								+ (failed > 0 ? ", " + failed + " failed" : "") + ")");
+					} catch (InterruptedException e) {
+						failJobLog(jobRepo, job, e);
+						Thread.currentThread().interrupt();
+						throw new IllegalStateException("Dependent reindex interrupted", e);
+					} catch (Exception e) {
+						failJobLog(jobRepo, job, e);
+						throw e;
+					}
+				});
+	}
+
+	// Manual run (admin endpoint); data: merge even if the thresholds are not reached
+	@Bean
+	public Task<Boolean> optimizeIndexTask(IndexMaintenanceService indexMaintenanceService,
+			AdminJobRepository jobRepo) {
+		return Tasks.oneTime(TASK_OPTIMIZE_INDEX, Boolean.class)
+				.execute((inst, ctx) -> {
+					DBAdminJob job = createJobLog(jobRepo, EJobType.OPTIMIZE_SEARCH_INDEX, "Optimizing search index...");
+					try {
+						IndexMaintenanceService.Outcome outcome = indexMaintenanceService
+								.optimize(Boolean.TRUE.equals(inst.getData()));
+						completeJobLog(jobRepo, job, outcome.info());
 					} catch (Exception e) {
 						failJobLog(jobRepo, job, e);
 						throw e;
@@ -71,6 +177,19 @@ public class DbSchedulerConfig {
 				});
 	}
 
+	@Bean
+	public RecurringTask<Void> optimizeIndexNightlyTask(IndexMaintenanceService indexMaintenanceService,
+			AppServerSpringConfig config) {
+		return Tasks
+				.recurring(TASK_OPTIMIZE_INDEX_NIGHTLY,
+						Schedules.cron(config.getIndexing().getMaintenance().getOptimize().getCron()))
+				.execute((inst, ctx) -> {
+					if (config.getIndexing().getMaintenance().getOptimize().isEnabled()) {
+						indexMaintenanceService.optimize(false);
+					}
+				});
+	}
+
 	@Bean
 	public Task<Void> integrityTask(AdminService adminService, AdminJobRepository jobRepo) {
 		return Tasks.oneTime(TASK_INTEGRITY, Void.class)
@@ -118,6 +237,20 @@ public class DbSchedulerConfig {
 				});
 	}
 
+	@Bean
+	public Task<DeferredOcrRequest> deferredOcrTask(DeferredOcrService deferredOcrService) {
+		return Tasks.oneTime(TASK_DEFERRED_OCR, DeferredOcrRequest.class)
+				.execute((inst, ctx) -> {
+					DeferredOcrRequest request = inst.getData();
+					log.info("JOB [Deferred OCR]: Full extraction of {}", request.hash());
+					try {
+						deferredOcrService.run(request);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+	}
+
 	// --- Helper Methods ---
 
 	private DBAdminJob createJobLog(AdminJobRepository repo, EJobType type, String info) {
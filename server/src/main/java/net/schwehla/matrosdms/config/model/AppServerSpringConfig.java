@@ -7,12 +7,18 @@
  */
 package net.schwehla.matrosdms.config.model;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 
+import net.schwehla.matrosdms.domain.inbox.EAiPolicy;
+import net.schwehla.matrosdms.domain.inbox.EOcrPolicy;
 import net.schwehla.matrosdms.domain.storage.EStorageLocation;
 
 @Configuration
@@ -23,6 +29,8 @@ public class AppServerSpringConfig {
 	private Processing processing = new Processing();
 	private AiConfig ai = new AiConfig();
 	private TemplateConfig templates = new TemplateConfig();
+	private Indexing indexing = new Indexing();
+	private SearchConfig search = new SearchConfig();
 
 	public Server getServer() {
 		return server;
@@ -56,6 +64,724 @@ public class AppServerSpringConfig {
 		this.templates = templates;
 	}
 
+	public Indexing getIndexing() {
+		return indexing;
+	}
+
+	public void setIndexing(Indexing indexing) {
+		this.indexing = indexing;
+	}
+
+	public SearchConfig getSearch() {
+		return search;
+	}
+
+	public void setSearch(SearchConfig search) {
+		this.search = search;
+	}
+
+	public static class SearchConfig {
+		private QueryCache queryCache = new QueryCache();
+		private Highlight highlight = new Highlight();
+		private Suggest suggest = new Suggest();
+		private MoreLikeThisConfig moreLikeThis = new MoreLikeThisConfig();
+		private Subscriptions subscriptions = new Subscriptions();
+		private Export export = new Export();
+		private boolean indexedItemFilter = true;
+
+		public QueryCache getQueryCache() {
+			return queryCache;
+		}
+
+		public void setQueryCache(QueryCache queryCache) {
+			this.queryCache = queryCache;
+		}
+
+		public Highlight getHighlight() {
+			return highlight;
+		}
+
+		public void setHighlight(Highlight highlight) {
+			this.highlight = highlight;
+		}
+
+		public Suggest getSuggest() {
+			return suggest;
+		}
+
+		public void setSuggest(Suggest suggest) {
+			this.suggest = suggest;
+		}
+
+		public MoreLikeThisConfig getMoreLikeThis() {
+			return moreLikeThis;
+		}
+
+		public void setMoreLikeThis(MoreLikeThisConfig moreLikeThis) {
+			this.moreLikeThis = moreLikeThis;
+		}
+
+		public Subscriptions getSubscriptions() {
+			return subscriptions;
+		}
+
+		public void setSubscriptions(Subscriptions subscriptions) {
+			this.subscriptions = subscriptions;
+		}
+
+		public Export getExport() {
+			return export;
+		}
+
+		public void setExport(Export export) {
+			this.export = export;
+		}
+
+		public boolean isIndexedItemFilter() {
+			return indexedItemFilter;
+		}
+
+		public void setIndexedItemFilter(boolean indexedItemFilter) {
+			this.indexedItemFilter = indexedItemFilter;
+		}
+	}
+
+	/**
+	 * In-memory autocomplete index. Contexts, categories, stores and attribute
+	 * types are refreshed when they change; item based data (popularity, file
+	 * names, attribute values) on the interval.
+	 */
+	public static class Suggest {
+		private Duration refreshInterval = Duration.ofMinutes(10);
+		// Most frequent file names offered as suggestions
+		private int maxFilenames = 2000;
+		// Most frequent values per text attribute
+		private int maxAttributeValues = 200;
+
+		public Duration getRefreshInterval() {
+			return refreshInterval;
+		}
+
+		public void setRefreshInterval(Duration refreshInterval) {
+			this.refreshInterval = refreshInterval;
+		}
+
+		public int getMaxFilenames() {
+			return maxFilenames;
+		}
+
+		public void setMaxFilenames(int maxFilenames) {
+			this.maxFilenames = maxFilenames;
+		}
+
+		public int getMaxAttributeValues() {
+			return maxAttributeValues;
+		}
+
+		public void setMaxAttributeValues(int maxAttributeValues) {
+			this.maxAttributeValues = maxAttributeValues;
+		}
+	}
+
+	/**
+	 * Streaming export of search results. The hits are read page by page
+	 * through the search cursor, each page in its own short read, so an export
+	 * holds neither a transaction nor more than one page in memory.
+	 */
+	public static class Export {
+		// Hits per cursor page
+		private int pageSize = 500;
+		// Exports running at the same time, further ones are refused
+		private int maxConcurrent = 2;
+
+		public int getPageSize() {
+			return pageSize;
+		}
+
+		public void setPageSize(int pageSize) {
+			this.pageSize = pageSize;
+		}
+
+		public int getMaxConcurrent() {
+			return maxConcurrent;
+		}
+
+		public void setMaxConcurrent(int maxConcurrent) {
+			this.maxConcurrent = maxConcurrent;
+		}
+	}
+
+	/**
+	 * Watched saved searches. They are compiled once and matched against each
+	 * newly indexed item in a one-document in-memory index, so the cost per
+	 * item grows with the number of watched searches, not with the archive.
+	 */
+	public static class Subscriptions {
+		private boolean enabled = true;
+		// Fulltext considered per item; longer texts are matched on their start
+		private int maxTextChars = 100_000;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getMaxTextChars() {
+			return maxTextChars;
+		}
+
+		public void setMaxTextChars(int maxTextChars) {
+			this.maxTextChars = maxTextChars;
+		}
+	}
+
+	/**
+	 * "More like this": the most distinctive terms of a document (tf-idf over
+	 * the index statistics) become a weighted OR query. The fulltext terms come
+	 * from the stored term vectors, short metadata fields are analyzed again.
+	 */
+	public static class MoreLikeThisConfig {
+		private List<String> fields = new ArrayList<>(
+				List.of("fulltext", "name", "description", "kindList.name", "infoContext.name"));
+		// Terms less frequent in the source document are ignored
+		private int minTermFreq = 2;
+		// Terms in fewer documents (typos, OCR noise) or in more than this share
+		// of all documents (boilerplate) are ignored
+		private int minDocFreq = 2;
+		private int maxDocFreqPercent = 50;
+		private int minWordLength = 3;
+		private int maxWordLength = 30;
+		private int maxQueryTerms = 25;
+		// Tokens analyzed per field when the source is plain text (no term vectors)
+		private int maxTokensParsed = 20000;
+
+		public List<String> getFields() {
+			return fields;
+		}
+
+		public void setFields(List<String> fields) {
+			this.fields = fields;
+		}
+
+		public int getMinTermFreq() {
+			return minTermFreq;
+		}
+
+		public void setMinTermFreq(int minTermFreq) {
+			this.minTermFreq = minTermFreq;
+		}
+
+		public int getMinDocFreq() {
+			return minDocFreq;
+		}
+
+		public void setMinDocFreq(int minDocFreq) {
+			this.minDocFreq = minDocFreq;
+		}
+
+		public int getMaxDocFreqPercent() {
+			return maxDocFreqPercent;
+		}
+
+		public void setMaxDocFreqPercent(int maxDocFreqPercent) {
+			this.maxDocFreqPercent = maxDocFreqPercent;
+		}
+
+		public int getMinWordLength() {
+			return minWordLength;
+		}
+
+		public void setMinWordLength(int minWordLength) {
+			this.minWordLength = minWordLength;
+		}
+
+		public int getMaxWordLength() {
+			return maxWordLength;
+		}
+
+		public void setMaxWordLength(int maxWordLength) {
+			this.maxWordLength = maxWordLength;
+		}
+
+		public int getMaxQueryTerms() {
+			return maxQueryTerms;
+		}
+
+		public void setMaxQueryTerms(int maxQueryTerms) {
+			this.maxQueryTerms = maxQueryTerms;
+		}
+
+		public int getMaxTokensParsed() {
+			return maxTokensParsed;
+		}
+
+		public void setMaxTokensParsed(int maxTokensParsed) {
+			this.maxTokensParsed = maxTokensParsed;
+		}
+	}
+
+	/**
+	 * Fulltext highlighting: fast vector highlighter on the stored term
+	 * vectors (no re-analysis), bounded per hit.
+	 */
+	public static class Highlight {
+		private int fragments = 3;
+		private int fragmentSize = 150;
+		// Query terms considered per phrase match, caps the work on long documents
+		private int phraseLimit = 256;
+
+		public int getFragments() {
+			return fragments;
+		}
+
+		public void setFragments(int fragments) {
+			this.fragments = fragments;
+		}
+
+		public int getFragmentSize() {
+			return fragmentSize;
+		}
+
+		public void setFragmentSize(int fragmentSize) {
+			this.fragmentSize = fragmentSize;
+		}
+
+		public int getPhraseLimit() {
+			return phraseLimit;
+		}
+
+		public void setPhraseLimit(int phraseLimit) {
+			this.phraseLimit = phraseLimit;
+		}
+	}
+
+	/**
+	 * Lucene query cache for the non-scoring filter clauses of structured
+	 * searches (context, store, categories, dates...). Scoring clauses are
+	 * never cached by Lucene.
+	 */
+	public static class QueryCache {
+		private boolean enabled = true;
+		private int maxQueries = 1000;
+		private DataSize maxSize = DataSize.ofMegabytes(64);
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getMaxQueries() {
+			return maxQueries;
+		}
+
+		public void setMaxQueries(int maxQueries) {
+			this.maxQueries = maxQueries;
+		}
+
+		public DataSize getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(DataSize maxSize) {
+			this.maxSize = maxSize;
+		}
+	}
+
+	public static class Indexing {
+		private IndexQueue queue = new IndexQueue();
+		private MassIndexing massIndexer = new MassIndexing();
+		private DependentReindex dependent = new DependentReindex();
+		private IndexMaintenance maintenance = new IndexMaintenance();
+		private IndexEncryption encryption = new IndexEncryption();
+
+		public IndexQueue getQueue() {
+			return queue;
+		}
+
+		public void setQueue(IndexQueue queue) {
+			this.queue = queue;
+		}
+
+		public MassIndexing getMassIndexer() {
+			return massIndexer;
+		}
+
+		public void setMassIndexer(MassIndexing massIndexer) {
+			this.massIndexer = massIndexer;
+		}
+
+		public DependentReindex getDependent() {
+			return dependent;
+		}
+
+		public void setDependent(DependentReindex dependent) {
+			this.dependent = dependent;
+		}
+
+		public IndexMaintenance getMaintenance() {
+			return maintenance;
+		}
+
+		public void setMaintenance(IndexMaintenance maintenance) {
+			this.maintenance = maintenance;
+		}
+
+		public IndexEncryption getEncryption() {
+			return encryption;
+		}
+
+		public void setEncryption(IndexEncryption encryption) {
+			this.encryption = encryption;
+		}
+	}
+
+	/**
+	 * Encryption of the search indexes (items and RAG passages) with the store
+	 * key. Encrypted indexes live next to the plaintext ones ("index" becomes
+	 * "index-encrypted") and are rebuilt after switching.
+	 */
+	public static class IndexEncryption {
+		private boolean enabled = false;
+		// Unit of encryption and caching; larger blocks: less overhead, more bytes decrypted per random read
+		private DataSize blockSize = DataSize.ofKilobytes(16);
+		// Decrypted blocks kept in memory, shared by all index files
+		private DataSize cacheSize = DataSize.ofMegabytes(256);
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public DataSize getBlockSize() {
+			return blockSize;
+		}
+
+		public void setBlockSize(DataSize blockSize) {
+			this.blockSize = blockSize;
+		}
+
+		public DataSize getCacheSize() {
+			return cacheSize;
+		}
+
+		public void setCacheSize(DataSize cacheSize) {
+			this.cacheSize = cacheSize;
+		}
+	}
+
+	/**
+	 * Writer settings of the item index (passed to the Hibernate Search Lucene
+	 * backend) and the scheduled optimization that expunges deleted documents.
+	 */
+	public static class IndexMaintenance {
+		// Changes are committed to disk at most this often; a crash loses the uncommitted ones
+		private Duration commitInterval = Duration.ofSeconds(1);
+		// 0: searches see each change at once; higher values reopen readers less often
+		private Duration refreshInterval = Duration.ZERO;
+		private IndexMergePolicy merge = new IndexMergePolicy();
+		private IndexOptimization optimize = new IndexOptimization();
+
+		public Duration getCommitInterval() {
+			return commitInterval;
+		}
+
+		public void setCommitInterval(Duration commitInterval) {
+			this.commitInterval = commitInterval;
+		}
+
+		public Duration getRefreshInterval() {
+			return refreshInterval;
+		}
+
+		public void setRefreshInterval(Duration refreshInterval) {
+			this.refreshInterval = refreshInterval;
+		}
+
+		public IndexMergePolicy getMerge() {
+			return merge;
+		}
+
+		public void setMerge(IndexMergePolicy merge) {
+			this.merge = merge;
+		}
+
+		public IndexOptimization getOptimize() {
+			return optimize;
+		}
+
+		public void setOptimize(IndexOptimization optimize) {
+			this.optimize = optimize;
+		}
+	}
+
+	/** Lucene merge policy of the item index (sizes by byte size of the segments). */
+	public static class IndexMergePolicy {
+		// Segments of similar size merged at once; lower: fewer segments, more merge IO
+		private int factor = 10;
+		// Smaller segments count as this size, so tiny flushes are merged early
+		private DataSize minSize = DataSize.ofMegabytes(2);
+		// Larger segments are left out of regular merges
+		private DataSize maxSize = DataSize.ofMegabytes(1024);
+		// Larger segments are left out of forced merges as well (unset: no limit)
+		private DataSize maxForcedSize;
+		// Deleted documents do not count towards the size, so segments full of them merge earlier
+		private boolean calibrateByDeletes = true;
+
+		public int getFactor() {
+			return factor;
+		}
+
+		public void setFactor(int factor) {
+			this.factor = factor;
+		}
+
+		public DataSize getMinSize() {
+			return minSize;
+		}
+
+		public void setMinSize(DataSize minSize) {
+			this.minSize = minSize;
+		}
+
+		public DataSize getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(DataSize maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public DataSize getMaxForcedSize() {
+			return maxForcedSize;
+		}
+
+		public void setMaxForcedSize(DataSize maxForcedSize) {
+			this.maxForcedSize = maxForcedSize;
+		}
+
+		public boolean isCalibrateByDeletes() {
+			return calibrateByDeletes;
+		}
+
+		public void setCalibrateByDeletes(boolean calibrateByDeletes) {
+			this.calibrateByDeletes = calibrateByDeletes;
+		}
+	}
+
+	/**
+	 * Forced merge of the item index in quiet hours. Skipped while a reindex
+	 * runs or changes wait in the index queue, and when the index is in good
+	 * shape anyway.
+	 */
+	public static class IndexOptimization {
+		private boolean enabled = true;
+		// Spring cron expression, server time zone
+		private String cron = "0 30 3 * * *";
+		// Merged once this share of the documents is deleted ...
+		private double minDeletedPercent = 10;
+		// ... or the index has more segments than this
+		private int maxSegments = 30;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getCron() {
+			return cron;
+		}
+
+		public void setCron(String cron) {
+			this.cron = cron;
+		}
+
+		public double getMinDeletedPercent() {
+			return minDeletedPercent;
+		}
+
+		public void setMinDeletedPercent(double minDeletedPercent) {
+			this.minDeletedPercent = minDeletedPercent;
+		}
+
+		public int getMaxSegments() {
+			return maxSegments;
+		}
+
+		public void setMaxSegments(int maxSegments) {
+			this.maxSegments = maxSegments;
+		}
+	}
+
+	/**
+	 * Background reindex of the items that embed a renamed context, store or
+	 * category. Runs single threaded with a pause between batches, so it does
+	 * not compete with interactive work.
+	 */
+	public static class DependentReindex {
+		// Changes of the same entity within this window are handled by one run
+		private Duration debounce = Duration.ofSeconds(10);
+		private int batchSize = 200;
+		private Duration pause = Duration.ofMillis(100);
+
+		public Duration getDebounce() {
+			return debounce;
+		}
+
+		public void setDebounce(Duration debounce) {
+			this.debounce = debounce;
+		}
+
+		public int getBatchSize() {
+			return batchSize;
+		}
+
+		public void setBatchSize(int batchSize) {
+			this.batchSize = batchSize;
+		}
+
+		public Duration getPause() {
+			return pause;
+		}
+
+		public void setPause(Duration pause) {
+			this.pause = pause;
+		}
+	}
+
+	/** Hibernate Search mass indexer settings of the reindex job. */
+	public static class MassIndexing {
+		// Full rebuilds rewrite the live documents in place as a new generation instead of purging first
+		private boolean zeroDowntime = true;
+		// Threads loading entities and building documents (the text bridge runs here)
+		private int threadsToLoadObjects = Math.max(2, Runtime.getRuntime().availableProcessors());
+		private int batchSizeToLoadObjects = 50;
+		private int typesToIndexInParallel = 1;
+		// JDBC fetch size of the id scroll
+		private int idFetchSize = 1000;
+		private boolean mergeSegmentsOnFinish = true;
+		private Duration progressInterval = Duration.ofSeconds(2);
+
+		public boolean isZeroDowntime() {
+			return zeroDowntime;
+		}
+
+		public void setZeroDowntime(boolean zeroDowntime) {
+			this.zeroDowntime = zeroDowntime;
+		}
+
+		public int getThreadsToLoadObjects() {
+			return threadsToLoadObjects;
+		}
+
+		public void setThreadsToLoadObjects(int threadsToLoadObjects) {
+			this.threadsToLoadObjects = threadsToLoadObjects;
+		}
+
+		public int getBatchSizeToLoadObjects() {
+			return batchSizeToLoadObjects;
+		}
+
+		public void setBatchSizeToLoadObjects(int batchSizeToLoadObjects) {
+			this.batchSizeToLoadObjects = batchSizeToLoadObjects;
+		}
+
+		public int getTypesToIndexInParallel() {
+			return typesToIndexInParallel;
+		}
+
+		public void setTypesToIndexInParallel(int typesToIndexInParallel) {
+			this.typesToIndexInParallel = typesToIndexInParallel;
+		}
+
+		public int getIdFetchSize() {
+			return idFetchSize;
+		}
+
+		public void setIdFetchSize(int idFetchSize) {
+			this.idFetchSize = idFetchSize;
+		}
+
+		public boolean isMergeSegmentsOnFinish() {
+			return mergeSegmentsOnFinish;
+		}
+
+		public void setMergeSegmentsOnFinish(boolean mergeSegmentsOnFinish) {
+			this.mergeSegmentsOnFinish = mergeSegmentsOnFinish;
+		}
+
+		public Duration getProgressInterval() {
+			return progressInterval;
+		}
+
+		public void setProgressInterval(Duration progressInterval) {
+			this.progressInterval = progressInterval;
+		}
+	}
+
+	/** Durable queue of items waiting for (re)indexing, drained in batches. */
+	public static class IndexQueue {
+		private int batchSize = 500;
+		private Duration pollInterval = Duration.ofSeconds(2);
+		// Batches per drain run, so one run does not hold the scheduler thread forever
+		private int maxBatchesPerRun = 20;
+		// Entries failing this often are parked and only reported
+		private int maxAttempts = 5;
+		// Lag that is logged as a warning (monitoring can poll /admin/index/queue)
+		private Duration lagWarning = Duration.ofMinutes(5);
+
+		public int getBatchSize() {
+			return batchSize;
+		}
+
+		public void setBatchSize(int batchSize) {
+			this.batchSize = batchSize;
+		}
+
+		public Duration getPollInterval() {
+			return pollInterval;
+		}
+
+		public void setPollInterval(Duration pollInterval) {
+			this.pollInterval = pollInterval;
+		}
+
+		public int getMaxBatchesPerRun() {
+			return maxBatchesPerRun;
+		}
+
+		public void setMaxBatchesPerRun(int maxBatchesPerRun) {
+			this.maxBatchesPerRun = maxBatchesPerRun;
+		}
+
+		public int getMaxAttempts() {
+			return maxAttempts;
+		}
+
+		public void setMaxAttempts(int maxAttempts) {
+			this.maxAttempts = maxAttempts;
+		}
+
+		public Duration getLagWarning() {
+			return lagWarning;
+		}
+
+		public void setLagWarning(Duration lagWarning) {
+			this.lagWarning = lagWarning;
+		}
+	}
+
 	public static class TemplateConfig {
 		private String location = "classpath*:templates/local/";
 
@@ -72,6 +798,7 @@ public class AppServerSpringConfig {
 		private ClassificationConfig classification = new ClassificationConfig();
 		private StrategyConfig chat = new StrategyConfig();
 		private EmbeddingConfig embedding = new EmbeddingConfig();
+		private RagConfig rag = new RagConfig();
 
 		// NEW: Concurrency setting for AI
 		private int concurrency = 2;
@@ -107,12 +834,122 @@ public class AppServerSpringConfig {
 		public void setEmbedding(EmbeddingConfig embedding) {
 			this.embedding = embedding;
 		}
+
+		public RagConfig getRag() {
+			return rag;
+		}
+
+		public void setRag(RagConfig rag) {
+			this.rag = rag;
+		}
+	}
+
+	/** Passage retrieval for the RAG chat (see PassageIndexService). */
+	public static class RagConfig {
+		private String indexPath;
+		// Passage size and the overlap between neighbouring passages, in characters
+		private int passageChars = 800;
+		private int passageOverlap = 120;
+		// Hits taken from each retriever (BM25, vector) before rank fusion
+		private int candidates = 50;
+		// Prompt budget for the passages (estimated at 4 characters per token)
+		private int tokenBudget = 1500;
+		private int maxPassagesPerItem = 4;
+		private Duration indexInterval = Duration.ofSeconds(30);
+		private int indexBatchSize = 20;
+
+		public String getIndexPath() {
+			return indexPath;
+		}
+
+		public void setIndexPath(String indexPath) {
+			this.indexPath = indexPath;
+		}
+
+		public int getPassageChars() {
+			return passageChars;
+		}
+
+		public void setPassageChars(int passageChars) {
+			this.passageChars = passageChars;
+		}
+
+		public int getPassageOverlap() {
+			return passageOverlap;
+		}
+
+		public void setPassageOverlap(int passageOverlap) {
+			this.passageOverlap = passageOverlap;
+		}
+
+		public int getCandidates() {
+			return candidates;
+		}
+
+		public void setCandidates(int candidates) {
+			this.candidates = candidates;
+		}
+
+		public int getTokenBudget() {
+			return tokenBudget;
+		}
+
+		public void setTokenBudget(int tokenBudget) {
+			this.tokenBudget = tokenBudget;
+		}
+
+		public int getMaxPassagesPerItem() {
+			return maxPassagesPerItem;
+		}
+
+		public void setMaxPassagesPerItem(int maxPassagesPerItem) {
+			this.maxPassagesPerItem = maxPassagesPerItem;
+		}
+
+		public Duration getIndexInterval() {
+			return indexInterval;
+		}
+
+		public void setIndexInterval(Duration indexInterval) {
+			this.indexInterval = indexInterval;
+		}
+
+		public int getIndexBatchSize() {
+			return indexBatchSize;
+		}
+
+		public void setIndexBatchSize(int indexBatchSize) {
+			this.indexBatchSize = indexBatchSize;
+		}
 	}
 
 	public static class EmbeddingConfig {
+
+		/** OLLAMA: the configured model; HASHING: local, deterministic feature hashing (no server). */
+		public enum Provider {
+			OLLAMA, HASHING
+		}
+
+		private Provider provider = Provider.OLLAMA;
 		private String url;
 		private String model;
+		// Vector field dimension; changing it (or the model) needs a full reindex
 		private int dimension = 768;
+		// HNSW graph: neighbours per node and candidate list size while building
+		private int hnswM = 16;
+		private int hnswEfConstruction = 100;
+		// Nearest neighbours collected by a semantic search criterion
+		private int searchK = 100;
+		private Duration backfillInterval = Duration.ofMinutes(5);
+		private int backfillBatchSize = 50;
+
+		public Provider getProvider() {
+			return provider;
+		}
+
+		public void setProvider(Provider provider) {
+			this.provider = provider;
+		}
 
 		public String getUrl() {
 			return url;
@@ -137,6 +974,46 @@ public class AppServerSpringConfig {
 		public void setDimension(int dimension) {
 			this.dimension = dimension;
 		}
+
+		public int getHnswM() {
+			return hnswM;
+		}
+
+		public void setHnswM(int hnswM) {
+			this.hnswM = hnswM;
+		}
+
+		public int getHnswEfConstruction() {
+			return hnswEfConstruction;
+		}
+
+		public void setHnswEfConstruction(int hnswEfConstruction) {
+			this.hnswEfConstruction = hnswEfConstruction;
+		}
+
+		public int getSearchK() {
+			return searchK;
+		}
+
+		public void setSearchK(int searchK) {
+			this.searchK = searchK;
+		}
+
+		public Duration getBackfillInterval() {
+			return backfillInterval;
+		}
+
+		public void setBackfillInterval(Duration backfillInterval) {
+			this.backfillInterval = backfillInterval;
+		}
+
+		public int getBackfillBatchSize() {
+			return backfillBatchSize;
+		}
+
+		public void setBackfillBatchSize(int backfillBatchSize) {
+			this.backfillBatchSize = backfillBatchSize;
+		}
 	}
 
 	public static class ClassificationConfig {
@@ -207,6 +1084,18 @@ public class AppServerSpringConfig {
 		// NEW: Specific limit for heavy OCR/PDF operations
 		private int ocrConcurrency = 4;
 
+		// Max characters of the text layer handed to the prediction strategies
+		private int predictionTextLimit = 200_000;
+
+		// Source specific step chains, first match wins (see PipelineProfileService)
+		private List<PipelineProfile> profiles = new ArrayList<>();
+
+		// Per document limits, profiles may override them
+		private Budget budget = new Budget();
+
+		// Java2D clean-up of scans and photos before they reach Tesseract
+		private OcrPreprocessing ocrPreprocessing = new OcrPreprocessing();
+
 		public boolean isConvertTextToPdf() {
 			return convertTextToPdf;
 		}
@@ -238,6 +1127,175 @@ public class AppServerSpringConfig {
 		public void setOcrConcurrency(int ocrConcurrency) {
 			this.ocrConcurrency = ocrConcurrency;
 		}
+
+		public int getPredictionTextLimit() {
+			return predictionTextLimit;
+		}
+
+		public void setPredictionTextLimit(int predictionTextLimit) {
+			this.predictionTextLimit = predictionTextLimit;
+		}
+
+		public List<PipelineProfile> getProfiles() {
+			return profiles;
+		}
+
+		public void setProfiles(List<PipelineProfile> profiles) {
+			this.profiles = profiles;
+		}
+
+		public Budget getBudget() {
+			return budget;
+		}
+
+		public void setBudget(Budget budget) {
+			this.budget = budget;
+		}
+
+		public OcrPreprocessing getOcrPreprocessing() {
+			return ocrPreprocessing;
+		}
+
+		public void setOcrPreprocessing(OcrPreprocessing ocrPreprocessing) {
+			this.ocrPreprocessing = ocrPreprocessing;
+		}
+	}
+
+	/**
+	 * Image normalization before OCR (see ImagePreprocessor). Tesseract works
+	 * best on ~300 dpi grayscale; larger and colour images only cost time.
+	 */
+	public static class OcrPreprocessing {
+		private boolean enabled = true;
+		private int targetDpi = 300;
+		// Used when an image carries no resolution (phone photos): longest side in pixels
+		private int maxDimension = 3500;
+		private boolean grayscale = true;
+		// Tesseract binarizes itself; explicit Otsu helps with coloured paper
+		private boolean binarize = false;
+		private boolean deskew = true;
+		private double maxSkewAngle = 5.0;
+		private boolean cropBorders = true;
+		// Sample scans for the OCR benchmark (admin API), reports go to its "reports" folder
+		private String benchmarkPath;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getTargetDpi() {
+			return targetDpi;
+		}
+
+		public void setTargetDpi(int targetDpi) {
+			this.targetDpi = targetDpi;
+		}
+
+		public int getMaxDimension() {
+			return maxDimension;
+		}
+
+		public void setMaxDimension(int maxDimension) {
+			this.maxDimension = maxDimension;
+		}
+
+		public boolean isGrayscale() {
+			return grayscale;
+		}
+
+		public void setGrayscale(boolean grayscale) {
+			this.grayscale = grayscale;
+		}
+
+		public boolean isBinarize() {
+			return binarize;
+		}
+
+		public void setBinarize(boolean binarize) {
+			this.binarize = binarize;
+		}
+
+		public boolean isDeskew() {
+			return deskew;
+		}
+
+		public void setDeskew(boolean deskew) {
+			this.deskew = deskew;
+		}
+
+		public double getMaxSkewAngle() {
+			return maxSkewAngle;
+		}
+
+		public void setMaxSkewAngle(double maxSkewAngle) {
+			this.maxSkewAngle = maxSkewAngle;
+		}
+
+		public boolean isCropBorders() {
+			return cropBorders;
+		}
+
+		public void setCropBorders(boolean cropBorders) {
+			this.cropBorders = cropBorders;
+		}
+
+		public String getBenchmarkPath() {
+			return benchmarkPath;
+		}
+
+		public void setBenchmarkPath(String benchmarkPath) {
+			this.benchmarkPath = benchmarkPath;
+		}
+	}
+
+	/**
+	 * Processing budget of a single document. When it is used up the pipeline
+	 * degrades (partial text, heuristic prediction) instead of blocking the
+	 * queue.
+	 */
+	public static class Budget {
+		private Duration document = Duration.ofMinutes(10);
+		private long maxTextChars = 20_000_000;
+		// Below this remaining budget the LLM is not called, the heuristic is
+		private Duration aiReserve = Duration.ofSeconds(30);
+		// Schedule a full extraction/OCR in the background for partial text layers
+		private boolean deferOcr = true;
+
+		public Duration getDocument() {
+			return document;
+		}
+
+		public void setDocument(Duration document) {
+			this.document = document;
+		}
+
+		public long getMaxTextChars() {
+			return maxTextChars;
+		}
+
+		public void setMaxTextChars(long maxTextChars) {
+			this.maxTextChars = maxTextChars;
+		}
+
+		public Duration getAiReserve() {
+			return aiReserve;
+		}
+
+		public void setAiReserve(Duration aiReserve) {
+			this.aiReserve = aiReserve;
+		}
+
+		public boolean isDeferOcr() {
+			return deferOcr;
+		}
+
+		public void setDeferOcr(boolean deferOcr) {
+			this.deferOcr = deferOcr;
+		}
 	}
 
 	public static class Server {
@@ -401,4 +1459,140 @@ public class AppServerSpringConfig {
 			this.salt = salt;
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * A pipeline profile. Selection criteria left empty match everything; step
+	 * ids are the step class names without the "Step" suffix (e.g.
+	 * "TextExtraction"). An empty step list runs all steps.
+	 */
+	public static class PipelineProfile {
+		private String name;
+
+		// --- Selection ---
+		private List<String> sourceFolders = new ArrayList<>(); // "mail", "scan", "upload"
+		private List<String> mimeTypes = new ArrayList<>(); // prefix match, e.g. "image/"
+		private DataSize minSize;
+		private DataSize maxSize;
+
+		// --- Behaviour ---
+		private List<String> steps = new ArrayList<>();
+		private Duration stepTimeout; // default for all steps, null = unlimited
+		private Map<String, Duration> stepTimeouts = new HashMap<>();
+		private EOcrPolicy ocr = EOcrPolicy.AUTO;
+		private EAiPolicy ai = EAiPolicy.DEFAULT;
+		private Duration documentBudget; // null = app.processing.budget.document
+		private Long maxTextChars; // null = app.processing.budget.max-text-chars
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public List<String> getSourceFolders() {
+			return sourceFolders;
+		}
+
+		public void setSourceFolders(List<String> sourceFolders) {
+			this.sourceFolders = sourceFolders;
+		}
+
+		public List<String> getMimeTypes() {
+			return mimeTypes;
+		}
+
+		public void setMimeTypes(List<String> mimeTypes) {
+			this.mimeTypes = mimeTypes;
+		}
+
+		public DataSize getMinSize() {
+			return minSize;
+		}
+
+		public void setMinSize(DataSize minSize) {
+			this.minSize = minSize;
+		}
+
+		public DataSize getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(DataSize maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public List<String> getSteps() {
+			return steps;
+		}
+
+		public void setSteps(List<String> steps) {
+			this.steps = steps;
+		}
+
+		public Duration getStepTimeout() {
+			return stepTimeout;
+		}
+
+		public void setStepTimeout(Duration stepTimeout) {
+			this.stepTimeout = stepTimeout;
+		}
+
+		public Map<String, Duration> getStepTimeouts() {
+			return stepTimeouts;
+		}
+
+		public void setStepTimeouts(Map<String, Duration> stepTimeouts) {
+			this.stepTimeouts = stepTimeouts;
+		}
+
+		public EOcrPolicy getOcr() {
+			return ocr;
+		}
+
+		public void setOcr(EOcrPolicy ocr) {
+			this.ocr = ocr;
+		}
+
+		public EAiPolicy getAi() {
+			return ai;
+		}
+
+		public void setAi(EAiPolicy ai) {
+			this.ai = ai;
+		}
+
+		public Duration getDocumentBudget() {
+			return documentBudget;
+		}
+
+		public void setDocumentBudget(Duration documentBudget) {
+			this.documentBudget = documentBudget;
+		}
+
+		public Long getMaxTextChars() {
+			return maxTextChars;
+		}
+
+		public void setMaxTextChars(Long maxTextChars) {
+			this.maxTextChars = maxTextChars;
+		}
+
+		/** True if the step with this id is part of the profile. */
+		public boolean runs(String stepId) {
+			return steps == null || steps.isEmpty() || steps.stream().anyMatch(stepId::equalsIgnoreCase);
+		}
+
+		/** Timeout for a step, or null if unlimited. */
+		public Duration timeoutFor(String stepId) {
+			if (stepTimeouts != null) {
+				for (Map.Entry<String, Duration> e : stepTimeouts.entrySet()) {
+					if (e.getKey().equalsIgnoreCase(stepId))
+						return e.getValue();
+				}
+			}
+			return stepTimeout;
+		}
+	}
+}
@@ -7,21 +7,43 @@
  */
 package net.schwehla.matrosdms.controller;
 
+import java.io.IOException;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.github.kagkarlsson.scheduler.Scheduler;
 import com.github.kagkarlsson.scheduler.task.Task;
 
 import net.schwehla.matrosdms.domain.admin.EJobType;
+import net.schwehla.matrosdms.domain.admin.IndexEncryptionBenchmarkReport;
+import net.schwehla.matrosdms.domain.admin.IndexHealthStats;
+import net.schwehla.matrosdms.domain.admin.IndexQueueStats;
+import net.schwehla.matrosdms.domain.admin.OcrBenchmarkReport;
+import net.schwehla.matrosdms.domain.admin.ReindexScope;
+import net.schwehla.matrosdms.domain.admin.SearchBenchmarkReport;
+import net.schwehla.matrosdms.search.SearchCriteria;
+import net.schwehla.matrosdms.service.IndexEncryptionBenchmarkService;
+import net.schwehla.matrosdms.service.IndexMaintenanceService;
+import net.schwehla.matrosdms.service.IndexQueueService;
+import net.schwehla.matrosdms.service.ReindexService;
+import net.schwehla.matrosdms.service.SearchBenchmarkService;
 import net.schwehla.matrosdms.service.management.H2BackupService;
+import net.schwehla.matrosdms.service.message.ReindexProgressMessage;
+import net.schwehla.matrosdms.service.ocr.OcrBenchmarkService;
 
 import io.swagger.v3.oas.annotations.Operation;
 
@@ -33,13 +55,27 @@ public class AdminController {
 	Scheduler scheduler;
 	@Autowired
 	H2BackupService backupService;
+	@Autowired
+	OcrBenchmarkService ocrBenchmarkService;
+	@Autowired
+	IndexQueueService indexQueueService;
+	@Autowired
+	ReindexService reindexService;
+	@Autowired
+	SearchBenchmarkService searchBenchmarkService;
+	@Autowired
+	IndexMaintenanceService indexMaintenanceService;
+	@Autowired
+	IndexEncryptionBenchmarkService indexEncryptionBenchmarkService;
 
 	@Autowired
-	Task<Void> reindexTask;
+	Task<ReindexScope> reindexTask;
 	@Autowired
 	Task<Void> integrityTask;
 	@Autowired
 	Task<Void> exportTask; // NEW INJECTION
+	@Autowired
+	Task<Boolean> optimizeIndexTask;
 
 	@PostMapping("/jobs/{type}")
 	@Operation(summary = "Start a system job manually")
@@ -58,6 +94,9 @@ public class AdminController {
 			case EXPORT_ARCHIVE: // NEW CASE
 				scheduler.schedule(exportTask.instance(instanceId), Instant.now());
 				break;
+			case OPTIMIZE_SEARCH_INDEX:
+				scheduler.schedule(optimizeIndexTask.instance(instanceId, false), Instant.now());
+				break;
 			default:
 				return ResponseEntity.badRequest().body("Job Type not supported for manual trigger");
 		}
@@ -70,4 +109,86 @@ public class AdminController {
 		backupService.createBackup();
 		return ResponseEntity.ok("Backup initiated.");
 	}
+
+	@PostMapping("/reindex")
+	@Operation(summary = "Reindex the items of a context, store, category subtree, creation date range and/or attribute")
+	public ResponseEntity<String> startScopedReindex(
+			@RequestParam(required = false) String contextUuid,
+			@RequestParam(required = false) String storeUuid,
+			@RequestParam(required = false) String categoryUuid,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdTo,
+			@RequestParam(required = false) String attributeUuid) {
+
+		ReindexScope scope = new ReindexScope(contextUuid, storeUuid, categoryUuid, createdFrom, createdTo,
+				attributeUuid);
+		String instanceId = "manual-" + System.currentTimeMillis();
+		scheduler.schedule(reindexTask.instance(instanceId, scope), Instant.now());
+		return ResponseEntity.accepted().body("Scheduled reindex: " + scope.describe());
+	}
+
+	@GetMapping("/reindex/progress")
+	@Operation(summary = "Progress of the running reindex (204 if none runs)")
+	public ResponseEntity<ReindexProgressMessage> getReindexProgress() {
+		ReindexProgressMessage progress = reindexService.getProgress();
+		return progress != null ? ResponseEntity.ok(progress) : ResponseEntity.noContent().build();
+	}
+
+	@PostMapping("/reindex/cancel")
+	@Operation(summary = "Cancel the running reindex")
+	public ResponseEntity<String> cancelReindex() {
+		return reindexService.cancel()
+				? ResponseEntity.accepted().body("Reindex cancellation requested")
+				: ResponseEntity.notFound().build();
+	}
+
+	@GetMapping("/index/queue")
+	@Operation(summary = "Search indexing queue: pending changes and lag of the oldest one")
+	public ResponseEntity<IndexQueueStats> getIndexQueue() {
+		return ResponseEntity.ok(indexQueueService.getStats());
+	}
+
+	@GetMapping("/index/stats")
+	@Operation(summary = "Search index health: segments, deleted documents and size per file type and field")
+	public ResponseEntity<IndexHealthStats> getIndexStats() {
+		return ResponseEntity.ok(indexMaintenanceService.getStats());
+	}
+
+	@PostMapping("/index/optimize")
+	@Operation(summary = "Force-merge the search index now (without force only if deletes or segments exceed the thresholds)")
+	public ResponseEntity<String> optimizeIndex(@RequestParam(defaultValue = "false") boolean force) {
+		scheduler.schedule(optimizeIndexTask.instance("manual-" + System.currentTimeMillis(), force), Instant.now());
+		return ResponseEntity.accepted().body("Index optimization scheduled");
+	}
+
+	@PostMapping("/index/encryption/benchmark")
+	@Operation(summary = "Compare fulltext search latency on a plaintext and an encrypted copy of the search index (in the system temp folder)")
+	public ResponseEntity<IndexEncryptionBenchmarkReport> benchmarkIndexEncryption(
+			@RequestParam(defaultValue = "20") int queries, @RequestParam(defaultValue = "5") int runs)
+			throws IOException {
+		return ResponseEntity.ok(indexEncryptionBenchmarkService.run(queries, runs));
+	}
+
+	@PostMapping("/ocr/benchmark")
+	@Operation(summary = "Compare OCR time per page with and without image preprocessing on sample scans in the configured benchmark folder; the report is saved there")
+	public ResponseEntity<OcrBenchmarkReport> benchmarkOcr(
+			@RequestParam(required = false) String folder, @RequestParam(defaultValue = "10") int maxFiles)
+			throws IOException {
+		return ResponseEntity.ok(ocrBenchmarkService.run(folder, maxFiles));
+	}
+
+	@GetMapping("/ocr/benchmark/reports")
+	@Operation(summary = "Saved OCR benchmark reports, newest first")
+	public ResponseEntity<List<JsonNode>> getOcrBenchmarkReports(@RequestParam(defaultValue = "20") int limit)
+			throws IOException {
+		return ResponseEntity.ok(ocrBenchmarkService.reports(limit));
+	}
+
+	@PostMapping("/search/benchmark")
+	@Operation(summary = "Time common structured filter combinations (or the given named ones) and report query cache hits")
+	public ResponseEntity<SearchBenchmarkReport> benchmarkSearch(
+			@RequestBody(required = false) Map<String, SearchCriteria> combinations,
+			@RequestParam(defaultValue = "20") int runs) {
+		return ResponseEntity.ok(searchBenchmarkService.run(combinations, runs));
+	}
 }
@@ -28,9 +28,11 @@ import org.springframework.web.multipart.MultipartFile;
 
 import net.schwehla.matrosdms.domain.api.EPipelineStatus;
 import net.schwehla.matrosdms.domain.inbox.InboxFile;
+import net.schwehla.matrosdms.domain.inbox.PipelineProfileStats;
 import net.schwehla.matrosdms.manager.InboxFileManager;
 import net.schwehla.matrosdms.service.InboxPipelineService;
 import net.schwehla.matrosdms.service.message.PipelineStatusMessage;
+import net.schwehla.matrosdms.service.pipeline.PipelineProfileService;
 
 import io.swagger.v3.oas.annotations.Operation;
 
@@ -41,6 +43,8 @@ public class InboxController {
 	InboxFileManager inboxManager;
 	@Autowired
 	InboxPipelineService pipelineService;
+	@Autowired
+	PipelineProfileService profileService;
 
 	Logger log = LoggerFactory.getLogger(InboxController.class);
 
@@ -56,6 +60,12 @@ public class InboxController {
 		return new ResponseEntity<>(inboxManager.loadInboxList(), HttpStatus.OK);
 	}
 
+	@GetMapping("/inbox/profiles/stats")
+	@Operation(summary = "Throughput per pipeline profile since startup")
+	public ResponseEntity<List<PipelineProfileStats>> getProfileStats() {
+		return ResponseEntity.ok(profileService.getStats());
+	}
+
 	@GetMapping("/inbox/{hash}/status")
 	public ResponseEntity<InboxFile> getFileStatus(@PathVariable("hash") String hash) {
 		InboxFile file = inboxManager.getInboxFileDto(hash);
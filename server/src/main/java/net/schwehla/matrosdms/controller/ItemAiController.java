@@ -7,9 +7,19 @@
  */
 package net.schwehla.matrosdms.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.servlet.http.HttpServletResponse;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -24,7 +34,9 @@ import net.schwehla.matrosdms.domain.ai.EAiInstruction;
 import net.schwehla.matrosdms.domain.ai.EAiOutputFormat;
 import net.schwehla.matrosdms.domain.ai.OllamaRequest;
 import net.schwehla.matrosdms.domain.ai.OllamaResponse;
+import net.schwehla.matrosdms.service.TextLayerService;
 import net.schwehla.matrosdms.store.MatrosObjectStoreService;
+import net.schwehla.matrosdms.util.TextLayerPageIndex;
 import net.schwehla.matrosdms.util.TextLayerUtils;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -34,9 +46,13 @@ import io.swagger.v3.oas.annotations.Parameter;
 @RequestMapping("/items")
 public class ItemAiController {
 
+	private static final int MAX_PROMPT_CHARS = 12000;
+
 	@Autowired
 	MatrosObjectStoreService storeService;
 	@Autowired
+	TextLayerService textLayerService;
+	@Autowired
 	AppServerSpringConfig appConfig;
 
 	@Autowired
@@ -45,12 +61,58 @@ public class ItemAiController {
 
 	@GetMapping("/{uuid}/text")
 	@Operation(summary = "Get the raw text content (cleaned)", description = "Returns the text layer stripped of XML tags")
-	public ResponseEntity<String> getRawText(@PathVariable String uuid) {
-		String rawXml = storeService.loadTextLayer(uuid);
-		if (rawXml == null || rawXml.isEmpty()) {
-			return ResponseEntity.notFound().build();
+	public void getRawText(@PathVariable String uuid, HttpServletResponse response) throws IOException {
+		// Streamed synchronously: large layers must not be buffered, and an async
+		// StreamingResponseBody would run into spring.mvc.async.request-timeout
+		try (InputStream layer = storeService.openTextLayer(uuid)) {
+			if (layer == null) {
+				response.sendError(HttpServletResponse.SC_NOT_FOUND);
+				return;
+			}
+			// Peek before the response is committed: an empty layer is still a 404
+			PushbackReader text = new PushbackReader(TextLayerUtils.openCleanText(layer));
+			int first = text.read();
+			if (first == -1) {
+				response.sendError(HttpServletResponse.SC_NOT_FOUND);
+				return;
+			}
+			text.unread(first);
+			response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+			response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+			Writer out = response.getWriter();
+			text.transferTo(out);
+			out.flush();
+		}
+	}
+
+	@GetMapping("/{uuid}/text/pages")
+	@Operation(summary = "Get the text of a page range", description = "Reads only the requested pages of the text layer. The total page count is returned in the X-Total-Pages header.")
+	public void getPageText(
+			@PathVariable String uuid,
+			@Parameter(description = "First page (1-based)") @RequestParam(defaultValue = "1") int from,
+			@Parameter(description = "Last page (inclusive), defaults to 'from'") @RequestParam(required = false) Integer to,
+			HttpServletResponse response) throws IOException {
+
+		TextLayerPageIndex index = textLayerService.getPageIndex(uuid);
+		if (index == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		int last = to != null ? to : from;
+		if (from < 1 || last < from) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid page range");
+			return;
+		}
+
+		response.setHeader("X-Total-Pages", String.valueOf(index.getPageCount()));
+		response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		try (Reader pages = textLayerService.openPages(uuid, from, last)) {
+			Writer out = response.getWriter();
+			if (pages != null)
+				pages.transferTo(out);
+			out.flush();
 		}
-		return ResponseEntity.ok(TextLayerUtils.extractCleanText(rawXml));
 	}
 
 	@PostMapping("/{uuid}/ai/transform")
@@ -62,16 +124,20 @@ public class ItemAiController {
 			@Parameter(description = "Format of the result") @RequestParam(defaultValue = "MARKDOWN") EAiOutputFormat format) {
 
 		// 1. Load Data
-		String rawXml = storeService.loadTextLayer(uuid);
-		if (rawXml == null || rawXml.isEmpty()) {
-			return ResponseEntity.status(404).body("No text layer found for this item.");
+		String cleanText;
+		try (InputStream layer = storeService.openTextLayer(uuid)) {
+			if (layer == null) {
+				return ResponseEntity.status(404).body("No text layer found for this item.");
+			}
+			// Read one char more than the limit to detect truncation
+			cleanText = TextLayerUtils.readCleanText(layer, MAX_PROMPT_CHARS + 1);
+		} catch (IOException e) {
+			return ResponseEntity.status(500).body("Text layer could not be read.");
 		}
 
-		String cleanText = TextLayerUtils.extractCleanText(rawXml);
-
 		// Truncate to avoid context window overflow (approx 12k chars ~ 3k tokens)
-		if (cleanText.length() > 12000)
-			cleanText = cleanText.substring(0, 12000) + "\n...[truncated]";
+		if (cleanText.length() > MAX_PROMPT_CHARS)
+			cleanText = cleanText.substring(0, MAX_PROMPT_CHARS) + "\n...[truncated]";
 
 		// 2. Build Structured Prompt
 		String prompt = buildPrompt(instruction, format, cleanText);
@@ -37,7 +37,7 @@ public class NotificationController {
 	public SseEmitter subscribe(@AuthenticationPrincipal DBUser user) {
 		// Timeout: 1 Hour
 		SseEmitter emitter = new SseEmitter(3600_000L);
-		messageBus.addEmitter(emitter);
+		messageBus.addEmitter(emitter, user != null ? user.getUuid() : null);
 		return emitter;
 	}
 }
@@ -7,17 +7,32 @@
  */
 package net.schwehla.matrosdms.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.servlet.http.HttpServletResponse;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import net.schwehla.matrosdms.domain.search.EExportFormat;
+import net.schwehla.matrosdms.domain.search.ESearchSort;
+import net.schwehla.matrosdms.domain.search.MSearchCursorPage;
+import net.schwehla.matrosdms.domain.search.MSearchFacets;
 import net.schwehla.matrosdms.domain.search.MSearchResult;
 import net.schwehla.matrosdms.search.SearchCriteria;
+import net.schwehla.matrosdms.service.SearchExportService;
 import net.schwehla.matrosdms.service.SearchService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -27,16 +42,19 @@ public class SearchController {
 
 	@Autowired
 	SearchService searchService;
+	@Autowired
+	SearchExportService exportService;
 
 	@GetMapping("/search")
 	@Operation(summary = "Simple Fulltext Search (Paged)")
 	public ResponseEntity<Page<MSearchResult>> searchSimple(
 			@RequestParam("q") String query,
 			@RequestParam(name = "offset", defaultValue = "0") int offset,
-			@RequestParam(name = "limit", defaultValue = "20") int limit) {
+			@RequestParam(name = "limit", defaultValue = "20") int limit,
+			@RequestParam(name = "highlight", defaultValue = "true") boolean highlight) {
 
 		SearchCriteria criteria = SearchCriteria.forText(query);
-		return ResponseEntity.ok(searchService.search(criteria, offset, limit));
+		return ResponseEntity.ok(searchService.search(criteria, offset, limit, highlight));
 	}
 
 	@PostMapping("/search")
@@ -44,8 +62,102 @@ public class SearchController {
 	public ResponseEntity<Page<MSearchResult>> searchStructured(
 			@RequestBody SearchCriteria query,
 			@RequestParam(name = "offset", defaultValue = "0") int offset,
-			@RequestParam(name = "limit", defaultValue = "20") int limit) {
+			@RequestParam(name = "limit", defaultValue = "20") int limit,
+			@RequestParam(name = "highlight", defaultValue = "true") boolean highlight) {
+
+		return ResponseEntity.ok(searchService.search(query, offset, limit, highlight));
+	}
+
+	@PostMapping("/search/cursor")
+	@Operation(summary = "Execute Structured Search with cursor paging (infinite scrolling, exports); not in SCORE order")
+	public ResponseEntity<MSearchCursorPage> searchStructuredCursor(
+			@RequestBody SearchCriteria query,
+			@RequestParam(name = "sort", defaultValue = "CREATED") ESearchSort sort,
+			@RequestParam(name = "sortAttribute", required = false) String sortAttribute,
+			@RequestParam(name = "desc", defaultValue = "true") boolean descending,
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "limit", defaultValue = "50") int limit) {
+
+		return ResponseEntity.ok(searchService.searchAfter(query, sort, sortAttribute, descending, cursor, limit));
+	}
+
+	@PostMapping("/search/facets")
+	@Operation(summary = "Execute Structured Search (Paged) with context, category, store, source, date and attribute facets")
+	public ResponseEntity<MSearchFacets> searchStructuredWithFacets(
+			@RequestBody SearchCriteria query,
+			@RequestParam(name = "offset", defaultValue = "0") int offset,
+			@RequestParam(name = "limit", defaultValue = "20") int limit,
+			@RequestParam(name = "highlight", defaultValue = "true") boolean highlight,
+			@RequestParam(name = "attributes", required = false) List<String> attributes,
+			@RequestParam(name = "attributeRanges", required = false) List<String> attributeRanges,
+			@RequestParam(name = "facetSize", defaultValue = "50") int facetSize) {
+
+		return ResponseEntity.ok(searchService.searchWithFacets(query, offset, limit, highlight, attributes,
+				attributeRanges, facetSize));
+	}
+
+	@PostMapping("/search/export")
+	@Operation(summary = "Export all hits of a search as CSV, JSON Lines or ZIP of the documents", description = "Streamed page by page through the search cursor. The export id in the X-Export-Id header cancels it.")
+	public void export(
+			@RequestBody SearchCriteria query,
+			@RequestParam(name = "format", defaultValue = "CSV") EExportFormat format,
+			@RequestParam(name = "sort", defaultValue = "CREATED") ESearchSort sort,
+			@RequestParam(name = "sortAttribute", required = false) String sortAttribute,
+			@RequestParam(name = "desc", defaultValue = "false") boolean descending,
+			HttpServletResponse response) throws IOException {
+
+		// Refused (429) before the response turns into a stream
+		String id = exportService.open();
+		response.setHeader("X-Export-Id", id);
+		response.setContentType(format.getContentType());
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+				.filename("search-export." + format.getExtension())
+				.build()
+				.toString());
+
+		// Streamed synchronously: an async StreamingResponseBody would run into
+		// spring.mvc.async.request-timeout on large exports
+		OutputStream out = response.getOutputStream();
+		exportService.export(id, query, format, sort, sortAttribute, descending, out);
+		out.flush();
+	}
+
+	@PostMapping("/search/export/{id}/cancel")
+	@Operation(summary = "Cancel a running export; it ends with the items written so far")
+	public ResponseEntity<Void> cancelExport(@PathVariable("id") String id) {
+		return exportService.cancel(id)
+				? ResponseEntity.accepted().build()
+				: ResponseEntity.notFound().build();
+	}
+
+	@PostMapping("/search/highlight")
+	@Operation(summary = "Fulltext snippets for the given hits of a search (lazy highlighting of visible rows)")
+	public ResponseEntity<Map<String, List<String>>> highlight(
+			@RequestBody SearchCriteria query,
+			@RequestParam(name = "uuids") List<String> uuids) {
+
+		return ResponseEntity.ok(searchService.highlight(query, uuids));
+	}
+
+	@GetMapping("/search/similar/{uuid}")
+	@Operation(summary = "Items similar in meaning to the given item (nearest embeddings), optionally within a context or store")
+	public ResponseEntity<List<MSearchResult>> similar(
+			@PathVariable("uuid") String uuid,
+			@RequestParam(name = "context", required = false) String contextUuid,
+			@RequestParam(name = "store", required = false) String storeUuid,
+			@RequestParam(name = "limit", defaultValue = "10") int limit) {
+
+		return ResponseEntity.ok(searchService.findSimilar(uuid, contextUuid, storeUuid, Math.min(limit, 100)));
+	}
+
+	@GetMapping("/search/more-like-this/{uuid}")
+	@Operation(summary = "Items sharing the most distinctive terms with the given item (fulltext and metadata), optionally within a context or store")
+	public ResponseEntity<List<MSearchResult>> moreLikeThis(
+			@PathVariable("uuid") String uuid,
+			@RequestParam(name = "context", required = false) String contextUuid,
+			@RequestParam(name = "store", required = false) String storeUuid,
+			@RequestParam(name = "limit", defaultValue = "10") int limit) {
 
-		return ResponseEntity.ok(searchService.search(query, offset, limit));
+		return ResponseEntity.ok(searchService.findMoreLikeThis(uuid, contextUuid, storeUuid, Math.min(limit, 100)));
 	}
 }
@@ -11,16 +11,14 @@ import java.util.Collections;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import net.schwehla.matrosdms.repository.CategoryRepository;
-import net.schwehla.matrosdms.repository.ContextRepository;
-import net.schwehla.matrosdms.repository.StoreRepository;
+import net.schwehla.matrosdms.domain.search.MSuggestion;
+import net.schwehla.matrosdms.service.SuggestionService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -30,11 +28,7 @@ import io.swagger.v3.oas.annotations.Parameter;
 public class SearchSuggestionController {
 
 	@Autowired
-	CategoryRepository categoryRepository;
-	@Autowired
-	ContextRepository contextRepository;
-	@Autowired
-	StoreRepository storeRepository;
+	SuggestionService suggestionService;
 
 	@GetMapping
 	@Operation(summary = "Autocomplete/Suggestions for MQL Dimensions", description = "Returns a list of names matching the query for a specific dimension (who, where, folder,"
@@ -47,47 +41,19 @@ public class SearchSuggestionController {
 			return ResponseEntity.ok(Collections.emptyList());
 		}
 
-		PageRequest limit = PageRequest.of(0, 10);
-		List<String> results = Collections.emptyList();
-
-		switch (field.toLowerCase()) {
-			case "folder":
-			case "context":
-			case "ref":
-				results = contextRepository.suggestNames(query, limit);
-				break;
-
-			case "store":
-			case "box":
-				// Inline implementation for Store as it wasn't added to Repo interface in patch
-				// In production, move to Repo. Here we cast/mock or use simple JPA logic if
-				// repo method
-				// exists.
-				// Assuming StoreRepository has similar findAll or we fallback:
-				results = storeRepository.findAll().stream()
-						.map(s -> s.getShortname())
-						.filter(n -> n.toLowerCase().contains(query.toLowerCase()))
-						.limit(10)
-						.toList();
-				break;
-
-			case "who":
-			case "what":
-			case "where":
-			case "kind":
-			case "tag":
-			case "cat":
-				// Searches ALL categories.
-				// Ideally, you'd filter by Root UUID (e.g. ROOT_WHO) if the field is 'who'.
-				// But global category search is often good enough for UI dropdowns.
-				results = categoryRepository.suggestNames(query, limit);
-				break;
-
-			default:
-				// No suggestions for fulltext or dates
-				break;
-		}
+		// Prefix, infix and typo tolerant lookup in the in-memory index,
+		// categories restricted to the root of the dimension (who -> ROOT_WHO)
+		return ResponseEntity.ok(suggestionService.suggestLabels(field, query, SuggestionService.DEFAULT_LIMIT));
+	}
 
-		return ResponseEntity.ok(results);
+	@GetMapping("/entries")
+	@Operation(summary = "Ranked suggestions with type, value and path", description = "Prefix, infix and fuzzy matches over contexts,"
+			+ " categories (with path), stores, attributes, attribute values and file names, most used first. Without"
+			+ " field all kinds are searched.")
+	public ResponseEntity<List<MSuggestion>> getSuggestionEntries(
+			@Parameter(description = "User input so far", required = true) @RequestParam("q") String query,
+			@Parameter(description = "MQL Key (e.g. 'who', 'folder', 'attr', 'file'); empty for all") @RequestParam(value = "field", required = false) String field,
+			@RequestParam(value = "limit", defaultValue = "10") int limit) {
+		return ResponseEntity.ok(suggestionService.suggest(field, query, limit));
 	}
 }
@@ -8,6 +8,7 @@
 package net.schwehla.matrosdms.controller;
 
 import java.util.List;
+import java.util.Map;
 
 import jakarta.validation.Valid;
 
@@ -19,6 +20,7 @@ import org.springframework.web.bind.annotation.*;
 
 import net.schwehla.matrosdms.domain.core.MUser;
 import net.schwehla.matrosdms.entity.management.DBUser;
+import net.schwehla.matrosdms.service.SavedSearchSubscriptionService;
 import net.schwehla.matrosdms.service.domain.UserService;
 import net.schwehla.matrosdms.service.message.CreateUserMessage;
 import net.schwehla.matrosdms.service.message.SavedSearchMessage;
@@ -33,6 +35,8 @@ public class UserController {
 
 	@Autowired
 	UserService userService;
+	@Autowired
+	SavedSearchSubscriptionService subscriptionService;
 
 	// --- STANDARD CRUD ---
 
@@ -99,4 +103,29 @@ public class UserController {
 		userService.removeSavedSearch(user.getUuid(), name);
 		return ResponseEntity.ok().build();
 	}
+
+	// --- WATCHED SAVED SEARCHES ---
+
+	@GetMapping("/me/searches/matches")
+	@Operation(summary = "Unseen new items per watched saved search of the current user")
+	public ResponseEntity<Map<String, Long>> getMySearchMatchCounts(
+			@Parameter(hidden = true) @AuthenticationPrincipal DBUser user) {
+		return ResponseEntity.ok(subscriptionService.unseenCounts(user.getPK()));
+	}
+
+	@GetMapping("/me/searches/{name}/matches")
+	@Operation(summary = "Items that matched a watched saved search since it was saved, newest first")
+	public ResponseEntity<List<String>> getMySearchMatches(
+			@Parameter(hidden = true) @AuthenticationPrincipal DBUser user, @PathVariable String name,
+			@RequestParam(name = "limit", defaultValue = "100") int limit) {
+		return ResponseEntity.ok(subscriptionService.matchedItems(user.getPK(), name, Math.min(limit, 1000)));
+	}
+
+	@PostMapping("/me/searches/{name}/seen")
+	@Operation(summary = "Mark the matches of a watched saved search as seen (resets its counter)")
+	public ResponseEntity<Void> markSearchSeen(
+			@Parameter(hidden = true) @AuthenticationPrincipal DBUser user, @PathVariable String name) {
+		subscriptionService.markSeen(user.getPK(), name);
+		return ResponseEntity.ok().build();
+	}
 }
@@ -11,5 +11,6 @@ import io.swagger.v3.oas.annotations.media.Schema;
 
 @Schema(enumAsRef = true)
 public enum EJobType {
-	INTEGRITY_CHECK, EXPORT_ARCHIVE, REINDEX_SEARCH // <--- Required for the Rebuild Button
+	INTEGRITY_CHECK, EXPORT_ARCHIVE, REINDEX_SEARCH, // <--- Required for the Rebuild Button
+	OPTIMIZE_SEARCH_INDEX
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.domain.admin;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Search latency on a copy of the item index, plaintext against encrypted")
+public class IndexEncryptionBenchmarkReport {
+
+	@Schema(description = "Documents in the copy")
+	private long documents;
+
+	@Schema(description = "Size of the plaintext copy in bytes")
+	private long plainBytes;
+
+	@Schema(description = "Size of the encrypted copy in bytes")
+	private long encryptedBytes;
+
+	@Schema(description = "Plaintext bytes per encrypted block")
+	private int blockSize;
+
+	@Schema(description = "Fulltext terms searched (the most frequent ones)")
+	private List<String> queries;
+
+	@Schema(description = "Passes over all queries per mode; the first is reported separately")
+	private int runs;
+
+	@Schema(description = "Plaintext directory")
+	private Mode plain;
+
+	@Schema(description = "Encrypted directory with block cache")
+	private Mode encrypted;
+
+	@Schema(description = "Extra latency of the encrypted directory after the first pass in percent")
+	private double overheadPercent;
+
+	@Schema(description = "Block reads answered from the cache in percent")
+	private double cacheHitPercent;
+
+	@Schema(description = "Decrypted blocks in the cache at the end in bytes")
+	private long cacheBytes;
+
+	// Constructor
+	public IndexEncryptionBenchmarkReport(
+			long documents, long plainBytes, long encryptedBytes, int blockSize, List<String> queries, int runs,
+			Mode plain, Mode encrypted, double overheadPercent, double cacheHitPercent, long cacheBytes) {
+		this.documents = documents;
+		this.plainBytes = plainBytes;
+		this.encryptedBytes = encryptedBytes;
+		this.blockSize = blockSize;
+		this.queries = queries;
+		this.runs = runs;
+		this.plain = plain;
+		this.encrypted = encrypted;
+		this.overheadPercent = overheadPercent;
+		this.cacheHitPercent = cacheHitPercent;
+		this.cacheBytes = cacheBytes;
+	}
+
+	// Getters
+	public long getDocuments() {
+		return documents;
+	}
+
+	public long getPlainBytes() {
+		return plainBytes;
+	}
+
+	public long getEncryptedBytes() {
+		return encryptedBytes;
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	public List<String> getQueries() {
+		return queries;
+	}
+
+	public int getRuns() {
+		return runs;
+	}
+
+	public Mode getPlain() {
+		return plain;
+	}
+
+	public Mode getEncrypted() {
+		return encrypted;
+	}
+
+	public double getOverheadPercent() {
+		return overheadPercent;
+	}
+
+	public double getCacheHitPercent() {
+		return cacheHitPercent;
+	}
+
+	public long getCacheBytes() {
+		return cacheBytes;
+	}
+
+	@Schema(description = "Latency of one directory mode")
+	public static class Mode {
+
+		@Schema(description = "Opening the index reader in milliseconds")
+		private double openMillis;
+
+		@Schema(description = "First pass over all queries in milliseconds (cold block cache)")
+		private double firstPassMillis;
+
+		@Schema(description = "Average query of the following passes in milliseconds")
+		private double averageMillis;
+
+		@Schema(description = "95th percentile query of the following passes in milliseconds")
+		private double p95Millis;
+
+		// Constructor
+		public Mode(double openMillis, double firstPassMillis, double averageMillis, double p95Millis) {
+			this.openMillis = openMillis;
+			this.firstPassMillis = firstPassMillis;
+			this.averageMillis = averageMillis;
+			this.p95Millis = p95Millis;
+		}
+
+		// Getters
+		public double getOpenMillis() {
+			return openMillis;
+		}
+
+		public double getFirstPassMillis() {
+			return firstPassMillis;
+		}
+
+		public double getAverageMillis() {
+			return averageMillis;
+		}
+
+		public double getP95Millis() {
+			return p95Millis;
+		}
+	}
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.domain.admin;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Segments, deleted documents and size of the item search index")
+public class IndexHealthStats {
+
+	@Schema(description = "Number of segments")
+	private int segmentCount;
+
+	@Schema(description = "Live documents")
+	private long documents;
+
+	@Schema(description = "Deleted documents still taking space until their segments are merged")
+	private long deletedDocuments;
+
+	@Schema(description = "Deleted share of all documents in percent")
+	private double deletedPercent;
+
+	@Schema(description = "Size of the live segments in bytes")
+	private long sizeBytes;
+
+	@Schema(description = "Size of all files in the index directory in bytes (includes files not yet cleaned up)")
+	private long directoryBytes;
+
+	@Schema(description = "Size of the live segments per file type in bytes (postings, stored fields, doc values, ...)")
+	private Map<String, Long> sizeByFileType;
+
+	@Schema(description = "Segments, largest first")
+	private List<Segment> segments;
+
+	@Schema(description = "Indexed fields, largest postings first")
+	private List<Field> fields;
+
+	@Schema(description = "End of the last forced merge since start (null if none ran)")
+	private Instant lastOptimized;
+
+	@Schema(description = "Duration of the last forced merge in milliseconds")
+	private long lastOptimizeMillis;
+
+	@Schema(description = "Index files are encrypted")
+	private boolean encrypted;
+
+	@Schema(description = "Decrypted blocks held by the block cache in bytes (0 if not encrypted)")
+	private long blockCacheBytes;
+
+	@Schema(description = "Block reads answered from the cache in percent")
+	private double blockCacheHitPercent;
+
+	// Constructor
+	public IndexHealthStats(
+			int segmentCount, long documents, long deletedDocuments, double deletedPercent, long sizeBytes,
+			long directoryBytes, Map<String, Long> sizeByFileType, List<Segment> segments, List<Field> fields,
+			Instant lastOptimized, long lastOptimizeMillis, boolean encrypted, long blockCacheBytes,
+			double blockCacheHitPercent) {
+		this.segmentCount = segmentCount;
+		this.documents = documents;
+		this.deletedDocuments = deletedDocuments;
+		this.deletedPercent = deletedPercent;
+		this.sizeBytes = sizeBytes;
+		this.directoryBytes = directoryBytes;
+		this.sizeByFileType = sizeByFileType;
+		this.segments = segments;
+		this.fields = fields;
+		this.lastOptimized = lastOptimized;
+		this.lastOptimizeMillis = lastOptimizeMillis;
+		this.encrypted = encrypted;
+		this.blockCacheBytes = blockCacheBytes;
+		this.blockCacheHitPercent = blockCacheHitPercent;
+	}
+
+	// Getters
+	public int getSegmentCount() {
+		return segmentCount;
+	}
+
+	public long getDocuments() {
+		return documents;
+	}
+
+	public long getDeletedDocuments() {
+		return deletedDocuments;
+	}
+
+	public double getDeletedPercent() {
+		return deletedPercent;
+	}
+
+	public long getSizeBytes() {
+		return sizeBytes;
+	}
+
+	public long getDirectoryBytes() {
+		return directoryBytes;
+	}
+
+	public Map<String, Long> getSizeByFileType() {
+		return sizeByFileType;
+	}
+
+	public List<Segment> getSegments() {
+		return segments;
+	}
+
+	public List<Field> getFields() {
+		return fields;
+	}
+
+	public Instant getLastOptimized() {
+		return lastOptimized;
+	}
+
+	public long getLastOptimizeMillis() {
+		return lastOptimizeMillis;
+	}
+
+	public boolean isEncrypted() {
+		return encrypted;
+	}
+
+	public long getBlockCacheBytes() {
+		return blockCacheBytes;
+	}
+
+	public double getBlockCacheHitPercent() {
+		return blockCacheHitPercent;
+	}
+
+	@Schema(description = "One index segment")
+	public static class Segment {
+
+		@Schema(description = "Segment name, e.g. \"_4f\"")
+		private String name;
+
+		@Schema(description = "Live documents")
+		private long documents;
+
+		@Schema(description = "Deleted documents")
+		private long deletedDocuments;
+
+		@Schema(description = "Size in bytes")
+		private long sizeBytes;
+
+		@Schema(description = "Stored as one compound file")
+		private boolean compound;
+
+		// Constructor
+		public Segment(String name, long documents, long deletedDocuments, long sizeBytes, boolean compound) {
+			this.name = name;
+			this.documents = documents;
+			this.deletedDocuments = deletedDocuments;
+			this.sizeBytes = sizeBytes;
+			this.compound = compound;
+		}
+
+		// Getters
+		public String getName() {
+			return name;
+		}
+
+		public long getDocuments() {
+			return documents;
+		}
+
+		public long getDeletedDocuments() {
+			return deletedDocuments;
+		}
+
+		public long getSizeBytes() {
+			return sizeBytes;
+		}
+
+		public boolean isCompound() {
+			return compound;
+		}
+	}
+
+	@Schema(description = "Index statistics of one field, summed over the segments")
+	public static class Field {
+
+		@Schema(description = "Field name, e.g. \"fulltext\" or \"attrNum.<uuid>\"")
+		private String name;
+
+		@Schema(description = "Documents with terms in the field")
+		private long documents;
+
+		@Schema(description = "Distinct terms (summed per segment, so an upper bound)")
+		private long terms;
+
+		@Schema(description = "Postings (term occurrences), the main driver of the field's size")
+		private long postings;
+
+		@Schema(description = "Doc values type (NONE if the field has none)")
+		private String docValues;
+
+		@Schema(description = "Dimensions of indexed points (numbers, dates), 0 if none")
+		private int pointDimensions;
+
+		@Schema(description = "Dimensions of the indexed vector, 0 if none")
+		private int vectorDimensions;
+
+		// Constructor
+		public Field(String name, long documents, long terms, long postings, String docValues, int pointDimensions,
+				int vectorDimensions) {
+			this.name = name;
+			this.documents = documents;
+			this.terms = terms;
+			this.postings = postings;
+			this.docValues = docValues;
+			this.pointDimensions = pointDimensions;
+			this.vectorDimensions = vectorDimensions;
+		}
+
+		// Getters
+		public String getName() {
+			return name;
+		}
+
+		public long getDocuments() {
+			return documents;
+		}
+
+		public long getTerms() {
+			return terms;
+		}
+
+		public long getPostings() {
+			return postings;
+		}
+
+		public String getDocValues() {
+			return docValues;
+		}
+
+		public int getPointDimensions() {
+			return pointDimensions;
+		}
+
+		public int getVectorDimensions() {
+			return vectorDimensions;
+		}
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.domain.admin;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Search indexing queue state")
+public class IndexQueueStats {
+
+	@Schema(description = "Changes waiting to be indexed")
+	private long pending;
+
+	@Schema(description = "Changes parked after repeated indexing failures")
+	private long failed;
+
+	@Schema(description = "Enqueue time of the oldest unindexed change (null if the queue is empty)")
+	private LocalDateTime oldestPending;
+
+	@Schema(description = "Age of the oldest unindexed change in seconds (0 if the queue is empty)")
+	private long lagSeconds;
+
+	@Schema(description = "Items indexed since start (after coalescing)")
+	private long indexedItems;
+
+	@Schema(description = "Queue entries consumed since start")
+	private long consumedEntries;
+
+	@Schema(description = "Batches committed since start")
+	private long batches;
+
+	@Schema(description = "Duration of the last batch in milliseconds")
+	private long lastBatchMillis;
+
+	@Schema(description = "End of the last drain run")
+	private Instant lastDrain;
+
+	// Constructor
+	public IndexQueueStats(
+			long pending, long failed, LocalDateTime oldestPending, long lagSeconds, long indexedItems,
+			long consumedEntries, long batches, long lastBatchMillis, Instant lastDrain) {
+		this.pending = pending;
+		this.failed = failed;
+		this.oldestPending = oldestPending;
+		this.lagSeconds = lagSeconds;
+		this.indexedItems = indexedItems;
+		this.consumedEntries = consumedEntries;
+		this.batches = batches;
+		this.lastBatchMillis = lastBatchMillis;
+		this.lastDrain = lastDrain;
+	}
+
+	// Getters
+	public long getPending() {
+		return pending;
+	}
+
+	public long getFailed() {
+		return failed;
+	}
+
+	public LocalDateTime getOldestPending() {
+		return oldestPending;
+	}
+
+	public long getLagSeconds() {
+		return lagSeconds;
+	}
+
+	public long getIndexedItems() {
+		return indexedItems;
+	}
+
+	public long getConsumedEntries() {
+		return consumedEntries;
+	}
+
+	public long getBatches() {
+		return batches;
+	}
+
+	public long getLastBatchMillis() {
+		return lastBatchMillis;
+	}
+
+	public Instant getLastDrain() {
+		return lastDrain;
+	}
+}
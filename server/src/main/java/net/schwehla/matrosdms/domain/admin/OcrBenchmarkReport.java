@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.domain.admin;
+
+import java.time.Instant;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "OCR time per page with and without image preprocessing")
+public class OcrBenchmarkReport {
+
+	@Schema(description = "Time of the run")
+	private Instant created;
+
+	@Schema(description = "Corpus folder, relative to the configured benchmark folder (empty for the folder itself)")
+	private String corpus;
+
+	@Schema(description = "Preprocessing settings of the run")
+	private String settings;
+
+	@Schema(description = "Benchmarked files")
+	private List<Entry> files;
+
+	@Schema(description = "Average OCR milliseconds per page, Tika on the original file")
+	private double rawMillisPerPage;
+
+	@Schema(description = "Average OCR milliseconds per page, normalized pages")
+	private double preprocessedMillisPerPage;
+
+	@Schema(description = "Average ground truth word recall of the original file (-1 if no ground truth)")
+	private double rawRecall;
+
+	@Schema(description = "Average ground truth word recall of the normalized pages (-1 if no ground truth)")
+	private double preprocessedRecall;
+
+	// Constructor
+	public OcrBenchmarkReport(
+			Instant created, String corpus, String settings, List<Entry> files, double rawMillisPerPage,
+			double preprocessedMillisPerPage, double rawRecall, double preprocessedRecall) {
+		this.created = created;
+		this.corpus = corpus;
+		this.settings = settings;
+		this.files = files;
+		this.rawMillisPerPage = rawMillisPerPage;
+		this.preprocessedMillisPerPage = preprocessedMillisPerPage;
+		this.rawRecall = rawRecall;
+		this.preprocessedRecall = preprocessedRecall;
+	}
+
+	// Getters
+	public Instant getCreated() {
+		return created;
+	}
+
+	public String getCorpus() {
+		return corpus;
+	}
+
+	public String getSettings() {
+		return settings;
+	}
+
+	public List<Entry> getFiles() {
+		return files;
+	}
+
+	public double getRawMillisPerPage() {
+		return rawMillisPerPage;
+	}
+
+	public double getPreprocessedMillisPerPage() {
+		return preprocessedMillisPerPage;
+	}
+
+	public double getRawRecall() {
+		return rawRecall;
+	}
+
+	public double getPreprocessedRecall() {
+		return preprocessedRecall;
+	}
+
+	@Schema(description = "Benchmark result of a single file")
+	public static class Entry {
+
+		@Schema(description = "File name")
+		private String file;
+
+		@Schema(description = "Number of pages")
+		private int pages;
+
+		@Schema(description = "OCR duration on the original file")
+		private long rawMillis;
+
+		@Schema(description = "Preprocessing and OCR duration")
+		private long preprocessedMillis;
+
+		@Schema(description = "Characters recognized from the original file")
+		private long rawChars;
+
+		@Schema(description = "Characters recognized from the normalized pages")
+		private long preprocessedChars;
+
+		@Schema(description = "Share of ground truth words found in the original OCR (-1 if no ground truth)")
+		private double rawRecall;
+
+		@Schema(description = "Share of ground truth words found after preprocessing (-1 if no ground truth)")
+		private double preprocessedRecall;
+
+		// Constructor
+		public Entry(
+				String file, int pages, long rawMillis, long preprocessedMillis, long rawChars,
+				long preprocessedChars, double rawRecall, double preprocessedRecall) {
+			this.file = file;
+			this.pages = pages;
+			this.rawMillis = rawMillis;
+			this.preprocessedMillis = preprocessedMillis;
+			this.rawChars = rawChars;
+			this.preprocessedChars = preprocessedChars;
+			this.rawRecall = rawRecall;
+			this.preprocessedRecall = preprocessedRecall;
+		}
+
+		// Getters
+		public String getFile() {
+			return file;
+		}
+
+		public int getPages() {
+			return pages;
+		}
+
+		public long getRawMillis() {
+			return rawMillis;
+		}
+
+		public long getPreprocessedMillis() {
+			return preprocessedMillis;
+		}
+
+		public long getRawChars() {
+			return rawChars;
+		}
+
+		public long getPreprocessedChars() {
+			return preprocessedChars;
+		}
+
+		public double getRawRecall() {
+			return rawRecall;
+		}
+
+		public double getPreprocessedRecall() {
+			return preprocessedRecall;
+		}
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.domain.admin;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Items to reindex; all criteria combine with AND, no criteria means everything")
+public record ReindexScope(
+		@Schema(description = "Context (folder) UUID", nullable = true) String contextUuid,
+		@Schema(description = "Store UUID", nullable = true) String storeUuid,
+		@Schema(description = "Category UUID, subcategories included", nullable = true) String categoryUuid,
+		@Schema(description = "Created on or after", nullable = true) LocalDate createdFrom,
+		@Schema(description = "Created on or before", nullable = true) LocalDate createdTo,
+		@Schema(description = "Attribute type UUID, items with a value of it", nullable = true) String attributeUuid)
+		implements Serializable {
+
+	public static ReindexScope all() {
+		return new ReindexScope(null, null, null, null, null, null);
+	}
+
+	public boolean isFull() {
+		return contextUuid == null && storeUuid == null && categoryUuid == null && createdFrom == null
+				&& createdTo == null && attributeUuid == null;
+	}
+
+	/** Short form for job logs, e.g. "context=AB12, from=2024-01-01". */
+	public String describe() {
+		if (isFull())
+			return "all items";
+		List<String> parts = new ArrayList<>();
+		if (contextUuid != null)
+			parts.add("context=" + contextUuid);
+		if (storeUuid != null)
+			parts.add("store=" + storeUuid);
+		if (categoryUuid != null)
+			parts.add("category=" + categoryUuid);
+		if (createdFrom != null)
+			parts.add("from=" + createdFrom);
+		if (createdTo != null)
+			parts.add("to=" + createdTo);
+		if (attributeUuid != null)
+			parts.add("attribute=" + attributeUuid);
+		return String.join(", ", parts);
+	}
+}
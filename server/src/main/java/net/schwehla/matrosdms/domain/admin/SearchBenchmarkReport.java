@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.domain.admin;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Search latency of common filter combinations and Lucene query cache effect")
+public class SearchBenchmarkReport {
+
+	@Schema(description = "Benchmarked filter combinations")
+	private List<Entry> combinations;
+
+	@Schema(description = "Query cache hits during the benchmark")
+	private long cacheHits;
+
+	@Schema(description = "Query cache misses during the benchmark")
+	private long cacheMisses;
+
+	@Schema(description = "Cached filter results (per index segment) after the benchmark")
+	private long cachedQueries;
+
+	@Schema(description = "Memory used by the query cache in bytes")
+	private long cacheBytes;
+
+	// Constructor
+	public SearchBenchmarkReport(
+			List<Entry> combinations, long cacheHits, long cacheMisses, long cachedQueries, long cacheBytes) {
+		this.combinations = combinations;
+		this.cacheHits = cacheHits;
+		this.cacheMisses = cacheMisses;
+		this.cachedQueries = cachedQueries;
+		this.cacheBytes = cacheBytes;
+	}
+
+	// Getters
+	public List<Entry> getCombinations() {
+		return combinations;
+	}
+
+	public long getCacheHits() {
+		return cacheHits;
+	}
+
+	public long getCacheMisses() {
+		return cacheMisses;
+	}
+
+	public long getCachedQueries() {
+		return cachedQueries;
+	}
+
+	public long getCacheBytes() {
+		return cacheBytes;
+	}
+
+	@Schema(description = "Latency of one filter combination")
+	public static class Entry {
+
+		@Schema(description = "Combination, e.g. \"context + store\"")
+		private String name;
+
+		@Schema(description = "Total hits")
+		private long hits;
+
+		@Schema(description = "Number of timed runs")
+		private int runs;
+
+		@Schema(description = "First run in milliseconds (cold cache)")
+		private double firstMillis;
+
+		@Schema(description = "Average of the following runs in milliseconds")
+		private double averageMillis;
+
+		@Schema(description = "95th percentile of the following runs in milliseconds")
+		private double p95Millis;
+
+		// Constructor
+		public Entry(String name, long hits, int runs, double firstMillis, double averageMillis, double p95Millis) {
+			this.name = name;
+			this.hits = hits;
+			this.runs = runs;
+			this.firstMillis = firstMillis;
+			this.averageMillis = averageMillis;
+			this.p95Millis = p95Millis;
+		}
+
+		// Getters
+		public String getName() {
+			return name;
+		}
+
+		public long getHits() {
+			return hits;
+		}
+
+		public int getRuns() {
+			return runs;
+		}
+
+		public double getFirstMillis() {
+			return firstMillis;
+		}
+
+		public double getAverageMillis() {
+			return averageMillis;
+		}
+
+		public double getP95Millis() {
+			return p95Millis;
+		}
+	}
+}
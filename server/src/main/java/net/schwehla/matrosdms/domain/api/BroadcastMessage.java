@@ -10,6 +10,7 @@ package net.schwehla.matrosdms.domain.api;
 import net.schwehla.matrosdms.domain.inbox.InboxFile;
 import net.schwehla.matrosdms.service.message.PipelineStatusMessage;
 import net.schwehla.matrosdms.service.message.ProgressMessage;
+import net.schwehla.matrosdms.service.message.SavedSearchMatchMessage;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 
@@ -23,7 +24,8 @@ public class BroadcastMessage {
 	@Schema(description = "Dynamic payload depending on event type", oneOf = {
 			PipelineStatusMessage.class,
 			InboxFile.class,
-			ProgressMessage.class // <--- NEW: Structured Progress
+			ProgressMessage.class, // <--- NEW: Structured Progress
+			SavedSearchMatchMessage.class
 	})
 	private Object message;
 
@@ -11,5 +11,5 @@ import io.swagger.v3.oas.annotations.media.Schema;
 
 @Schema(enumAsRef = true, description = "The subsystem originating the event")
 public enum EBroadcastSource {
-	INBOX, PIPELINE
+	INBOX, PIPELINE, SAVED_SEARCH
 }
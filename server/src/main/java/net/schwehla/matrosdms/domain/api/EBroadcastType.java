@@ -12,5 +12,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 @Schema(enumAsRef = true, description = "The specific event that occurred")
 public enum EBroadcastType {
 	FILE_ADDED, STATUS, PROGRESS, // <--- NEW: For live updates ("OCR 50%", "AI Thinking...")
-	COMPLETE, ERROR
+	COMPLETE, ERROR,
+	// New items match a watched saved search
+	MATCH
 }
@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.domain.inbox;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(enumAsRef = true, description = "How a pipeline profile treats AI classification and embeddings")
+public enum EAiPolicy {
+	/** Configured strategies (app.ai.classification) */
+	DEFAULT,
+	/** Heuristic strategy only, no LLM calls */
+	HEURISTIC,
+	/** No prediction, no embeddings */
+	OFF
+}
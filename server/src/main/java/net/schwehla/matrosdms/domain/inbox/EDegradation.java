@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.domain.inbox;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(enumAsRef = true, description = "Shortcut taken because a document exceeded its processing budget")
+public enum EDegradation {
+	/** Text layer holds only the text extracted within the budget */
+	TEXT_PARTIAL,
+	/** Full extraction/OCR runs later as a background job */
+	OCR_DEFERRED,
+	/** Heuristic prediction instead of the LLM */
+	AI_HEURISTIC,
+	/** No prediction at all */
+	AI_SKIPPED,
+	/** No semantic vector */
+	EMBEDDING_SKIPPED
+}
@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.domain.inbox;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(enumAsRef = true, description = "How a pipeline profile treats OCR")
+public enum EOcrPolicy {
+	/** Inspect the PDF text layer and OCR only if it is too sparse */
+	AUTO,
+	/** Trusted born-digital input: take the text layer as is, no inspection */
+	TRUST_TEXT_LAYER,
+	/** Always run full extraction including OCR */
+	ALWAYS,
+	/** Never OCR, text layers and plain parsing only */
+	NEVER
+}
@@ -9,6 +9,8 @@ package net.schwehla.matrosdms.domain.inbox;
 
 import java.io.Serializable;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -40,6 +42,12 @@ public class InboxFile implements Serializable {
 	@Schema(description = "UUID of existing item if this is a duplicate", nullable = true)
 	private String doublette;
 
+	@Schema(description = "Pipeline profile that processed this file", nullable = true)
+	private String profile;
+
+	@Schema(description = "Shortcuts taken because the processing budget was exceeded")
+	private List<EDegradation> degradations = new ArrayList<>();
+
 	@JsonIgnore
 	private transient Path path;
 
@@ -126,4 +134,25 @@ public class InboxFile implements Serializable {
 	public void setDoublette(String doublette) {
 		this.doublette = doublette;
 	}
+
+	public String getProfile() {
+		return profile;
+	}
+
+	public void setProfile(String profile) {
+		this.profile = profile;
+	}
+
+	public List<EDegradation> getDegradations() {
+		return degradations;
+	}
+
+	public void setDegradations(List<EDegradation> degradations) {
+		this.degradations = degradations;
+	}
+
+	public void addDegradation(EDegradation degradation) {
+		if (!degradations.contains(degradation))
+			degradations.add(degradation);
+	}
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.domain.inbox;
+
+import java.time.Instant;
+import java.util.Map;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Throughput of one pipeline profile since server start")
+public class PipelineProfileStats {
+
+	@Schema(description = "Profile name", example = "scan")
+	private String profile;
+
+	@Schema(description = "Documents that finished the pipeline (incl. duplicates)")
+	private long documents;
+
+	@Schema(description = "Documents that failed")
+	private long failed;
+
+	@Schema(description = "Steps aborted by their timeout")
+	private long timeouts;
+
+	@Schema(description = "Input bytes processed")
+	private long bytes;
+
+	@Schema(description = "Average wall time per document in ms")
+	private long avgMillisPerDocument;
+
+	@Schema(description = "Documents per hour of pipeline time")
+	private double documentsPerHour;
+
+	@Schema(description = "Total wall time per step id in ms")
+	private Map<String, Long> stepMillis;
+
+	@Schema(description = "End of the last run", nullable = true)
+	private Instant lastRun;
+
+	public PipelineProfileStats(
+			String profile, long documents, long failed, long timeouts, long bytes, long totalMillis,
+			Map<String, Long> stepMillis, Instant lastRun) {
+		this.profile = profile;
+		this.documents = documents;
+		this.failed = failed;
+		this.timeouts = timeouts;
+		this.bytes = bytes;
+		long runs = documents + failed;
+		this.avgMillisPerDocument = runs > 0 ? totalMillis / runs : 0;
+		this.documentsPerHour = totalMillis > 0 ? documents * 3_600_000.0 / totalMillis : 0;
+		this.stepMillis = stepMillis;
+		this.lastRun = lastRun;
+	}
+
+	public String getProfile() {
+		return profile;
+	}
+
+	public long getDocuments() {
+		return documents;
+	}
+
+	public long getFailed() {
+		return failed;
+	}
+
+	public long getTimeouts() {
+		return timeouts;
+	}
+
+	public long getBytes() {
+		return bytes;
+	}
+
+	public long getAvgMillisPerDocument() {
+		return avgMillisPerDocument;
+	}
+
+	public double getDocumentsPerHour() {
+		return documentsPerHour;
+	}
+
+	public Map<String, Long> getStepMillis() {
+		return stepMillis;
+	}
+
+	public Instant getLastRun() {
+		return lastRun;
+	}
+}
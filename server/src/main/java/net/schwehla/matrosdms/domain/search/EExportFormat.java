@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.domain.search;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(enumAsRef = true, description = "Format of a search result export")
+public enum EExportFormat {
+	@Schema(description = "One row per item, semicolon separated (Excel compatible)")
+	CSV("text/csv", "csv"),
+
+	@Schema(description = "One JSON object per line")
+	JSONL("application/x-ndjson", "jsonl"),
+
+	@Schema(description = "The decrypted documents, by context, with index.csv")
+	ZIP("application/zip", "zip");
+
+	private final String contentType;
+	private final String extension;
+
+	EExportFormat(String contentType, String extension) {
+		this.contentType = contentType;
+		this.extension = extension;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public String getExtension() {
+		return extension;
+	}
+}
@@ -11,5 +11,8 @@ import io.swagger.v3.oas.annotations.media.Schema;
 
 @Schema(enumAsRef = true)
 public enum EOperator {
-	EQ, CONTAINS, GT, LT, GTE, LTE
+	EQ, CONTAINS, GT, LT, GTE, LTE,
+
+	@Schema(description = "Category dimensions: the category or any category below it (value = category uuid)")
+	DESCENDANT_OF
 }
@@ -13,7 +13,9 @@ import io.swagger.v3.oas.annotations.media.Schema;
 public enum ESearchDimension {
 	WHO("kindList"), WHAT("kindList"), WHERE("kindList"), KIND("kindList"), CONTEXT("infoContext"), STORE(
 			"store"), ISSUE_DATE("issueDate"), CREATED("dateCreated"), FULLTEXT(
-					"fulltext"), ATTRIBUTE("attr"), SOURCE("source"), UUID("uuid"), HAS_TEXT("textParsed");
+					"fulltext"), ATTRIBUTE("attr"), SOURCE("source"), UUID("uuid"), HAS_TEXT("textParsed"),
+	// Value is free text, matched by meaning (nearest embeddings)
+	SEMANTIC("embedding");
 
 	private final String luceneField;
 
@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.domain.search;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(enumAsRef = true, description = "Sort order of cursor paged search results (ties broken by uuid)")
+public enum ESearchSort {
+	SCORE(null), ISSUE_DATE("issueDate"), CREATED("dateCreated"), NAME("nameSort"),
+	// Typed field of the attribute given with the sort
+	ATTRIBUTE(null);
+
+	private final String luceneField;
+
+	ESearchSort(String f) {
+		this.luceneField = f;
+	}
+
+	/** Sortable index field, null for SCORE and ATTRIBUTE. */
+	public String getLuceneField() {
+		return luceneField;
+	}
+}
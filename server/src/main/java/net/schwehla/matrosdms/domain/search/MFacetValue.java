@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.domain.search;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Number of hits sharing one value of a facet")
+public class MFacetValue {
+
+	@Schema(description = "Value to filter by (uuid, source, \"2024\", \"2024-03\", attribute value or range \"100..1000\")")
+	private String value;
+
+	@Schema(description = "Display name (context, category or store name; otherwise the value)")
+	private String label;
+
+	@Schema(description = "Hits with this value")
+	private long count;
+
+	@Schema(description = "Parent category uuid (kind facet only), null for roots", nullable = true)
+	private String parent;
+
+	// Constructor
+	public MFacetValue(String value, String label, long count, String parent) {
+		this.value = value;
+		this.label = label;
+		this.count = count;
+		this.parent = parent;
+	}
+
+	// Getters
+	public String getValue() {
+		return value;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public String getParent() {
+		return parent;
+	}
+}
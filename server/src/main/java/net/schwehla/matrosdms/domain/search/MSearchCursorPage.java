@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.domain.search;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "One page of cursor paged search results")
+public class MSearchCursorPage {
+
+	@Schema(description = "Results of this page")
+	private List<MSearchResult> content;
+
+	@Schema(description = "Opaque token for the next page, null after the last page", nullable = true)
+	private String nextCursor;
+
+	@Schema(description = "Total hits, only counted for the first page", nullable = true)
+	private Long totalHits;
+
+	// Constructor
+	public MSearchCursorPage(List<MSearchResult> content, String nextCursor, Long totalHits) {
+		this.content = content;
+		this.nextCursor = nextCursor;
+		this.totalHits = totalHits;
+	}
+
+	// Getters
+	public List<MSearchResult> getContent() {
+		return content;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public Long getTotalHits() {
+		return totalHits;
+	}
+}
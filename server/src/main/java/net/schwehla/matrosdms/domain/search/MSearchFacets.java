@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.domain.search;
+
+import java.util.List;
+import java.util.Map;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "A result page together with the facet counts of the whole result")
+public class MSearchFacets {
+
+	@Schema(description = "Results of the requested page")
+	private List<MSearchResult> content;
+
+	@Schema(description = "Total hits")
+	private long totalHits;
+
+	@Schema(description = "Counts per context")
+	private List<MFacetValue> contexts;
+
+	@Schema(description = "Counts per category; an item counts for its categories and all their ancestors")
+	private List<MFacetValue> kinds;
+
+	@Schema(description = "Counts per store")
+	private List<MFacetValue> stores;
+
+	@Schema(description = "Counts per source")
+	private List<MFacetValue> sources;
+
+	@Schema(description = "Counts per issue year (sum of the months)")
+	private List<MFacetValue> years;
+
+	@Schema(description = "Counts per issue month")
+	private List<MFacetValue> months;
+
+	@Schema(description = "Counts per value of each requested attribute")
+	private Map<String, List<MFacetValue>> attributes;
+
+	@Schema(description = "Counts per requested range of number and date attributes, keyed by attribute uuid")
+	private Map<String, List<MFacetValue>> attributeRanges;
+
+	// Constructor
+	public MSearchFacets(
+			List<MSearchResult> content, long totalHits, List<MFacetValue> contexts, List<MFacetValue> kinds,
+			List<MFacetValue> stores, List<MFacetValue> sources, List<MFacetValue> years, List<MFacetValue> months,
+			Map<String, List<MFacetValue>> attributes, Map<String, List<MFacetValue>> attributeRanges) {
+		this.content = content;
+		this.totalHits = totalHits;
+		this.contexts = contexts;
+		this.kinds = kinds;
+		this.stores = stores;
+		this.sources = sources;
+		this.years = years;
+		this.months = months;
+		this.attributes = attributes;
+		this.attributeRanges = attributeRanges;
+	}
+
+	// Getters
+	public List<MSearchResult> getContent() {
+		return content;
+	}
+
+	public long getTotalHits() {
+		return totalHits;
+	}
+
+	public List<MFacetValue> getContexts() {
+		return contexts;
+	}
+
+	public List<MFacetValue> getKinds() {
+		return kinds;
+	}
+
+	public List<MFacetValue> getStores() {
+		return stores;
+	}
+
+	public List<MFacetValue> getSources() {
+		return sources;
+	}
+
+	public List<MFacetValue> getYears() {
+		return years;
+	}
+
+	public List<MFacetValue> getMonths() {
+		return months;
+	}
+
+	public Map<String, List<MFacetValue>> getAttributes() {
+		return attributes;
+	}
+
+	public Map<String, List<MFacetValue>> getAttributeRanges() {
+		return attributeRanges;
+	}
+}
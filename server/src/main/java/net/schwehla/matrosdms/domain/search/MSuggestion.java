@@ -0,0 +1,19 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.domain.search;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Autocomplete suggestion")
+public record MSuggestion(
+		@Schema(description = "Kind of suggestion") ESuggestionType type,
+		@Schema(description = "Value to filter by: uuid (context, category, store, attribute) or the text itself") String value,
+		@Schema(description = "Display text") String label,
+		@Schema(description = "Category path (\"Persons / Family / Anna\") or attribute name of a value", nullable = true) String path,
+		@Schema(description = "Popularity (number of items)") long weight) {
+}
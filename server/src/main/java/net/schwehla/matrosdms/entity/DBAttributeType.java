@@ -9,16 +9,19 @@ package net.schwehla.matrosdms.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 
 import net.schwehla.matrosdms.domain.attribute.EAttributeType;
+import net.schwehla.matrosdms.search.SuggestionEntityListener;
 
 @Entity
 @Table(name = "Attributetype", indexes = {
 		@jakarta.persistence.Index(columnList = "uuid", name = "idx_attributetype_uuid") })
+@EntityListeners(SuggestionEntityListener.class)
 public class DBAttributeType extends AbstractDBInfoBaseEntityWithOrdinal {
 
 	@Id
@@ -11,6 +11,7 @@ import java.util.List;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.ForeignKey;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -23,6 +24,9 @@ import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 
+import net.schwehla.matrosdms.search.CategoryTreeListener;
+import net.schwehla.matrosdms.search.SuggestionEntityListener;
+
 @Entity
 @Table(name = "Category", indexes = {
 		@Index(name = "idx_category_uuid", columnList = "uuid"),
@@ -30,6 +34,7 @@ import jakarta.persistence.UniqueConstraint;
 }, uniqueConstraints = {
 		@UniqueConstraint(name = "UQ_CATEGORY_PARENT_NAME", columnNames = { "PARENT_CATEGORY_ID", "name" })
 })
+@EntityListeners({ SuggestionEntityListener.class, CategoryTreeListener.class })
 public class DBCategory extends AbstractDBInfoBaseEntityWithOrdinal {
 
 	@Id
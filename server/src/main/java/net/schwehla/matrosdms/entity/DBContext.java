@@ -13,6 +13,7 @@ import java.util.List;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -32,6 +33,7 @@ import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
 
 import net.schwehla.matrosdms.domain.core.EStage;
+import net.schwehla.matrosdms.search.SuggestionEntityListener;
 
 @Entity
 @Table(name = "Context", indexes = {
@@ -43,6 +45,7 @@ import net.schwehla.matrosdms.domain.core.EStage;
 		@NamedQuery(name = "DBContext.findAll", query = "SELECT c FROM DBContext c"),
 		@NamedQuery(name = "DBContext.findByUUID", query = "SELECT c FROM DBContext c where c.uuid = :uuid")
 })
+@EntityListeners(SuggestionEntityListener.class)
 public class DBContext extends AbstractDBInfoBaseEntity {
 
 	@Id
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * An item change waiting to be written to the search index. Rows are only
+ * deleted after the index commit of their batch succeeded.
+ */
+@Entity
+@Table(name = "IndexQueue")
+public class DBIndexQueueEntry {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	private Long id;
+
+	@Column(name = "item_id", nullable = false)
+	private Long itemId;
+
+	@Column(name = "enqueued_at", nullable = false)
+	private LocalDateTime enqueuedAt = LocalDateTime.now();
+
+	@Column(nullable = false)
+	private int attempts = 0;
+
+	// Match the item against watched saved searches once indexed
+	@Column(nullable = false)
+	private boolean percolate = true;
+
+	public DBIndexQueueEntry() {
+	}
+
+	public DBIndexQueueEntry(Long itemId) {
+		this.itemId = itemId;
+	}
+
+	public DBIndexQueueEntry(Long itemId, boolean percolate) {
+		this.itemId = itemId;
+		this.percolate = percolate;
+	}
+
+	// Getters/Setters
+	public Long getId() {
+		return id;
+	}
+
+	public Long getItemId() {
+		return itemId;
+	}
+
+	public LocalDateTime getEnqueuedAt() {
+		return enqueuedAt;
+	}
+
+	public int getAttempts() {
+		return attempts;
+	}
+
+	public void setAttempts(int attempts) {
+		this.attempts = attempts;
+	}
+
+	public boolean isPercolate() {
+		return percolate;
+	}
+}
@@ -17,6 +17,7 @@ import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -47,9 +48,11 @@ import net.schwehla.matrosdms.domain.core.EItemSource;
 import net.schwehla.matrosdms.domain.core.EStage;
 import net.schwehla.matrosdms.entity.converter.JpaJsonConverter;
 import net.schwehla.matrosdms.entity.management.DBUser;
+import net.schwehla.matrosdms.search.ItemIndexListener;
 import net.schwehla.matrosdms.search.ItemTextBinder;
 
 @Entity
+@EntityListeners(ItemIndexListener.class)
 @Indexed
 @TypeBinding(binder = @TypeBinderRef(type = ItemTextBinder.class))
 @Table(name = "Item", indexes = {
@@ -101,6 +104,14 @@ public class DBItem extends AbstractDBInfoBaseEntity {
 	@Column(name = "text_parsed", nullable = false)
 	private boolean textParsed = false;
 
+	// Bumped whenever the stored text layer is rewritten (see ItemTextBridge)
+	@Column(name = "text_version", nullable = false)
+	private int textVersion = 0;
+
+	// Text version the RAG passages were built from, -1: none (see PassageIndexService)
+	@Column(name = "passage_version", nullable = false)
+	private int passageVersion = -1;
+
 	@ManyToMany
 	@JoinTable(name = "Item_Category", joinColumns = @JoinColumn(name = "ITEM_ID"), inverseJoinColumns = @JoinColumn(name = "CATEGORY_ID"), foreignKey = @ForeignKey(name = "FK_ITEM_CAT_ITEM"), inverseForeignKey = @ForeignKey(name = "FK_ITEM_CAT_CATEGORY"))
 	@IndexingDependency(reindexOnUpdate = ReindexOnUpdate.SHALLOW)
@@ -123,6 +134,12 @@ public class DBItem extends AbstractDBInfoBaseEntity {
 	@JoinColumn(name = "FILE_ID", unique = true, nullable = true, foreignKey = @ForeignKey(name = "FK_ITEM_METADATA"))
 	private DBItemMetadata file;
 
+	// Lazy: lists and most item operations never need the vector
+	@OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+	@JoinColumn(name = "EMBEDDING_ID", unique = true, nullable = true, foreignKey = @ForeignKey(name = "FK_ITEM_EMBEDDING"))
+	@IndexingDependency(reindexOnUpdate = ReindexOnUpdate.SHALLOW)
+	private DBItemEmbedding embedding;
+
 	@Temporal(TemporalType.TIMESTAMP)
 	LocalDateTime issueDate;
 
@@ -192,6 +209,14 @@ public class DBItem extends AbstractDBInfoBaseEntity {
 		this.file = file;
 	}
 
+	public DBItemEmbedding getEmbedding() {
+		return embedding;
+	}
+
+	public void setEmbedding(DBItemEmbedding embedding) {
+		this.embedding = embedding;
+	}
+
 	public LocalDateTime getIssueDate() {
 		return issueDate;
 	}
@@ -240,4 +265,25 @@ public class DBItem extends AbstractDBInfoBaseEntity {
 	public void setTextParsed(boolean textParsed) {
 		this.textParsed = textParsed;
 	}
+
+	public int getTextVersion() {
+		return textVersion;
+	}
+
+	public void setTextVersion(int textVersion) {
+		this.textVersion = textVersion;
+	}
+
+	public int getPassageVersion() {
+		return passageVersion;
+	}
+
+	public void setPassageVersion(int passageVersion) {
+		this.passageVersion = passageVersion;
+	}
+
+	/** Marks the text layer as rewritten, the next indexing reads it from the store. */
+	public void nextTextVersion() {
+		this.textVersion++;
+	}
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import net.schwehla.matrosdms.entity.converter.FloatVectorConverter;
+
+/**
+ * Semantic embedding of an item. Immutable: a new embedding replaces the old
+ * row, so the item change triggers the reindex of its vector.
+ */
+@Entity
+@Table(name = "ItemEmbedding")
+public class DBItemEmbedding {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	private Long id;
+
+	// Name of the model that computed the vector; vectors of different models are not comparable
+	@Column(nullable = false, length = 100)
+	private String model;
+
+	@Column(nullable = false)
+	private int dimension;
+
+	// Normalized to unit length
+	@Column(name = "vector_data", nullable = false)
+	@Convert(converter = FloatVectorConverter.class)
+	private float[] vector;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt = LocalDateTime.now();
+
+	public DBItemEmbedding() {
+	}
+
+	public DBItemEmbedding(String model, float[] vector) {
+		this.model = model;
+		this.dimension = vector.length;
+		this.vector = vector;
+	}
+
+	// Getters/Setters
+	public Long getId() {
+		return id;
+	}
+
+	public String getModel() {
+		return model;
+	}
+
+	public int getDimension() {
+		return dimension;
+	}
+
+	public float[] getVector() {
+		return vector;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+}
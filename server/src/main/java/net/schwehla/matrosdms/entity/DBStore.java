@@ -9,6 +9,7 @@ package net.schwehla.matrosdms.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -17,6 +18,8 @@ import jakarta.persistence.NamedQueries;
 import jakarta.persistence.NamedQuery;
 import jakarta.persistence.Table;
 
+import net.schwehla.matrosdms.search.SuggestionEntityListener;
+
 @Entity()
 @Table(name = "Store", indexes = @Index(name = "idx_store_uuid", columnList = "uuid"))
 @NamedQueries({
@@ -24,6 +27,7 @@ import jakarta.persistence.Table;
 		@NamedQuery(name = "DBStore.findByUUID", query = "SELECT c FROM DBStore c where c.uuid = :uuid"),
 		@NamedQuery(name = "DBStore.findById", query = "SELECT c FROM DBStore c where c.id = :id")
 })
+@EntityListeners(SuggestionEntityListener.class)
 public class DBStore extends AbstractDBInfoBaseEntityWithOrdinal {
 
 	@Id
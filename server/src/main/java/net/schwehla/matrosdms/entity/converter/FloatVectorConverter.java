@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.entity.converter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/** float[] as packed little-endian float32 (4 bytes per dimension). */
+@Converter
+public class FloatVectorConverter implements AttributeConverter<float[], byte[]> {
+
+	@Override
+	public byte[] convertToDatabaseColumn(float[] attribute) {
+		if (attribute == null)
+			return null;
+		ByteBuffer buffer = ByteBuffer.allocate(attribute.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.asFloatBuffer().put(attribute);
+		return buffer.array();
+	}
+
+	@Override
+	public float[] convertToEntityAttribute(byte[] dbData) {
+		if (dbData == null)
+			return null;
+		float[] vector = new float[dbData.length / Float.BYTES];
+		ByteBuffer.wrap(dbData).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+		return vector;
+	}
+}
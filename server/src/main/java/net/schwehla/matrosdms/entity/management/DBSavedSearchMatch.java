@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.entity.management;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * An item that matched a watched saved search of a user. Saved searches are
+ * stored by name in the user row, so the match refers to them by name; the
+ * lower-case {@link #searchKey(String) key} is what is compared and unique.
+ */
+@Entity
+@Table(name = "SavedSearchMatch")
+public class DBSavedSearchMatch {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	private Long id;
+
+	@Column(name = "user_id", nullable = false)
+	private Long userId;
+
+	@Column(name = "search_name", nullable = false)
+	private String searchName;
+
+	@Column(name = "search_key", nullable = false)
+	private String searchKey;
+
+	@Column(name = "item_uuid", nullable = false, length = 16)
+	private String itemUuid;
+
+	@Column(name = "matched_at", nullable = false)
+	private LocalDateTime matchedAt = LocalDateTime.now();
+
+	@Column(nullable = false)
+	private boolean seen = false;
+
+	public DBSavedSearchMatch() {
+	}
+
+	public DBSavedSearchMatch(Long userId, String searchName, String itemUuid) {
+		this.userId = userId;
+		this.searchName = searchName;
+		this.searchKey = searchKey(searchName);
+		this.itemUuid = itemUuid;
+	}
+
+	/** Saved search names compare case-insensitively (UserService replaces and removes them so). */
+	public static String searchKey(String searchName) {
+		return searchName.toLowerCase(Locale.ROOT);
+	}
+
+	// Getters/Setters
+	public Long getId() {
+		return id;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public String getSearchName() {
+		return searchName;
+	}
+
+	public String getSearchKey() {
+		return searchKey;
+	}
+
+	public String getItemUuid() {
+		return itemUuid;
+	}
+
+	public LocalDateTime getMatchedAt() {
+		return matchedAt;
+	}
+
+	public boolean isSeen() {
+		return seen;
+	}
+
+	public void setSeen(boolean seen) {
+		this.seen = seen;
+	}
+}
@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.exception;
+
+/** A rebuilt index generation did not match the database and was not activated. */
+public class IndexVerificationException extends MatrosServiceException {
+
+	private static final long serialVersionUID = 1L;
+
+	public IndexVerificationException(String text) {
+		super(text);
+	}
+}
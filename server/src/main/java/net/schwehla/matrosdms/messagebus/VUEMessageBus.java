@@ -9,6 +9,8 @@ package net.schwehla.matrosdms.messagebus;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -35,6 +37,8 @@ public class VUEMessageBus {
 	private static final Logger log = LoggerFactory.getLogger(VUEMessageBus.class);
 
 	private final List<SseEmitter> localEmitters = new CopyOnWriteArrayList<>();
+	// Emitter -> uuid of the subscribed user, for per-user messages
+	private final Map<SseEmitter, String> emitterUsers = new ConcurrentHashMap<>();
 	private final ScheduledExecutorService heartbeatScheduler = new ScheduledThreadPoolExecutor(1);
 
 	@Autowired
@@ -54,21 +58,49 @@ public class VUEMessageBus {
 	public void addEmitter(SseEmitter emitter) {
 		this.localEmitters.add(emitter);
 
-		emitter.onCompletion(() -> this.localEmitters.remove(emitter));
+		emitter.onCompletion(() -> remove(emitter));
 		emitter.onTimeout(
 				() -> {
 					emitter.complete();
-					this.localEmitters.remove(emitter);
+					remove(emitter);
 				});
 		emitter.onError(
 				(e) -> {
 					// Log at debug only, client disconnects are normal
 					log.debug("SSE Client Disconnected: {}", e.getMessage());
-					this.localEmitters.remove(emitter);
+					remove(emitter);
 				});
 	}
 
+	/** Emitter that also receives the messages addressed to the user. */
+	public void addEmitter(SseEmitter emitter, String userUuid) {
+		if (userUuid != null) {
+			emitterUsers.put(emitter, userUuid);
+		}
+		addEmitter(emitter);
+	}
+
+	private void remove(SseEmitter emitter) {
+		this.localEmitters.remove(emitter);
+		this.emitterUsers.remove(emitter);
+	}
+
 	public void sendMessageToGUI(EBroadcastSource process, EBroadcastType type, Object payload) {
+		send(localEmitters, process, type, payload);
+	}
+
+	/** Message only for the open sessions of one user. */
+	public void sendMessageToUser(String userUuid, EBroadcastSource process, EBroadcastType type, Object payload) {
+		List<SseEmitter> emitters = emitterUsers.entrySet().stream()
+				.filter(e -> e.getValue().equals(userUuid))
+				.map(Map.Entry::getKey)
+				.toList();
+		if (!emitters.isEmpty()) {
+			send(emitters, process, type, payload);
+		}
+	}
+
+	private void send(List<SseEmitter> emitters, EBroadcastSource process, EBroadcastType type, Object payload) {
 		try {
 			BroadcastMessage msg = new BroadcastMessage(payload);
 			msg.setProcess(process);
@@ -76,12 +108,12 @@ public class VUEMessageBus {
 
 			String jsonPayload = objectMapper.writeValueAsString(msg);
 
-			for (SseEmitter emitter : localEmitters) {
+			for (SseEmitter emitter : emitters) {
 				try {
 					emitter.send(SseEmitter.event().data(jsonPayload));
 				} catch (IOException | IllegalStateException e) {
 					// Client is gone, remove silently
-					this.localEmitters.remove(emitter);
+					remove(emitter);
 				}
 			}
 
@@ -100,7 +132,7 @@ public class VUEMessageBus {
 			} catch (IOException | IllegalStateException e) {
 				// FIX: Do not log stack trace for heartbeat failures.
 				// This indicates the tab was closed.
-				this.localEmitters.remove(emitter);
+				remove(emitter);
 			}
 		}
 	}
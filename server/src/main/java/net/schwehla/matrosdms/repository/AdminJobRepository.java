@@ -12,8 +12,10 @@ import java.time.LocalDateTime;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import net.schwehla.matrosdms.entity.admin.DBAdminJob;
 import net.schwehla.matrosdms.entity.admin.DBAdminJob.JobStatus;
@@ -27,4 +29,10 @@ public interface AdminJobRepository extends JpaRepository<DBAdminJob, Long> {
 			+ "(cast(:to as timestamp) IS NULL OR j.startTime <= :to)")
 	Page<DBAdminJob> findHistory(
 			@Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Pageable pageable);
+
+	// Bypasses the entity version: progress is written while the job entity is held elsewhere
+	@Modifying
+	@Transactional
+	@Query("UPDATE DBAdminJob j SET j.progressInfo = :info WHERE j.id = :id")
+	int updateProgress(@Param("id") Long id, @Param("info") String info);
 }
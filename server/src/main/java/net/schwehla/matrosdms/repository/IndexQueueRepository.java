@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import net.schwehla.matrosdms.entity.DBIndexQueueEntry;
+
+public interface IndexQueueRepository extends JpaRepository<DBIndexQueueEntry, Long> {
+
+	/** Oldest entries that have not failed too often, in enqueue order. */
+	List<DBIndexQueueEntry> findByAttemptsLessThanOrderByIdAsc(int maxAttempts, Pageable pageable);
+
+	/** All entries of the given items that have not failed too often. */
+	List<DBIndexQueueEntry> findByItemIdInAndAttemptsLessThan(Collection<Long> itemIds, int maxAttempts);
+
+	long countByAttemptsLessThan(int maxAttempts);
+
+	long countByAttemptsGreaterThanEqual(int maxAttempts);
+
+	@Query("SELECT MIN(q.enqueuedAt) FROM DBIndexQueueEntry q WHERE q.attempts < :maxAttempts")
+	LocalDateTime findOldestPending(@Param("maxAttempts") int maxAttempts);
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE DBIndexQueueEntry q SET q.attempts = q.attempts + 1 WHERE q.id IN :ids")
+	int incrementAttempts(@Param("ids") Collection<Long> ids);
+}
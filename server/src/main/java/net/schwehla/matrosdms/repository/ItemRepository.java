@@ -7,6 +7,7 @@
  */
 package net.schwehla.matrosdms.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,10 +15,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import net.schwehla.matrosdms.entity.DBItem;
+import net.schwehla.matrosdms.entity.DBItemEmbedding;
 
 public interface ItemRepository extends JpaRepository<DBItem, Long> {
 
@@ -65,6 +69,11 @@ public interface ItemRepository extends JpaRepository<DBItem, Long> {
 	Page<DBItem> findAllByContextAndQuery(
 			@Param("contextUuid") String contextUuid, @Param("query") String query, Pageable pageable);
 
+	// Page of items found by id in the search index (context filter)
+	@Query("SELECT i FROM DBItem i WHERE i.id IN :ids")
+	@EntityGraph(attributePaths = { "user", "file" })
+	List<DBItem> findAllWithFileByIdIn(@Param("ids") Collection<Long> ids);
+
 	/**
 	 * Checks if a file hash exists as either an Original upload
 	 * OR as a processed Canonical file.
@@ -91,4 +100,36 @@ public interface ItemRepository extends JpaRepository<DBItem, Long> {
 	Optional<String> findDuplicateUuid(@Param("hash") String hash);
 
 	long countByInfoContext_UuidAndDateArchivedIsNull(String uuid);
+
+	// Items without an embedding of the current model, for the backfill (keyset by id)
+	@Query("""
+			    SELECT i.id
+			    FROM DBItem i
+			    LEFT JOIN i.embedding e
+			    WHERE i.id > :after
+			      AND (e IS NULL OR e.model <> :model)
+			    ORDER BY i.id
+			""")
+	List<Long> findIdsWithoutEmbedding(@Param("after") long after, @Param("model") String model, Pageable pageable);
+
+	@Query("SELECT e FROM DBItem i JOIN i.embedding e WHERE i.uuid = :uuid")
+	Optional<DBItemEmbedding> findEmbeddingByUuid(@Param("uuid") String uuid);
+
+	// Items whose RAG passages are older than their text layer: id, uuid, name, textVersion
+	@Query("SELECT i.id, i.uuid, i.name, i.textVersion FROM DBItem i WHERE i.passageVersion <> i.textVersion ORDER BY i.id")
+	List<Object[]> findPassageBacklog(Pageable pageable);
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE DBItem i SET i.passageVersion = :version WHERE i.id = :id")
+	int markPassagesBuilt(@Param("id") Long id, @Param("version") int version);
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE DBItem i SET i.passageVersion = -1")
+	int resetPassageVersions();
+
+	// uuid, name of the items that still exist
+	@Query("SELECT i.uuid, i.name FROM DBItem i WHERE i.uuid IN :uuids")
+	List<Object[]> findNamesByUuids(@Param("uuids") Collection<String> uuids);
 }
\ No newline at end of file
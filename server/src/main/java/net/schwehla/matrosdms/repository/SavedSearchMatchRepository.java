@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import net.schwehla.matrosdms.entity.management.DBSavedSearchMatch;
+
+/**
+ * Saved searches are addressed by their key, see
+ * {@link DBSavedSearchMatch#searchKey(String)}.
+ */
+public interface SavedSearchMatchRepository extends JpaRepository<DBSavedSearchMatch, Long> {
+
+	/** Items of the given ones that already matched the search. */
+	@Query("SELECT m.itemUuid FROM DBSavedSearchMatch m WHERE m.userId = :userId AND m.searchKey = :key AND m.itemUuid IN :uuids")
+	List<String> findMatchedItems(@Param("userId") Long userId, @Param("key") String key,
+			@Param("uuids") Collection<String> uuids);
+
+	/** Unseen matches per saved search: [searchName, count]. */
+	@Query("SELECT m.searchName, COUNT(m) FROM DBSavedSearchMatch m WHERE m.userId = :userId AND m.seen = false GROUP BY m.searchName")
+	List<Object[]> countUnseen(@Param("userId") Long userId);
+
+	@Query("SELECT COUNT(m) FROM DBSavedSearchMatch m WHERE m.userId = :userId AND m.searchKey = :key AND m.seen = false")
+	long countUnseenBySearch(@Param("userId") Long userId, @Param("key") String key);
+
+	@Query("SELECT m.itemUuid FROM DBSavedSearchMatch m WHERE m.userId = :userId AND m.searchKey = :key ORDER BY m.matchedAt DESC, m.id DESC")
+	List<String> findItemUuids(@Param("userId") Long userId, @Param("key") String key, Pageable pageable);
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE DBSavedSearchMatch m SET m.seen = true WHERE m.userId = :userId AND m.searchKey = :key AND m.seen = false")
+	int markSeen(@Param("userId") Long userId, @Param("key") String key);
+
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM DBSavedSearchMatch m WHERE m.userId = :userId AND m.searchKey = :key")
+	int deleteBySearch(@Param("userId") Long userId, @Param("key") String key);
+
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM DBSavedSearchMatch m WHERE m.userId = :userId")
+	int deleteByUser(@Param("userId") Long userId);
+
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM DBSavedSearchMatch m WHERE m.itemUuid IN :uuids")
+	int deleteByItems(@Param("uuids") Collection<String> uuids);
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.search;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+
+import net.schwehla.matrosdms.domain.attribute.EAttributeType;
+
+/**
+ * Snapshot of the attribute types (uuid, data type, name), so the index
+ * bridge and the saved search percolator can index and query attribute
+ * values by type. Held statically like CategoryTree because the bridge is not
+ * a Spring bean; AttributeLookupService replaces it after attribute type
+ * changes.
+ *
+ * Every attribute value is indexed as text ("attr.<key>") and as keyword
+ * ("attrFacet.<key>"); values of typed attributes that parse are indexed
+ * once more as number ("attrNum.<key>"), date ("attrDate.<key>") or boolean
+ * ("attrBool.<key>"), with doc values for ranges, sorting and aggregations.
+ */
+public final class AttributeTypes {
+
+	public static final String TEXT_FIELD = "attr";
+	public static final String KEYWORD_FIELD = "attrFacet";
+	public static final String NUMBER_FIELD = "attrNum";
+	public static final String DATE_FIELD = "attrDate";
+	public static final String BOOLEAN_FIELD = "attrBool";
+
+	// Keywords are doc values; longer attribute values are cut
+	public static final int MAX_KEYWORD_CHARS = 256;
+
+	private static volatile AttributeTypes current = new AttributeTypes(Map.of(), Map.of());
+
+	private final Map<String, EAttributeType> types;
+	private final Map<String, String> uuidsByName;
+
+	public AttributeTypes(Map<String, EAttributeType> types, Map<String, String> uuidsByName) {
+		this.types = Map.copyOf(types);
+		this.uuidsByName = Map.copyOf(uuidsByName);
+	}
+
+	public static AttributeTypes current() {
+		return current;
+	}
+
+	public static void set(AttributeTypes attributeTypes) {
+		current = attributeTypes;
+	}
+
+	/** Data type of the attribute; TEXT if unknown. */
+	public EAttributeType type(String uuid) {
+		return types.getOrDefault(uuid, EAttributeType.TEXT);
+	}
+
+	/** The attribute uuid for a uuid or an attribute name, null if neither is known. */
+	public String resolve(String uuidOrName) {
+		if (uuidOrName == null || uuidOrName.isBlank()) {
+			return null;
+		}
+		return types.containsKey(uuidOrName) ? uuidOrName : uuidsByName.get(uuidOrName);
+	}
+
+	/** Typed index field of the attribute, the keyword field for text and links. */
+	public String field(String uuid) {
+		return switch (type(uuid)) {
+			case NUMBER, CURRENCY -> NUMBER_FIELD + "." + uuid;
+			case DATE -> DATE_FIELD + "." + uuid;
+			case BOOLEAN -> BOOLEAN_FIELD + "." + uuid;
+			default -> KEYWORD_FIELD + "." + uuid;
+		};
+	}
+
+	/**
+	 * The value as Double, LocalDate or Boolean for the typed field of the
+	 * attribute, the cut string for keyword attributes. Null if the value
+	 * does not parse as the attribute's type.
+	 */
+	public Object typedValue(String uuid, Object value) {
+		return typedValue(type(uuid), value);
+	}
+
+	public static Object typedValue(EAttributeType type, Object value) {
+		if (value == null) {
+			return null;
+		}
+		return switch (type) {
+			case NUMBER, CURRENCY -> number(value);
+			case DATE -> date(value);
+			case BOOLEAN -> bool(value);
+			default -> keyword(value.toString());
+		};
+	}
+
+	public static String keyword(String value) {
+		return value.length() > MAX_KEYWORD_CHARS ? value.substring(0, MAX_KEYWORD_CHARS) : value;
+	}
+
+	private static Double number(Object value) {
+		if (value instanceof Number number) {
+			double d = number.doubleValue();
+			return Double.isFinite(d) ? d : null;
+		}
+		String text = value.toString().trim();
+		if (text.isEmpty()) {
+			return null;
+		}
+		try {
+			// Decimal comma ("12,50"); with a point present the comma is not touched
+			return new BigDecimal(text.indexOf('.') < 0 ? text.replace(',', '.') : text).doubleValue();
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static LocalDate date(Object value) {
+		if (value instanceof LocalDate date) {
+			return date;
+		}
+		String text = value.toString().trim();
+		try {
+			// Date part of ISO dates and date-times
+			return LocalDate.parse(text.length() > 10 ? text.substring(0, 10) : text);
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+
+	private static Boolean bool(Object value) {
+		if (value instanceof Boolean bool) {
+			return bool;
+		}
+		return switch (value.toString().trim().toLowerCase(Locale.ROOT)) {
+			case "true" -> Boolean.TRUE;
+			case "false" -> Boolean.FALSE;
+			default -> null;
+		};
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.schwehla.matrosdms.entity.DBCategory;
+
+/**
+ * Immutable snapshot of the category hierarchy (uuid, name, parent), so the
+ * index bridge can resolve ancestors without loading the parent chain of
+ * every item. The current snapshot is held statically because the bridge is
+ * not a Spring bean; CategoryTreeService replaces it after category changes.
+ *
+ * Paths are the uuids from the root down, joined by {@link #SEPARATOR}
+ * ("ROOT_KIND/4f2c.../a81e..."). Every prefix of an item's category paths is
+ * indexed in "categoryPath", so "below category X" is one term: X's path.
+ *
+ * Categories changed since the snapshot was loaded are tracked (see
+ * CategoryTreeListener) from their flush until a reload that read them after
+ * the commit; chains through them are stale and taken from the entities.
+ */
+public final class CategoryTree {
+
+	public static final char SEPARATOR = '/';
+
+	// Guards against cycles in broken data
+	private static final int MAX_DEPTH = 64;
+
+	public record Node(String uuid, String name, String parentUuid) {
+	}
+
+	private static volatile CategoryTree current = new CategoryTree(List.of());
+
+	// Categories changed by open transactions (count of pending completions)
+	private static final Map<String, Integer> changing = new ConcurrentHashMap<>();
+	// Categories changed by completed transactions, by completion number
+	private static final Map<String, Long> changed = new ConcurrentHashMap<>();
+	private static final AtomicLong completions = new AtomicLong();
+
+	private final Map<String, Node> nodes = new HashMap<>();
+	private final Map<String, List<String>> children = new HashMap<>();
+
+	public CategoryTree(List<Node> source) {
+		for (Node node : source) {
+			nodes.put(node.uuid(), node);
+		}
+		for (Node node : source) {
+			if (node.parentUuid() != null) {
+				children.computeIfAbsent(node.parentUuid(), k -> new ArrayList<>()).add(node.uuid());
+			}
+		}
+	}
+
+	public static CategoryTree current() {
+		return current;
+	}
+
+	/**
+	 * Replaces the snapshot. {@code completedBefore} is the value of
+	 * {@link #completedChanges()} before the snapshot was read; changes
+	 * completed up to then are contained in it.
+	 */
+	public static void set(CategoryTree tree, long completedBefore) {
+		current = tree;
+		changed.values().removeIf(completion -> completion <= completedBefore);
+	}
+
+	/** Called when a change of the category is flushed, before its commit. */
+	public static void changeStarted(String uuid) {
+		changing.merge(uuid, 1, Integer::sum);
+	}
+
+	/** Called when the transaction of a started change is committed or rolled back. */
+	public static void changeCompleted(String uuid) {
+		// Marked completed before the open count drops, so it is never unmarked in between
+		changed.put(uuid, completions.incrementAndGet());
+		changing.computeIfPresent(uuid, (key, count) -> count > 1 ? count - 1 : null);
+	}
+
+	public static long completedChanges() {
+		return completions.get();
+	}
+
+	/** True if a category of the chain changed since the snapshot was loaded. */
+	public static boolean isStale(List<Node> chain) {
+		for (Node node : chain) {
+			if (changing.containsKey(node.uuid()) || changed.containsKey(node.uuid()))
+				return true;
+		}
+		return false;
+	}
+
+	public int size() {
+		return nodes.size();
+	}
+
+	public boolean contains(String uuid) {
+		return nodes.containsKey(uuid);
+	}
+
+	/** The category and its ancestors, root first. Empty if unknown. */
+	public List<Node> ancestry(String uuid) {
+		List<Node> chain = new ArrayList<>();
+		Node node = nodes.get(uuid);
+		while (node != null && chain.size() < MAX_DEPTH) {
+			chain.add(node);
+			node = node.parentUuid() != null ? nodes.get(node.parentUuid()) : null;
+		}
+		Collections.reverse(chain);
+		return chain;
+	}
+
+	/** Path of the category ("ROOT_KIND/.../uuid"), null if unknown. */
+	public String path(String uuid) {
+		List<Node> chain = ancestry(uuid);
+		return chain.isEmpty() ? null : join(chain, chain.size());
+	}
+
+	/** The category and all categories below it. */
+	public Set<String> subtree(String uuid) {
+		Set<String> result = new LinkedHashSet<>();
+		result.add(uuid);
+		Deque<String> open = new ArrayDeque<>(List.of(uuid));
+		while (!open.isEmpty()) {
+			for (String child : children.getOrDefault(open.pop(), List.of())) {
+				if (result.add(child)) {
+					open.push(child);
+				}
+			}
+		}
+		return result;
+	}
+
+	/** Path prefixes of a chain (root first): "R", "R/A", "R/A/B". */
+	public static List<String> pathPrefixes(List<Node> chain) {
+		List<String> prefixes = new ArrayList<>(chain.size());
+		for (int i = 1; i <= chain.size(); i++) {
+			prefixes.add(join(chain, i));
+		}
+		return prefixes;
+	}
+
+	/**
+	 * Chain of a category not (yet) in the snapshot, e.g. created in the
+	 * transaction being indexed, or changed since it was loaded. Walks the
+	 * entity parents.
+	 */
+	public static List<Node> ancestryOf(DBCategory category) {
+		List<Node> chain = new ArrayList<>();
+		DBCategory current = category;
+		while (current != null && chain.size() < MAX_DEPTH) {
+			DBCategory parent = current.getParent();
+			chain.add(new Node(current.getUuid(), current.getName(), parent != null ? parent.getUuid() : null));
+			current = parent;
+		}
+		Collections.reverse(chain);
+		return chain;
+	}
+
+	private static String join(List<Node> chain, int length) {
+		StringBuilder path = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			if (i > 0)
+				path.append(SEPARATOR);
+			path.append(chain.get(i).uuid());
+		}
+		return path.toString();
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.search;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import net.schwehla.matrosdms.entity.DBCategory;
+import net.schwehla.matrosdms.service.CategoryTreeService;
+
+/**
+ * Marks a changed category as stale in the {@link CategoryTree} snapshot from
+ * its flush on, and reloads the snapshot once the transaction completes. Items
+ * indexed before the reload get the category's ancestry from the entities.
+ */
+public class CategoryTreeListener {
+
+	@PostPersist
+	@PostUpdate
+	@PostRemove
+	public void changed(Object entity) {
+		String uuid = ((DBCategory) entity).getUuid();
+		CategoryTree.changeStarted(uuid);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					// Also after a rollback, so the reload clears the mark
+					CategoryTree.changeCompleted(uuid);
+					CategoryTreeService.categoriesChanged();
+				}
+			});
+		} else {
+			CategoryTree.changeCompleted(uuid);
+			CategoryTreeService.categoriesChanged();
+		}
+	}
+}
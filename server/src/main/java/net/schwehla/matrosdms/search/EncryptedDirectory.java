@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.search;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.zip.CRC32;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.BufferedIndexInput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+
+/**
+ * Lucene directory that encrypts every file with AES-256-GCM in blocks of a
+ * fixed plaintext size, so any position is read by decrypting one block.
+ * Decrypted blocks are kept in an {@link IndexBlockCache}; a warm cache makes
+ * reads a lookup and a copy.
+ *
+ * File layout: magic, block size and a random 64 bit nonce, then the blocks,
+ * each followed by its 16 byte tag. The IV of a block is the nonce and the
+ * block number, so blocks cannot be moved within or between files; dropped
+ * trailing blocks are caught by the checksum in Lucene's file footer. The
+ * block size is read from each file, a changed setting applies to new files.
+ */
+public class EncryptedDirectory extends FilterDirectory {
+
+	private static final int MAGIC = 0x4D445831; // "MDX1"
+	private static final int HEADER_LENGTH = 16;
+	private static final int TAG_LENGTH = 16;
+	private static final String CIPHER_ALGORITHM = "AES/GCM/NoPadding";
+
+	private static final SecureRandom random = new SecureRandom();
+
+	private final SecretKeySpec key;
+	private final int blockSize;
+	private final IndexBlockCache cache;
+
+	/**
+	 * @param in
+	 *            directory holding the encrypted files
+	 * @param key
+	 *            AES-256 key
+	 * @param blockSize
+	 *            plaintext bytes per block of new files
+	 */
+	public EncryptedDirectory(Directory in, byte[] key, int blockSize, IndexBlockCache cache) {
+		super(in);
+		if (key == null || key.length != 32) {
+			throw new IllegalArgumentException("Encryption key must be 32 bytes for AES-256");
+		}
+		this.key = new SecretKeySpec(key, "AES");
+		this.blockSize = blockSize;
+		this.cache = cache;
+	}
+
+	@Override
+	public IndexOutput createOutput(String name, IOContext context) throws IOException {
+		return new EncryptedIndexOutput(in.createOutput(name, context), key, blockSize, random.nextLong());
+	}
+
+	@Override
+	public IndexOutput createTempOutput(String prefix, String suffix, IOContext context) throws IOException {
+		return new EncryptedIndexOutput(in.createTempOutput(prefix, suffix, context), key, blockSize,
+				random.nextLong());
+	}
+
+	@Override
+	public IndexInput openInput(String name, IOContext context) throws IOException {
+		IndexInput raw = in.openInput(name, context);
+		try {
+			Header header = Header.read(raw, name);
+			return new EncryptedIndexInput("EncryptedIndexInput(" + raw + ")", raw, header, key, cache,
+					BufferedIndexInput.bufferSize(context));
+		} catch (IOException | RuntimeException e) {
+			raw.close();
+			throw e;
+		}
+	}
+
+	@Override
+	public long fileLength(String name) throws IOException {
+		// Created by the lock factory, not through this directory
+		if (IndexWriter.WRITE_LOCK_NAME.equals(name)) {
+			return in.fileLength(name);
+		}
+		try (IndexInput raw = in.openInput(name, IOContext.READONCE)) {
+			return Header.read(raw, name).plainLength(raw.length());
+		}
+	}
+
+	/** Copies through this directory's encryption, whatever the source stores. */
+	@Override
+	public void copyFrom(Directory from, String src, String dest, IOContext context) throws IOException {
+		try (IndexOutput out = createOutput(dest, context); IndexInput input = from.openInput(src, context)) {
+			out.copyBytes(input, input.length());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "EncryptedDirectory(" + in + ")";
+	}
+
+	private static byte[] iv(long nonce, long block) {
+		return ByteBuffer.allocate(12).putLong(nonce).putInt((int) block).array();
+	}
+
+	private record Header(int blockSize, long nonce) {
+
+		static Header read(IndexInput raw, String name) throws IOException {
+			if (raw.length() < HEADER_LENGTH) {
+				throw new CorruptIndexException("Not an encrypted index file (too short)", name);
+			}
+			raw.seek(0);
+			byte[] bytes = new byte[HEADER_LENGTH];
+			raw.readBytes(bytes, 0, HEADER_LENGTH);
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			if (buffer.getInt() != MAGIC) {
+				throw new CorruptIndexException("Not an encrypted index file (plaintext index in this folder?)",
+						name);
+			}
+			int blockSize = buffer.getInt();
+			if (blockSize <= 0) {
+				throw new CorruptIndexException("Invalid block size " + blockSize, name);
+			}
+			return new Header(blockSize, buffer.getLong());
+		}
+
+		void write(IndexOutput out) throws IOException {
+			out.writeBytes(ByteBuffer.allocate(HEADER_LENGTH).putInt(MAGIC).putInt(blockSize).putLong(nonce).array(),
+					HEADER_LENGTH);
+		}
+
+		/** Plaintext length of a file with the given encrypted length. */
+		long plainLength(long rawLength) {
+			long body = rawLength - HEADER_LENGTH;
+			long fullBlocks = body / (blockSize + TAG_LENGTH);
+			long rest = body % (blockSize + TAG_LENGTH);
+			return fullBlocks * blockSize + (rest > 0 ? rest - TAG_LENGTH : 0);
+		}
+	}
+
+	/** Collects a block of plaintext, encrypts and appends it when full and on close. */
+	private static final class EncryptedIndexOutput extends IndexOutput {
+
+		private final IndexOutput raw;
+		private final SecretKeySpec key;
+		private final Header header;
+		private final byte[] block;
+		private final CRC32 checksum = new CRC32();
+		private final Cipher cipher;
+		private int used;
+		private long blockIndex;
+		private long written;
+		private boolean closed;
+
+		EncryptedIndexOutput(IndexOutput raw, SecretKeySpec key, int blockSize, long nonce) throws IOException {
+			super("EncryptedIndexOutput(" + raw + ")", raw.getName());
+			this.raw = raw;
+			this.key = key;
+			this.header = new Header(blockSize, nonce);
+			this.block = new byte[blockSize];
+			try {
+				this.cipher = Cipher.getInstance(CIPHER_ALGORITHM);
+				header.write(raw);
+			} catch (GeneralSecurityException e) {
+				raw.close();
+				throw new IOException("Cipher not available: " + e.getMessage(), e);
+			} catch (IOException | RuntimeException e) {
+				raw.close();
+				throw e;
+			}
+		}
+
+		@Override
+		public void writeByte(byte b) throws IOException {
+			block[used++] = b;
+			checksum.update(b);
+			written++;
+			if (used == block.length) {
+				flushBlock();
+			}
+		}
+
+		@Override
+		public void writeBytes(byte[] b, int offset, int length) throws IOException {
+			checksum.update(b, offset, length);
+			written += length;
+			while (length > 0) {
+				int n = Math.min(length, block.length - used);
+				System.arraycopy(b, offset, block, used, n);
+				used += n;
+				offset += n;
+				length -= n;
+				if (used == block.length) {
+					flushBlock();
+				}
+			}
+		}
+
+		private void flushBlock() throws IOException {
+			try {
+				cipher.init(Cipher.ENCRYPT_MODE, key,
+						new GCMParameterSpec(TAG_LENGTH * 8, iv(header.nonce(), blockIndex)));
+				byte[] encrypted = cipher.doFinal(block, 0, used);
+				raw.writeBytes(encrypted, encrypted.length);
+			} catch (GeneralSecurityException e) {
+				throw new IOException("Encryption of block " + blockIndex + " of " + getName() + " failed", e);
+			}
+			blockIndex++;
+			used = 0;
+		}
+
+		@Override
+		public long getFilePointer() {
+			return written;
+		}
+
+		@Override
+		public long getChecksum() {
+			return checksum.getValue();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try (IndexOutput out = raw) {
+				if (used > 0) {
+					flushBlock();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads through the block cache; each clone (Lucene reads concurrently
+	 * through clones) has its own cipher and raw input.
+	 */
+	private static final class EncryptedIndexInput extends BufferedIndexInput {
+
+		private IndexInput raw;
+		private final Header header;
+		private final SecretKeySpec key;
+		private final IndexBlockCache cache;
+		private final long length;
+		private Cipher cipher;
+		private boolean clone;
+
+		EncryptedIndexInput(String description, IndexInput raw, Header header, SecretKeySpec key,
+				IndexBlockCache cache, int bufferSize) {
+			super(description, bufferSize);
+			this.raw = raw;
+			this.header = header;
+			this.key = key;
+			this.cache = cache;
+			this.length = header.plainLength(raw.length());
+		}
+
+		@Override
+		protected void readInternal(ByteBuffer b) throws IOException {
+			long position = getFilePointer();
+			if (position + b.remaining() > length) {
+				throw new EOFException("Read past EOF: " + this);
+			}
+			int blockSize = header.blockSize();
+			while (b.hasRemaining()) {
+				long blockIndex = position / blockSize;
+				int offset = (int) (position % blockSize);
+				byte[] plain = cache.get(header.nonce(), blockIndex, () -> decrypt(blockIndex));
+				int n = Math.min(b.remaining(), plain.length - offset);
+				b.put(plain, offset, n);
+				position += n;
+			}
+		}
+
+		private byte[] decrypt(long blockIndex) throws IOException {
+			int blockSize = header.blockSize();
+			int plainLength = (int) Math.min(blockSize, length - blockIndex * blockSize);
+			byte[] encrypted = new byte[plainLength + TAG_LENGTH];
+			raw.seek(HEADER_LENGTH + blockIndex * (blockSize + TAG_LENGTH));
+			raw.readBytes(encrypted, 0, encrypted.length);
+			try {
+				if (cipher == null) {
+					cipher = Cipher.getInstance(CIPHER_ALGORITHM);
+				}
+				cipher.init(Cipher.DECRYPT_MODE, key,
+						new GCMParameterSpec(TAG_LENGTH * 8, iv(header.nonce(), blockIndex)));
+				return cipher.doFinal(encrypted);
+			} catch (AEADBadTagException e) {
+				throw new CorruptIndexException("Block " + blockIndex + " fails authentication (wrong key?)",
+						this, e);
+			} catch (GeneralSecurityException e) {
+				throw new IOException("Decryption of block " + blockIndex + " failed: " + this, e);
+			}
+		}
+
+		@Override
+		protected void seekInternal(long pos) throws IOException {
+			if (pos > length) {
+				throw new EOFException("Seek past EOF (" + pos + " > " + length + "): " + this);
+			}
+		}
+
+		@Override
+		public long length() {
+			return length;
+		}
+
+		@Override
+		public EncryptedIndexInput clone() {
+			EncryptedIndexInput copy = (EncryptedIndexInput) super.clone();
+			copy.raw = raw.clone();
+			copy.cipher = null;
+			copy.clone = true;
+			return copy;
+		}
+
+		@Override
+		public void close() throws IOException {
+			// Clones share the file of the original, which Lucene closes
+			if (!clone) {
+				raw.close();
+			}
+		}
+	}
+}
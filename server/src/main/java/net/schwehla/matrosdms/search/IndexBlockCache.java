@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.search;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Decrypted blocks of encrypted index files, bounded by bytes. Shared by all
+ * files and all clones of their inputs; a block is identified by the random
+ * nonce of its file (index files are written once, so the nonce stands for
+ * the content) and its number.
+ */
+public class IndexBlockCache {
+
+	private record BlockKey(long fileNonce, long block) {
+	}
+
+	@FunctionalInterface
+	public interface BlockLoader {
+		byte[] load() throws IOException;
+	}
+
+	private final Cache<BlockKey, byte[]> cache;
+
+	public IndexBlockCache(long maxBytes) {
+		this.cache = Caffeine.newBuilder()
+				.maximumWeight(Math.max(1, maxBytes))
+				.weigher((BlockKey key, byte[] block) -> block.length)
+				.recordStats()
+				.build();
+	}
+
+	/** The cached block, or the block the loader decrypts (and which is cached then). */
+	public byte[] get(long fileNonce, long block, BlockLoader loader) throws IOException {
+		try {
+			return cache.get(new BlockKey(fileNonce, block), key -> {
+				try {
+					return loader.load();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	public long getHitCount() {
+		return cache.stats().hitCount();
+	}
+
+	public long getMissCount() {
+		return cache.stats().missCount();
+	}
+
+	public double getHitRate() {
+		CacheStats stats = cache.stats();
+		return stats.requestCount() > 0 ? stats.hitRate() : 0;
+	}
+
+	/** Decrypted bytes currently held. */
+	public long getBytes() {
+		return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.search;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.hibernate.search.backend.lucene.lowlevel.directory.spi.DirectoryCreationContext;
+import org.hibernate.search.backend.lucene.lowlevel.directory.spi.DirectoryHolder;
+import org.hibernate.search.backend.lucene.lowlevel.directory.spi.DirectoryProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.store.encryption.EncryptionConfig;
+
+/**
+ * Opens the search indexes encrypted (see EncryptedDirectory) when
+ * {@code app.indexing.encryption} is enabled. The key is derived from the
+ * store key, so documents and index share one password but never a key. The
+ * item index is plugged into Hibernate Search as directory provider, the
+ * passage index opens its directory here.
+ *
+ * Encrypted indexes use their own folders ("index-encrypted" next to
+ * "index"); after switching they are empty and rebuilt.
+ */
+@Component
+public class IndexEncryption {
+
+	private static final Logger log = LoggerFactory.getLogger(IndexEncryption.class);
+
+	private static final String FOLDER_SUFFIX = "-encrypted";
+
+	@Autowired
+	AppServerSpringConfig config;
+	@Autowired
+	EncryptionConfig encryptionConfig;
+
+	private byte[] key;
+	private IndexBlockCache cache;
+
+	@PostConstruct
+	public void init() {
+		AppServerSpringConfig.IndexEncryption options = config.getIndexing().getEncryption();
+		if (!options.isEnabled()) {
+			return;
+		}
+		if (!encryptionConfig.isEncryptionEnabled()) {
+			throw new IllegalStateException("Index encryption needs store encryption: "
+					+ "configure an AES cryptor and MATROS_STORE_PASSWORD, or disable app.indexing.encryption");
+		}
+		key = deriveKey(encryptionConfig.getEncryptionKey());
+		cache = new IndexBlockCache(options.getCacheSize().toBytes());
+		log.info("🔐 Search index encryption ENABLED (blocks of {}, cache {})", options.getBlockSize(),
+				options.getCacheSize());
+	}
+
+	@PreDestroy
+	public void cleanup() {
+		if (key != null) {
+			Arrays.fill(key, (byte) 0);
+		}
+	}
+
+	public boolean isEnabled() {
+		return key != null;
+	}
+
+	/** Block cache of the encrypted indexes, null if encryption is off. */
+	public IndexBlockCache getCache() {
+		return cache;
+	}
+
+	/** The folder an index is kept in: {@code path} itself, or its encrypted sibling. */
+	public Path folder(Path path) {
+		return isEnabled() ? path.resolveSibling(path.getFileName() + FOLDER_SUFFIX) : path;
+	}
+
+	/** Opens the index in {@link #folder(Path)}, encrypted if enabled. */
+	public Directory open(Path path) throws IOException {
+		Path folder = folder(path);
+		Files.createDirectories(folder);
+		FSDirectory directory = FSDirectory.open(folder);
+		return isEnabled() ? encrypted(directory) : directory;
+	}
+
+	private EncryptedDirectory encrypted(Directory directory) {
+		return new EncryptedDirectory(directory, key, blockSize(), cache);
+	}
+
+	/** Plaintext bytes per block of new index files. */
+	public int blockSize() {
+		return (int) Math.max(1024, config.getIndexing().getEncryption().getBlockSize().toBytes());
+	}
+
+	/** Directory provider for the Hibernate Search Lucene backend ("directory.type"). */
+	public DirectoryProvider directoryProvider() {
+		return context -> new Holder(context);
+	}
+
+	/** HKDF-style expansion of the store key for the index (HMAC-SHA256 with a fixed label). */
+	private static byte[] deriveKey(byte[] storeKey) {
+		try {
+			Mac mac = Mac.getInstance("HmacSHA256");
+			mac.init(new SecretKeySpec(storeKey, "HmacSHA256"));
+			return mac.doFinal("matrosdms search index v1".getBytes(StandardCharsets.UTF_8));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Index key could not be derived", e);
+		} finally {
+			Arrays.fill(storeKey, (byte) 0);
+		}
+	}
+
+	/** Layout as with the local file system provider: {@code <root>-encrypted/<index>[/<shard>]}. */
+	private class Holder implements DirectoryHolder {
+
+		private final Path path;
+		private Directory directory;
+
+		Holder(DirectoryCreationContext context) {
+			String root = context.configurationPropertySource().get("directory.root")
+					.map(Object::toString)
+					.orElseThrow(() -> new IllegalStateException("hibernate.search.backend.directory.root not set"));
+			Path indexPath = folder(Paths.get(root)).resolve(context.indexName());
+			this.path = context.shardId().map(indexPath::resolve).orElse(indexPath);
+		}
+
+		@Override
+		public void start() {
+			try {
+				Files.createDirectories(path);
+				directory = encrypted(FSDirectory.open(path));
+			} catch (IOException e) {
+				throw new IllegalStateException("Encrypted search index could not be opened: " + path, e);
+			}
+		}
+
+		@Override
+		public Directory get() {
+			return directory;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (directory != null) {
+				directory.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.search;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generation stamped into every item document by {@link ItemTextBridge}.
+ * A rebuild raises it before rewriting the index, so documents written since
+ * (by the rebuild or by live changes) can be told apart from leftovers of the
+ * previous generation; a failed rebuild sets the committed one again. Static
+ * because the bridge is not a Spring bean.
+ */
+public final class IndexGeneration {
+
+	private static final AtomicLong current = new AtomicLong();
+
+	private IndexGeneration() {
+	}
+
+	public static long current() {
+		return current.get();
+	}
+
+	public static void set(long generation) {
+		current.set(generation);
+	}
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.search;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import net.schwehla.matrosdms.entity.DBItem;
+import net.schwehla.matrosdms.service.IndexQueueService;
+
+/**
+ * Takes the place of the automatic indexing listeners of Hibernate Search,
+ * which are off: every flushed insert, update or delete of an item (also of
+ * its categories, which raise its version) is handed to the index queue, so
+ * no writer of items can leave the index stale.
+ */
+public class ItemIndexListener {
+
+	@PostPersist
+	@PostUpdate
+	@PostRemove
+	public void changed(Object entity) {
+		IndexQueueService.itemChanged(((DBItem) entity).getId());
+	}
+}
@@ -14,13 +14,22 @@ import org.hibernate.search.engine.backend.document.IndexObjectFieldReference;
 import org.hibernate.search.engine.backend.document.model.dsl.IndexSchemaElement;
 import org.hibernate.search.engine.backend.document.model.dsl.IndexSchemaObjectField;
 import org.hibernate.search.engine.backend.types.*;
+import org.hibernate.search.engine.environment.bean.BeanHolder;
+import org.hibernate.search.engine.environment.bean.BeanRetrieval;
 import org.hibernate.search.mapper.pojo.bridge.binding.TypeBindingContext;
 import org.hibernate.search.mapper.pojo.bridge.mapping.programmatic.TypeBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.EmbeddingConfig;
 import net.schwehla.matrosdms.entity.DBItem;
+import net.schwehla.matrosdms.service.EmbeddingService;
 
 public class ItemTextBinder implements TypeBinder {
 
+	private static final Logger log = LoggerFactory.getLogger(ItemTextBinder.class);
+
 	@Override
 	public void bind(TypeBindingContext context) {
 		context
@@ -38,7 +47,10 @@ public class ItemTextBinder implements TypeBinder {
 				.use("source")
 				.use("stage")
 				.use("storageItemIdentifier")
-				.use("textParsed");
+				.use("textParsed")
+				.use("textVersion")
+				.use("dateArchived")
+				.use("embedding");
 
 		IndexSchemaElement root = context.indexSchemaElement();
 
@@ -52,6 +64,9 @@ public class ItemTextBinder implements TypeBinder {
 						.projectable(Projectable.YES)
 						.highlightable(EnumSet.of(Highlightable.ANY)))
 				.toReference();
+		// Lowercased copy of the name for sorting (the name itself is analyzed)
+		root.field("nameSort", f -> f.asString().sortable(Sortable.YES).projectable(Projectable.YES))
+				.toReference();
 		root.field(
 				"description",
 				f -> f.asString()
@@ -67,7 +82,25 @@ public class ItemTextBinder implements TypeBinder {
 						.highlightable(EnumSet.of(Highlightable.ANY)))
 				.toReference();
 
-		root.field("source", f -> f.asString().projectable(Projectable.YES)).toReference();
+		// N-gram copies of name and filename for the infix filter of the context view
+		root.field("nameInfix", f -> f.asString().analyzer(MatrosAnalysisConfigurer.INFIX)).toReference();
+		root.field(
+				"nameInfixShort",
+				f -> f.asString()
+						.analyzer(MatrosAnalysisConfigurer.INFIX_SHORT)
+						.searchAnalyzer(MatrosAnalysisConfigurer.INFIX_QUERY))
+				.toReference();
+		root.field("filenameInfix", f -> f.asString().analyzer(MatrosAnalysisConfigurer.INFIX)).toReference();
+		root.field(
+				"filenameInfixShort",
+				f -> f.asString()
+						.analyzer(MatrosAnalysisConfigurer.INFIX_SHORT)
+						.searchAnalyzer(MatrosAnalysisConfigurer.INFIX_QUERY))
+				.toReference();
+		root.field("archived", f -> f.asBoolean()).toReference();
+
+		root.field("source", f -> f.asString().projectable(Projectable.YES).aggregable(Aggregable.YES))
+				.toReference();
 		root.field("textParsed", f -> f.asString().projectable(Projectable.YES)).toReference();
 
 		// NEW PROJECTIONS
@@ -75,12 +108,23 @@ public class ItemTextBinder implements TypeBinder {
 		root.field("storageItemIdentifier", f -> f.asString().projectable(Projectable.YES)).toReference();
 
 		// Capture Reference 1: Fulltext
+		// Stored for the fast vector highlighter, which cuts snippets from the
+		// stored text with the offsets of the term vectors instead of analyzing
+		// it again; metadata-only updates re-supply it without reading the layer.
 		IndexFieldReference<String> fulltextRef = root.field(
 				"fulltext",
 				f -> f.asString()
 						.analyzer("standard")
-						.projectable(Projectable.NO)
-						.highlightable(EnumSet.of(Highlightable.ANY)))
+						.projectable(Projectable.YES)
+						.termVector(TermVector.WITH_POSITIONS_OFFSETS)
+						.highlightable(EnumSet.of(Highlightable.FAST_VECTOR)))
+				.toReference();
+		IndexFieldReference<Integer> textVersionRef = root
+				.field("textVersion", f -> f.asInteger().projectable(Projectable.YES))
+				.toReference();
+		// Rebuild generation (see IndexGeneration), sortable to find the newest on startup
+		IndexFieldReference<Long> generationRef = root
+				.field("generation", f -> f.asLong().projectable(Projectable.YES).sortable(Sortable.YES))
 				.toReference();
 
 		// 2. Context (Folder)
@@ -88,7 +132,8 @@ public class ItemTextBinder implements TypeBinder {
 		infoContextObj
 				.field("name", f -> f.asString().analyzer("standard").projectable(Projectable.YES))
 				.toReference();
-		infoContextObj.field("uuid", f -> f.asString().projectable(Projectable.YES)).toReference();
+		infoContextObj.field("uuid", f -> f.asString().projectable(Projectable.YES).aggregable(Aggregable.YES))
+				.toReference();
 		infoContextObj.toReference();
 
 		// 3. Categories (Tags)
@@ -104,15 +149,19 @@ public class ItemTextBinder implements TypeBinder {
 								.projectable(Projectable.YES)
 								.sortable(Sortable.YES))
 				.toReference();
-		kindListObj.field("uuid", f -> f.asString().projectable(Projectable.YES)).toReference();
+		kindListObj.field("uuid", f -> f.asString().projectable(Projectable.YES).aggregable(Aggregable.YES))
+				.toReference();
 		kindListObj.toReference();
+		// Every prefix of the uuid path of each category (see CategoryTree)
+		root.field("categoryPath", f -> f.asString()).multiValued().toReference();
 
 		// 4. Store
 		IndexSchemaObjectField storeObj = root.objectField("store", ObjectStructure.FLATTENED);
 		storeObj
 				.field("shortname", f -> f.asString().analyzer("standard").projectable(Projectable.YES))
 				.toReference();
-		storeObj.field("uuid", f -> f.asString().projectable(Projectable.YES)).toReference();
+		storeObj.field("uuid", f -> f.asString().projectable(Projectable.YES).aggregable(Aggregable.YES))
+				.toReference();
 		storeObj.toReference();
 
 		// 5. Dates
@@ -123,6 +172,8 @@ public class ItemTextBinder implements TypeBinder {
 						.aggregable(Aggregable.YES)
 						.projectable(Projectable.YES))
 				.toReference();
+		// "YYYY-MM" of the issue date, for month/year facets
+		root.field("issueMonth", f -> f.asString().aggregable(Aggregable.YES)).toReference();
 		root.field(
 				"dateCreated",
 				f -> f.asLocalDateTime().sortable(Sortable.YES).projectable(Projectable.YES))
@@ -136,7 +187,63 @@ public class ItemTextBinder implements TypeBinder {
 		// Capture Reference: Attribute Object
 		IndexObjectFieldReference attrObjRef = attrField.toReference();
 
+		// Attribute values once more as keywords, for facet counts, exact matches
+		// and sorting of text attributes
+		IndexSchemaObjectField attrFacetField = root.objectField("attrFacet", ObjectStructure.FLATTENED);
+		root.fieldTemplate(
+				"attributeFacetTemplate",
+				f -> f.asString().aggregable(Aggregable.YES).sortable(Sortable.YES).projectable(Projectable.YES))
+				.matchingPathGlob("attrFacet.*");
+		IndexObjectFieldReference attrFacetObjRef = attrFacetField.toReference();
+
+		// Values of typed attributes by their data type (see AttributeTypes), for
+		// range queries, sorting and range aggregations
+		IndexSchemaObjectField attrNumField = root.objectField("attrNum", ObjectStructure.FLATTENED);
+		root.fieldTemplate(
+				"attributeNumberTemplate",
+				f -> f.asDouble().sortable(Sortable.YES).aggregable(Aggregable.YES).projectable(Projectable.YES))
+				.matchingPathGlob("attrNum.*");
+		IndexObjectFieldReference attrNumObjRef = attrNumField.toReference();
+		IndexSchemaObjectField attrDateField = root.objectField("attrDate", ObjectStructure.FLATTENED);
+		root.fieldTemplate(
+				"attributeDateTemplate",
+				f -> f.asLocalDate().sortable(Sortable.YES).aggregable(Aggregable.YES).projectable(Projectable.YES))
+				.matchingPathGlob("attrDate.*");
+		IndexObjectFieldReference attrDateObjRef = attrDateField.toReference();
+		IndexSchemaObjectField attrBoolField = root.objectField("attrBool", ObjectStructure.FLATTENED);
+		root.fieldTemplate(
+				"attributeBooleanTemplate",
+				f -> f.asBoolean().sortable(Sortable.YES).aggregable(Aggregable.YES).projectable(Projectable.YES))
+				.matchingPathGlob("attrBool.*");
+		IndexObjectFieldReference attrBoolObjRef = attrBoolField.toReference();
+
+		// 7. Semantic embedding (unit length, see EmbeddingService), HNSW graph for
+		// approximate nearest neighbour search
+		EmbeddingConfig embedding = embeddingConfig(context);
+		IndexFieldReference<float[]> embeddingRef = root.field(
+				"embedding",
+				f -> f.asFloatVector()
+						.dimension(embedding.getDimension())
+						.vectorSimilarity(VectorSimilarity.DOT_PRODUCT)
+						.m(embedding.getHnswM())
+						.efConstruction(embedding.getHnswEfConstruction()))
+				.toReference();
+
 		// Register Bridge with captured references
-		context.bridge(DBItem.class, new ItemTextBridge(fulltextRef, attrObjRef));
+		context.bridge(DBItem.class,
+				new ItemTextBridge(fulltextRef, textVersionRef, generationRef, attrObjRef, attrFacetObjRef,
+						attrNumObjRef, attrDateObjRef, attrBoolObjRef, embeddingRef, EmbeddingService.modelId(embedding),
+						embedding.getDimension()));
+	}
+
+	/** The binder runs while the ORM boots; the settings come from the Spring context. */
+	private static EmbeddingConfig embeddingConfig(TypeBindingContext context) {
+		try (BeanHolder<AppServerSpringConfig> config = context.beanResolver()
+				.resolve(AppServerSpringConfig.class, BeanRetrieval.BEAN)) {
+			return config.get().getAi().getEmbedding();
+		} catch (RuntimeException e) {
+			log.warn("Embedding settings not available, using defaults: {}", e.getMessage());
+			return new EmbeddingConfig();
+		}
 	}
 }
\ No newline at end of file
@@ -7,13 +7,20 @@
  */
 package net.schwehla.matrosdms.search;
 
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
 import org.hibernate.search.engine.backend.document.DocumentElement;
 import org.hibernate.search.engine.backend.document.IndexFieldReference;
 import org.hibernate.search.engine.backend.document.IndexObjectFieldReference;
+import org.hibernate.search.mapper.orm.HibernateOrmExtension;
+import org.hibernate.search.mapper.orm.Search;
 import org.hibernate.search.mapper.pojo.bridge.TypeBridge;
 import org.hibernate.search.mapper.pojo.bridge.runtime.TypeBridgeWriteContext;
 import org.slf4j.Logger;
@@ -21,25 +28,60 @@ import org.slf4j.LoggerFactory;
 
 import net.schwehla.matrosdms.entity.DBCategory;
 import net.schwehla.matrosdms.entity.DBItem;
+import net.schwehla.matrosdms.entity.DBItemEmbedding;
 import net.schwehla.matrosdms.store.StoreContext;
 import net.schwehla.matrosdms.util.TextLayerUtils;
 
 /**
  * Bridge that injects the file content into the search index.
- * Logic: Always attempts to read from disk to ensure self-healing of the index.
+ * Logic: The text layer is read from disk unless the index already holds the
+ * fulltext of the item's current text version (metadata-only update). Any
+ * mismatch, missing document or missing text of a parsed item falls back to
+ * the disk, and so does every document of an older {@link IndexGeneration}:
+ * a full rebuild always reads the layers, so the index still heals itself.
  */
 public class ItemTextBridge implements TypeBridge<DBItem> {
 
 	private static final Logger log = LoggerFactory.getLogger(ItemTextBridge.class);
 
+	// Same limit as the Tika extraction (10MB of text)
+	private static final int MAX_INDEXED_CHARS = 10 * 1024 * 1024;
+
 	private final IndexFieldReference<String> contentField;
+	private final IndexFieldReference<Integer> textVersionField;
+	private final IndexFieldReference<Long> generationField;
 	private final IndexObjectFieldReference attributesObjectField;
+	private final IndexObjectFieldReference attributeFacetsObjectField;
+	private final IndexObjectFieldReference attributeNumbersObjectField;
+	private final IndexObjectFieldReference attributeDatesObjectField;
+	private final IndexObjectFieldReference attributeBooleansObjectField;
+	private final IndexFieldReference<float[]> embeddingField;
+	private final String embeddingModel;
+	private final int embeddingDimension;
 
 	public ItemTextBridge(
 			IndexFieldReference<String> contentField,
-			IndexObjectFieldReference attributesObjectField) {
+			IndexFieldReference<Integer> textVersionField,
+			IndexFieldReference<Long> generationField,
+			IndexObjectFieldReference attributesObjectField,
+			IndexObjectFieldReference attributeFacetsObjectField,
+			IndexObjectFieldReference attributeNumbersObjectField,
+			IndexObjectFieldReference attributeDatesObjectField,
+			IndexObjectFieldReference attributeBooleansObjectField,
+			IndexFieldReference<float[]> embeddingField,
+			String embeddingModel,
+			int embeddingDimension) {
 		this.contentField = contentField;
+		this.textVersionField = textVersionField;
+		this.generationField = generationField;
 		this.attributesObjectField = attributesObjectField;
+		this.attributeFacetsObjectField = attributeFacetsObjectField;
+		this.attributeNumbersObjectField = attributeNumbersObjectField;
+		this.attributeDatesObjectField = attributeDatesObjectField;
+		this.attributeBooleansObjectField = attributeBooleansObjectField;
+		this.embeddingField = embeddingField;
+		this.embeddingModel = embeddingModel;
+		this.embeddingDimension = embeddingDimension;
 	}
 
 	@Override
@@ -47,14 +89,21 @@ public class ItemTextBridge implements TypeBridge<DBItem> {
 		// 1. Basic Metadata
 		if (item.getUuid() != null)
 			target.addValue("uuid", item.getUuid());
-		if (item.getName() != null)
+		if (item.getName() != null) {
 			target.addValue("name", item.getName());
+			target.addValue("nameSort", item.getName().toLowerCase(Locale.ROOT));
+			target.addValue("nameInfix", item.getName());
+			target.addValue("nameInfixShort", item.getName());
+		}
 		if (item.getDescription() != null)
 			target.addValue("description", item.getDescription());
 
 		if (item.getFile() != null && item.getFile().getFilename() != null) {
 			target.addValue("filename", item.getFile().getFilename());
+			target.addValue("filenameInfix", item.getFile().getFilename());
+			target.addValue("filenameInfixShort", item.getFile().getFilename());
 		}
+		target.addValue("archived", item.getDateArchived() != null);
 
 		if (item.getSource() != null) {
 			target.addValue("source", item.getSource().name());
@@ -69,28 +118,19 @@ public class ItemTextBridge implements TypeBridge<DBItem> {
 		}
 
 		target.addValue("textParsed", String.valueOf(item.isTextParsed()));
+		target.addValue(generationField, IndexGeneration.current());
 
 		// 2. Fulltext Content (The critical part)
-		// We ignore the DB flag and try to read from disk to ensure index consistency.
+		// Unchanged text version: take the stored fulltext, no decryption needed
 		if (item.getUuid() != null) {
-			try {
-				// Decrypts on the fly via StoreContext -> MatrosLocalStore -> EncryptionService
-				String rawXmlContent = StoreContext.readTextFile(item.getUuid());
-
-				if (rawXmlContent != null && !rawXmlContent.isBlank()) {
-					// Extract text from XML wrapper
-					String cleanText = TextLayerUtils.extractCleanText(rawXmlContent);
-
-					if (!cleanText.isEmpty()) {
-						target.addValue(contentField, cleanText);
-					} else {
-						// Fallback: Index raw XML if cleaning fails (better than nothing)
-						target.addValue(contentField, rawXmlContent);
-					}
-				}
-			} catch (Exception e) {
-				// Log debug to avoid flooding logs during mass reindexing of broken items
-				log.debug("Index: Could not read text layer for {}: {}", item.getUuid(), e.getMessage());
+			target.addValue(textVersionField, item.getTextVersion());
+
+			String cleanText = indexedText(item, context);
+			if (cleanText == null) {
+				cleanText = readTextLayer(item.getUuid());
+			}
+			if (!cleanText.isEmpty()) {
+				target.addValue(contentField, cleanText);
 			}
 		}
 
@@ -112,33 +152,59 @@ public class ItemTextBridge implements TypeBridge<DBItem> {
 				st.addValue("uuid", item.getStore().getUuid());
 		}
 
-		// 5. Categories (Tags) - Recursive
+		// 5. Categories (Tags) with their ancestors, resolved from the category
+		// tree snapshot instead of the lazy parent chain
 		if (item.getKindList() != null && !item.getKindList().isEmpty()) {
+			CategoryTree tree = CategoryTree.current();
 			Set<String> indexedCategories = new HashSet<>();
+			Set<String> indexedPaths = new HashSet<>();
 			for (DBCategory cat : item.getKindList()) {
-				DBCategory current = cat;
-				while (current != null) {
-					// Avoid cycles and duplicates
-					if (!indexedCategories.add(current.getName()))
-						break;
+				List<CategoryTree.Node> chain = tree.contains(cat.getUuid()) ? tree.ancestry(cat.getUuid()) : null;
+				// Moved or renamed since the snapshot was loaded: the entities are current
+				if (chain == null || CategoryTree.isStale(chain))
+					chain = CategoryTree.ancestryOf(cat);
 
-					var k = target.addObject("kindList");
-					k.addValue("name", current.getName());
-					k.addValue("raw", current.getName());
-					k.addValue("uuid", current.getUuid());
+				for (CategoryTree.Node node : chain) {
+					// Shared ancestors only once
+					if (!indexedCategories.add(node.uuid()))
+						continue;
 
-					current = current.getParent();
+					var k = target.addObject("kindList");
+					k.addValue("name", node.name());
+					k.addValue("raw", node.name());
+					k.addValue("uuid", node.uuid());
+				}
+				for (String path : CategoryTree.pathPrefixes(chain)) {
+					if (indexedPaths.add(path))
+						target.addValue("categoryPath", path);
 				}
 			}
 		}
 
-		// 6. Attributes (Flexfields)
+		// 6. Attributes (Flexfields): text and keyword, plus the typed value if it
+		// parses as the attribute's data type
 		if (item.getAttributes() != null && !item.getAttributes().isEmpty()) {
+			AttributeTypes types = AttributeTypes.current();
 			DocumentElement attrObject = target.addObject(attributesObjectField);
+			DocumentElement attrFacetObject = target.addObject(attributeFacetsObjectField);
+			DocumentElement attrNumObject = target.addObject(attributeNumbersObjectField);
+			DocumentElement attrDateObject = target.addObject(attributeDatesObjectField);
+			DocumentElement attrBoolObject = target.addObject(attributeBooleansObjectField);
 			for (Map.Entry<String, Object> entry : item.getAttributes().entrySet()) {
-				if (entry.getValue() != null) {
-					// Index as string for searchability
-					attrObject.addValue(entry.getKey(), entry.getValue().toString());
+				if (entry.getValue() == null) {
+					continue;
+				}
+				String value = entry.getValue().toString();
+				attrObject.addValue(entry.getKey(), value);
+				attrFacetObject.addValue(entry.getKey(), AttributeTypes.keyword(value));
+
+				Object typed = types.typedValue(entry.getKey(), entry.getValue());
+				if (typed instanceof Double number) {
+					attrNumObject.addValue(entry.getKey(), number);
+				} else if (typed instanceof LocalDate date) {
+					attrDateObject.addValue(entry.getKey(), date);
+				} else if (typed instanceof Boolean bool) {
+					attrBoolObject.addValue(entry.getKey(), bool);
 				}
 			}
 		}
@@ -146,9 +212,67 @@ public class ItemTextBridge implements TypeBridge<DBItem> {
 		// 7. Dates
 		if (item.getIssueDate() != null) {
 			target.addValue("issueDate", item.getIssueDate().toLocalDate());
+			target.addValue("issueMonth", YearMonth.from(item.getIssueDate()).toString());
 		}
 		if (item.getDateCreated() != null) {
 			target.addValue("dateCreated", item.getDateCreated());
 		}
+
+		// 8. Semantic embedding, only if computed by the configured model
+		DBItemEmbedding embedding = item.getEmbedding();
+		if (embedding != null
+				&& embedding.getDimension() == embeddingDimension
+				&& embeddingModel.equals(embedding.getModel())) {
+			target.addValue(embeddingField, embedding.getVector());
+		}
+	}
+
+	/**
+	 * Fulltext of the indexed document if it was built from the same text
+	 * version in the current generation, otherwise null. "" only for items
+	 * without parsed text; a parsed item without stored text (e.g. its layer
+	 * was not readable) is read again.
+	 */
+	private String indexedText(DBItem item, TypeBridgeWriteContext context) {
+		if (item.getId() == null) {
+			return null;
+		}
+		try {
+			var session = context.extension(HibernateOrmExtension.get()).session();
+			List<List<?>> hits = Search.session(session)
+					.search(DBItem.class)
+					.select(f -> f.composite(
+							f.field("textVersion", Integer.class),
+							f.field("generation", Long.class),
+							f.field("fulltext", String.class)))
+					.where(f -> f.id().matching(item.getId()))
+					.fetchHits(1);
+
+			if (hits.isEmpty()
+					|| !Integer.valueOf(item.getTextVersion()).equals(hits.get(0).get(0))
+					|| !Long.valueOf(IndexGeneration.current()).equals(hits.get(0).get(1))) {
+				return null;
+			}
+			Object text = hits.get(0).get(2);
+			if (text == null) {
+				return item.isTextParsed() ? null : "";
+			}
+			return (String) text;
+		} catch (Exception e) {
+			log.debug("Index: Stored fulltext of {} not usable: {}", item.getUuid(), e.getMessage());
+			return null;
+		}
+	}
+
+	private String readTextLayer(String uuid) {
+		// Decrypts on the fly via StoreContext -> MatrosLocalStore -> EncryptionService
+		try (InputStream layer = StoreContext.openTextFile(uuid)) {
+			// Streamed out of the XML wrapper; the field value is capped
+			return layer != null ? TextLayerUtils.readCleanText(layer, MAX_INDEXED_CHARS) : "";
+		} catch (Exception e) {
+			// Log debug to avoid flooding logs during mass reindexing of broken items
+			log.debug("Index: Could not read text layer for {}: {}", uuid, e.getMessage());
+			return "";
+		}
 	}
-}
\ No newline at end of file
+}
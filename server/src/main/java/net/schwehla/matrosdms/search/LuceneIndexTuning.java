@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.search;
+
+import java.util.Map;
+
+import org.hibernate.search.engine.environment.bean.BeanReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.IndexMaintenance;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.IndexMergePolicy;
+
+/**
+ * Passes the index writer settings of {@code app.indexing.maintenance} to the
+ * Hibernate Search Lucene backend: commit and refresh interval and the merge
+ * policy (Lucene's LogByteSizeMergePolicy, sizes in MB). With index
+ * encryption, the index directory comes from {@link IndexEncryption}.
+ */
+@Component
+public class LuceneIndexTuning implements HibernatePropertiesCustomizer {
+
+	private static final Logger log = LoggerFactory.getLogger(LuceneIndexTuning.class);
+
+	private static final String IO = "hibernate.search.backend.io.";
+
+	@Autowired
+	AppServerSpringConfig config;
+	@Autowired
+	IndexEncryption indexEncryption;
+
+	@Override
+	public void customize(Map<String, Object> properties) {
+		IndexMaintenance options = config.getIndexing().getMaintenance();
+		IndexMergePolicy merge = options.getMerge();
+
+		properties.put(IO + "commit_interval", options.getCommitInterval().toMillis());
+		properties.put(IO + "refresh_interval", options.getRefreshInterval().toMillis());
+		properties.put(IO + "merge.factor", Math.max(2, merge.getFactor()));
+		putMegabytes(properties, IO + "merge.min_size", merge.getMinSize());
+		putMegabytes(properties, IO + "merge.max_size", merge.getMaxSize());
+		putMegabytes(properties, IO + "merge.max_forced_size", merge.getMaxForcedSize());
+		properties.put(IO + "merge.calibrate_by_deletes", merge.isCalibrateByDeletes());
+		if (indexEncryption.isEnabled()) {
+			properties.put("hibernate.search.backend.directory.type",
+					BeanReference.ofInstance(indexEncryption.directoryProvider()));
+		}
+
+		log.info("Search index: commit every {}, refresh every {}, merge factor {}, segments {} - {}",
+				options.getCommitInterval(), options.getRefreshInterval(), merge.getFactor(), merge.getMinSize(),
+				merge.getMaxSize());
+	}
+
+	private static void putMegabytes(Map<String, Object> properties, String key, DataSize size) {
+		if (size != null) {
+			properties.put(key, Math.max(1, size.toMegabytes()));
+		}
+	}
+}
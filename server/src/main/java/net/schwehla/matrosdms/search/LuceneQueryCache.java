@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.search;
+
+import jakarta.annotation.PostConstruct;
+
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LRUQueryCache;
+import org.apache.lucene.search.UsageTrackingQueryCachingPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.QueryCache;
+
+/**
+ * Installs the Lucene query cache used by every index searcher Hibernate
+ * Search opens. Lucene caches filter (non-scoring) clauses only, and only
+ * once the usage tracking policy has seen them repeat, so frequent
+ * structured filters are answered from cached bitsets.
+ */
+@Component
+public class LuceneQueryCache {
+
+	private static final Logger log = LoggerFactory.getLogger(LuceneQueryCache.class);
+
+	@Autowired
+	AppServerSpringConfig config;
+
+	private LRUQueryCache cache;
+
+	@PostConstruct
+	public void init() {
+		QueryCache options = config.getSearch().getQueryCache();
+		if (!options.isEnabled()) {
+			IndexSearcher.setDefaultQueryCache(null);
+			log.info("Lucene query cache disabled");
+			return;
+		}
+		cache = new LRUQueryCache(options.getMaxQueries(), options.getMaxSize().toBytes());
+		IndexSearcher.setDefaultQueryCache(cache);
+		IndexSearcher.setDefaultQueryCachingPolicy(new UsageTrackingQueryCachingPolicy());
+		log.info("Lucene query cache: {} queries, {}", options.getMaxQueries(), options.getMaxSize());
+	}
+
+	public long getHitCount() {
+		return cache != null ? cache.getHitCount() : 0;
+	}
+
+	public long getMissCount() {
+		return cache != null ? cache.getMissCount() : 0;
+	}
+
+	public long getCachedQueries() {
+		return cache != null ? cache.getCacheSize() : 0;
+	}
+
+	public long getRamBytesUsed() {
+		return cache != null ? cache.ramBytesUsed() : 0;
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.search;
+
+import org.apache.lucene.analysis.core.KeywordTokenizerFactory;
+import org.apache.lucene.analysis.core.LowerCaseFilterFactory;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilterFactory;
+import org.apache.lucene.analysis.ngram.NGramTokenizerFactory;
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurationContext;
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurer;
+
+/**
+ * Custom analyzers of the item index, registered through
+ * hibernate.search.backend.analysis.configurer.
+ *
+ * The infix analyzers replace {@code LOWER(name) LIKE '%q%'}: the trigram
+ * field is queried with a phrase of the input's trigrams (consecutive
+ * positions, so it matches the input as a substring), the short field holds
+ * every 1 and 2 character gram for inputs below three characters.
+ */
+public class MatrosAnalysisConfigurer implements LuceneAnalysisConfigurer {
+
+	/** Trigrams of the whole value, lower case without accents. */
+	public static final String INFIX = "infix";
+
+	/** 1 and 2 character grams, searched with {@link #INFIX_QUERY}. */
+	public static final String INFIX_SHORT = "infix_short";
+
+	/** The input as a single lower case term. */
+	public static final String INFIX_QUERY = "infix_query";
+
+	@Override
+	public void configure(LuceneAnalysisConfigurationContext context) {
+		context.analyzer(INFIX).custom()
+				.tokenizer(NGramTokenizerFactory.class)
+				.param("minGramSize", "3")
+				.param("maxGramSize", "3")
+				.tokenFilter(LowerCaseFilterFactory.class)
+				.tokenFilter(ASCIIFoldingFilterFactory.class);
+
+		context.analyzer(INFIX_SHORT).custom()
+				.tokenizer(NGramTokenizerFactory.class)
+				.param("minGramSize", "1")
+				.param("maxGramSize", "2")
+				.tokenFilter(LowerCaseFilterFactory.class)
+				.tokenFilter(ASCIIFoldingFilterFactory.class);
+
+		context.analyzer(INFIX_QUERY).custom()
+				.tokenizer(KeywordTokenizerFactory.class)
+				.tokenFilter(LowerCaseFilterFactory.class)
+				.tokenFilter(ASCIIFoldingFilterFactory.class);
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Splits page text into passages of about {@code size} characters for
+ * retrieval. A passage ends at a sentence end if there is one in its last
+ * third, otherwise at a word boundary; the next one starts {@code overlap}
+ * characters earlier, so a statement cut at the border is still whole in one
+ * of the two.
+ */
+public final class PassageSplitter {
+
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private PassageSplitter() {
+	}
+
+	public static List<String> split(String text, int size, int overlap) {
+		List<String> passages = new ArrayList<>();
+		if (text == null)
+			return passages;
+		String clean = WHITESPACE.matcher(text).replaceAll(" ").trim();
+		if (clean.isEmpty())
+			return passages;
+
+		int start = 0;
+		while (start < clean.length()) {
+			int end = Math.min(clean.length(), start + size);
+			if (end < clean.length()) {
+				end = boundary(clean, start + size * 2 / 3, end);
+			}
+			passages.add(clean.substring(start, end).trim());
+			if (end >= clean.length())
+				break;
+
+			// Next passage starts at a word, overlapping the end of this one
+			int next = Math.max(start + 1, end - Math.max(0, overlap));
+			while (next < end && clean.charAt(next - 1) != ' ') {
+				next++;
+			}
+			start = next;
+		}
+		return passages;
+	}
+
+	/** Best cut in [from, to): after a sentence end, else after a space, else at {@code to}. */
+	private static int boundary(String text, int from, int to) {
+		for (int i = to - 1; i > from; i--) {
+			char c = text.charAt(i - 1);
+			if ((c == '.' || c == '!' || c == '?' || c == ';') && text.charAt(i) == ' ')
+				return i + 1;
+		}
+		for (int i = to - 1; i > from; i--) {
+			if (text.charAt(i) == ' ')
+				return i + 1;
+		}
+		return to;
+	}
+}
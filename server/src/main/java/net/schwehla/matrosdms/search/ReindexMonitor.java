@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.search;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.hibernate.search.mapper.pojo.massindexing.MassIndexingMonitor;
+
+import net.schwehla.matrosdms.service.message.ReindexProgressMessage;
+
+/**
+ * Mass indexing monitor that turns the indexer's counters into throughput
+ * and ETA and hands them to a listener at most once per interval (the
+ * counters are called from all loader threads).
+ */
+public class ReindexMonitor implements MassIndexingMonitor {
+
+	private final Long jobId;
+	private final String scope;
+	private final long intervalNanos;
+	private final Consumer<ReindexProgressMessage> listener;
+
+	private final long start = System.nanoTime();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong added = new AtomicLong();
+	private final AtomicLong lastReport = new AtomicLong(start);
+
+	public ReindexMonitor(Long jobId, String scope, Duration interval, Consumer<ReindexProgressMessage> listener) {
+		this.jobId = jobId;
+		this.scope = scope;
+		this.intervalNanos = interval.toNanos();
+		this.listener = listener;
+	}
+
+	@Override
+	public void documentsAdded(long increment) {
+		added.addAndGet(increment);
+		long now = System.nanoTime();
+		long last = lastReport.get();
+		if (now - last >= intervalNanos && lastReport.compareAndSet(last, now)) {
+			listener.accept(snapshot(false));
+		}
+	}
+
+	@Override
+	public void documentsBuilt(long increment) {
+		// Only written documents count as progress
+	}
+
+	@Override
+	public void entitiesLoaded(long increment) {
+		// Only written documents count as progress
+	}
+
+	@Override
+	public void addToTotalCount(long increment) {
+		total.addAndGet(increment);
+	}
+
+	@Override
+	public void indexingCompleted() {
+		listener.accept(snapshot(true));
+	}
+
+	public ReindexProgressMessage snapshot(boolean finished) {
+		long indexed = added.get();
+		long all = Math.max(total.get(), indexed);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		double rate = seconds > 0 ? indexed / seconds : 0;
+		long eta = rate > 0 ? Math.round((all - indexed) / rate) : -1;
+		return new ReindexProgressMessage(jobId, scope, all, indexed, rate, eta, finished, Instant.now());
+	}
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.search;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TermRangeQuery;
+
+import net.schwehla.matrosdms.domain.search.EOperator;
+import net.schwehla.matrosdms.domain.search.ESearchDimension;
+import net.schwehla.matrosdms.entity.DBCategory;
+import net.schwehla.matrosdms.entity.DBItem;
+
+/**
+ * Percolation of saved searches: a search is compiled once into a plain
+ * Lucene query, and each new item becomes a one-document in-memory index with
+ * the field names of the item index, so a watched search costs one tiny query
+ * per item instead of a search over the archive.
+ *
+ * The compiled queries follow SearchService (fields, analyzers, operators).
+ * Differences: semantic criteria are matched as fulltext (a nearest-neighbour
+ * rank is no yes/no answer for a single document), and the fulltext search
+ * finds attribute values in one field "attr". Attribute criteria use the
+ * per-attribute fields of AttributeTypes.
+ *
+ * Category paths are resolved from the tree given at construction; a
+ * percolator is replaced when the category tree changes.
+ */
+public final class SavedSearchPercolator {
+
+	private static final Set<String> KEYWORD_FIELDS = Set.of(
+			"uuid", "source", "textParsed", "infoContext.uuid", "store.uuid", "kindList.uuid", "categoryPath");
+
+	// Field weights of the fulltext search (see SearchService)
+	private static final Map<String, Float> FULLTEXT_FIELDS = Map.of(
+			"name", 3f, "filename", 3f, "description", 2f, "uuid", 10f,
+			"fulltext", 1f, "attr", 1f, "kindList.name", 1f, "infoContext.name", 1f);
+
+	private final CategoryTree tree;
+	private final Analyzer analyzer;
+	private final Analyzer keywordAnalyzer = new KeywordAnalyzer();
+
+	public SavedSearchPercolator(CategoryTree tree) {
+		this.tree = tree;
+		Map<String, Analyzer> keyword = new HashMap<>();
+		KEYWORD_FIELDS.forEach(field -> keyword.put(field, keywordAnalyzer));
+		this.analyzer = new PerFieldAnalyzerWrapper(new StandardAnalyzer(), keyword);
+	}
+
+	public CategoryTree tree() {
+		return tree;
+	}
+
+	/** True if the search looks at the fulltext, which then has to be loaded. */
+	public static boolean usesFulltext(SearchCriteria node) {
+		if (node.getType() == SearchCriteria.Type.GROUP) {
+			return node.getChildren() != null
+					&& node.getChildren().stream().anyMatch(SavedSearchPercolator::usesFulltext);
+		}
+		return node.getField() == ESearchDimension.FULLTEXT || node.getField() == ESearchDimension.SEMANTIC;
+	}
+
+	public Query compile(SearchCriteria node) {
+		if (node.getType() != SearchCriteria.Type.GROUP) {
+			return leaf(node);
+		}
+		List<SearchCriteria> children = node.getChildren() != null ? node.getChildren() : List.of();
+		if (children.isEmpty()) {
+			return new MatchAllDocsQuery();
+		}
+		BooleanQuery.Builder bool = new BooleanQuery.Builder();
+		SearchCriteria.Logic logic = node.getLogic() != null ? node.getLogic() : SearchCriteria.Logic.AND;
+		if (logic == SearchCriteria.Logic.NOT) {
+			// A purely negative query matches nothing in Lucene
+			bool.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+		}
+		for (SearchCriteria child : children) {
+			BooleanClause.Occur occur = switch (logic) {
+				case AND -> BooleanClause.Occur.MUST;
+				case OR -> BooleanClause.Occur.SHOULD;
+				case NOT -> BooleanClause.Occur.MUST_NOT;
+			};
+			bool.add(compile(child), occur);
+		}
+		return bool.build();
+	}
+
+	private Query leaf(SearchCriteria node) {
+		if (node.getField() == null) {
+			return new MatchAllDocsQuery();
+		}
+		String base = node.getField().getLuceneField();
+		String val = node.getValue() != null ? node.getValue() : "";
+
+		if (node.getField() == ESearchDimension.SEMANTIC) {
+			return val.isBlank() ? new MatchAllDocsQuery() : fulltext(val);
+		}
+		if (node.getOperator() == null) {
+			return new MatchNoDocsQuery();
+		}
+		if (node.getField() == ESearchDimension.ATTRIBUTE) {
+			return attribute(node.getAttribute(), node.getOperator(), val);
+		}
+
+		return switch (node.getOperator()) {
+			case EQ -> switch (base) {
+				case "uuid", "textParsed", "source" -> new TermQuery(new Term(base, val));
+				case "fulltext" -> match(base, val);
+				default -> new TermQuery(new Term(base + ".uuid", val));
+			};
+			case CONTAINS -> node.getField() == ESearchDimension.FULLTEXT ? fulltext(val) : fuzzy(textField(base), val);
+			case DESCENDANT_OF -> {
+				if (!"kindList".equals(base)) {
+					yield new TermQuery(new Term(base + ".uuid", val));
+				}
+				String path = tree.path(val);
+				yield path != null
+						? new TermQuery(new Term("categoryPath", path))
+						: new TermQuery(new Term("kindList.uuid", val));
+			}
+			case GT, LT, GTE, LTE -> range(base, node.getOperator(), val);
+		};
+	}
+
+	/** The analyzed field of a dimension searched by CONTAINS. */
+	private static String textField(String base) {
+		return switch (base) {
+			case "kindList", "infoContext" -> base + ".name";
+			case "store" -> "store.shortname";
+			default -> base;
+		};
+	}
+
+	private Query fulltext(String text) {
+		SimpleQueryParser parser = new SimpleQueryParser(analyzer, FULLTEXT_FIELDS);
+		parser.setDefaultOperator(BooleanClause.Occur.MUST);
+		Query query = parser.parse(text);
+		return query != null ? query : new MatchNoDocsQuery();
+	}
+
+	/** Any of the analyzed terms. */
+	private Query match(String field, String text) {
+		List<String> terms = terms(field, text);
+		if (terms.isEmpty()) {
+			return new MatchNoDocsQuery();
+		}
+		BooleanQuery.Builder bool = new BooleanQuery.Builder();
+		terms.forEach(term -> bool.add(new TermQuery(new Term(field, term)), BooleanClause.Occur.SHOULD));
+		return bool.build();
+	}
+
+	/** Any of the analyzed terms, one edit away. */
+	private Query fuzzy(String field, String text) {
+		List<String> terms = terms(field, text);
+		if (terms.isEmpty()) {
+			return new MatchNoDocsQuery();
+		}
+		BooleanQuery.Builder bool = new BooleanQuery.Builder();
+		terms.forEach(term -> bool.add(new FuzzyQuery(new Term(field, term), 1), BooleanClause.Occur.SHOULD));
+		return bool.build();
+	}
+
+	/** Dates as epoch days (issue date) or epoch seconds (creation); other ranges match nothing. */
+	private static Query range(String field, EOperator operator, String value) {
+		if (!"issueDate".equals(field) && !"dateCreated".equals(field)) {
+			return new MatchNoDocsQuery();
+		}
+		long bound;
+		try {
+			bound = "issueDate".equals(field)
+					? LocalDate.parse(value.length() > 10 ? value.substring(0, 10) : value).toEpochDay()
+					: (value.indexOf('T') > 0 ? LocalDateTime.parse(value) : LocalDate.parse(value).atStartOfDay())
+							.toEpochSecond(ZoneOffset.UTC);
+		} catch (DateTimeParseException e) {
+			return new MatchNoDocsQuery();
+		}
+		return switch (operator) {
+			case GT -> LongPoint.newRangeQuery(field, bound + 1, Long.MAX_VALUE);
+			case GTE -> LongPoint.newRangeQuery(field, bound, Long.MAX_VALUE);
+			case LT -> LongPoint.newRangeQuery(field, Long.MIN_VALUE, bound - 1);
+			default -> LongPoint.newRangeQuery(field, Long.MIN_VALUE, bound);
+		};
+	}
+
+	/** As in SearchService: typed comparison, CONTAINS on the attribute's text. */
+	private Query attribute(String attribute, EOperator operator, String value) {
+		AttributeTypes types = AttributeTypes.current();
+		String key = types.resolve(attribute);
+		if (key == null) {
+			if (attribute == null || attribute.isBlank()) {
+				throw new IllegalArgumentException("Attribute criterion without attribute");
+			}
+			key = attribute;
+		}
+		if (operator == EOperator.CONTAINS) {
+			return fuzzy(AttributeTypes.TEXT_FIELD + "." + key, value);
+		}
+		Object typed = types.typedValue(key, value);
+		String field = types.field(key);
+		if (typed instanceof Double number) {
+			return switch (operator) {
+				case GT -> DoublePoint.newRangeQuery(field, Math.nextUp(number), Double.POSITIVE_INFINITY);
+				case GTE -> DoublePoint.newRangeQuery(field, number, Double.POSITIVE_INFINITY);
+				case LT -> DoublePoint.newRangeQuery(field, Double.NEGATIVE_INFINITY, Math.nextDown(number));
+				case LTE -> DoublePoint.newRangeQuery(field, Double.NEGATIVE_INFINITY, number);
+				default -> DoublePoint.newExactQuery(field, number);
+			};
+		}
+		if (typed instanceof LocalDate date) {
+			long day = date.toEpochDay();
+			return switch (operator) {
+				case GT -> LongPoint.newRangeQuery(field, day + 1, Long.MAX_VALUE);
+				case GTE -> LongPoint.newRangeQuery(field, day, Long.MAX_VALUE);
+				case LT -> LongPoint.newRangeQuery(field, Long.MIN_VALUE, day - 1);
+				case LTE -> LongPoint.newRangeQuery(field, Long.MIN_VALUE, day);
+				default -> LongPoint.newExactQuery(field, day);
+			};
+		}
+		if (typed instanceof Boolean bool) {
+			return operator == EOperator.EQ || operator == EOperator.DESCENDANT_OF
+					? new TermQuery(new Term(field, bool.toString()))
+					: new MatchNoDocsQuery();
+		}
+		if (typed instanceof String keyword) {
+			return switch (operator) {
+				case GT -> TermRangeQuery.newStringRange(field, keyword, null, false, false);
+				case GTE -> TermRangeQuery.newStringRange(field, keyword, null, true, false);
+				case LT -> TermRangeQuery.newStringRange(field, null, keyword, false, false);
+				case LTE -> TermRangeQuery.newStringRange(field, null, keyword, false, true);
+				default -> new TermQuery(new Term(field, keyword));
+			};
+		}
+		return new MatchNoDocsQuery();
+	}
+
+	private List<String> terms(String field, String text) {
+		List<String> terms = new ArrayList<>();
+		try (TokenStream stream = analyzer.tokenStream(field, text)) {
+			CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+			stream.reset();
+			while (stream.incrementToken()) {
+				terms.add(term.toString());
+			}
+			stream.end();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return terms;
+	}
+
+	/**
+	 * The item as a single document with the fields the compiled queries
+	 * read. The fulltext may be null (not needed or not available).
+	 */
+	public MemoryIndex document(DBItem item, String fulltext) {
+		MemoryIndex doc = new MemoryIndex();
+		add(doc, "uuid", item.getUuid());
+		add(doc, "name", item.getName());
+		add(doc, "description", item.getDescription());
+		if (item.getFile() != null)
+			add(doc, "filename", item.getFile().getFilename());
+		if (item.getSource() != null)
+			add(doc, "source", item.getSource().name());
+		add(doc, "textParsed", String.valueOf(item.isTextParsed()));
+		add(doc, "fulltext", fulltext);
+
+		if (item.getInfoContext() != null) {
+			add(doc, "infoContext.name", item.getInfoContext().getName());
+			add(doc, "infoContext.uuid", item.getInfoContext().getUuid());
+		}
+		if (item.getStore() != null) {
+			add(doc, "store.shortname", item.getStore().getShortname());
+			add(doc, "store.uuid", item.getStore().getUuid());
+		}
+
+		// Categories with their ancestors, as in ItemTextBridge
+		if (item.getKindList() != null) {
+			Set<String> categories = new HashSet<>();
+			Set<String> paths = new HashSet<>();
+			for (DBCategory cat : item.getKindList()) {
+				List<CategoryTree.Node> chain = tree.contains(cat.getUuid())
+						? tree.ancestry(cat.getUuid())
+						: CategoryTree.ancestryOf(cat);
+				for (CategoryTree.Node node : chain) {
+					if (categories.add(node.uuid())) {
+						add(doc, "kindList.name", node.name());
+						add(doc, "kindList.uuid", node.uuid());
+					}
+				}
+				for (String path : CategoryTree.pathPrefixes(chain)) {
+					if (paths.add(path))
+						add(doc, "categoryPath", path);
+				}
+			}
+		}
+
+		if (item.getAttributes() != null) {
+			AttributeTypes types = AttributeTypes.current();
+			item.getAttributes().forEach((key, value) -> {
+				if (value == null)
+					return;
+				add(doc, AttributeTypes.TEXT_FIELD, value.toString());
+				add(doc, AttributeTypes.TEXT_FIELD + "." + key, value.toString());
+				addKeyword(doc, AttributeTypes.KEYWORD_FIELD + "." + key, AttributeTypes.keyword(value.toString()));
+
+				Object typed = types.typedValue(key, value);
+				if (typed instanceof Double number) {
+					doc.addField(new DoublePoint(AttributeTypes.NUMBER_FIELD + "." + key, number), analyzer);
+				} else if (typed instanceof LocalDate date) {
+					doc.addField(new LongPoint(AttributeTypes.DATE_FIELD + "." + key, date.toEpochDay()), analyzer);
+				} else if (typed instanceof Boolean bool) {
+					addKeyword(doc, AttributeTypes.BOOLEAN_FIELD + "." + key, bool.toString());
+				}
+			});
+		}
+
+		if (item.getIssueDate() != null)
+			doc.addField(new LongPoint("issueDate", item.getIssueDate().toLocalDate().toEpochDay()), analyzer);
+		if (item.getDateCreated() != null)
+			doc.addField(new LongPoint("dateCreated", item.getDateCreated().toEpochSecond(ZoneOffset.UTC)), analyzer);
+		return doc;
+	}
+
+	private void add(MemoryIndex doc, String field, String value) {
+		if (value != null && !value.isEmpty())
+			doc.addField(field, value, analyzer);
+	}
+
+	private void addKeyword(MemoryIndex doc, String field, String value) {
+		if (!value.isEmpty())
+			doc.addField(field, value, keywordAnalyzer);
+	}
+}
@@ -7,12 +7,16 @@
  */
 package net.schwehla.matrosdms.search;
 
+import java.io.Serializable;
 import java.util.List;
 
 import net.schwehla.matrosdms.domain.search.EOperator;
 import net.schwehla.matrosdms.domain.search.ESearchDimension;
 
-public class SearchCriteria {
+public class SearchCriteria implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
 	public enum Logic {
 		AND, OR, NOT
 	}
@@ -27,6 +31,8 @@ public class SearchCriteria {
 	private ESearchDimension field;
 	private EOperator operator;
 	private String value;
+	// ATTRIBUTE dimension: attribute type uuid or name
+	private String attribute;
 
 	public static SearchCriteria forText(String text) {
 		SearchCriteria sc = new SearchCriteria();
@@ -85,4 +91,12 @@ public class SearchCriteria {
 	public void setValue(String value) {
 		this.value = value;
 	}
+
+	public String getAttribute() {
+		return attribute;
+	}
+
+	public void setAttribute(String attribute) {
+		this.attribute = attribute;
+	}
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import net.schwehla.matrosdms.domain.search.ESearchSort;
+import net.schwehla.matrosdms.exception.MatrosServiceException;
+
+/**
+ * Continuation token of a cursor paged search: the sort order (with the
+ * attribute of an attribute sort) and the sort value and uuid of the last
+ * hit, so the next page starts right after it. Score order has no indexed
+ * value to continue from and is not cursor paged.
+ */
+public record SearchCursor(ESearchSort sort, String attribute, boolean descending, String value, String uuid) {
+
+	private static final String VERSION = "3";
+	private static final String NULL = "~";
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	public String encode() {
+		String plain = String.join(":", VERSION, sort.name(), part(attribute), descending ? "D" : "A", part(value),
+				part(uuid));
+		return ENCODER.encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static SearchCursor decode(String token) {
+		try {
+			String[] parts = new String(DECODER.decode(token), StandardCharsets.UTF_8).split(":", -1);
+			if (parts.length != 6 || !VERSION.equals(parts[0])) {
+				throw new IllegalArgumentException("Unknown cursor format");
+			}
+			return new SearchCursor(ESearchSort.valueOf(parts[1]), unpart(parts[2]), "D".equals(parts[3]),
+					unpart(parts[4]), unpart(parts[5]));
+		} catch (IllegalArgumentException e) {
+			throw new MatrosServiceException("Invalid search cursor", e);
+		}
+	}
+
+	private static String part(String s) {
+		return s == null ? NULL : ENCODER.encodeToString(s.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String unpart(String s) {
+		return NULL.equals(s) ? null : new String(DECODER.decode(s), StandardCharsets.UTF_8);
+	}
+}
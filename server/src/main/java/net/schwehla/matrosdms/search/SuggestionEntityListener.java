@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.search;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import net.schwehla.matrosdms.service.SuggestionService;
+
+/**
+ * Keeps the autocomplete index current: contexts, categories, stores and
+ * attribute types reload their suggestions once the change is committed
+ * (a rolled back change never shows up).
+ */
+public class SuggestionEntityListener {
+
+	@PostPersist
+	@PostUpdate
+	@PostRemove
+	public void changed(Object entity) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					SuggestionService.entityChanged(entity);
+				}
+			});
+		} else {
+			SuggestionService.entityChanged(entity);
+		}
+	}
+}
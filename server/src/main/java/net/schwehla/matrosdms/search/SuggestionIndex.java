@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import net.schwehla.matrosdms.domain.search.ESuggestionType;
+
+/**
+ * Immutable in-memory autocomplete index over a few thousand labels
+ * (contexts, categories, stores, attributes, file names).
+ *
+ * Labels are normalized (accents stripped, lower case) and kept in three
+ * structures: the sorted labels and the sorted word tokens answer prefix
+ * lookups by binary search, the trigram posting lists answer infix lookups.
+ * Fuzzy matching (typos) only runs over the tokens that share the first
+ * letter with the query and only when the exact tiers come up short.
+ *
+ * A lookup ranks label prefix over word prefix over infix over fuzzy matches,
+ * within a tier by weight (number of items). Updates build a new instance.
+ */
+public final class SuggestionIndex {
+
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+	private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private static final int TIER_LABEL_PREFIX = 0;
+	private static final int TIER_TOKEN_PREFIX = 1;
+	private static final int TIER_INFIX = 2;
+	private static final int TIER_FUZZY = 3;
+
+	/**
+	 * One suggestion. {@code root} is the root category uuid (e.g. "ROOT_WHO")
+	 * for categories, the attribute type uuid for attribute values.
+	 */
+	public record Entry(ESuggestionType type, String value, String label, String path, String root, long weight) {
+	}
+
+	public static final SuggestionIndex EMPTY = new SuggestionIndex(List.of());
+
+	private final Entry[] entries;
+	private final String[] normalized;
+
+	// Entry ordinals sorted by normalized label
+	private final int[] labelOrder;
+
+	// Distinct tokens (sorted) and the entries containing each
+	private final String[] tokens;
+	private final int[][] tokenEntries;
+
+	// Trigram -> ascending entry ordinals
+	private final Map<String, int[]> trigrams;
+
+	public SuggestionIndex(List<Entry> source) {
+		int n = source.size();
+		this.entries = source.toArray(new Entry[0]);
+		this.normalized = new String[n];
+		for (int i = 0; i < n; i++) {
+			normalized[i] = normalize(entries[i].label());
+		}
+
+		this.labelOrder = IntStream.range(0, n)
+				.boxed()
+				.sorted(Comparator.comparing(i -> normalized[i]))
+				.mapToInt(Integer::intValue)
+				.toArray();
+
+		TreeMap<String, List<Integer>> tokenMap = new TreeMap<>();
+		Map<String, List<Integer>> trigramMap = new HashMap<>();
+		for (int i = 0; i < n; i++) {
+			for (String token : tokenize(normalized[i])) {
+				tokenMap.computeIfAbsent(token, k -> new ArrayList<>()).add(i);
+			}
+			for (String trigram : trigramsOf(normalized[i])) {
+				trigramMap.computeIfAbsent(trigram, k -> new ArrayList<>()).add(i);
+			}
+		}
+
+		this.tokens = tokenMap.keySet().toArray(new String[0]);
+		this.tokenEntries = new int[tokens.length][];
+		int t = 0;
+		for (List<Integer> ordinals : tokenMap.values()) {
+			tokenEntries[t++] = ordinals.stream().mapToInt(Integer::intValue).toArray();
+		}
+
+		this.trigrams = new HashMap<>(trigramMap.size() * 2);
+		trigramMap.forEach((k, v) -> trigrams.put(k, v.stream().mapToInt(Integer::intValue).toArray()));
+	}
+
+	public int size() {
+		return entries.length;
+	}
+
+	/** Best {@code limit} entries for the user input that pass the filter. */
+	public List<Entry> suggest(String query, Predicate<Entry> filter, int limit) {
+		String q = normalize(query);
+		if (q.isEmpty() || limit <= 0 || entries.length == 0) {
+			return List.of();
+		}
+
+		Matches matches = new Matches(filter);
+
+		// 1. Whole label starts with the input
+		for (int i = lowerBound(labelOrder, q); i < labelOrder.length; i++) {
+			int ordinal = labelOrder[i];
+			if (!normalized[ordinal].startsWith(q))
+				break;
+			matches.accept(ordinal, TIER_LABEL_PREFIX);
+		}
+
+		// 2. A word of the label starts with the input
+		for (int i = lowerBound(tokens, q); i < tokens.length && tokens[i].startsWith(q); i++) {
+			for (int ordinal : tokenEntries[i]) {
+				matches.accept(ordinal, TIER_TOKEN_PREFIX);
+			}
+		}
+
+		// 3. Input anywhere in the label (trigram candidates, verified)
+		if (q.length() >= 3) {
+			int[] candidates = intersectTrigrams(q);
+			if (candidates != null) {
+				for (int ordinal : candidates) {
+					if (normalized[ordinal].contains(q)) {
+						matches.accept(ordinal, TIER_INFIX);
+					}
+				}
+			}
+		}
+
+		// 4. Typos, only if the exact tiers did not fill the list
+		if (matches.size < limit && q.length() >= 3 && q.indexOf(' ') < 0) {
+			int maxEdits = q.length() >= 8 ? 2 : 1;
+			String first = q.substring(0, 1);
+			for (int i = lowerBound(tokens, first); i < tokens.length && tokens[i].startsWith(first); i++) {
+				if (prefixDistance(q, tokens[i], maxEdits) <= maxEdits) {
+					for (int ordinal : tokenEntries[i]) {
+						matches.accept(ordinal, TIER_FUZZY);
+					}
+				}
+			}
+		}
+
+		return matches.top(limit);
+	}
+
+	/**
+	 * Best tier per matched entry. Plain arrays instead of boxed maps, a short
+	 * input can match every file name.
+	 */
+	private class Matches {
+
+		private final Predicate<Entry> filter;
+		// tier + 1 per entry ordinal, 0 = not matched, -1 = rejected by the filter
+		private final byte[] tiers = new byte[entries.length];
+		private int[] ordinals = new int[16];
+		private int size = 0;
+
+		Matches(Predicate<Entry> filter) {
+			this.filter = filter;
+		}
+
+		void accept(int ordinal, int tier) {
+			byte previous = tiers[ordinal];
+			if (previous < 0)
+				return;
+			if (previous > 0) {
+				if (tier + 1 < previous)
+					tiers[ordinal] = (byte) (tier + 1);
+				return;
+			}
+			if (filter != null && !filter.test(entries[ordinal])) {
+				tiers[ordinal] = -1;
+				return;
+			}
+			tiers[ordinal] = (byte) (tier + 1);
+			if (size == ordinals.length)
+				ordinals = Arrays.copyOf(ordinals, size * 2);
+			ordinals[size++] = ordinal;
+		}
+
+		/** The {@code limit} best matches, kept in a bounded heap instead of sorting all. */
+		List<Entry> top(int limit) {
+			Comparator<Integer> ranking = Comparator.<Integer> comparingInt(o -> tiers[o])
+					.thenComparingLong(o -> -entries[o].weight())
+					.thenComparingInt(o -> normalized[o].length())
+					.thenComparing(o -> normalized[o]);
+			PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, ranking.reversed());
+			for (int i = 0; i < size; i++) {
+				heap.add(ordinals[i]);
+				if (heap.size() > limit)
+					heap.poll();
+			}
+			List<Integer> best = new ArrayList<>(heap);
+			best.sort(ranking);
+			return best.stream().map(o -> entries[o]).toList();
+		}
+	}
+
+	/** Entries containing every trigram of the input, null if one is unknown. */
+	private int[] intersectTrigrams(String q) {
+		List<int[]> lists = new ArrayList<>();
+		for (String trigram : trigramsOf(q)) {
+			int[] postings = trigrams.get(trigram);
+			if (postings == null)
+				return null;
+			lists.add(postings);
+		}
+		lists.sort(Comparator.comparingInt(a -> a.length));
+
+		int[] result = lists.get(0);
+		for (int l = 1; l < lists.size() && result.length > 0; l++) {
+			int[] other = lists.get(l);
+			int[] merged = new int[result.length];
+			int size = 0;
+			int i = 0;
+			int j = 0;
+			while (i < result.length && j < other.length) {
+				if (result[i] == other[j]) {
+					merged[size++] = result[i];
+					i++;
+					j++;
+				} else if (result[i] < other[j]) {
+					i++;
+				} else {
+					j++;
+				}
+			}
+			result = Arrays.copyOf(merged, size);
+		}
+		return result;
+	}
+
+	private int lowerBound(int[] order, String key) {
+		int low = 0;
+		int high = order.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (normalized[order[mid]].compareTo(key) < 0)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	private static int lowerBound(String[] sorted, String key) {
+		int index = Arrays.binarySearch(sorted, key);
+		return index >= 0 ? index : -index - 1;
+	}
+
+	/**
+	 * Smallest edit distance between the query and any prefix of the token,
+	 * so "rechnug" still finds "rechnungen". Returns {@code maxEdits + 1} as
+	 * soon as no prefix can be within reach.
+	 */
+	static int prefixDistance(String query, String token, int maxEdits) {
+		int m = query.length();
+		int n = Math.min(token.length(), m + maxEdits);
+		int[] previous = new int[n + 1];
+		int[] current = new int[n + 1];
+		for (int j = 0; j <= n; j++) {
+			previous[j] = j;
+		}
+		for (int i = 1; i <= m; i++) {
+			current[0] = i;
+			int rowMin = current[0];
+			char c = query.charAt(i - 1);
+			for (int j = 1; j <= n; j++) {
+				int cost = c == token.charAt(j - 1) ? 0 : 1;
+				current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+				rowMin = Math.min(rowMin, current[j]);
+			}
+			if (rowMin > maxEdits)
+				return maxEdits + 1;
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		int best = Integer.MAX_VALUE;
+		for (int j = 0; j <= n; j++) {
+			best = Math.min(best, previous[j]);
+		}
+		return best;
+	}
+
+	/** Accents stripped, lower case, single spaces. */
+	public static String normalize(String text) {
+		if (text == null)
+			return "";
+		String plain = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+		return WHITESPACE.matcher(plain.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+	}
+
+	private static List<String> tokenize(String normalizedText) {
+		return Arrays.stream(SEPARATORS.split(normalizedText))
+				.filter(token -> !token.isEmpty())
+				.distinct()
+				.toList();
+	}
+
+	private static Set<String> trigramsOf(String normalizedText) {
+		Set<String> result = new LinkedHashSet<>();
+		for (int i = 0; i + 3 <= normalizedText.length(); i++) {
+			result.add(normalizedText.substring(i, i + 3));
+		}
+		return result;
+	}
+}
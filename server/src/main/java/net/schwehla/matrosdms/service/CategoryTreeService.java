@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import net.schwehla.matrosdms.search.CategoryTree;
+import net.schwehla.matrosdms.search.CategoryTree.Node;
+
+/**
+ * Loads the {@link CategoryTree} snapshot used by the index bridge: on
+ * startup (before any indexing) and again after every completed category
+ * change. Reloads run in the background and are coalesced; until then the
+ * bridge resolves changed categories from the entities.
+ */
+@Service
+public class CategoryTreeService {
+
+	private static final Logger log = LoggerFactory.getLogger(CategoryTreeService.class);
+
+	private static volatile CategoryTreeService instance;
+
+	@Autowired
+	EntityManager entityManager;
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "category-tree");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final AtomicBoolean pending = new AtomicBoolean();
+
+	@PostConstruct
+	public void init() {
+		reload();
+		instance = this;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		instance = null;
+		executor.shutdownNow();
+	}
+
+	/** Called by the entity listener after a transaction; a no-op until the service is up. */
+	public static void categoriesChanged() {
+		CategoryTreeService service = instance;
+		if (service != null && service.pending.compareAndSet(false, true)) {
+			try {
+				service.executor.execute(() -> {
+					service.pending.set(false);
+					service.reload();
+				});
+			} catch (RuntimeException e) {
+				// Executor shut down (application stopping)
+				service.pending.set(false);
+			}
+		}
+	}
+
+	public void reload() {
+		long completedBefore = CategoryTree.completedChanges();
+		try {
+			List<Node> nodes = entityManager
+					.createQuery("SELECT c.uuid, c.name, p.uuid FROM DBCategory c LEFT JOIN c.parent p", Object[].class)
+					.getResultList()
+					.stream()
+					.map(row -> new Node((String) row[0], (String) row[1], (String) row[2]))
+					.toList();
+			CategoryTree.set(new CategoryTree(nodes), completedBefore);
+			log.debug("Category tree loaded: {} categories", nodes.size());
+		} catch (Exception e) {
+			// Keep the previous snapshot, the bridge falls back to the entities
+			log.warn("Category tree could not be loaded: {}", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.domain.content.MDocumentStream;
+import net.schwehla.matrosdms.domain.inbox.EDegradation;
+import net.schwehla.matrosdms.entity.DBItem;
+import net.schwehla.matrosdms.repository.ItemRepository;
+import net.schwehla.matrosdms.service.message.PipelineStatusMessage;
+import net.schwehla.matrosdms.service.pipeline.DeferredOcrRequest;
+import net.schwehla.matrosdms.service.pipeline.PipelineEvents.PipelineStatusEvent;
+import net.schwehla.matrosdms.store.MatrosObjectStoreService;
+import net.schwehla.matrosdms.util.TextLayerUtils;
+import net.schwehla.matrosdms.util.TextLayerWriter;
+
+/**
+ * Full text extraction / OCR for documents whose text layer was cut off by
+ * the processing budget. Runs as a db-scheduler job, outside the inbox
+ * pipeline, without a budget. The result replaces the partial layer either in
+ * the inbox staging folder or, if the document has been committed meanwhile,
+ * in the store.
+ */
+@Service
+public class DeferredOcrService {
+
+	private static final Logger log = LoggerFactory.getLogger(DeferredOcrService.class);
+
+	@Autowired
+	AppServerSpringConfig config;
+	@Autowired
+	TikaService tikaService;
+	@Autowired
+	MatrosObjectStoreService storeService;
+	@Autowired
+	ItemRepository itemRepository;
+	@Autowired
+	IndexQueueService indexQueueService;
+	@Autowired
+	ObjectMapper objectMapper;
+	@Autowired
+	ApplicationEventPublisher publisher;
+
+	public void run(DeferredOcrRequest request) throws IOException {
+		// Work files go to the system temp dir, the staging root only holds job folders
+		Path tempRoot = Paths.get(config.getServer().getTemp().getPath());
+		Path layerFile = Files.createTempFile("matros-ocr-", ".xml");
+		Path sourceCopy = null;
+
+		try {
+			Path source = tempRoot.resolve(request.hash()).resolve(request.hash() + request.extension());
+			if (!Files.exists(source)) {
+				// Committed (or discarded) before the job ran
+				String uuid = itemRepository.findDuplicateUuid(request.hash()).orElse(null);
+				if (uuid == null) {
+					log.info("Deferred OCR for {} dropped, document is gone", request.hash());
+					return;
+				}
+				sourceCopy = Files.createTempFile("matros-ocr-", request.extension());
+				MDocumentStream doc = storeService.load(uuid);
+				try (InputStream is = doc.getInputStream()) {
+					Files.copy(is, sourceCopy, StandardCopyOption.REPLACE_EXISTING);
+				}
+				source = sourceCopy;
+			}
+
+			long started = System.currentTimeMillis();
+			long chars;
+			try (TextLayerWriter layer = new TextLayerWriter(layerFile, "FILE")) {
+				layer.addMeta("filename", request.filename());
+				layer.addMeta("processed_date", LocalDate.now().toString());
+				layer.closeMeta();
+				try (Writer content = layer.openContent(request.mimeType())) {
+					tikaService.extractText(source, content, request.ocr());
+				}
+				chars = layer.getContentLength();
+			}
+			log.info("Deferred OCR for {}: {} characters in {} ms", request.hash(), chars,
+					System.currentTimeMillis() - started);
+
+			if (chars == 0) {
+				log.warn("Deferred OCR for {} produced no text, keeping the partial layer", request.hash());
+				return;
+			}
+			if (!applyToInbox(request, layerFile)) {
+				applyToItem(request, layerFile);
+			}
+		} finally {
+			Files.deleteIfExists(layerFile);
+			if (sourceCopy != null)
+				Files.deleteIfExists(sourceCopy);
+		}
+	}
+
+	/** Replaces the staged layer; false if the file has left the inbox. */
+	private boolean applyToInbox(DeferredOcrRequest request, Path layerFile) throws IOException {
+		Path jobDir = Paths.get(config.getServer().getTemp().getPath(), request.hash());
+		Path result = jobDir.resolve("pipeline.json");
+		if (!Files.exists(result))
+			return false;
+
+		PipelineStatusMessage status = objectMapper.readValue(result.toFile(), PipelineStatusMessage.class);
+		if (status.getFileState() == null)
+			return false;
+
+		Path tmp = jobDir.resolve("textlayer.ocr.txt");
+		Files.copy(layerFile, tmp, StandardCopyOption.REPLACE_EXISTING);
+		Files.move(tmp, jobDir.resolve("textlayer.txt"), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+
+		status.getFileState().getDegradations().remove(EDegradation.TEXT_PARTIAL);
+		status.getFileState().getDegradations().remove(EDegradation.OCR_DEFERRED);
+		status.getWarnings().add("Full text extracted in background.");
+		objectMapper.writeValue(result.toFile(), status);
+
+		publisher.publishEvent(new PipelineStatusEvent(status.getFileState()));
+		log.info("Deferred OCR for {} applied to inbox file", request.hash());
+		return true;
+	}
+
+	private void applyToItem(DeferredOcrRequest request, Path layerFile) {
+		String uuid = itemRepository.findDuplicateUuid(request.hash()).orElse(null);
+		if (uuid == null) {
+			log.info("Deferred OCR for {} dropped, document is gone", request.hash());
+			return;
+		}
+		storeService.replaceTextLayer(uuid, layerFile);
+
+		DBItem item = itemRepository.findByUuid(uuid).orElse(null);
+		if (item != null) {
+			item.setTextParsed(TextLayerUtils.hasCleanText(layerFile));
+			item.nextTextVersion();
+			itemRepository.save(item);
+			indexQueueService.enqueue(item.getId());
+		}
+		log.info("Deferred OCR for {} applied to item {}", request.hash(), uuid);
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.kagkarlsson.scheduler.Scheduler;
+import com.github.kagkarlsson.scheduler.task.TaskInstance;
+
+import net.schwehla.matrosdms.config.DbSchedulerConfig;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.domain.admin.ReindexScope;
+
+/**
+ * Keeps denormalized names in the index current. Context and store names and
+ * the category names and hierarchy are copied into every item document, so a
+ * rename or move has to rewrite the items that reference the entity. The same
+ * goes for the data type of an attribute, which decides its typed index field.
+ *
+ * A change schedules a dependent-reindex task for just that entity, after the
+ * commit and delayed by app.indexing.dependent.debounce. The task instance id
+ * is derived from the entity, so further changes while it waits are absorbed
+ * by the pending run; a change during a run makes that run repeat once.
+ */
+@Service
+public class DependentReindexService {
+
+	private static final Logger log = LoggerFactory.getLogger(DependentReindexService.class);
+
+	// Scheduler depends on all task beans, the dependent-reindex task on this service
+	@Autowired
+	@Lazy
+	Scheduler scheduler;
+
+	@Autowired
+	ReindexService reindexService;
+
+	@Autowired
+	AppServerSpringConfig config;
+
+	// Task instance ids currently running, and those changed again meanwhile
+	private final Set<String> running = ConcurrentHashMap.newKeySet();
+	private final Set<String> changedWhileRunning = ConcurrentHashMap.newKeySet();
+
+	public void contextChanged(String contextUuid) {
+		request("context-" + contextUuid, new ReindexScope(contextUuid, null, null, null, null, null));
+	}
+
+	public void storeChanged(String storeUuid) {
+		request("store-" + storeUuid, new ReindexScope(null, storeUuid, null, null, null, null));
+	}
+
+	/** Rename or move: the category is an ancestor of everything below it, so its subtree is affected. */
+	public void categoryChanged(String categoryUuid) {
+		request("category-" + categoryUuid, new ReindexScope(null, null, categoryUuid, null, null, null));
+	}
+
+	/** New data type: the typed index fields of the attribute's values change. */
+	public void attributeTypeChanged(String attributeUuid) {
+		request("attribute-" + attributeUuid, new ReindexScope(null, null, null, null, null, attributeUuid));
+	}
+
+	/**
+	 * Runs the reindex of one scheduled instance and repeats it while the
+	 * entity keeps changing. Returns the number of items that failed.
+	 */
+	public long run(String instanceId, ReindexScope scope, Long jobId) throws InterruptedException {
+		running.add(instanceId);
+		try {
+			long failed;
+			do {
+				changedWhileRunning.remove(instanceId);
+				failed = reindexService.reindexDependents(scope, jobId);
+			} while (changedWhileRunning.contains(instanceId));
+			return failed;
+		} finally {
+			running.remove(instanceId);
+			changedWhileRunning.remove(instanceId);
+		}
+	}
+
+	private void request(String instanceId, ReindexScope scope) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			// Only committed changes, and the run must see them
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					schedule(instanceId, scope);
+				}
+			});
+		} else {
+			schedule(instanceId, scope);
+		}
+	}
+
+	private void schedule(String instanceId, ReindexScope scope) {
+		if (running.contains(instanceId)) {
+			changedWhileRunning.add(instanceId);
+			log.debug("Dependent reindex {} running, repeats afterwards", instanceId);
+			return;
+		}
+		TaskInstance<ReindexScope> instance = new TaskInstance<>(DbSchedulerConfig.TASK_DEPENDENT_REINDEX,
+				instanceId, scope);
+		try {
+			if (isScheduled(instance)) {
+				log.debug("Dependent reindex {} already scheduled", instanceId);
+				return;
+			}
+			scheduler.schedule(instance, Instant.now().plus(config.getIndexing().getDependent().getDebounce()));
+			log.info("Dependent reindex scheduled ({})", scope.describe());
+		} catch (Exception e) {
+			if (isScheduled(instance)) {
+				// Scheduled concurrently: the pending run picks this change up as well
+				log.debug("Dependent reindex {} already scheduled: {}", instanceId, e.getMessage());
+			} else {
+				log.warn("Dependent reindex ({}) could not be scheduled, its items stay stale until the next reindex",
+						scope.describe(), e);
+			}
+		}
+	}
+
+	private boolean isScheduled(TaskInstance<ReindexScope> instance) {
+		try {
+			return scheduler.getScheduledExecution(instance).isPresent();
+		} catch (Exception e) {
+			return false;
+		}
+	}
+}
@@ -7,23 +7,34 @@
  */
 package net.schwehla.matrosdms.service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.EmbeddingConfig;
 
+/**
+ * Computes semantic embeddings. All vectors are returned with unit length, so
+ * the index compares them by dot product (cheaper than cosine, same order).
+ */
 @Service
 public class EmbeddingService {
 
 	private static final Logger log = LoggerFactory.getLogger(EmbeddingService.class);
 
+	private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
 	@Autowired
 	AppServerSpringConfig appConfig;
 
@@ -31,12 +42,51 @@ public class EmbeddingService {
 	@Qualifier("ollamaRestTemplate")
 	RestTemplate restTemplate;
 
+	@Value("${matros.ai.embedding.enabled:false}")
+	private boolean embeddingEnabled;
+
+	/** True if items get embeddings (pipeline step and backfill). */
+	public boolean isEnabled() {
+		return embeddingEnabled;
+	}
+
+	/** Identifies the vectors of the current configuration; see {@link #modelId(EmbeddingConfig)}. */
+	public String currentModelId() {
+		return modelId(appConfig.getAi().getEmbedding());
+	}
+
+	/**
+	 * Name stored with each embedding. Vectors of another model or dimension
+	 * are not comparable and are neither indexed nor queried.
+	 */
+	public static String modelId(EmbeddingConfig config) {
+		String name = config.getProvider() == EmbeddingConfig.Provider.HASHING
+				? "hashing"
+				: String.valueOf(config.getModel());
+		return name + ":" + config.getDimension();
+	}
+
+	/** Unit length embedding of the text, null if none could be computed. */
 	public float[] generateEmbedding(String text) {
 		if (text == null || text.isBlank())
 			return null;
 
-		String url = appConfig.getAi().getEmbedding().getUrl();
-		String model = appConfig.getAi().getEmbedding().getModel();
+		EmbeddingConfig config = appConfig.getAi().getEmbedding();
+		float[] vector = config.getProvider() == EmbeddingConfig.Provider.HASHING
+				? hashingEmbedding(text, config.getDimension())
+				: ollamaEmbedding(text, config);
+
+		if (vector != null && vector.length != config.getDimension()) {
+			log.warn("Embedding model returned {} dimensions, configured are {}", vector.length,
+					config.getDimension());
+			return null;
+		}
+		return normalize(vector);
+	}
+
+	private float[] ollamaEmbedding(String text, EmbeddingConfig config) {
+		String url = config.getUrl();
+		String model = config.getModel();
 
 		if (url == null || model == null) {
 			// Fallback if config is missing to prevent crash
@@ -68,4 +118,60 @@ public class EmbeddingService {
 		}
 		return null;
 	}
+
+	/**
+	 * Local stand-in for a real model: words and word pairs are hashed into the
+	 * dimensions with a hash-derived sign, weighted by log term frequency.
+	 * Deterministic and fast; similar wording gives similar vectors, synonyms
+	 * do not.
+	 */
+	static float[] hashingEmbedding(String text, int dimension) {
+		Map<String, Integer> features = new HashMap<>();
+		String previous = null;
+		for (String word : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+			if (word.length() < 2)
+				continue;
+			features.merge(word, 1, Integer::sum);
+			if (previous != null)
+				features.merge(previous + ' ' + word, 1, Integer::sum);
+			previous = word;
+		}
+
+		float[] vector = new float[dimension];
+		features.forEach((feature, count) -> {
+			int hash = mix(feature.hashCode());
+			int slot = Math.floorMod(hash, dimension);
+			float weight = (float) (1 + Math.log(count)) * (feature.indexOf(' ') > 0 ? 0.5f : 1f);
+			vector[slot] += (hash & 0x40000000) != 0 ? weight : -weight;
+		});
+		return vector;
+	}
+
+	// Spreads String.hashCode over all bits (murmur3 finalizer)
+	private static int mix(int h) {
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+
+	/** Scaled to unit length; null for null or zero vectors (no direction to compare). */
+	public static float[] normalize(float[] vector) {
+		if (vector == null)
+			return null;
+		double sum = 0;
+		for (float v : vector) {
+			sum += v * v;
+		}
+		if (sum == 0 || Double.isNaN(sum))
+			return null;
+		float scale = (float) (1 / Math.sqrt(sum));
+		float[] unit = new float[vector.length];
+		for (int i = 0; i < vector.length; i++) {
+			unit[i] = vector[i] * scale;
+		}
+		return unit;
+	}
 }
@@ -9,10 +9,20 @@ package net.schwehla.matrosdms.service;
 
 import java.io.IOException;
 import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Stream;
 
+import jakarta.annotation.PreDestroy;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,8 +31,13 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.kagkarlsson.scheduler.Scheduler;
+import com.github.kagkarlsson.scheduler.task.Task;
 
 import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.Budget;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.PipelineProfile;
+import net.schwehla.matrosdms.domain.inbox.EDegradation;
 import net.schwehla.matrosdms.domain.inbox.SourceMetadata;
 import net.schwehla.matrosdms.service.message.PipelineStatusMessage;
 import net.schwehla.matrosdms.service.pipeline.*;
@@ -33,6 +48,12 @@ public class InboxPipelineService {
 
 	private static final Logger log = LoggerFactory.getLogger(InboxPipelineService.class);
 
+	// Time a step gets after its budget to reach a checkpoint and degrade
+	private static final Duration BACKSTOP_GRACE = Duration.ofSeconds(30);
+
+	// Embedding of the document in the job directory (little-endian float32)
+	public static final String EMBEDDING_FILE = "embedding.bin";
+
 	@Autowired
 	List<PipelineStep> pipelineSteps;
 	@Autowired
@@ -41,15 +62,35 @@ public class InboxPipelineService {
 	ObjectMapper objectMapper;
 	@Autowired
 	ApplicationEventPublisher publisher;
+	@Autowired
+	PipelineProfileService profileService;
+	@Autowired
+	FileSignatureService signatureService;
+	@Autowired
+	TikaService tikaService;
+	@Autowired
+	Scheduler scheduler;
+	@Autowired
+	Task<DeferredOcrRequest> deferredOcrTask;
+
+	// Steps with a timeout run here, so the pipeline thread can stop waiting
+	private final ExecutorService stepExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+	@PreDestroy
+	public void shutdown() {
+		stepExecutor.shutdownNow();
+	}
 
 	@Async("taskExecutor")
 	public void triggerPipeline(String hash) {
 		Path jobDir = Paths.get(config.getServer().getTemp().getPath(), hash);
 
 		String originalName = hash;
+		String sourceFolder = null;
 		try {
 			SourceMetadata meta = objectMapper.readValue(jobDir.resolve("source.info").toFile(), SourceMetadata.class);
 			originalName = meta.originalFilename;
+			sourceFolder = meta.sourceFolder;
 		} catch (Exception e) {
 		}
 
@@ -60,15 +101,30 @@ public class InboxPipelineService {
 			return;
 		}
 
-		log.info("Pipeline START: {} ({})", hash, originalName);
-		int totalSteps = pipelineSteps.size();
+		// Profile selection needs the MIME type before the first step runs
+		String mime = detectMimeType(contentFile);
+		long size = sizeOf(contentFile);
+		PipelineProfile profile = profileService.select(sourceFolder, mime, size);
+
+		List<PipelineStep> steps = pipelineSteps.stream()
+				.filter(step -> profile.runs(step.getId()))
+				.toList();
+
+		log.info("Pipeline START: {} ({}) profile={} steps={}", hash, originalName, profile.getName(), steps.size());
+		int totalSteps = steps.size();
 
 		// Context holds the accumulator (InboxFile)
 		PipelineContext ctx = new PipelineContext(hash, jobDir, contentFile, originalName, publisher, totalSteps);
+		ctx.setProfile(profile);
+		ctx.setBudget(createBudget(profile));
+		if (mime != null) {
+			ctx.setMimeType(mime);
+		}
 
+		long started = System.currentTimeMillis();
 		try {
 			for (int i = 0; i < totalSteps; i++) {
-				PipelineStep step = pipelineSteps.get(i);
+				PipelineStep step = steps.get(i);
 				int currentStep = i + 1;
 				ctx.setCurrentStepIndex(currentStep);
 
@@ -78,7 +134,25 @@ public class InboxPipelineService {
 						new PipelineProgressEvent(
 								hash, originalName, "Step " + currentStep + "/" + totalSteps, currentStep, totalSteps));
 
-				step.execute(ctx);
+				EDegradation skip = step.getSkipDegradation();
+				if (skip != null && ctx.getBudget().isDocumentExhausted()) {
+					ctx.degrade(skip, "Step " + step.getId() + " skipped: document budget exceeded.");
+					continue;
+				}
+
+				ctx.getBudget().startStep(step.getId(), profile.timeoutFor(step.getId()));
+				long stepStart = System.currentTimeMillis();
+				try {
+					runStep(step, ctx);
+				} catch (PipelineTimeoutException te) {
+					if (skip == null)
+						throw te;
+					// Optional step: the document goes on without its result
+					profileService.recordTimeout(profile.getName());
+					ctx.degrade(skip, te.getMessage());
+				} finally {
+					profileService.recordStep(profile.getName(), step.getId(), System.currentTimeMillis() - stepStart);
+				}
 			}
 
 			// Save Result - Hash goes to fileHash, UUID remains null
@@ -87,6 +161,11 @@ public class InboxPipelineService {
 
 			objectMapper.writeValue(jobDir.resolve("pipeline.json").toFile(), result);
 			publisher.publishEvent(new PipelineResultEvent(result));
+			profileService.recordRun(profile.getName(), size, System.currentTimeMillis() - started, true);
+
+			if (ctx.getDeferredOcr() != null) {
+				scheduleDeferredOcr(ctx.getDeferredOcr());
+			}
 
 		} catch (DuplicateException de) {
 			log.info("Duplicate detected for {}: existing item {}", hash, de.getExistingUuid());
@@ -100,13 +179,91 @@ public class InboxPipelineService {
 			}
 
 			publisher.publishEvent(new PipelineResultEvent(result));
+			profileService.recordRun(profile.getName(), size, System.currentTimeMillis() - started, true);
+
+		} catch (PipelineTimeoutException te) {
+			log.warn("Pipeline timeout for {} (profile {}): {}", hash, profile.getName(), te.getMessage());
+			profileService.recordTimeout(profile.getName());
+			profileService.recordRun(profile.getName(), size, System.currentTimeMillis() - started, false);
+			publisher.publishEvent(new PipelineErrorEvent(hash, te.getMessage()));
 
 		} catch (Exception e) {
 			log.error("Pipeline crashed for {}", hash, e);
+			profileService.recordRun(profile.getName(), size, System.currentTimeMillis() - started, false);
 			publisher.publishEvent(new PipelineErrorEvent(hash, e.getMessage()));
 		}
 	}
 
+	private void scheduleDeferredOcr(DeferredOcrRequest request) {
+		try {
+			scheduler.schedule(deferredOcrTask.instance("ocr-" + request.hash(), request), Instant.now());
+			log.info("Deferred OCR scheduled for {}", request.hash());
+		} catch (Exception e) {
+			// e.g. still scheduled from an earlier run of the same file
+			log.warn("Deferred OCR for {} not scheduled: {}", request.hash(), e.getMessage());
+		}
+	}
+
+	private ProcessingBudget createBudget(PipelineProfile profile) {
+		Budget defaults = config.getProcessing().getBudget();
+		Duration document = profile.getDocumentBudget() != null ? profile.getDocumentBudget() : defaults.getDocument();
+		long maxTextChars = profile.getMaxTextChars() != null ? profile.getMaxTextChars() : defaults.getMaxTextChars();
+		return new ProcessingBudget(document, maxTextChars);
+	}
+
+	/**
+	 * Runs a step, bounded by its budget. Steps are expected to stop at a
+	 * checkpoint of {@link ProcessingBudget}; if one does not return within
+	 * {@link #BACKSTOP_GRACE} after the budget, its thread is interrupted. Steps
+	 * blocked in I/O or sleep stop there, CPU bound parsers finish in the
+	 * background but their result is discarded.
+	 */
+	private void runStep(PipelineStep step, PipelineContext ctx) throws Exception {
+		long remaining = ctx.getBudget().remainingMillis();
+		if (remaining == Long.MAX_VALUE) {
+			step.execute(ctx);
+			return;
+		}
+		Duration timeout = Duration.ofMillis(remaining).plus(BACKSTOP_GRACE);
+
+		Future<?> future = stepExecutor.submit(() -> {
+			step.execute(ctx);
+			return null;
+		});
+		try {
+			future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			throw new PipelineTimeoutException(step.getId(), timeout);
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw e;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception cause)
+				throw cause;
+			throw e;
+		}
+	}
+
+	private String detectMimeType(Path file) {
+		try {
+			String mime = signatureService.quickDetect(file);
+			return mime != null ? mime : tikaService.detectMimeType(file);
+		} catch (Exception e) {
+			log.debug("Early MIME detection failed for {}: {}", file, e.getMessage());
+			return null;
+		}
+	}
+
+	private long sizeOf(Path file) {
+		try {
+			return Files.size(file);
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
 	// ... Helpers ...
 	public PipelineStatusMessage getOrWaitForResult(String hash) {
 		Path meta = Paths.get(config.getServer().getTemp().getPath(), hash, "pipeline.json");
@@ -127,6 +284,11 @@ public class InboxPipelineService {
 		return Paths.get(config.getServer().getTemp().getPath(), hash, "textlayer.txt");
 	}
 
+	/** Vector written by the Embedding step; missing if the step did not run. */
+	public Path getEmbeddingFile(String hash) {
+		return Paths.get(config.getServer().getTemp().getPath(), hash, EMBEDDING_FILE);
+	}
+
 	public void cleanup(String hash) {
 		Path jobDir = Paths.get(config.getServer().getTemp().getPath(), hash);
 		if (Files.exists(jobDir)) {
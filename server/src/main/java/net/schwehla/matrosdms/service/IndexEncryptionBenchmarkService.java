@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.apache.lucene.index.CodecReader;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiTerms;
+import org.apache.lucene.index.SlowCodecReaderWrapper;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.util.BytesRef;
+import org.hibernate.search.backend.lucene.LuceneExtension;
+import org.hibernate.search.mapper.orm.Search;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.domain.admin.IndexEncryptionBenchmarkReport;
+import net.schwehla.matrosdms.domain.admin.IndexEncryptionBenchmarkReport.Mode;
+import net.schwehla.matrosdms.entity.DBItem;
+import net.schwehla.matrosdms.exception.MatrosServiceException;
+import net.schwehla.matrosdms.search.EncryptedDirectory;
+import net.schwehla.matrosdms.search.IndexBlockCache;
+import net.schwehla.matrosdms.search.IndexEncryption;
+
+/**
+ * Compares search latency of the plaintext and the encrypted directory on
+ * copies of the live item index in the system temp folder (deleted
+ * afterwards), with the configured block and cache size and a throwaway key.
+ * Both copies are searched with the same fulltext term queries, each loading
+ * the stored fields of its top hits like the result projection does.
+ */
+@Service
+public class IndexEncryptionBenchmarkService {
+
+	private static final String FIELD = "fulltext";
+	private static final int TOP_HITS = 20;
+	private static final int MIN_TERM_LENGTH = 3;
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+	@Autowired
+	IndexEncryption indexEncryption;
+	@Autowired
+	AppServerSpringConfig config;
+
+	public IndexEncryptionBenchmarkReport run(int queryCount, int runs) throws IOException {
+		int passes = Math.max(2, runs);
+		Path work = Files.createTempDirectory("matros-index-benchmark-");
+		byte[] key = new byte[32];
+		new SecureRandom().nextBytes(key);
+		IndexBlockCache cache = new IndexBlockCache(config.getIndexing().getEncryption().getCacheSize().toBytes());
+		int blockSize = indexEncryption.blockSize();
+		try (Directory plain = FSDirectory.open(work.resolve("plain"));
+				Directory encrypted = new EncryptedDirectory(FSDirectory.open(work.resolve("encrypted")), key,
+						blockSize, cache)) {
+			long documents = copyLiveIndex(plain);
+			for (String file : plain.listAll()) {
+				if (!file.equals(IndexWriter.WRITE_LOCK_NAME)) {
+					encrypted.copyFrom(plain, file, file, IOContext.DEFAULT);
+				}
+			}
+
+			List<String> terms;
+			try (DirectoryReader reader = DirectoryReader.open(plain)) {
+				terms = frequentTerms(reader, Math.max(1, queryCount));
+			}
+			if (terms.isEmpty()) {
+				throw new MatrosServiceException("The search index has no fulltext terms to search for");
+			}
+
+			Mode plainMode = measure(plain, terms, passes);
+			Mode encryptedMode = measure(encrypted, terms, passes);
+			double overhead = plainMode.getAverageMillis() > 0
+					? 100 * (encryptedMode.getAverageMillis() - plainMode.getAverageMillis())
+							/ plainMode.getAverageMillis()
+					: 0;
+			return new IndexEncryptionBenchmarkReport(documents, folderSize(work.resolve("plain")),
+					folderSize(work.resolve("encrypted")), blockSize, terms, passes, plainMode, encryptedMode,
+					overhead, 100 * cache.getHitRate(), cache.getBytes());
+		} finally {
+			Arrays.fill(key, (byte) 0);
+			FileSystemUtils.deleteRecursively(work);
+		}
+	}
+
+	/**
+	 * Writes the segments of the live index into {@code target}. Added as
+	 * readers, so the copy does not depend on files the writer may delete
+	 * meanwhile. Returns the number of documents.
+	 */
+	private long copyLiveIndex(Directory target) throws IOException {
+		try (IndexReader live = Search.mapping(entityManagerFactory).scope(DBItem.class)
+				.extension(LuceneExtension.get()).openIndexReader()) {
+			if (live.numDocs() == 0) {
+				throw new MatrosServiceException("The search index is empty");
+			}
+			List<CodecReader> segments = new ArrayList<>();
+			for (LeafReaderContext leaf : live.leaves()) {
+				LeafReader reader = FilterLeafReader.unwrap(leaf.reader());
+				segments.add(reader instanceof CodecReader codecReader ? codecReader
+						: SlowCodecReaderWrapper.wrap(reader));
+			}
+			try (IndexWriter writer = new IndexWriter(target, new IndexWriterConfig())) {
+				writer.addIndexes(segments.toArray(CodecReader[]::new));
+				writer.commit();
+			}
+			return live.numDocs();
+		}
+	}
+
+	/** The most frequent fulltext terms, most frequent first. */
+	private static List<String> frequentTerms(IndexReader reader, int count) throws IOException {
+		Terms terms = MultiTerms.getTerms(reader, FIELD);
+		if (terms == null) {
+			return List.of();
+		}
+		record Frequency(String term, int docFreq) {
+		}
+		PriorityQueue<Frequency> top = new PriorityQueue<>(Comparator.comparingInt(Frequency::docFreq));
+		TermsEnum iterator = terms.iterator();
+		BytesRef term;
+		while ((term = iterator.next()) != null) {
+			String text = term.utf8ToString();
+			if (text.length() < MIN_TERM_LENGTH) {
+				continue;
+			}
+			top.add(new Frequency(text, iterator.docFreq()));
+			if (top.size() > count) {
+				top.poll();
+			}
+		}
+		return top.stream()
+				.sorted(Comparator.comparingInt(Frequency::docFreq).reversed())
+				.map(Frequency::term)
+				.toList();
+	}
+
+	private static Mode measure(Directory directory, List<String> terms, int passes) throws IOException {
+		long openStart = System.nanoTime();
+		try (DirectoryReader reader = DirectoryReader.open(directory)) {
+			double openMillis = (System.nanoTime() - openStart) / 1e6;
+			IndexSearcher searcher = new IndexSearcher(reader);
+			// Measures reading the files, not Lucene's filter cache
+			searcher.setQueryCache(null);
+
+			long firstStart = System.nanoTime();
+			for (String term : terms) {
+				search(searcher, term);
+			}
+			double firstPassMillis = (System.nanoTime() - firstStart) / 1e6;
+
+			double[] millis = new double[(passes - 1) * terms.size()];
+			int i = 0;
+			for (int pass = 1; pass < passes; pass++) {
+				for (String term : terms) {
+					long start = System.nanoTime();
+					search(searcher, term);
+					millis[i++] = (System.nanoTime() - start) / 1e6;
+				}
+			}
+			Arrays.sort(millis);
+			double average = Arrays.stream(millis).average().orElse(0);
+			double p95 = millis[Math.min(millis.length - 1, (int) Math.ceil(millis.length * 0.95) - 1)];
+			return new Mode(openMillis, firstPassMillis, average, p95);
+		}
+	}
+
+	private static void search(IndexSearcher searcher, String term) throws IOException {
+		TopDocs hits = searcher.search(new TermQuery(new Term(FIELD, term)), TOP_HITS);
+		StoredFields storedFields = searcher.storedFields();
+		for (ScoreDoc hit : hits.scoreDocs) {
+			storedFields.document(hit.doc);
+		}
+	}
+
+	private static long folderSize(Path folder) throws IOException {
+		try (var files = Files.list(folder)) {
+			return files.mapToLong(file -> file.toFile().length()).sum();
+		}
+	}
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.store.Directory;
+import org.hibernate.search.backend.lucene.LuceneExtension;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.scope.SearchScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import com.github.kagkarlsson.scheduler.Scheduler;
+import com.github.kagkarlsson.scheduler.task.Task;
+
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.IndexOptimization;
+import net.schwehla.matrosdms.domain.admin.IndexHealthStats;
+import net.schwehla.matrosdms.domain.admin.IndexHealthStats.Field;
+import net.schwehla.matrosdms.domain.admin.IndexHealthStats.Segment;
+import net.schwehla.matrosdms.domain.admin.ReindexScope;
+import net.schwehla.matrosdms.entity.DBItem;
+import net.schwehla.matrosdms.exception.MatrosServiceException;
+import net.schwehla.matrosdms.repository.ItemRepository;
+import net.schwehla.matrosdms.search.IndexBlockCache;
+import net.schwehla.matrosdms.search.IndexEncryption;
+
+/**
+ * Health of the item index and its periodic optimization. Updates delete the
+ * old document and add a new one; the deleted ones take space and slow
+ * searches down until the merge policy happens to merge their segments. The
+ * scheduled optimization force-merges the index in quiet hours once deletes
+ * or segments pile up.
+ */
+@Service
+public class IndexMaintenanceService {
+
+	private static final Logger log = LoggerFactory.getLogger(IndexMaintenanceService.class);
+
+	// Lucene file extensions by what they hold
+	private static final Map<String, String> FILE_TYPES = Map.ofEntries(
+			Map.entry("tim", "terms"), Map.entry("tip", "terms"), Map.entry("tmd", "terms"),
+			Map.entry("doc", "postings"), Map.entry("pos", "postings"), Map.entry("pay", "postings"),
+			Map.entry("fdt", "stored fields"), Map.entry("fdx", "stored fields"), Map.entry("fdm", "stored fields"),
+			Map.entry("dvd", "doc values"), Map.entry("dvm", "doc values"),
+			Map.entry("kdd", "points"), Map.entry("kdi", "points"), Map.entry("kdm", "points"),
+			Map.entry("nvd", "norms"), Map.entry("nvm", "norms"),
+			Map.entry("vec", "vectors"), Map.entry("vex", "vectors"), Map.entry("vem", "vectors"),
+			Map.entry("veq", "vectors"), Map.entry("vemq", "vectors"),
+			Map.entry("tvd", "term vectors"), Map.entry("tvx", "term vectors"), Map.entry("tvm", "term vectors"),
+			Map.entry("cfs", "compound"), Map.entry("cfe", "compound"),
+			Map.entry("liv", "deletions"));
+
+	/** Result of an optimization run: whether the index was merged, and what happened. */
+	public record Outcome(boolean merged, String info) {
+	}
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+	@Autowired
+	AppServerSpringConfig config;
+	@Autowired
+	ReindexService reindexService;
+	@Autowired
+	IndexQueueService indexQueueService;
+	@Autowired
+	IndexEncryption indexEncryption;
+	@Autowired
+	ItemRepository itemRepository;
+	// Scheduler depends on all task beans, the optimize tasks on this service
+	@Autowired
+	@Lazy
+	Scheduler scheduler;
+	@Autowired
+	Task<ReindexScope> reindexTask;
+
+	private final AtomicBoolean merging = new AtomicBoolean();
+	private final AtomicReference<Instant> lastOptimized = new AtomicReference<>();
+	private final AtomicLong lastOptimizeMillis = new AtomicLong();
+
+	/** Segments, deleted documents and sizes of the index as searches currently see it. */
+	public IndexHealthStats getStats() {
+		try (IndexReader reader = scope().extension(LuceneExtension.get()).openIndexReader()) {
+			return stats(reader);
+		} catch (IOException e) {
+			throw new MatrosServiceException("Search index statistics not readable", e);
+		}
+	}
+
+	/**
+	 * Schedules a full reindex if the index is empty while there are items,
+	 * e.g. after switching index encryption on or off (the index moves to
+	 * another folder) or after the index folder was deleted.
+	 */
+	public boolean rebuildIfEmpty() {
+		if (reindexService.isRunning() || getStats().getDocuments() > 0 || itemRepository.count() == 0) {
+			return false;
+		}
+		log.info("Search index is empty: full reindex scheduled");
+		scheduler.schedule(reindexTask.instance("empty-index-" + System.currentTimeMillis(), ReindexScope.all()),
+				Instant.now());
+		return true;
+	}
+
+	/**
+	 * Merges the index into one segment, which drops the deleted documents.
+	 * Unless forced, only if a threshold of {@code optimize} is exceeded and
+	 * nothing else is writing to the index. Blocks until the merge is done.
+	 */
+	public Outcome optimize(boolean force) {
+		if (!merging.compareAndSet(false, true)) {
+			return new Outcome(false, "An index optimization is already running");
+		}
+		try {
+			if (reindexService.isRunning()) {
+				return skipped("a reindex is running");
+			}
+			long pending = indexQueueService.getStats().getPending();
+			if (!force && pending > 0) {
+				return skipped(pending + " changes wait in the index queue");
+			}
+
+			IndexHealthStats before = getStats();
+			IndexOptimization options = config.getIndexing().getMaintenance().getOptimize();
+			if (!force && before.getDeletedPercent() < options.getMinDeletedPercent()
+					&& before.getSegmentCount() <= options.getMaxSegments()) {
+				return skipped(describe(before));
+			}
+
+			long start = System.currentTimeMillis();
+			scope().workspace().mergeSegments();
+			long millis = System.currentTimeMillis() - start;
+			lastOptimized.set(Instant.now());
+			lastOptimizeMillis.set(millis);
+
+			String info = "Index optimized in " + millis + " ms: " + describe(before) + " -> "
+					+ describe(getStats());
+			log.info(info);
+			return new Outcome(true, info);
+		} finally {
+			merging.set(false);
+		}
+	}
+
+	private static Outcome skipped(String reason) {
+		log.info("Index optimization skipped: {}", reason);
+		return new Outcome(false, "Skipped: " + reason);
+	}
+
+	private static String describe(IndexHealthStats stats) {
+		return String.format(Locale.ROOT, "%d segments, %.1f%% deleted, %d MB", stats.getSegmentCount(),
+				stats.getDeletedPercent(), stats.getSizeBytes() / (1024 * 1024));
+	}
+
+	private SearchScope<DBItem> scope() {
+		return Search.mapping(entityManagerFactory).scope(DBItem.class);
+	}
+
+	private IndexHealthStats stats(IndexReader reader) throws IOException {
+		List<Segment> segments = new ArrayList<>();
+		Map<String, Long> sizeByFileType = new TreeMap<>();
+		Map<String, FieldStats> fields = new TreeMap<>();
+		Set<Directory> directories = Collections.newSetFromMap(new IdentityHashMap<>());
+		long documents = 0;
+		long deleted = 0;
+		long size = 0;
+
+		for (LeafReaderContext leaf : reader.leaves()) {
+			LeafReader leafReader = FilterLeafReader.unwrap(leaf.reader());
+			documents += leafReader.numDocs();
+			deleted += leafReader.numDeletedDocs();
+			collectFields(leafReader, fields);
+			if (!(leafReader instanceof SegmentReader segmentReader)) {
+				continue;
+			}
+			SegmentCommitInfo info = segmentReader.getSegmentInfo();
+			Directory directory = info.info.dir;
+			directories.add(directory);
+			long segmentSize = info.sizeInBytes();
+			size += segmentSize;
+			segments.add(new Segment(info.info.name, segmentReader.numDocs(), segmentReader.numDeletedDocs(),
+					segmentSize, info.info.getUseCompoundFile()));
+			for (String file : info.files()) {
+				String type = FILE_TYPES.getOrDefault(IndexFileNames.getExtension(file), "other");
+				sizeByFileType.merge(type, fileLength(directory, file), Long::sum);
+			}
+		}
+
+		long directoryBytes = 0;
+		for (Directory directory : directories) {
+			for (String file : directory.listAll()) {
+				directoryBytes += fileLength(directory, file);
+			}
+		}
+
+		segments.sort(Comparator.comparingLong(Segment::getSizeBytes).reversed());
+		List<Field> fieldList = fields.entrySet().stream()
+				.map(e -> e.getValue().toField(e.getKey()))
+				.sorted(Comparator.comparingLong(Field::getPostings).reversed())
+				.toList();
+		double deletedPercent = documents + deleted > 0 ? 100.0 * deleted / (documents + deleted) : 0;
+		IndexBlockCache cache = indexEncryption.getCache();
+		return new IndexHealthStats(reader.leaves().size(), documents, deleted, deletedPercent, size,
+				directoryBytes, sizeByFileType, segments, fieldList, lastOptimized.get(), lastOptimizeMillis.get(),
+				indexEncryption.isEnabled(), cache != null ? cache.getBytes() : 0,
+				cache != null ? 100 * cache.getHitRate() : 0);
+	}
+
+	private static void collectFields(LeafReader leafReader, Map<String, FieldStats> fields) throws IOException {
+		for (FieldInfo info : leafReader.getFieldInfos()) {
+			FieldStats stats = fields.computeIfAbsent(info.name, name -> new FieldStats());
+			if (info.getDocValuesType() != DocValuesType.NONE) {
+				stats.docValues = info.getDocValuesType();
+			}
+			stats.pointDimensions = Math.max(stats.pointDimensions, info.getPointDimensionCount());
+			stats.vectorDimensions = Math.max(stats.vectorDimensions, info.getVectorDimension());
+			if (info.getIndexOptions() != IndexOptions.NONE) {
+				Terms terms = leafReader.terms(info.name);
+				if (terms != null) {
+					stats.documents += terms.getDocCount();
+					stats.terms += Math.max(0, terms.size());
+					stats.postings += terms.getSumTotalTermFreq() >= 0 ? terms.getSumTotalTermFreq()
+							: terms.getSumDocFreq();
+				}
+			} else if (info.getPointDimensionCount() > 0) {
+				PointValues points = leafReader.getPointValues(info.name);
+				if (points != null) {
+					stats.documents += points.getDocCount();
+				}
+			}
+		}
+	}
+
+	private static long fileLength(Directory directory, String file) throws IOException {
+		try {
+			return directory.fileLength(file);
+		} catch (NoSuchFileException e) {
+			// Deleted by a merge or commit in the meantime
+			return 0;
+		}
+	}
+
+	/** Statistics of one field, summed over the segments. */
+	private static class FieldStats {
+		long documents;
+		long terms;
+		long postings;
+		DocValuesType docValues = DocValuesType.NONE;
+		int pointDimensions;
+		int vectorDimensions;
+
+		Field toField(String name) {
+			return new Field(name, documents, terms, postings, docValues.name(), pointDimensions, vectorDimensions);
+		}
+	}
+}
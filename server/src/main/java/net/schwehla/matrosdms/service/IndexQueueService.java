@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.IndexQueue;
+import net.schwehla.matrosdms.domain.admin.IndexQueueStats;
+import net.schwehla.matrosdms.entity.DBIndexQueueEntry;
+import net.schwehla.matrosdms.repository.IndexQueueRepository;
+import net.schwehla.matrosdms.search.ItemIndexListener;
+
+/**
+ * Durable search indexing queue. Item changes are recorded in the same
+ * transaction as the change itself; the drain task (see DbSchedulerConfig)
+ * coalesces repeated ids and indexes hundreds of items per transaction and
+ * index commit. Entries are deleted only after their batch is committed to
+ * the index, so every change is indexed at least once, also across restarts.
+ *
+ * This is the only path of item changes into the index: the automatic
+ * indexing listeners of Hibernate Search are off
+ * (hibernate.search.indexing.listeners.enabled). Services enqueue the items
+ * they change; in addition {@link ItemIndexListener} reports every flushed
+ * item, and items a committed transaction changed without enqueueing them
+ * are enqueued right after the commit (without saved search matching).
+ * Renamed contexts, stores and categories reach their items through
+ * DependentReindexService.
+ */
+@Service
+public class IndexQueueService {
+
+	private static final Logger log = LoggerFactory.getLogger(IndexQueueService.class);
+
+	@Autowired
+	IndexQueueRepository queueRepository;
+	@Autowired
+	SearchService searchService;
+	@Autowired
+	AppServerSpringConfig config;
+	@Autowired
+	SavedSearchSubscriptionService subscriptionService;
+
+	private static volatile IndexQueueService instance;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	private final LongAdder indexedItems = new LongAdder();
+	private final LongAdder consumedEntries = new LongAdder();
+	private final LongAdder batches = new LongAdder();
+	private final AtomicLong lastBatchMillis = new AtomicLong();
+	private final AtomicReference<Instant> lastDrain = new AtomicReference<>();
+
+	@PostConstruct
+	public void init() {
+		instance = this;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		instance = null;
+	}
+
+	/** Joins the caller's transaction, so the change and its index request commit together. */
+	@Transactional
+	public void enqueue(Long itemId) {
+		queueRepository.save(new DBIndexQueueEntry(itemId));
+		ChangedItems.queued(List.of(itemId));
+	}
+
+	@Transactional
+	public void enqueueAll(Collection<Long> itemIds) {
+		enqueueAll(itemIds, true);
+	}
+
+	/**
+	 * With {@code percolate} false the items are indexed but not matched
+	 * against watched saved searches (background jobs that change no content
+	 * a user searches for).
+	 */
+	@Transactional
+	public void enqueueAll(Collection<Long> itemIds, boolean percolate) {
+		queueRepository.saveAll(new LinkedHashSet<>(itemIds).stream()
+				.map(id -> new DBIndexQueueEntry(id, percolate))
+				.toList());
+		ChangedItems.queued(itemIds);
+	}
+
+	/**
+	 * Called by {@link ItemIndexListener} when an item was flushed. Static
+	 * because JPA instantiates listeners itself; a no-op until the service is
+	 * up.
+	 */
+	public static void itemChanged(Long itemId) {
+		IndexQueueService service = instance;
+		if (service == null || itemId == null) {
+			return;
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			ChangedItems.forTransaction(service).changed.add(itemId);
+		} else {
+			service.enqueueMissed(Set.of(itemId));
+		}
+	}
+
+	/** Own transaction: after a commit the caller's one is finished. */
+	private void enqueueMissed(Set<Long> itemIds) {
+		try {
+			TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+			transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+			transaction.executeWithoutResult(status -> queueRepository.saveAll(itemIds.stream()
+					.map(id -> new DBIndexQueueEntry(id, false))
+					.toList()));
+			log.debug("Enqueued {} items changed without an index request", itemIds.size());
+		} catch (RuntimeException e) {
+			log.warn("Changed items {} could not be enqueued, the index is stale until their next change: {}",
+					itemIds, e.getMessage());
+		}
+	}
+
+	/**
+	 * Indexes queued changes batch by batch until the queue is empty or the
+	 * per-run limit is reached. Returns the number of consumed entries.
+	 */
+	public int drain() {
+		IndexQueue options = options();
+		int consumed = 0;
+		for (int i = 0; i < options.getMaxBatchesPerRun(); i++) {
+			List<DBIndexQueueEntry> page = queueRepository.findByAttemptsLessThanOrderByIdAsc(
+					options.getMaxAttempts(), PageRequest.of(0, options.getBatchSize()));
+			if (page.isEmpty()) {
+				break;
+			}
+			consumed += indexBatch(withLaterEntries(page, options));
+			if (page.size() < options.getBatchSize()) {
+				break;
+			}
+		}
+		lastDrain.set(Instant.now());
+		if (consumed > 0) {
+			checkLag(options);
+		}
+		return consumed;
+	}
+
+	public IndexQueueStats getStats() {
+		int maxAttempts = options().getMaxAttempts();
+		LocalDateTime oldest = queueRepository.findOldestPending(maxAttempts);
+		return new IndexQueueStats(
+				queueRepository.countByAttemptsLessThan(maxAttempts),
+				queueRepository.countByAttemptsGreaterThanEqual(maxAttempts),
+				oldest,
+				lagSeconds(oldest),
+				indexedItems.sum(),
+				consumedEntries.sum(),
+				batches.sum(),
+				lastBatchMillis.get(),
+				lastDrain.get());
+	}
+
+	/**
+	 * Adds the entries of the same items further back in the queue: an item
+	 * changed again while waiting is indexed once. They were committed before
+	 * the items are loaded, so the indexed state includes their changes.
+	 */
+	private List<DBIndexQueueEntry> withLaterEntries(List<DBIndexQueueEntry> page, IndexQueue options) {
+		Set<Long> itemIds = page.stream()
+				.map(DBIndexQueueEntry::getItemId)
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+		Map<Long, DBIndexQueueEntry> entries = new LinkedHashMap<>();
+		page.forEach(entry -> entries.put(entry.getId(), entry));
+		queueRepository.findByItemIdInAndAttemptsLessThan(itemIds, options.getMaxAttempts())
+				.forEach(entry -> entries.putIfAbsent(entry.getId(), entry));
+		return new ArrayList<>(entries.values());
+	}
+
+	private int indexBatch(List<DBIndexQueueEntry> batch) {
+		Set<Long> itemIds = batch.stream()
+				.map(DBIndexQueueEntry::getItemId)
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+		long start = System.nanoTime();
+		try {
+			searchService.indexItems(itemIds);
+		} catch (Exception e) {
+			log.warn("Index batch of {} items failed, retrying one by one: {}", itemIds.size(), e.getMessage());
+			return indexOneByOne(batch);
+		}
+		queueRepository.deleteAllByIdInBatch(ids(batch));
+
+		long millis = (System.nanoTime() - start) / 1_000_000;
+		record(itemIds.size(), batch.size(), millis);
+		log.debug("Indexed {} items ({} queue entries) in {} ms", itemIds.size(), batch.size(), millis);
+		percolate(batch);
+		return batch.size();
+	}
+
+	/** Isolates the items that break a batch; their entries count an attempt and stay. */
+	private int indexOneByOne(List<DBIndexQueueEntry> batch) {
+		Map<Long, List<DBIndexQueueEntry>> byItem = batch.stream()
+				.collect(Collectors.groupingBy(DBIndexQueueEntry::getItemId, LinkedHashMap::new, Collectors.toList()));
+		int consumed = 0;
+		List<DBIndexQueueEntry> indexed = new ArrayList<>();
+		for (Map.Entry<Long, List<DBIndexQueueEntry>> item : byItem.entrySet()) {
+			long start = System.nanoTime();
+			try {
+				searchService.indexItems(List.of(item.getKey()));
+				queueRepository.deleteAllByIdInBatch(ids(item.getValue()));
+				record(1, item.getValue().size(), (System.nanoTime() - start) / 1_000_000);
+				consumed += item.getValue().size();
+				indexed.addAll(item.getValue());
+			} catch (Exception e) {
+				log.warn("Indexing of item {} failed: {}", item.getKey(), e.getMessage());
+				queueRepository.incrementAttempts(ids(item.getValue()));
+			}
+		}
+		percolate(indexed);
+		return consumed;
+	}
+
+	/** Matches the indexed items against watched saved searches; never fails the batch. */
+	private void percolate(List<DBIndexQueueEntry> indexed) {
+		Set<Long> itemIds = indexed.stream()
+				.filter(DBIndexQueueEntry::isPercolate)
+				.map(DBIndexQueueEntry::getItemId)
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+		if (itemIds.isEmpty()) {
+			return;
+		}
+		try {
+			subscriptionService.percolate(itemIds);
+		} catch (Exception e) {
+			log.warn("Saved search matching of {} items failed: {}", itemIds.size(), e.getMessage());
+		}
+	}
+
+	private void record(int items, int entries, long millis) {
+		indexedItems.add(items);
+		consumedEntries.add(entries);
+		batches.increment();
+		lastBatchMillis.set(millis);
+	}
+
+	private void checkLag(IndexQueue options) {
+		LocalDateTime oldest = queueRepository.findOldestPending(options.getMaxAttempts());
+		long lag = lagSeconds(oldest);
+		if (lag > options.getLagWarning().toSeconds()) {
+			log.warn("Search index lags behind: oldest unindexed change is {} s old", lag);
+		}
+	}
+
+	private static long lagSeconds(LocalDateTime oldest) {
+		return oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toSeconds());
+	}
+
+	private static List<Long> ids(List<DBIndexQueueEntry> entries) {
+		return entries.stream().map(DBIndexQueueEntry::getId).toList();
+	}
+
+	private IndexQueue options() {
+		return config.getIndexing().getQueue();
+	}
+
+	/**
+	 * Items flushed in one transaction and the ones its services enqueued.
+	 * Registered as a synchronization, so it belongs to exactly one
+	 * transaction (a REQUIRES_NEW inside gets its own).
+	 */
+	private static final class ChangedItems implements TransactionSynchronization {
+
+		private final IndexQueueService service;
+		private final Set<Long> changed = new LinkedHashSet<>();
+		private final Set<Long> queued = new HashSet<>();
+
+		private ChangedItems(IndexQueueService service) {
+			this.service = service;
+		}
+
+		static ChangedItems forTransaction(IndexQueueService service) {
+			ChangedItems current = current();
+			if (current == null) {
+				current = new ChangedItems(service);
+				TransactionSynchronizationManager.registerSynchronization(current);
+			}
+			return current;
+		}
+
+		static void queued(Collection<Long> itemIds) {
+			ChangedItems current = current();
+			if (current != null) {
+				current.queued.addAll(itemIds);
+			}
+		}
+
+		private static ChangedItems current() {
+			if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+				return null;
+			}
+			for (TransactionSynchronization synchronization : TransactionSynchronizationManager
+					.getSynchronizations()) {
+				if (synchronization instanceof ChangedItems changes) {
+					return changes;
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public void afterCommit() {
+			Set<Long> missed = new LinkedHashSet<>(changed);
+			missed.removeAll(queued);
+			if (!missed.isEmpty()) {
+				service.enqueueMissed(missed);
+			}
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.entity.DBItem;
+import net.schwehla.matrosdms.entity.DBItemEmbedding;
+import net.schwehla.matrosdms.entity.converter.FloatVectorConverter;
+import net.schwehla.matrosdms.repository.ItemRepository;
+
+/**
+ * Stores item embeddings: from the inbox pipeline on ingestion, and in small
+ * batches for items that have none of the current model yet (older items,
+ * failed model calls, a model change). The index picks them up through the
+ * index queue.
+ */
+@Service
+public class ItemEmbeddingService {
+
+	private static final Logger log = LoggerFactory.getLogger(ItemEmbeddingService.class);
+
+	// Same input as the pipeline step: the start of the document
+	private static final int MAX_TEXT_CHARS = 2000;
+	private static final int MAX_PAGES = 3;
+
+	@Autowired
+	EmbeddingService embeddingService;
+	@Autowired
+	TextLayerService textLayerService;
+	@Autowired
+	ItemRepository itemRepository;
+	@Autowired
+	IndexQueueService indexQueueService;
+	@Autowired
+	AppServerSpringConfig config;
+
+	// Backfill position; restarts at the beginning when the end is reached
+	private final AtomicLong cursor = new AtomicLong();
+
+	/** Attaches the vector computed by the pipeline, if there is one. */
+	public void attachFromPipeline(DBItem item, Path embeddingFile) {
+		if (!Files.exists(embeddingFile))
+			return;
+		try {
+			float[] vector = new FloatVectorConverter().convertToEntityAttribute(Files.readAllBytes(embeddingFile));
+			if (vector.length == config.getAi().getEmbedding().getDimension()) {
+				item.setEmbedding(new DBItemEmbedding(embeddingService.currentModelId(), vector));
+			}
+		} catch (Exception e) {
+			// The backfill computes it later
+			log.warn("Embedding of {} not attached: {}", item.getUuid(), e.getMessage());
+		}
+	}
+
+	/**
+	 * Embeds the next batch of items without a current embedding. Returns the
+	 * number of items embedded.
+	 */
+	public int backfill() {
+		if (!embeddingService.isEnabled())
+			return 0;
+
+		String model = embeddingService.currentModelId();
+		int batchSize = config.getAi().getEmbedding().getBackfillBatchSize();
+		List<Long> ids = itemRepository.findIdsWithoutEmbedding(cursor.get(), model, PageRequest.of(0, batchSize));
+		if (ids.isEmpty()) {
+			// Items that failed are retried on the next pass
+			cursor.set(0);
+			return 0;
+		}
+		cursor.set(ids.get(ids.size() - 1));
+
+		List<Long> embedded = new ArrayList<>();
+		for (Long id : ids) {
+			DBItem item = itemRepository.findById(id).orElse(null);
+			if (item == null)
+				continue;
+			float[] vector = embeddingService.generateEmbedding(textOf(item));
+			if (vector == null)
+				continue;
+			item.setEmbedding(new DBItemEmbedding(model, vector));
+			itemRepository.save(item);
+			embedded.add(id);
+		}
+		if (!embedded.isEmpty()) {
+			indexQueueService.enqueueAll(embedded, false);
+			log.info("Embedding backfill: {} of {} items embedded", embedded.size(), ids.size());
+		}
+		return embedded.size();
+	}
+
+	private String textOf(DBItem item) {
+		StringBuilder text = new StringBuilder();
+		if (item.getName() != null)
+			text.append(item.getName()).append(' ');
+		if (item.getDescription() != null)
+			text.append(item.getDescription()).append(' ');
+		try {
+			String pages = textLayerService.readPages(item.getUuid(), 1, MAX_PAGES, MAX_TEXT_CHARS);
+			if (pages != null)
+				text.append(pages);
+		} catch (Exception e) {
+			log.debug("Embedding: text layer of {} not readable: {}", item.getUuid(), e.getMessage());
+		}
+		return text.toString();
+	}
+}
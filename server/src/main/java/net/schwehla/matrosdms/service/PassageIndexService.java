@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.KnnFloatVectorField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.KnnFloatVectorQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.QueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.RagConfig;
+import net.schwehla.matrosdms.repository.ItemRepository;
+import net.schwehla.matrosdms.search.IndexEncryption;
+import net.schwehla.matrosdms.search.PassageSplitter;
+import net.schwehla.matrosdms.util.TextLayerPageIndex;
+
+/**
+ * Passage index for the RAG chat: a separate Lucene index with one document
+ * per passage of an item's text layer, searchable by BM25 and, if embeddings
+ * are enabled, by vector (HNSW). Retrieval fuses both rankings (reciprocal
+ * rank fusion), so a question finds the paragraph that answers it, not just
+ * the document.
+ *
+ * Items are (re)split when their text version is newer than the one their
+ * passages were built from (item.passage_version), by a recurring task shortly
+ * after ingestion or OCR. Passage text lives only in this index, not in the
+ * database.
+ */
+@Service
+public class PassageIndexService {
+
+	private static final Logger log = LoggerFactory.getLogger(PassageIndexService.class);
+
+	private static final String F_ITEM = "item";
+	private static final String F_PAGE = "page";
+	private static final String F_ORDINAL = "ordinal";
+	private static final String F_TEXT = "text";
+	private static final String F_VECTOR = "vector";
+
+	// Commit data: model of the indexed vectors ("" = no vectors)
+	private static final String MODEL_KEY = "embedding-model";
+
+	// Usual constant of reciprocal rank fusion, damps the weight of the top ranks
+	private static final int RRF_K = 60;
+
+	private static final int MAX_PAGE_CHARS = 200_000;
+	private static final int MAX_PASSAGES_PER_ITEM = 2000;
+
+	private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	/** A retrieved passage; score is the fused rank score. */
+	public record PassageHit(String itemUuid, String itemName, int page, int ordinal, String text, double score) {
+	}
+
+	@Autowired
+	AppServerSpringConfig config;
+	@Autowired
+	ItemRepository itemRepository;
+	@Autowired
+	TextLayerService textLayerService;
+	@Autowired
+	EmbeddingService embeddingService;
+	@Autowired
+	IndexEncryption indexEncryption;
+
+	private final Analyzer analyzer = new StandardAnalyzer();
+
+	private Directory directory;
+	private IndexWriter writer;
+	private SearcherManager searchers;
+	private String model;
+
+	@PostConstruct
+	public void init() {
+		RagConfig rag = config.getAi().getRag();
+		if (rag.getIndexPath() == null) {
+			log.warn("Passage index disabled: app.ai.rag.index-path not set");
+			return;
+		}
+		model = embeddingService.isEnabled() ? embeddingService.currentModelId() : "";
+		try {
+			directory = indexEncryption.open(Paths.get(rag.getIndexPath()));
+
+			boolean exists = DirectoryReader.indexExists(directory);
+			String indexedModel = exists
+					? SegmentInfos.readLatestCommit(directory).getUserData().get(MODEL_KEY)
+					: null;
+
+			writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+			searchers = new SearcherManager(writer, null);
+
+			if (!model.equals(indexedModel)) {
+				// New index, or vectors of another model: all passages are rebuilt
+				writer.deleteAll();
+				commit();
+				int reset = itemRepository.resetPassageVersions();
+				log.info("Passage index (re)created for embedding model '{}', {} items queued", model, reset);
+			}
+		} catch (IOException e) {
+			log.error("Passage index could not be opened, RAG falls back to fulltext: {}", e.getMessage());
+			close();
+		}
+	}
+
+	@PreDestroy
+	public void close() {
+		try {
+			if (searchers != null)
+				searchers.close();
+			if (writer != null)
+				writer.close();
+			if (directory != null)
+				directory.close();
+		} catch (IOException e) {
+			log.warn("Passage index not closed cleanly: {}", e.getMessage());
+		}
+		searchers = null;
+		writer = null;
+		directory = null;
+	}
+
+	public boolean isAvailable() {
+		return writer != null;
+	}
+
+	/**
+	 * Splits the next items with outdated passages. Returns the number of
+	 * items processed; each is marked with the text version it was built from.
+	 */
+	public int indexBacklog() throws IOException {
+		if (!isAvailable())
+			return 0;
+
+		List<Object[]> backlog = itemRepository
+				.findPassageBacklog(PageRequest.of(0, config.getAi().getRag().getIndexBatchSize()));
+		if (backlog.isEmpty())
+			return 0;
+
+		long started = System.currentTimeMillis();
+		int passages = 0;
+		for (Object[] row : backlog) {
+			passages += indexItem((String) row[1], (String) row[2]);
+		}
+		commit();
+		for (Object[] row : backlog) {
+			itemRepository.markPassagesBuilt((Long) row[0], (Integer) row[3]);
+		}
+		log.info("Passage index: {} items, {} passages in {} ms", backlog.size(), passages,
+				System.currentTimeMillis() - started);
+		return backlog.size();
+	}
+
+	/** Replaces the passages of an item with those of its current text layer. */
+	private int indexItem(String uuid, String name) throws IOException {
+		RagConfig rag = config.getAi().getRag();
+		List<Document> documents = new ArrayList<>();
+
+		TextLayerPageIndex pages = textLayerService.getPageIndex(uuid);
+		List<Integer> numbers = pages == null ? List.of()
+				: pages.isFragments() ? pages.getPages().stream().map(TextLayerPageIndex.Page::number).toList()
+						: List.of(1);
+		for (int number : numbers) {
+			String text = textLayerService.readPages(uuid, pages, number, number, MAX_PAGE_CHARS);
+			for (String passage : PassageSplitter.split(text, rag.getPassageChars(), rag.getPassageOverlap())) {
+				if (documents.size() >= MAX_PASSAGES_PER_ITEM)
+					break;
+				documents.add(passageDocument(uuid, name, number, documents.size(), passage));
+			}
+		}
+		// Atomic per item: old passages go, new ones come
+		writer.updateDocuments(new Term(F_ITEM, uuid), documents);
+		return documents.size();
+	}
+
+	private Document passageDocument(String uuid, String name, int page, int ordinal, String text) {
+		Document doc = new Document();
+		doc.add(new StringField(F_ITEM, uuid, Field.Store.YES));
+		doc.add(new StoredField(F_PAGE, page));
+		doc.add(new StoredField(F_ORDINAL, ordinal));
+		doc.add(new TextField(F_TEXT, text, Field.Store.YES));
+		if (!model.isEmpty()) {
+			// The document name gives the passage its topic
+			float[] vector = embeddingService.generateEmbedding(name != null ? name + ": " + text : text);
+			if (vector != null)
+				doc.add(new KnnFloatVectorField(F_VECTOR, vector, VectorSimilarityFunction.DOT_PRODUCT));
+		}
+		return doc;
+	}
+
+	/** Removes the passages of deleted items. */
+	public void deleteItems(Collection<String> uuids) {
+		if (!isAvailable() || uuids.isEmpty())
+			return;
+		try {
+			writer.deleteDocuments(uuids.stream().map(uuid -> new Term(F_ITEM, uuid)).toArray(Term[]::new));
+			commit();
+		} catch (IOException e) {
+			log.warn("Passages of {} items not deleted: {}", uuids.size(), e.getMessage());
+		}
+	}
+
+	/**
+	 * Passages for the question, best first: the top candidates of BM25 and
+	 * of the vector search fused by reciprocal rank. Passages of items that no
+	 * longer exist are dropped.
+	 */
+	public List<PassageHit> retrieve(String question) {
+		if (!isAvailable() || question == null || question.isBlank())
+			return List.of();
+
+		int candidates = config.getAi().getRag().getCandidates();
+		IndexSearcher searcher = null;
+		try {
+			searcher = searchers.acquire();
+			Map<Integer, Double> fused = new HashMap<>();
+
+			Query lexical = new QueryBuilder(analyzer)
+					.createBooleanQuery(F_TEXT, NON_WORD.matcher(question).replaceAll(" "));
+			if (lexical != null) {
+				fuse(fused, searcher.search(lexical, candidates).scoreDocs);
+			}
+			if (!model.isEmpty()) {
+				float[] vector = embeddingService.generateEmbedding(question);
+				if (vector != null) {
+					fuse(fused, searcher.search(new KnnFloatVectorQuery(F_VECTOR, vector, candidates), candidates)
+							.scoreDocs);
+				}
+			}
+			return toHits(searcher, fused);
+		} catch (IOException e) {
+			log.warn("Passage retrieval failed: {}", e.getMessage());
+			return List.of();
+		} finally {
+			if (searcher != null) {
+				try {
+					searchers.release(searcher);
+				} catch (IOException e) {
+					log.debug("Passage searcher not released: {}", e.getMessage());
+				}
+			}
+		}
+	}
+
+	private static void fuse(Map<Integer, Double> fused, ScoreDoc[] ranking) {
+		for (int rank = 0; rank < ranking.length; rank++) {
+			fused.merge(ranking[rank].doc, 1.0 / (RRF_K + rank + 1), Double::sum);
+		}
+	}
+
+	private List<PassageHit> toHits(IndexSearcher searcher, Map<Integer, Double> fused) throws IOException {
+		StoredFields stored = searcher.storedFields();
+		List<PassageHit> hits = new ArrayList<>(fused.size());
+		for (Map.Entry<Integer, Double> entry : fused.entrySet()) {
+			Document doc = stored.document(entry.getKey());
+			hits.add(new PassageHit(
+					doc.get(F_ITEM),
+					null,
+					doc.getField(F_PAGE).numericValue().intValue(),
+					doc.getField(F_ORDINAL).numericValue().intValue(),
+					doc.get(F_TEXT),
+					entry.getValue()));
+		}
+		hits.sort(Comparator.comparingDouble(PassageHit::score).reversed());
+
+		// Current names, and only items that still exist
+		Map<String, String> names = new LinkedHashMap<>();
+		if (!hits.isEmpty()) {
+			List<String> uuids = hits.stream().map(PassageHit::itemUuid).distinct().toList();
+			for (Object[] row : itemRepository.findNamesByUuids(uuids)) {
+				names.put((String) row[0], (String) row[1]);
+			}
+		}
+		return hits.stream()
+				.filter(hit -> names.containsKey(hit.itemUuid()))
+				.map(hit -> new PassageHit(hit.itemUuid(), names.get(hit.itemUuid()), hit.page(), hit.ordinal(),
+						hit.text(), hit.score()))
+				.toList();
+	}
+
+	private void commit() throws IOException {
+		writer.setLiveCommitData(Map.of(MODEL_KEY, model).entrySet());
+		writer.commit();
+		searchers.maybeRefresh();
+	}
+}
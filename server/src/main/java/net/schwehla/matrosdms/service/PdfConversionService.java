@@ -9,6 +9,7 @@ package net.schwehla.matrosdms.service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -29,6 +30,7 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
+import net.schwehla.matrosdms.service.PdfTextExtractor.TrackingWriter;
 import net.schwehla.matrosdms.store.util.FileExtensionService;
 
 @Service
@@ -44,6 +46,9 @@ public class PdfConversionService {
 	private static final Set<String> OCR_PRODUCERS = Set.of(
 			"abbyy", "finereader", "tesseract", "ocrmypdf", "omnipage", "readiris");
 
+	/** Pages sampled by {@link #inspectPdf(Path, Writer)} for the density decision. */
+	private static final int SAMPLE_PAGES = 5;
+
 	private volatile byte[] fontBytes;
 	private final Semaphore conversionSemaphore = new Semaphore(2);
 
@@ -51,6 +56,7 @@ public class PdfConversionService {
 	private FileExtensionService extensionService;
 
 	// --- Rich Result Record ---
+	// extractedText is the text of the first SAMPLE_PAGES pages only
 	public record AnalysisResult(
 			boolean isDigitalPdf,
 			String extractedText,
@@ -69,11 +75,31 @@ public class PdfConversionService {
 	}
 
 	/**
-	 * "The Inspector": Opens PDF once, checks metadata, and extracts text.
-	 * Decisions are made here to avoid re-opening the file later.
+	 * "The Inspector": Opens PDF once, checks metadata, and samples the text of
+	 * the first pages. If the text layer is good, the full text is streamed
+	 * into {@code goodText} page by page from the same document, so the PDF is
+	 * not parsed a second time; otherwise nothing is written.
 	 */
-	public AnalysisResult inspectPdf(Path pdfFile) {
-		try (PDDocument doc = Loader.loadPDF(pdfFile.toFile())) {
+	public AnalysisResult inspectPdf(Path pdfFile, Writer goodText) throws IOException {
+		PDDocument doc;
+		try {
+			doc = Loader.loadPDF(pdfFile.toFile());
+		} catch (IOException e) {
+			log.error("PDF Inspection failed: {}", e.getMessage());
+			return new AnalysisResult(false, "", true, 0, "Error");
+		}
+		try (doc) {
+			AnalysisResult analysis = analyze(doc);
+			// Failures of the text stream (e.g. the budget) belong to the caller
+			if (!analysis.needsOcr()) {
+				PdfTextExtractor.writeText(doc, new TrackingWriter(goodText));
+			}
+			return analysis;
+		}
+	}
+
+	private AnalysisResult analyze(PDDocument doc) {
+		try {
 			if (doc.isEncrypted()) {
 				return new AnalysisResult(true, "", true, 0, "Encrypted");
 			}
@@ -90,19 +116,16 @@ public class PdfConversionService {
 			String lcProducer = producer.toLowerCase(Locale.ROOT);
 			boolean isKnownOcr = OCR_PRODUCERS.stream().anyMatch(lcProducer::contains);
 
-			// 2. Extract Text (Fast Strip)
+			// 2. Extract Text (Fast Strip) - only a sample, the full text is streamed later
 			PDFTextStripper stripper = new PDFTextStripper();
 			stripper.setSortByPosition(true);
-
-			if (pages > 20) {
-				stripper.setEndPage(5);
-			}
+			stripper.setEndPage(SAMPLE_PAGES);
 
 			String text = stripper.getText(doc).trim();
 
 			// 3. Density Check
 			int charCount = text.length();
-			double density = pages > 0 ? (double) charCount / Math.min(pages, 5) : 0;
+			double density = pages > 0 ? (double) charCount / Math.min(pages, SAMPLE_PAGES) : 0;
 
 			boolean hasGoodTextLayer = (charCount > MIN_TEXT_CHARS && density > MIN_CHARS_PER_PAGE);
 
@@ -110,11 +133,6 @@ public class PdfConversionService {
 				hasGoodTextLayer = true;
 			}
 
-			if (hasGoodTextLayer && pages > 20) {
-				stripper.setEndPage(Integer.MAX_VALUE);
-				text = stripper.getText(doc).trim();
-			}
-
 			return new AnalysisResult(
 					true,
 					text,
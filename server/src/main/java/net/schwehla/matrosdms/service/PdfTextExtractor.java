@@ -7,16 +7,21 @@
  */
 package net.schwehla.matrosdms.service;
 
+import java.io.FilterWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.file.Path;
 
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import net.schwehla.matrosdms.util.TextLayerWriter;
+
 @Service
 public class PdfTextExtractor {
 
@@ -43,4 +48,104 @@ public class PdfTextExtractor {
 			return "";
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Streams the text layer of the whole PDF into {@code out}, page by page.
+	 * Used when the document is too large to hold its text as one String.
+	 * Page boundaries are passed on if {@code out} is a text layer section.
+	 * Returns false if the PDF has no text layer.
+	 */
+	public boolean writeText(Path pdfFile, Writer out) throws IOException {
+		try (PDDocument doc = Loader.loadPDF(pdfFile.toFile())) {
+			TrackingWriter tracked = new TrackingWriter(out);
+			writeText(doc, tracked);
+			return tracked.hasText();
+		}
+	}
+
+	/**
+	 * Streams the text of an open document. The page breaks reach the text
+	 * layer through {@code out}, which holds them back until text arrives.
+	 */
+	static void writeText(PDDocument doc, TrackingWriter out) throws IOException {
+		if (doc.isEncrypted())
+			return;
+
+		PDFTextStripper stripper = new PDFTextStripper() {
+			@Override
+			protected void startPage(PDPage page) throws IOException {
+				if (getCurrentPageNo() > getStartPage()) {
+					out.newPage();
+				}
+				super.startPage(page);
+			}
+		};
+		stripper.setSortByPosition(true);
+		stripper.writeText(doc, out);
+	}
+
+	/**
+	 * Passes text through and remembers whether anything but whitespace was
+	 * written. Page breaks before the first text are only counted and passed
+	 * on (see {@link TextLayerWriter#newPage(Writer)}) when text follows: a
+	 * PDF without text layer must not leave its pages in the layer, the OCR
+	 * or Tika fallback writes them again.
+	 */
+	static class TrackingWriter extends FilterWriter {
+
+		private boolean text = false;
+		private int heldPages = 0;
+
+		TrackingWriter(Writer out) {
+			super(out);
+		}
+
+		boolean hasText() {
+			return text;
+		}
+
+		void newPage() throws IOException {
+			if (text) {
+				TextLayerWriter.newPage(out);
+			} else {
+				heldPages++;
+			}
+		}
+
+		@Override
+		public void write(int c) throws IOException {
+			if (!text && !Character.isWhitespace(c))
+				startText();
+			super.write(c);
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			for (int i = off; !text && i < off + len; i++)
+				if (!Character.isWhitespace(cbuf[i]))
+					startText();
+			super.write(cbuf, off, len);
+		}
+
+		@Override
+		public void write(String str, int off, int len) throws IOException {
+			for (int i = off; !text && i < off + len; i++)
+				if (!Character.isWhitespace(str.charAt(i)))
+					startText();
+			super.write(str, off, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			// The target writer belongs to the caller
+			flush();
+		}
+
+		// Whitespace before the first text opens no page, so the held breaks can follow it
+		private void startText() throws IOException {
+			text = true;
+			for (; heldPages > 0; heldPages--)
+				TextLayerWriter.newPage(out);
+		}
+	}
+}
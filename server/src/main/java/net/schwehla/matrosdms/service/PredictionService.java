@@ -54,12 +54,28 @@ public class PredictionService {
 
 	@Transactional(readOnly = true)
 	public void predictMetadata(String fullText, String filename, DigestResultMessage result) {
+		predictMetadata(fullText, filename, result, null);
+	}
+
+	/**
+	 * @param strategyId
+	 *            strategy to use regardless of preference (e.g. "heuristic" for
+	 *            pipeline profiles that must not call the LLM), or null for the
+	 *            preferred enabled strategy
+	 */
+	@Transactional(readOnly = true)
+	public void predictMetadata(String fullText, String filename, DigestResultMessage result, String strategyId) {
 
 		// 1. Select Strategy
-		IPredictionStrategy strategy = strategies.stream()
-				.filter(this::isEnabled)
-				.min(Comparator.comparingInt(this::getPreference))
-				.orElseThrow(() -> new RuntimeException("No active AI Strategy found."));
+		IPredictionStrategy strategy = strategyId != null
+				? strategies.stream()
+						.filter(s -> s.getId().equalsIgnoreCase(strategyId))
+						.findFirst()
+						.orElseThrow(() -> new RuntimeException("AI Strategy not found: " + strategyId))
+				: strategies.stream()
+						.filter(this::isEnabled)
+						.min(Comparator.comparingInt(this::getPreference))
+						.orElseThrow(() -> new RuntimeException("No active AI Strategy found."));
 
 		log.debug("AI: Selected Strategy '{}'", strategy.getId());
 
@@ -9,7 +9,12 @@ package net.schwehla.matrosdms.service;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import jakarta.annotation.PostConstruct;
 
@@ -24,20 +29,30 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.RagConfig;
 import net.schwehla.matrosdms.domain.ai.OllamaRequest;
 import net.schwehla.matrosdms.domain.ai.OllamaResponse;
 import net.schwehla.matrosdms.domain.search.MSearchResult;
 import net.schwehla.matrosdms.search.SearchCriteria;
-import net.schwehla.matrosdms.store.StoreContext;
+import net.schwehla.matrosdms.service.PassageIndexService.PassageHit;
 
 @Service
 public class RAGService {
 
 	private static final Logger log = LoggerFactory.getLogger(RAGService.class);
 
+	private static final int MIN_TERM_LENGTH = 4;
+	private static final int MAX_SCANNED_PAGES = 50;
+	// Rough estimate for the prompt budget
+	private static final int CHARS_PER_TOKEN = 4;
+
 	@Autowired
 	SearchService searchService;
 	@Autowired
+	PassageIndexService passageIndexService;
+	@Autowired
+	TextLayerService textLayerService;
+	@Autowired
 	AppServerSpringConfig appConfig;
 
 	@Autowired
@@ -60,23 +75,16 @@ public class RAGService {
 	}
 
 	public String chat(String message) {
-		// Fix: Wrap string in SearchCriteria
-		List<MSearchResult> hits = searchService.search(SearchCriteria.forText(message), 0, 3).getContent();
-
-		if (hits.isEmpty()) {
-			return "I couldn't find any documents related to your question.";
+		String context = passageContext(message);
+		if (context == null) {
+			// Passage index not built (yet): excerpts of the best fulltext hits
+			context = documentContext(message);
 		}
-
-		StringBuilder contextBuilder = new StringBuilder();
-		for (MSearchResult hit : hits) {
-			String content = StoreContext.readTextFile(hit.getUuid());
-			if (content.length() > 3000)
-				content = content.substring(0, 3000) + "...";
-			contextBuilder.append("--- DOCUMENT: ").append(hit.getName()).append(" ---\n");
-			contextBuilder.append(content).append("\n\n");
+		if (context == null) {
+			return "I couldn't find any documents related to your question.";
 		}
 
-		String fullPrompt = promptTemplate.formatted(contextBuilder.toString(), message);
+		String fullPrompt = promptTemplate.formatted(context, message);
 		String url = appConfig.getAi().getChat().getUrl();
 		String model = appConfig.getAi().getChat().getModel();
 
@@ -97,4 +105,75 @@ public class RAGService {
 		}
 		return "No response from AI.";
 	}
+
+	/**
+	 * The best passages (hybrid retrieval) within the token budget, at most
+	 * max-passages-per-item of one document, grouped by document in reading
+	 * order. Null if the passage index has nothing for the question.
+	 */
+	private String passageContext(String question) {
+		RagConfig rag = appConfig.getAi().getRag();
+		List<PassageHit> hits = passageIndexService.retrieve(question);
+		if (hits.isEmpty()) {
+			return null;
+		}
+
+		int budget = rag.getTokenBudget() * CHARS_PER_TOKEN;
+		int used = 0;
+		Map<String, List<PassageHit>> selected = new LinkedHashMap<>();
+		for (PassageHit hit : hits) {
+			List<PassageHit> ofItem = selected.getOrDefault(hit.itemUuid(), List.of());
+			if (ofItem.size() >= rag.getMaxPassagesPerItem() || used + hit.text().length() > budget)
+				continue;
+			selected.computeIfAbsent(hit.itemUuid(), k -> new ArrayList<>()).add(hit);
+			used += hit.text().length();
+		}
+		if (selected.isEmpty()) {
+			return null;
+		}
+
+		StringBuilder contextBuilder = new StringBuilder();
+		for (List<PassageHit> passages : selected.values()) {
+			passages.sort(Comparator.comparingInt(PassageHit::ordinal));
+			contextBuilder.append("--- DOCUMENT: ").append(passages.get(0).itemName()).append(" ---\n");
+			for (PassageHit passage : passages) {
+				contextBuilder.append("[Page ").append(passage.page()).append("] ").append(passage.text()).append("\n");
+			}
+			contextBuilder.append("\n");
+		}
+		log.debug("RAG: {} passages of {} documents, ~{} tokens",
+				selected.values().stream().mapToInt(List::size).sum(), selected.size(), used / CHARS_PER_TOKEN);
+		return contextBuilder.toString();
+	}
+
+	/** Excerpts of the top fulltext hits, null if there are none. */
+	private String documentContext(String question) {
+		List<MSearchResult> hits = searchService.search(SearchCriteria.forText(question), 0, 3).getContent();
+		if (hits.isEmpty()) {
+			return null;
+		}
+
+		StringBuilder contextBuilder = new StringBuilder();
+		for (MSearchResult hit : hits) {
+			String content = readExcerpt(hit.getUuid(), question, 3000);
+			contextBuilder.append("--- DOCUMENT: ").append(hit.getName()).append(" ---\n");
+			contextBuilder.append(content).append("\n\n");
+		}
+		return contextBuilder.toString();
+	}
+
+	/**
+	 * Reads the excerpt starting at the first page that mentions the question,
+	 * instead of always the beginning of the document. Only the pages needed
+	 * are decrypted.
+	 */
+	private String readExcerpt(String uuid, String question, int maxChars) {
+		List<String> terms = Arrays.stream(question.split("\\W+"))
+				.filter(t -> t.length() >= MIN_TERM_LENGTH)
+				.toList();
+		int page = Math.max(1, textLayerService.findFirstPage(uuid, terms, MAX_SCANNED_PAGES));
+
+		String content = textLayerService.readPages(uuid, page, Integer.MAX_VALUE, maxChars + 1);
+		return content.length() > maxChars ? content.substring(0, maxChars) + "..." : content;
+	}
 }
@@ -0,0 +1,468 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+
+import org.hibernate.CacheMode;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.work.SearchWorkspace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.DependentReindex;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.MassIndexing;
+import net.schwehla.matrosdms.domain.admin.ReindexScope;
+import net.schwehla.matrosdms.domain.api.EBroadcastSource;
+import net.schwehla.matrosdms.domain.api.EBroadcastType;
+import net.schwehla.matrosdms.entity.DBCategory;
+import net.schwehla.matrosdms.entity.DBItem;
+import net.schwehla.matrosdms.exception.IndexVerificationException;
+import net.schwehla.matrosdms.messagebus.VUEMessageBus;
+import net.schwehla.matrosdms.repository.AdminJobRepository;
+import net.schwehla.matrosdms.repository.CategoryRepository;
+import net.schwehla.matrosdms.repository.ItemRepository;
+import net.schwehla.matrosdms.search.CategoryTree;
+import net.schwehla.matrosdms.search.IndexGeneration;
+import net.schwehla.matrosdms.search.ReindexMonitor;
+import net.schwehla.matrosdms.service.domain.ConfigService;
+import net.schwehla.matrosdms.service.message.ReindexProgressMessage;
+
+/**
+ * Reindexes all items or a scope (context, store, category subtree, creation
+ * date range) with the tuning from app.indexing.mass-indexer. Progress goes
+ * to the admin job row and to the UI over SSE; a running reindex can be
+ * cancelled.
+ *
+ * A full rebuild never empties the live index: it raises the
+ * {@link IndexGeneration} and rewrites every item in place, one document
+ * replacing the other (live changes are stamped with the new generation as
+ * well). There is no second index to switch to; what waits for the
+ * verification against the database is the removal of documents the
+ * rebuild did not write, those of deleted items. If the verification fails,
+ * the rewritten documents stay, nothing is removed and the committed
+ * generation is not changed. The committed generation is kept in the
+ * database, not derived from the index, so a restart in the middle of a
+ * rebuild does not adopt it. With zero-downtime off, the purging mass
+ * indexer is used instead, which is faster but leaves search incomplete
+ * while it runs.
+ */
+@Service
+public class ReindexService {
+
+	private static final Logger log = LoggerFactory.getLogger(ReindexService.class);
+
+	// Stale documents looked up per round when a verified generation is committed
+	private static final int SWEEP_BATCH = 1000;
+	// Config row holding the last verified generation
+	private static final String GENERATION_KEY = "search.index.generation";
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+	@Autowired
+	EntityManager entityManager;
+	@Autowired
+	AppServerSpringConfig config;
+	@Autowired
+	AdminJobRepository jobRepository;
+	@Autowired
+	CategoryRepository categoryRepository;
+	@Autowired
+	ItemRepository itemRepository;
+	@Autowired
+	SearchService searchService;
+	@Autowired
+	ConfigService configService;
+	@Autowired
+	VUEMessageBus messageBus;
+
+	// Only one reindex at a time: its thread (for cancelling) and monitor
+	private final AtomicReference<Thread> runner = new AtomicReference<>();
+	private final AtomicReference<ReindexMonitor> monitor = new AtomicReference<>();
+	private final AtomicBoolean cancelled = new AtomicBoolean();
+
+	/** Continues the last committed generation, so live writes are stamped correctly. */
+	@EventListener(ApplicationReadyEvent.class)
+	public void initGeneration() {
+		try {
+			IndexGeneration.set(configService.getState(GENERATION_KEY).map(Long::parseLong).orElse(0L));
+			log.info("Search index generation: {}", IndexGeneration.current());
+		} catch (Exception e) {
+			log.warn("Search index generation could not be read, starting at 0: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Reindexes the scope and blocks until done. Throws
+	 * {@link CancellationException} if {@link #cancel()} stopped it and
+	 * {@link IndexVerificationException} if a rebuilt generation was not
+	 * committed.
+	 */
+	public void reindex(ReindexScope scope, Long jobId) throws InterruptedException {
+		if (!runner.compareAndSet(null, Thread.currentThread())) {
+			throw new IllegalStateException("A reindex is already running");
+		}
+		cancelled.set(false);
+		ReindexScope effective = scope != null ? scope : ReindexScope.all();
+		MassIndexing options = config.getIndexing().getMassIndexer();
+		ReindexMonitor progress = new ReindexMonitor(jobId, effective.describe(), options.getProgressInterval(),
+				message -> report(jobId, message));
+		monitor.set(progress);
+		try {
+			log.info("Reindex ({}) starting: {} loader threads, batch {}, id fetch {}", effective.describe(),
+					options.getThreadsToLoadObjects(), options.getBatchSizeToLoadObjects(), options.getIdFetchSize());
+
+			if (!effective.isFull()) {
+				// Documents outside the scope stay untouched
+				long failed = rewrite(restriction(effective), options, progress);
+				if (failed > 0) {
+					log.warn("Reindex ({}): {} items could not be indexed", effective.describe(), failed);
+				}
+			} else if (options.isZeroDowntime()) {
+				rebuildGeneration(options, progress);
+			} else {
+				purgeAndRebuild(options, progress);
+			}
+
+			ReindexProgressMessage done = progress.snapshot(true);
+			log.info("Reindex ({}) finished: {}", effective.describe(), done.summary());
+		} catch (InterruptedException e) {
+			if (cancelled.get()) {
+				throw new CancellationException("Reindex cancelled after " + progress.snapshot(false).indexed()
+						+ " documents");
+			}
+			throw e;
+		} finally {
+			monitor.set(null);
+			runner.set(null);
+			// Do not leak the interrupt into the scheduler thread
+			Thread.interrupted();
+		}
+	}
+
+	/**
+	 * Rewrites the items of a (non-full) scope on the calling thread in small
+	 * batches with a pause in between. Runs next to a regular reindex, both
+	 * only add or update. Returns the number of items that failed.
+	 */
+	public long reindexDependents(ReindexScope scope, Long jobId) throws InterruptedException {
+		if (scope == null || scope.isFull()) {
+			throw new IllegalArgumentException("Dependent reindex needs a scope");
+		}
+		DependentReindex options = config.getIndexing().getDependent();
+		ReindexMonitor progress = new ReindexMonitor(jobId, scope.describe(),
+				config.getIndexing().getMassIndexer().getProgressInterval(), message -> report(jobId, message));
+
+		Restriction restriction = restriction(scope);
+		progress.addToTotalCount(countItems(restriction));
+		int batchSize = Math.max(1, options.getBatchSize());
+		AtomicLong failed = new AtomicLong();
+		long after = Long.MIN_VALUE;
+		List<Long> ids;
+		while (!(ids = findIds(restriction, after, batchSize)).isEmpty()) {
+			checkCancelled();
+			after = ids.get(ids.size() - 1);
+			indexBatch(ids, failed, progress);
+			if (!options.getPause().isZero()) {
+				Thread.sleep(options.getPause().toMillis());
+			}
+		}
+		progress.indexingCompleted();
+
+		ReindexProgressMessage done = progress.snapshot(true);
+		log.info("Dependent reindex ({}) finished: {}", scope.describe(), done.summary());
+		return failed.get();
+	}
+
+	/** Stops the running reindex (workers and the indexer abort on interrupt). */
+	public boolean cancel() {
+		Thread thread = runner.get();
+		if (thread == null) {
+			return false;
+		}
+		cancelled.set(true);
+		thread.interrupt();
+		log.info("Reindex cancellation requested");
+		return true;
+	}
+
+	public boolean isRunning() {
+		return runner.get() != null;
+	}
+
+	/** Progress of the running reindex, null if none runs. */
+	public ReindexProgressMessage getProgress() {
+		ReindexMonitor current = monitor.get();
+		return current != null ? current.snapshot(false) : null;
+	}
+
+	// --- Zero-downtime rebuild ---
+
+	private void rebuildGeneration(MassIndexing options, ReindexMonitor progress) throws InterruptedException {
+		long previous = IndexGeneration.current();
+		// Above anything in the index, documents of an unfinished rebuild included
+		long target = Math.max(previous, searchService.findMaxIndexGeneration()) + 1;
+		// From here on every write, rebuild or live change, lands in the new generation
+		IndexGeneration.set(target);
+		boolean committed = false;
+		try {
+			log.info("Reindex: building index generation {} next to generation {}", target, previous);
+			long failed = rewrite(Restriction.NONE, options, progress);
+
+			SearchWorkspace workspace = workspace();
+			workspace.flush();
+			workspace.refresh();
+
+			long expected = itemRepository.count();
+			long written = searchService.countIndexGeneration(target);
+			if (failed > 0 || written < expected) {
+				throw new IndexVerificationException("Index generation " + target + " not committed: " + written
+						+ " of " + expected + " items written, " + failed + " failed. The rewritten documents stay,"
+						+ " no documents were removed, generation " + previous + " stays committed");
+			}
+
+			configService.setState(GENERATION_KEY, String.valueOf(target));
+			committed = true;
+			long removed = sweep(target);
+			if (options.isMergeSegmentsOnFinish()) {
+				workspace.mergeSegments();
+			}
+			log.info("Reindex: index generation {} committed ({} documents, {} stale removed)", target, written,
+					removed);
+		} finally {
+			if (!committed) {
+				// Live writes are stamped with the committed generation again
+				IndexGeneration.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * Removes what the verified generation did not write: documents of items
+	 * that are gone. Items changed in the meantime are simply rewritten.
+	 */
+	private long sweep(long generation) throws InterruptedException {
+		long removed = 0;
+		Set<Long> seen = new HashSet<>();
+		List<Long> stale;
+		while (!(stale = searchService.findOutsideIndexGeneration(generation, SWEEP_BATCH)).isEmpty()) {
+			if (!seen.addAll(stale)) {
+				log.warn("Reindex: {} documents stay outside generation {}", stale.size(), generation);
+				break;
+			}
+			checkCancelled();
+			searchService.indexItems(stale);
+			workspace().refresh();
+			removed += stale.size();
+		}
+		return removed;
+	}
+
+	private void purgeAndRebuild(MassIndexing options, ReindexMonitor progress) throws InterruptedException {
+		// Mapping level indexer: no session or transaction is held while it runs
+		Search.mapping(entityManagerFactory)
+				.scope(DBItem.class)
+				.massIndexer()
+				.threadsToLoadObjects(options.getThreadsToLoadObjects())
+				.batchSizeToLoadObjects(options.getBatchSizeToLoadObjects())
+				.typesToIndexInParallel(options.getTypesToIndexInParallel())
+				.idFetchSize(options.getIdFetchSize())
+				.mergeSegmentsOnFinish(options.isMergeSegmentsOnFinish())
+				.cacheMode(CacheMode.IGNORE)
+				.monitor(progress)
+				.startAndWait();
+	}
+
+	// --- In-place rewrite ---
+
+	/**
+	 * Rewrites the matching items (add or update, nothing is purged up front)
+	 * in id order, one page of ids at a time spread over the loader threads.
+	 * Returns the number of items that could not be indexed.
+	 */
+	private long rewrite(Restriction restriction, MassIndexing options, ReindexMonitor progress)
+			throws InterruptedException {
+		progress.addToTotalCount(countItems(restriction));
+		int batchSize = Math.max(1, options.getBatchSizeToLoadObjects());
+		AtomicLong failed = new AtomicLong();
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, options.getThreadsToLoadObjects()));
+		try {
+			long after = Long.MIN_VALUE;
+			List<Long> ids;
+			while (!(ids = findIds(restriction, after, options.getIdFetchSize())).isEmpty()) {
+				checkCancelled();
+				after = ids.get(ids.size() - 1);
+				List<Future<?>> batches = new ArrayList<>();
+				for (int i = 0; i < ids.size(); i += batchSize) {
+					List<Long> batch = List.copyOf(ids.subList(i, Math.min(ids.size(), i + batchSize)));
+					batches.add(pool.submit(() -> indexBatch(batch, failed, progress)));
+				}
+				for (Future<?> batch : batches) {
+					try {
+						batch.get();
+					} catch (ExecutionException e) {
+						log.warn("Reindex: batch failed: {}", e.getCause().getMessage());
+					}
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		progress.indexingCompleted();
+		return failed.get();
+	}
+
+	private void indexBatch(List<Long> batch, AtomicLong failed, ReindexMonitor progress) {
+		try {
+			searchService.indexItems(batch);
+		} catch (Exception e) {
+			// One broken item must not cost the whole batch
+			for (Long id : batch) {
+				try {
+					searchService.indexItems(List.of(id));
+				} catch (Exception single) {
+					failed.incrementAndGet();
+					log.warn("Reindex: item {} could not be indexed: {}", id, single.getMessage());
+				}
+			}
+		}
+		progress.documentsAdded(batch.size());
+	}
+
+	private long countItems(Restriction restriction) {
+		TypedQuery<Long> query = entityManager.createQuery(
+				"SELECT COUNT(e) FROM DBItem e" + restriction.where(""), Long.class);
+		restriction.params().forEach(query::setParameter);
+		return query.getSingleResult();
+	}
+
+	private List<Long> findIds(Restriction restriction, long after, int limit) {
+		TypedQuery<Long> query = entityManager.createQuery(
+				"SELECT e.id FROM DBItem e" + restriction.where("e.id > :after") + " ORDER BY e.id", Long.class)
+				.setParameter("after", after)
+				.setMaxResults(Math.max(1, limit));
+		restriction.params().forEach(query::setParameter);
+		return query.getResultList();
+	}
+
+	private void checkCancelled() throws InterruptedException {
+		if (Thread.currentThread().isInterrupted()) {
+			throw new InterruptedException("Reindex interrupted");
+		}
+	}
+
+	private SearchWorkspace workspace() {
+		return Search.mapping(entityManagerFactory).scope(DBItem.class).workspace();
+	}
+
+	/** JPQL conditions on alias {@code e} (DBItem) with their parameters. */
+	private record Restriction(List<String> conditions, Map<String, Object> params) {
+
+		static final Restriction NONE = new Restriction(List.of(), Map.of());
+
+		String where(String extra) {
+			List<String> all = new ArrayList<>(conditions);
+			if (!extra.isEmpty()) {
+				all.add(0, extra);
+			}
+			return all.isEmpty() ? "" : " WHERE " + String.join(" AND ", all);
+		}
+	}
+
+	private Restriction restriction(ReindexScope scope) {
+		List<String> conditions = new ArrayList<>();
+		Map<String, Object> params = new LinkedHashMap<>();
+		if (scope.contextUuid() != null) {
+			conditions.add("e.infoContext.uuid = :context");
+			params.put("context", scope.contextUuid());
+		}
+		if (scope.storeUuid() != null) {
+			conditions.add("e.store.uuid = :store");
+			params.put("store", scope.storeUuid());
+		}
+		if (scope.categoryUuid() != null) {
+			// Ancestors are indexed with each item, so the whole subtree is affected
+			conditions.add("EXISTS (SELECT k FROM e.kindList k WHERE k.uuid IN :categories)");
+			params.put("categories", categoryWithDescendants(scope.categoryUuid()));
+		}
+		if (scope.createdFrom() != null) {
+			conditions.add("e.dateCreated >= :from");
+			params.put("from", scope.createdFrom().atStartOfDay());
+		}
+		if (scope.createdTo() != null) {
+			conditions.add("e.dateCreated < :to");
+			params.put("to", scope.createdTo().plusDays(1).atStartOfDay());
+		}
+		if (scope.attributeUuid() != null) {
+			// Attribute keys are uuids, a key match in the JSON text finds the items
+			conditions.add("CAST(e.attributes AS String) LIKE :attribute");
+			params.put("attribute", "%\"" + scope.attributeUuid() + "\"%");
+		}
+		return new Restriction(conditions, params);
+	}
+
+	/** The category and all categories below it. */
+	public Set<String> categoryWithDescendants(String categoryUuid) {
+		CategoryTree tree = CategoryTree.current();
+		if (tree.contains(categoryUuid)) {
+			return tree.subtree(categoryUuid);
+		}
+		Set<String> uuids = new LinkedHashSet<>();
+		uuids.add(categoryUuid);
+		DBCategory root = categoryRepository.findByUuid(categoryUuid).orElse(null);
+		if (root == null) {
+			return uuids;
+		}
+		Deque<DBCategory> open = new ArrayDeque<>(List.of(root));
+		while (!open.isEmpty()) {
+			for (DBCategory child : categoryRepository.findByParent(open.pop())) {
+				if (uuids.add(child.getUuid())) {
+					open.push(child);
+				}
+			}
+		}
+		return uuids;
+	}
+
+	private void report(Long jobId, ReindexProgressMessage message) {
+		try {
+			if (jobId != null) {
+				jobRepository.updateProgress(jobId, message.summary());
+			}
+			messageBus.sendMessageToGUI(EBroadcastSource.PIPELINE, EBroadcastType.PROGRESS, message);
+		} catch (Exception e) {
+			// Progress is best effort, never fail the indexer for it
+			log.debug("Reindex progress could not be published: {}", e.getMessage());
+		}
+	}
+}
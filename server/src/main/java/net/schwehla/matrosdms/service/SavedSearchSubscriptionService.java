@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.persistence.EntityManager;
+
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.domain.api.EBroadcastSource;
+import net.schwehla.matrosdms.domain.api.EBroadcastType;
+import net.schwehla.matrosdms.entity.DBItem;
+import net.schwehla.matrosdms.entity.management.DBSavedSearchMatch;
+import net.schwehla.matrosdms.entity.management.DBUser;
+import net.schwehla.matrosdms.messagebus.VUEMessageBus;
+import net.schwehla.matrosdms.repository.SavedSearchMatchRepository;
+import net.schwehla.matrosdms.repository.UserRepository;
+import net.schwehla.matrosdms.search.CategoryTree;
+import net.schwehla.matrosdms.search.SavedSearchPercolator;
+import net.schwehla.matrosdms.service.message.SavedSearchMatchMessage;
+import net.schwehla.matrosdms.service.message.SavedSearchMessage;
+
+/**
+ * Watched saved searches. The searches of all users are compiled once (again
+ * after a change of a saved search or of the category tree); each item
+ * indexed from the index queue is matched against all of them in a
+ * one-document in-memory index (see SavedSearchPercolator). New matches are
+ * stored, counted as unseen and pushed to the user's open sessions.
+ */
+@Service
+public class SavedSearchSubscriptionService {
+
+	private static final Logger log = LoggerFactory.getLogger(SavedSearchSubscriptionService.class);
+
+	private record Subscription(Long userId, String userUuid, String name, Query query, boolean fulltext) {
+	}
+
+	private record Compiled(SavedSearchPercolator percolator, List<Subscription> subscriptions) {
+	}
+
+	@Autowired
+	UserRepository userRepository;
+	@Autowired
+	SavedSearchMatchRepository matchRepository;
+	@Autowired
+	SearchService searchService;
+	@Autowired
+	VUEMessageBus messageBus;
+	@Autowired
+	AppServerSpringConfig config;
+	@Autowired
+	EntityManager entityManager;
+
+	private volatile Compiled compiled;
+	// Counts changes of saved searches; a compilation that overlapped one is not kept
+	private final AtomicLong changes = new AtomicLong();
+
+	/**
+	 * A saved search was saved or removed: its matches are dropped (they
+	 * belonged to the old query) and all searches are compiled again on the
+	 * next use.
+	 */
+	public void searchChanged(Long userId, String name) {
+		matchRepository.deleteBySearch(userId, DBSavedSearchMatch.searchKey(name));
+		invalidate();
+	}
+
+	public void userDeleted(Long userId) {
+		matchRepository.deleteByUser(userId);
+		invalidate();
+	}
+
+	public void allUsersDeleted() {
+		matchRepository.deleteAllInBatch();
+		invalidate();
+	}
+
+	public void deleteItems(Collection<String> itemUuids) {
+		if (!itemUuids.isEmpty()) {
+			matchRepository.deleteByItems(itemUuids);
+		}
+	}
+
+	private void invalidate() {
+		discardCompiled();
+		// Again once the change is visible, a compilation in between read the old searches
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					discardCompiled();
+				}
+			});
+		}
+	}
+
+	private void discardCompiled() {
+		changes.incrementAndGet();
+		compiled = null;
+	}
+
+	/**
+	 * Matches the items against all watched saved searches and records and
+	 * announces the new matches. Costs nothing while no search is watched.
+	 */
+	@Transactional
+	public void percolate(Collection<Long> itemIds) {
+		if (!config.getSearch().getSubscriptions().isEnabled() || itemIds.isEmpty()) {
+			return;
+		}
+		Compiled current = compiled();
+		if (current.subscriptions().isEmpty()) {
+			return;
+		}
+
+		List<DBItem> items = entityManager
+				.createQuery("SELECT i FROM DBItem i WHERE i.id IN :ids", DBItem.class)
+				.setParameter("ids", itemIds)
+				.getResultList();
+		// The fulltext comes from the index the items were just written to
+		Map<Long, String> texts = current.subscriptions().stream().anyMatch(Subscription::fulltext)
+				? searchService.findIndexedFulltext(itemIds, config.getSearch().getSubscriptions().getMaxTextChars())
+				: Map.of();
+
+		Map<Subscription, List<String>> matches = new LinkedHashMap<>();
+		for (DBItem item : items) {
+			IndexSearcher searcher = current.percolator().document(item, texts.get(item.getId())).createSearcher();
+			searcher.setQueryCache(null);
+			for (Subscription subscription : current.subscriptions()) {
+				try {
+					if (searcher.count(subscription.query()) > 0) {
+						matches.computeIfAbsent(subscription, s -> new ArrayList<>()).add(item.getUuid());
+					}
+				} catch (IOException e) {
+					log.debug("Saved search '{}' not evaluated for {}: {}", subscription.name(), item.getUuid(),
+							e.getMessage());
+				}
+			}
+		}
+		matches.forEach(this::record);
+	}
+
+	/** Stores the matches not recorded before and notifies the user about them. */
+	private void record(Subscription subscription, List<String> itemUuids) {
+		Set<String> known = new HashSet<>(
+				matchRepository.findMatchedItems(subscription.userId(),
+						DBSavedSearchMatch.searchKey(subscription.name()), itemUuids));
+		List<String> fresh = itemUuids.stream().filter(uuid -> !known.contains(uuid)).toList();
+		if (fresh.isEmpty()) {
+			return;
+		}
+		matchRepository.saveAll(fresh.stream()
+				.map(uuid -> new DBSavedSearchMatch(subscription.userId(), subscription.name(), uuid))
+				.toList());
+		matchRepository.flush();
+
+		long unseen = matchRepository.countUnseenBySearch(subscription.userId(),
+				DBSavedSearchMatch.searchKey(subscription.name()));
+		messageBus.sendMessageToUser(subscription.userUuid(), EBroadcastSource.SAVED_SEARCH, EBroadcastType.MATCH,
+				new SavedSearchMatchMessage(subscription.name(), fresh, unseen));
+		log.debug("Saved search '{}': {} new matches", subscription.name(), fresh.size());
+	}
+
+	/** Unseen matches per saved search of the user. */
+	@Transactional(readOnly = true)
+	public Map<String, Long> unseenCounts(Long userId) {
+		Map<String, Long> counts = new LinkedHashMap<>();
+		for (Object[] row : matchRepository.countUnseen(userId)) {
+			counts.put((String) row[0], (Long) row[1]);
+		}
+		return counts;
+	}
+
+	/** Matched items of a saved search, newest first. */
+	@Transactional(readOnly = true)
+	public List<String> matchedItems(Long userId, String name, int limit) {
+		return matchRepository.findItemUuids(userId, DBSavedSearchMatch.searchKey(name),
+				PageRequest.of(0, Math.max(1, limit)));
+	}
+
+	@Transactional
+	public void markSeen(Long userId, String name) {
+		matchRepository.markSeen(userId, DBSavedSearchMatch.searchKey(name));
+	}
+
+	private Compiled compiled() {
+		Compiled current = compiled;
+		if (current != null && current.percolator().tree() == CategoryTree.current()) {
+			return current;
+		}
+		long version = changes.get();
+		current = compile();
+		if (changes.get() == version) {
+			compiled = current;
+		}
+		return current;
+	}
+
+	private Compiled compile() {
+		SavedSearchPercolator percolator = new SavedSearchPercolator(CategoryTree.current());
+		List<Subscription> subscriptions = new ArrayList<>();
+		for (DBUser user : userRepository.findAll()) {
+			for (SavedSearchMessage search : user.getSavedSearches()) {
+				if (!search.isNotify() || search.getCriteria() == null) {
+					continue;
+				}
+				try {
+					subscriptions.add(new Subscription(user.getPK(), user.getUuid(), search.getName(),
+							percolator.compile(search.getCriteria()),
+							SavedSearchPercolator.usesFulltext(search.getCriteria())));
+				} catch (RuntimeException e) {
+					log.warn("Saved search '{}' of {} is not watched: {}", search.getName(), user.getName(),
+							e.getMessage());
+				}
+			}
+		}
+		log.info("Watched saved searches compiled: {}", subscriptions.size());
+		return new Compiled(percolator, List.copyOf(subscriptions));
+	}
+}
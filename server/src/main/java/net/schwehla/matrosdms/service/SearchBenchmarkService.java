@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.persistence.EntityManager;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import net.schwehla.matrosdms.domain.admin.SearchBenchmarkReport;
+import net.schwehla.matrosdms.domain.admin.SearchBenchmarkReport.Entry;
+import net.schwehla.matrosdms.domain.search.EOperator;
+import net.schwehla.matrosdms.domain.search.ESearchDimension;
+import net.schwehla.matrosdms.domain.search.MSearchResult;
+import net.schwehla.matrosdms.entity.DBItem;
+import net.schwehla.matrosdms.search.LuceneQueryCache;
+import net.schwehla.matrosdms.search.SearchCriteria;
+
+/**
+ * Times structured searches the UI issues all the time (context, store and
+ * category filters and their combinations) against the live index. Without
+ * explicit combinations, the values are taken from the newest item that has
+ * a context, a store and a category.
+ */
+@Service
+public class SearchBenchmarkService {
+
+	private static final int PAGE_SIZE = 20;
+
+	@Autowired
+	SearchService searchService;
+
+	@Autowired
+	LuceneQueryCache queryCache;
+
+	@Autowired
+	EntityManager entityManager;
+
+	@Transactional(readOnly = true)
+	public SearchBenchmarkReport run(Map<String, SearchCriteria> combinations, int runs) {
+		Map<String, SearchCriteria> effective = combinations != null && !combinations.isEmpty()
+				? combinations
+				: defaultCombinations();
+
+		long hitsBefore = queryCache.getHitCount();
+		long missesBefore = queryCache.getMissCount();
+
+		List<Entry> entries = new ArrayList<>();
+		effective.forEach((name, criteria) -> entries.add(benchmark(name, criteria, Math.max(2, runs))));
+
+		return new SearchBenchmarkReport(entries, queryCache.getHitCount() - hitsBefore,
+				queryCache.getMissCount() - missesBefore, queryCache.getCachedQueries(),
+				queryCache.getRamBytesUsed());
+	}
+
+	private Entry benchmark(String name, SearchCriteria criteria, int runs) {
+		double[] millis = new double[runs];
+		long hits = 0;
+		for (int i = 0; i < runs; i++) {
+			long start = System.nanoTime();
+			Page<MSearchResult> page = searchService.search(criteria, 0, PAGE_SIZE);
+			millis[i] = (System.nanoTime() - start) / 1e6;
+			hits = page.getTotalElements();
+		}
+
+		// First run is cold, the others show the cached filters
+		double[] warm = Arrays.copyOfRange(millis, 1, runs);
+		Arrays.sort(warm);
+		double average = Arrays.stream(warm).average().orElse(0);
+		double p95 = warm[Math.min(warm.length - 1, (int) Math.ceil(warm.length * 0.95) - 1)];
+		return new Entry(name, hits, runs, millis[0], average, p95);
+	}
+
+	private Map<String, SearchCriteria> defaultCombinations() {
+		List<DBItem> sample = entityManager.createQuery(
+				"SELECT i FROM DBItem i WHERE i.infoContext IS NOT NULL AND i.store IS NOT NULL"
+						+ " AND i.kindList IS NOT EMPTY ORDER BY i.id DESC",
+				DBItem.class)
+				.setMaxResults(1)
+				.getResultList();
+
+		Map<String, SearchCriteria> result = new LinkedHashMap<>();
+		result.put("has text", and(filter(ESearchDimension.HAS_TEXT, "true")));
+		if (sample.isEmpty()) {
+			return result;
+		}
+
+		DBItem item = sample.get(0);
+		SearchCriteria context = filter(ESearchDimension.CONTEXT, item.getInfoContext().getUuid());
+		SearchCriteria store = filter(ESearchDimension.STORE, item.getStore().getUuid());
+		SearchCriteria kind = filter(ESearchDimension.KIND, item.getKindList().get(0).getUuid());
+		SearchCriteria hasText = filter(ESearchDimension.HAS_TEXT, "true");
+
+		result.put("context", and(context));
+		result.put("category", and(kind));
+		result.put("context + store", and(context, store));
+		result.put("context + category", and(context, kind));
+		result.put("context + store + category + has text", and(context, store, kind, hasText));
+		return result;
+	}
+
+	private static SearchCriteria filter(ESearchDimension field, String value) {
+		SearchCriteria criteria = new SearchCriteria();
+		criteria.setType(SearchCriteria.Type.FILTER);
+		criteria.setField(field);
+		criteria.setOperator(EOperator.EQ);
+		criteria.setValue(value);
+		return criteria;
+	}
+
+	private static SearchCriteria and(SearchCriteria... children) {
+		SearchCriteria group = new SearchCriteria();
+		group.setType(SearchCriteria.Type.GROUP);
+		group.setLogic(SearchCriteria.Logic.AND);
+		group.setChildren(List.of(children));
+		return group;
+	}
+}
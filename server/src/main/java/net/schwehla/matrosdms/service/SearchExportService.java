@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.domain.content.MDocumentStream;
+import net.schwehla.matrosdms.domain.search.EExportFormat;
+import net.schwehla.matrosdms.domain.search.ESearchSort;
+import net.schwehla.matrosdms.domain.search.MSearchCursorPage;
+import net.schwehla.matrosdms.domain.search.MSearchResult;
+import net.schwehla.matrosdms.search.SearchCriteria;
+import net.schwehla.matrosdms.store.MatrosObjectStoreService;
+
+/**
+ * Streams all hits of a search as CSV, JSON Lines or a ZIP of the decrypted
+ * documents. The hits are read through the search cursor page by page (see
+ * SearchService.searchAfter), each page in its own read-only transaction, so
+ * an export of any size holds one page in memory and no transaction while it
+ * writes. Score order pages by offset and is not offered.
+ *
+ * Each export gets an id (sent to the client before the body) under which it
+ * can be cancelled; it then ends after the current item with a well-formed
+ * but incomplete file. A client that disconnects ends it as well.
+ */
+@Service
+public class SearchExportService {
+
+	private static final Logger log = LoggerFactory.getLogger(SearchExportService.class);
+
+	private static final String SEP = ";";
+	private static final String LINE_END = "\n";
+	private static final String CSV_HEADER = String.join(SEP, "UUID", "Name", "Description", "Context",
+			"Issue Date", "Store", "LfdNr", "Tags", "Stage", "Filename") + LINE_END;
+
+	/** Item data of an export row (the index projection of a search hit). */
+	public record ExportRow(String uuid, String name, String description, String context, String contextUuid,
+			String store, String storeUuid, String storeItemNumber, List<String> tags, LocalDate issueDate,
+			String stage, String filename) {
+
+		static ExportRow of(MSearchResult hit) {
+			return new ExportRow(hit.getUuid(), hit.getName(), hit.getDescription(), hit.getContextName(),
+					hit.getContextUuid(), hit.getStoreName(), hit.getStoreIdentifier(), hit.getStoreItemNumber(),
+					hit.getTags(), hit.getIssueDate(), hit.getStage(), hit.getFilename());
+		}
+	}
+
+	@FunctionalInterface
+	private interface RowWriter {
+		void write(ExportRow row) throws IOException;
+	}
+
+	@Autowired
+	SearchService searchService;
+	@Autowired
+	MatrosObjectStoreService storeService;
+	@Autowired
+	ObjectMapper objectMapper;
+	@Autowired
+	AppServerSpringConfig config;
+
+	// Running exports by id, value set on cancel
+	private final Map<String, AtomicBoolean> running = new ConcurrentHashMap<>();
+
+	/** Registers a new export and returns its id; refused while too many run. */
+	public synchronized String open() {
+		if (running.size() >= Math.max(1, config.getSearch().getExport().getMaxConcurrent())) {
+			throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many exports running");
+		}
+		String id = UUID.randomUUID().toString();
+		running.put(id, new AtomicBoolean());
+		return id;
+	}
+
+	public boolean cancel(String id) {
+		AtomicBoolean cancelled = running.get(id);
+		if (cancelled == null) {
+			return false;
+		}
+		cancelled.set(true);
+		return true;
+	}
+
+	/**
+	 * Writes the hits of the export opened as {@code id} to {@code out} and
+	 * releases the id. Returns the number of items written.
+	 */
+	public long export(String id, SearchCriteria criteria, EExportFormat format, ESearchSort sort,
+			String sortAttribute, boolean descending, OutputStream out) throws IOException {
+		AtomicBoolean cancelled = running.get(id);
+		if (cancelled == null) {
+			throw new IllegalStateException("Export not opened: " + id);
+		}
+		if (sort == ESearchSort.SCORE) {
+			running.remove(id);
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Exports are sorted by an index field");
+		}
+		long started = System.currentTimeMillis();
+		try {
+			long written = switch (format) {
+				case CSV -> writeCsv(criteria, sort, sortAttribute, descending, out, cancelled);
+				case JSONL -> writeJsonLines(criteria, sort, sortAttribute, descending, out, cancelled);
+				case ZIP -> writeZip(criteria, sort, sortAttribute, descending, out, cancelled);
+			};
+			log.info("Export {} ({}): {} items in {} ms{}", id, format, written,
+					System.currentTimeMillis() - started, cancelled.get() ? ", cancelled" : "");
+			return written;
+		} finally {
+			running.remove(id);
+		}
+	}
+
+	private long writeCsv(SearchCriteria criteria, ESearchSort sort, String sortAttribute, boolean descending,
+			OutputStream out, AtomicBoolean cancelled) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		long written = writeCsv(criteria, sort, sortAttribute, descending, writer, cancelled);
+		writer.flush();
+		return written;
+	}
+
+	private long writeCsv(SearchCriteria criteria, ESearchSort sort, String sortAttribute, boolean descending,
+			Writer writer, AtomicBoolean cancelled) throws IOException {
+		// BOM for Excel UTF-8 recognition, as in the report
+		writer.write('\uFEFF');
+		writer.write(CSV_HEADER);
+		return scroll(criteria, sort, sortAttribute, descending, cancelled, writer,
+				row -> writer.write(csvLine(row)));
+	}
+
+	private long writeJsonLines(SearchCriteria criteria, ESearchSort sort, String sortAttribute, boolean descending,
+			OutputStream out, AtomicBoolean cancelled) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		long written = scroll(criteria, sort, sortAttribute, descending, cancelled, writer, row -> {
+			writer.write(objectMapper.writeValueAsString(row));
+			writer.write(LINE_END);
+		});
+		writer.flush();
+		return written;
+	}
+
+	/**
+	 * index.csv with all hits first, then the documents under
+	 * "{@code <context>/<uuid>_<filename>}". Two passes over the cursor keep the
+	 * memory constant; items changed in between may differ between the two.
+	 */
+	private long writeZip(SearchCriteria criteria, ESearchSort sort, String sortAttribute, boolean descending,
+			OutputStream out, AtomicBoolean cancelled) throws IOException {
+		ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+		// Documents are mostly compressed already (PDF, images)
+		zip.setLevel(Deflater.BEST_SPEED);
+
+		zip.putNextEntry(new ZipEntry("index.csv"));
+		Writer index = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+		writeCsv(criteria, sort, sortAttribute, descending, index, cancelled);
+		index.flush();
+		zip.closeEntry();
+
+		long written = scroll(criteria, sort, sortAttribute, descending, cancelled, zip, row -> {
+			if (row.filename() == null) {
+				return;
+			}
+			MDocumentStream document = storeService.load(row.uuid());
+			if (document == null || document.getInputStream() == null) {
+				log.warn("Export: no content for item {}", row.uuid());
+				return;
+			}
+			try (InputStream content = document.getInputStream()) {
+				zip.putNextEntry(new ZipEntry(
+						folderName(row.context()) + "/" + row.uuid() + "_" + sanitizeFilename(row.filename())));
+				content.transferTo(zip);
+				zip.closeEntry();
+			}
+		});
+		zip.finish();
+		return written;
+	}
+
+	/**
+	 * Passes all hits to the writer, page by page through the search cursor,
+	 * and flushes after each page. Stops after the current item when cancelled.
+	 */
+	private long scroll(SearchCriteria criteria, ESearchSort sort, String sortAttribute, boolean descending,
+			AtomicBoolean cancelled, Flushable flushable, RowWriter writer) throws IOException {
+		int pageSize = Math.max(1, config.getSearch().getExport().getPageSize());
+		long written = 0;
+		String cursor = null;
+		do {
+			MSearchCursorPage page = searchService.searchAfter(criteria, sort, sortAttribute, descending, cursor,
+					pageSize);
+			for (MSearchResult hit : page.getContent()) {
+				if (cancelled.get()) {
+					return written;
+				}
+				writer.write(ExportRow.of(hit));
+				written++;
+			}
+			flushable.flush();
+			cursor = page.getNextCursor();
+		} while (cursor != null);
+		return written;
+	}
+
+	private static String csvLine(ExportRow row) {
+		return String.join(SEP,
+				escape(row.uuid()),
+				escape(row.name()),
+				escape(row.description()),
+				escape(row.context()),
+				row.issueDate() != null ? row.issueDate().toString() : "",
+				escape(row.store()),
+				escape(row.storeItemNumber()),
+				escape(row.tags() != null ? String.join(", ", row.tags()) : null),
+				escape(row.stage()),
+				escape(row.filename())) + LINE_END;
+	}
+
+	/** Quotes values with separator, quotes or line breaks (quotes doubled), as in the report. */
+	private static String escape(String val) {
+		if (val == null)
+			return "";
+		if (val.contains(SEP) || val.contains("\"") || val.contains("\n") || val.contains("\r")) {
+			return "\"" + val.replace("\"", "\"\"") + "\"";
+		}
+		return val;
+	}
+
+	/**
+	 * Folder of the item in the zip: the context name as a single path
+	 * segment. Blank names and names of dots only ("..", which would leave
+	 * the archive on extraction) go to "_unsorted".
+	 */
+	static String folderName(String context) {
+		String folder = context != null ? sanitizeFilename(context) : "";
+		if (folder.isEmpty() || folder.matches("\\.+")) {
+			return "_unsorted";
+		}
+		return folder;
+	}
+
+	/** Path separators, characters not allowed on Windows and control characters replaced by "_". */
+	static String sanitizeFilename(String name) {
+		return name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+	}
+}
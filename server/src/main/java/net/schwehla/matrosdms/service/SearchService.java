@@ -7,37 +7,114 @@
  */
 package net.schwehla.matrosdms.service;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import jakarta.persistence.EntityManager;
 
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queries.mlt.MoreLikeThis;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.hibernate.search.backend.lucene.LuceneExtension;
+import org.hibernate.search.backend.lucene.index.LuceneIndexManager;
+import org.hibernate.search.engine.search.aggregation.AggregationKey;
 import org.hibernate.search.engine.search.common.BooleanOperator;
+import org.hibernate.search.engine.search.common.SortOrder;
+import org.hibernate.search.engine.search.highlighter.dsl.HighlighterFinalStep;
+import org.hibernate.search.engine.search.highlighter.dsl.SearchHighlighterFactory;
 import org.hibernate.search.engine.search.predicate.dsl.PredicateFinalStep;
 import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
+import org.hibernate.search.engine.search.projection.dsl.ProjectionFinalStep;
+import org.hibernate.search.engine.search.projection.dsl.SearchProjectionFactory;
 import org.hibernate.search.engine.search.query.SearchResult;
+import org.hibernate.search.engine.search.query.dsl.SearchQueryOptionsStep;
 import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.hibernate.search.mapper.pojo.work.IndexingPlanSynchronizationStrategy;
+import org.hibernate.search.util.common.data.Range;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.Highlight;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.MoreLikeThisConfig;
+import net.schwehla.matrosdms.domain.attribute.EAttributeType;
+import net.schwehla.matrosdms.domain.core.EArchiveFilter;
+import net.schwehla.matrosdms.domain.search.EOperator;
 import net.schwehla.matrosdms.domain.search.ESearchDimension;
+import net.schwehla.matrosdms.domain.search.ESearchSort;
+import net.schwehla.matrosdms.domain.search.MFacetValue;
+import net.schwehla.matrosdms.domain.search.MSearchCursorPage;
+import net.schwehla.matrosdms.domain.search.MSearchFacets;
 import net.schwehla.matrosdms.domain.search.MSearchResult;
 import net.schwehla.matrosdms.entity.DBItem;
+import net.schwehla.matrosdms.entity.DBItemEmbedding;
+import net.schwehla.matrosdms.exception.MatrosServiceException;
+import net.schwehla.matrosdms.repository.ItemRepository;
+import net.schwehla.matrosdms.search.AttributeTypes;
+import net.schwehla.matrosdms.search.CategoryTree;
 import net.schwehla.matrosdms.search.SearchCriteria;
+import net.schwehla.matrosdms.search.SearchCursor;
 
 @Service
 public class SearchService {
 
+	private static final Logger log = LoggerFactory.getLogger(SearchService.class);
+
+	// Issue months in the month facet (100 years)
+	private static final int MAX_FACET_MONTHS = 1200;
+
+	// Attribute keys become field paths ("attrFacet.<key>")
+	private static final Pattern ATTRIBUTE_KEY = Pattern.compile("[A-Za-z0-9_-]+");
+
+	// Item list sort properties with a sortable index field
+	private static final Map<String, String> CONTEXT_ITEM_SORT_FIELDS = Map.of(
+			"issueDate", "issueDate",
+			"dateCreated", "dateCreated",
+			"name", "nameSort",
+			"uuid", "uuid");
+
 	@Autowired
 	private EntityManager entityManager;
 
+	@Autowired
+	private AppServerSpringConfig config;
+
+	@Autowired
+	private EmbeddingService embeddingService;
+
+	@Autowired
+	private ItemRepository itemRepository;
+
 	@Transactional
 	public void indexSingleItem(Long itemId) {
 		SearchSession searchSession = org.hibernate.search.mapper.orm.Search.session(entityManager);
@@ -47,8 +124,162 @@ public class SearchService {
 		}
 	}
 
+	/**
+	 * Indexes a batch of items with one indexing plan and waits for the index
+	 * commit, so the changes are durable when this returns (and a failure
+	 * throws). Ids whose item is gone are removed from the index.
+	 */
+	@Transactional
+	public void indexItems(Collection<Long> itemIds) {
+		SearchSession searchSession = org.hibernate.search.mapper.orm.Search.session(entityManager);
+		searchSession.indexingPlanSynchronizationStrategy(IndexingPlanSynchronizationStrategy.writeSync());
+
+		List<DBItem> items = entityManager
+				.createQuery("SELECT i FROM DBItem i WHERE i.id IN :ids", DBItem.class)
+				.setParameter("ids", itemIds)
+				.getResultList();
+
+		SearchIndexingPlan plan = searchSession.indexingPlan();
+		Set<Long> found = new HashSet<>();
+		for (DBItem item : items) {
+			plan.addOrUpdate(item);
+			found.add(item.getId());
+		}
+		for (Long id : itemIds) {
+			if (!found.contains(id)) {
+				plan.purge(DBItem.class, id, null);
+			}
+		}
+		plan.execute();
+	}
+
+	/** Highest rebuild generation found in the index, 0 if none is stamped. */
+	@Transactional(readOnly = true)
+	public long findMaxIndexGeneration() {
+		SearchSession searchSession = org.hibernate.search.mapper.orm.Search.session(entityManager);
+		List<Long> hits = searchSession
+				.search(DBItem.class)
+				.select(f -> f.field("generation", Long.class))
+				.where(f -> f.matchAll())
+				.sort(f -> f.field("generation").desc())
+				.fetchHits(1);
+		return hits.isEmpty() || hits.get(0) == null ? 0 : hits.get(0);
+	}
+
+	@Transactional(readOnly = true)
+	public long countIndexGeneration(long generation) {
+		SearchSession searchSession = org.hibernate.search.mapper.orm.Search.session(entityManager);
+		return searchSession
+				.search(DBItem.class)
+				.where(f -> f.match().field("generation").matching(generation))
+				.fetchTotalHitCount();
+	}
+
+	/** Ids of up to {@code max} documents not written by the given generation. */
+	@Transactional(readOnly = true)
+	public List<Long> findOutsideIndexGeneration(long generation, int max) {
+		SearchSession searchSession = org.hibernate.search.mapper.orm.Search.session(entityManager);
+		return searchSession
+				.search(DBItem.class)
+				.select(f -> f.id(Long.class))
+				.where(f -> f.bool()
+						.must(f.matchAll())
+						.mustNot(f.match().field("generation").matching(generation)))
+				.fetchHits(max);
+	}
+
+	/**
+	 * Stored fulltext of the given items as indexed, cut to {@code maxChars};
+	 * items without text are missing from the map.
+	 */
+	@Transactional(readOnly = true)
+	public Map<Long, String> findIndexedFulltext(Collection<Long> itemIds, int maxChars) {
+		SearchSession searchSession = org.hibernate.search.mapper.orm.Search.session(entityManager);
+		List<List<?>> hits = searchSession
+				.search(DBItem.class)
+				.select(f -> f.composite(f.id(Long.class), f.field("fulltext", String.class)))
+				.where(f -> f.id().matchingAny(itemIds))
+				.fetchHits(itemIds.size());
+
+		Map<Long, String> texts = new HashMap<>();
+		for (List<?> hit : hits) {
+			String text = (String) hit.get(1);
+			if (text != null) {
+				texts.put((Long) hit.get(0), text.length() > maxChars ? text.substring(0, maxChars) : text);
+			}
+		}
+		return texts;
+	}
+
+	/**
+	 * Ids of the items of a context whose name or filename contains the
+	 * input (case and accent insensitive), paged and sorted like the
+	 * repository query it replaces. Returns null if the requested sort has no
+	 * sortable index field, the caller then queries the database.
+	 */
+	@Transactional(readOnly = true)
+	public Page<Long> findContextItemIds(
+			String contextUuid, String query, EArchiveFilter archiveState, Pageable pageable) {
+		Map<String, Sort.Direction> sortFields = new LinkedHashMap<>();
+		for (Sort.Order order : pageable.getSort()) {
+			String field = CONTEXT_ITEM_SORT_FIELDS.get(order.getProperty());
+			if (field == null) {
+				return null;
+			}
+			sortFields.putIfAbsent(field, order.getDirection());
+		}
+
+		SearchSession searchSession = org.hibernate.search.mapper.orm.Search.session(entityManager);
+		SearchResult<Long> result = searchSession
+				.search(DBItem.class)
+				.select(f -> f.id(Long.class))
+				.where(f -> {
+					var bool = f.bool()
+							.filter(f.match().field("infoContext.uuid").matching(contextUuid))
+							.filter(infixPredicate(f, query));
+					if (archiveState == EArchiveFilter.ARCHIVED_ONLY) {
+						bool.filter(f.match().field("archived").matching(true));
+					} else if (archiveState != EArchiveFilter.ALL) {
+						bool.filter(f.match().field("archived").matching(false));
+					}
+					return bool;
+				})
+				.sort(f -> {
+					var composite = f.composite();
+					sortFields.forEach((field, direction) -> composite.add(f.field(field)
+							.order(direction.isAscending() ? SortOrder.ASC : SortOrder.DESC)
+							.missing().last()));
+					// Stable order across pages for equal values
+					composite.add(f.field("uuid"));
+					return composite;
+				})
+				.fetch((int) pageable.getOffset(), pageable.getPageSize());
+
+		return new PageImpl<>(result.hits(), pageable, result.total().hitCount());
+	}
+
+	/** Substring match on name or filename: trigram phrase, 1-2 grams for short input. */
+	private static PredicateFinalStep infixPredicate(SearchPredicateFactory f, String query) {
+		if (query.length() < 3) {
+			return f.match().fields("nameInfixShort", "filenameInfixShort").matching(query);
+		}
+		return f.bool()
+				.should(f.phrase().field("nameInfix").matching(query))
+				.should(f.phrase().field("filenameInfix").matching(query));
+	}
+
+	/** Search without highlights (internal callers only need the hits). */
 	@Transactional(readOnly = true)
 	public Page<MSearchResult> search(SearchCriteria rootCriteria, int offset, int limit) {
+		return search(rootCriteria, offset, limit, false);
+	}
+
+	/**
+	 * Offset paged search. Fulltext highlights are computed only if asked
+	 * for, i.e. for the page the user actually sees.
+	 */
+	@Transactional(readOnly = true)
+	public Page<MSearchResult> search(SearchCriteria rootCriteria, int offset, int limit, boolean highlight) {
 		if (rootCriteria == null) {
 			return new PageImpl<>(Collections.emptyList());
 		}
@@ -60,68 +291,588 @@ public class SearchService {
 
 		SearchResult<List<?>> result = searchSession
 				.search(DBItem.class)
-				.select(
-						f -> f.composite(
-								f.field("uuid", String.class),
-								f.field("name", String.class),
-								f.field("description", String.class),
-								f.field("infoContext.name", String.class),
-								f.field("infoContext.uuid", String.class),
-								f.field("store.shortname", String.class),
-								f.field("store.uuid", String.class),
-								f.field("storageItemIdentifier", String.class),
-								f.field("kindList.name", String.class).multi(),
-								f.field("issueDate", LocalDate.class),
-								f.field("stage", String.class),
-								f.field("filename", String.class),
-								f.score(),
-								f.highlight("fulltext")))
-				.where(f -> buildPredicate(f, rootCriteria))
+				.select(f -> resultProjection(f, highlight))
+				.where(f -> buildQuery(f, rootCriteria))
+				.highlighter(this::highlighter)
 				.fetch(offset, limit);
 
-		// Find max score for normalization
-		float maxScore = result.hits().stream()
+		float normalizer = maxScore(result.hits());
+		List<MSearchResult> dtos = result.hits().stream()
+				.map(hit -> toResult(hit, normalizer))
+				.collect(Collectors.toList());
+
+		return new PageImpl<>(dtos, pageable, result.total().hitCount());
+	}
+
+	/**
+	 * Cursor ("search after") paging: each page continues right after the
+	 * last hit of the previous one through a range condition on the sort
+	 * field and the uuid tie-breaker, so Lucene only collects {@code limit}
+	 * hits at any depth. The cursor fixes sort order and direction; only the
+	 * first page counts the total hits. Score order is rejected: it has no
+	 * index value to continue from, and paging it by offset would cost as much
+	 * as classic paging at depth. ATTRIBUTE sorts by the typed field of
+	 * {@code sortAttribute} (uuid or name).
+	 */
+	@Transactional(readOnly = true)
+	public MSearchCursorPage searchAfter(
+			SearchCriteria rootCriteria, ESearchSort sort, String sortAttribute, boolean descending, String cursor,
+			int limit) {
+		if (rootCriteria == null) {
+			return new MSearchCursorPage(Collections.emptyList(), null, 0L);
+		}
+		SearchCursor after = cursor != null && !cursor.isBlank() ? SearchCursor.decode(cursor) : null;
+		ESearchSort order = after != null ? after.sort() : (sort != null ? sort : ESearchSort.CREATED);
+		if (order == ESearchSort.SCORE) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"Cursor paging needs an index field sort, use offset paging for score order");
+		}
+		boolean desc = after != null ? after.descending() : descending;
+		String attribute = order != ESearchSort.ATTRIBUTE ? null
+				: attributeKey(after != null ? after.attribute() : sortAttribute);
+		String sortField = attribute != null ? AttributeTypes.current().field(attribute) : order.getLuceneField();
+		int pageSize = Math.max(1, limit);
+
+		SearchSession searchSession = org.hibernate.search.mapper.orm.Search.session(entityManager);
+		SearchResult<List<?>> result = searchSession
+				.search(DBItem.class)
+				.select(f -> resultProjection(f, false, attribute != null ? sortField : null))
+				.where(f -> {
+					PredicateFinalStep query = buildQuery(f, rootCriteria);
+					if (after == null) {
+						return query;
+					}
+					return f.bool().must(query).filter(afterPredicate(f, order, sortField, desc, after));
+				})
+				.sort(f -> f.field(sortField)
+						.order(desc ? SortOrder.DESC : SortOrder.ASC)
+						.missing().last()
+						.then().field("uuid"))
+				// Later pages skip the exact count
+				.totalHitCountThreshold(after == null ? Long.MAX_VALUE : pageSize)
+				.fetch(pageSize);
+
+		List<List<?>> hits = result.hits();
+		float normalizer = maxScore(hits);
+		List<MSearchResult> dtos = hits.stream().map(hit -> toResult(hit, normalizer)).collect(Collectors.toList());
+
+		String next = null;
+		if (hits.size() == pageSize) {
+			List<?> last = hits.get(hits.size() - 1);
+			next = new SearchCursor(order, attribute, desc, sortValue(order, last), (String) last.get(0)).encode();
+		}
+		return new MSearchCursorPage(dtos, next, after == null ? result.total().hitCount() : null);
+	}
+
+	/**
+	 * Items closest in meaning to the given one (nearest embeddings),
+	 * optionally within a context and/or store. The restriction is applied
+	 * while searching the vector graph, so the result is still {@code limit}
+	 * items if that many match. Empty if the item has no current embedding.
+	 */
+	@Transactional(readOnly = true)
+	public List<MSearchResult> findSimilar(String uuid, String contextUuid, String storeUuid, int limit) {
+		float[] vector = itemRepository.findEmbeddingByUuid(uuid)
+				.filter(e -> embeddingService.currentModelId().equals(e.getModel()))
+				.map(DBItemEmbedding::getVector)
+				.orElse(null);
+		if (vector == null || limit <= 0) {
+			return List.of();
+		}
+
+		SearchSession searchSession = org.hibernate.search.mapper.orm.Search.session(entityManager);
+		List<List<?>> hits = searchSession
+				.search(DBItem.class)
+				.select(f -> resultProjection(f, false))
+				.where(f -> {
+					var filter = f.bool().mustNot(f.match().field("uuid").matching(uuid));
+					if (contextUuid != null && !contextUuid.isBlank())
+						filter.filter(f.match().field("infoContext.uuid").matching(contextUuid));
+					if (storeUuid != null && !storeUuid.isBlank())
+						filter.filter(f.match().field("store.uuid").matching(storeUuid));
+					return f.knn(limit).field("embedding").matching(vector).filter(filter);
+				})
+				.fetchHits(limit);
+
+		// Similarity scores are absolute, not normalized to the best hit
+		return hits.stream().map(hit -> toResult(hit, 1f)).collect(Collectors.toList());
+	}
+
+	/**
+	 * Items sharing the most distinctive terms with the given one ("more like
+	 * this" on the index term statistics), optionally within a context and/or
+	 * store. Needs no embeddings. Empty if the item is not indexed or has no
+	 * selective terms.
+	 */
+	@Transactional(readOnly = true)
+	public List<MSearchResult> findMoreLikeThis(String uuid, String contextUuid, String storeUuid, int limit) {
+		if (uuid == null || uuid.isBlank() || limit <= 0) {
+			return List.of();
+		}
+		SearchSession searchSession = org.hibernate.search.mapper.orm.Search.session(entityManager);
+		Query query;
+		try (IndexReader reader = openIndexReader(searchSession)) {
+			TopDocs source = new IndexSearcher(reader).search(new TermQuery(new Term("uuid", uuid)), 1);
+			if (source.scoreDocs.length == 0) {
+				return List.of();
+			}
+			query = moreLikeThis(reader).like(source.scoreDocs[0].doc);
+		} catch (IOException e) {
+			log.warn("More like this of {} failed: {}", uuid, e.getMessage());
+			return List.of();
+		}
+		return moreLikeThisHits(searchSession, query, uuid, contextUuid, storeUuid, limit);
+	}
+
+	/**
+	 * Items similar to a text that is not indexed (yet), e.g. a document in
+	 * the inbox. Its terms are weighted against the fulltext statistics of the
+	 * index; at most {@code max-tokens-parsed} tokens are analyzed.
+	 */
+	@Transactional(readOnly = true)
+	public List<MSearchResult> findMoreLikeThisText(String text, String contextUuid, int limit) {
+		if (text == null || text.isBlank() || limit <= 0) {
+			return List.of();
+		}
+		SearchSession searchSession = org.hibernate.search.mapper.orm.Search.session(entityManager);
+		Query query;
+		try (IndexReader reader = openIndexReader(searchSession)) {
+			query = moreLikeThis(reader).like("fulltext", new StringReader(text));
+		} catch (IOException e) {
+			log.warn("More like this of a text failed: {}", e.getMessage());
+			return List.of();
+		}
+		return moreLikeThisHits(searchSession, query, null, contextUuid, null, limit);
+	}
+
+	private static IndexReader openIndexReader(SearchSession searchSession) {
+		return searchSession.scope(DBItem.class).extension(LuceneExtension.get()).openIndexReader();
+	}
+
+	/** Term selection as configured; text is analyzed like at indexing time. */
+	private MoreLikeThis moreLikeThis(IndexReader reader) {
+		MoreLikeThisConfig conf = config.getSearch().getMoreLikeThis();
+		MoreLikeThis mlt = new MoreLikeThis(reader);
+		mlt.setAnalyzer(org.hibernate.search.mapper.orm.Search
+				.mapping(entityManager.getEntityManagerFactory())
+				.indexedEntity(DBItem.class)
+				.indexManager()
+				.unwrap(LuceneIndexManager.class)
+				.indexingAnalyzer());
+		mlt.setFieldNames(conf.getFields().toArray(String[]::new));
+		mlt.setMinTermFreq(conf.getMinTermFreq());
+		mlt.setMinDocFreq(conf.getMinDocFreq());
+		mlt.setMaxDocFreqPct(conf.getMaxDocFreqPercent());
+		mlt.setMinWordLen(conf.getMinWordLength());
+		mlt.setMaxWordLen(conf.getMaxWordLength());
+		mlt.setMaxQueryTerms(conf.getMaxQueryTerms());
+		mlt.setMaxNumTokensParsed(conf.getMaxTokensParsed());
+		// Terms weighted by their tf-idf score, not just OR-ed
+		mlt.setBoost(true);
+		return mlt;
+	}
+
+	private List<MSearchResult> moreLikeThisHits(SearchSession searchSession, Query query, String excludeUuid,
+			String contextUuid, String storeUuid, int limit) {
+		if (query instanceof BooleanQuery bool && bool.clauses().isEmpty()) {
+			return List.of();
+		}
+		List<List<?>> hits = searchSession
+				.search(DBItem.class)
+				.select(f -> resultProjection(f, false))
+				.where(f -> {
+					var bool = f.bool().must(f.extension(LuceneExtension.get()).fromLuceneQuery(query));
+					if (excludeUuid != null)
+						bool.mustNot(f.match().field("uuid").matching(excludeUuid));
+					if (contextUuid != null && !contextUuid.isBlank())
+						bool.filter(f.match().field("infoContext.uuid").matching(contextUuid));
+					if (storeUuid != null && !storeUuid.isBlank())
+						bool.filter(f.match().field("store.uuid").matching(storeUuid));
+					return bool;
+				})
+				.fetchHits(limit);
+
+		float normalizer = maxScore(hits);
+		return hits.stream().map(hit -> toResult(hit, normalizer)).collect(Collectors.toList());
+	}
+
+	/**
+	 * The result page plus facet counts over all hits, computed in the same
+	 * search pass as terms aggregations on doc values: context, category
+	 * (ancestors are indexed with each item, so counts roll up), store,
+	 * source, issue month (years are summed from the months) and the values
+	 * of the requested attributes. Number and date attributes can also be
+	 * counted in ranges, requested as "{@code <attribute>:<bound>;<bound>...}"
+	 * (e.g. "amount:100;1000" gives below 100, 100 to 1000, from 1000).
+	 */
+	@Transactional(readOnly = true)
+	public MSearchFacets searchWithFacets(
+			SearchCriteria rootCriteria, int offset, int limit, boolean highlight, List<String> attributeKeys,
+			List<String> attributeRanges, int facetSize) {
+		if (rootCriteria == null) {
+			return new MSearchFacets(Collections.emptyList(), 0, List.of(), List.of(), List.of(), List.of(),
+					List.of(), List.of(), Map.of(), Map.of());
+		}
+		int size = Math.max(1, facetSize);
+
+		AggregationKey<Map<String, Long>> contextKey = AggregationKey.of("contexts");
+		AggregationKey<Map<String, Long>> kindKey = AggregationKey.of("kinds");
+		AggregationKey<Map<String, Long>> storeKey = AggregationKey.of("stores");
+		AggregationKey<Map<String, Long>> sourceKey = AggregationKey.of("sources");
+		AggregationKey<Map<String, Long>> monthKey = AggregationKey.of("months");
+		Map<String, AggregationKey<Map<String, Long>>> attributeAggregations = new LinkedHashMap<>();
+
+		SearchSession searchSession = org.hibernate.search.mapper.orm.Search.session(entityManager);
+		var query = searchSession
+				.search(DBItem.class)
+				.select(f -> resultProjection(f, highlight))
+				.where(f -> buildQuery(f, rootCriteria))
+				.highlighter(this::highlighter)
+				.aggregation(contextKey, f -> f.terms().field("infoContext.uuid", String.class).maxTermCount(size))
+				.aggregation(kindKey, f -> f.terms().field("kindList.uuid", String.class).maxTermCount(size))
+				.aggregation(storeKey, f -> f.terms().field("store.uuid", String.class).maxTermCount(size))
+				.aggregation(sourceKey, f -> f.terms().field("source", String.class).maxTermCount(size))
+				.aggregation(monthKey, f -> f.terms().field("issueMonth", String.class)
+						.orderByTermAscending()
+						.maxTermCount(MAX_FACET_MONTHS));
+		if (attributeKeys != null) {
+			for (String attribute : attributeKeys) {
+				if (attribute == null || !ATTRIBUTE_KEY.matcher(attribute).matches()
+						|| attributeAggregations.containsKey(attribute)) {
+					continue;
+				}
+				AggregationKey<Map<String, Long>> key = AggregationKey.of("attr_" + attribute);
+				attributeAggregations.put(attribute, key);
+				query.aggregation(key,
+						f -> f.terms().field("attrFacet." + attribute, String.class).maxTermCount(size));
+			}
+		}
+		List<RangeFacet<?>> rangeFacets = new ArrayList<>();
+		if (attributeRanges != null) {
+			for (String spec : attributeRanges) {
+				RangeFacet<?> facet = rangeFacet(spec);
+				rangeFacets.add(facet);
+				addRangeAggregation(query, facet);
+			}
+		}
+
+		SearchResult<List<?>> result = query.fetch(offset, limit);
+
+		float normalizer = maxScore(result.hits());
+		List<MSearchResult> dtos = result.hits().stream()
+				.map(hit -> toResult(hit, normalizer))
+				.collect(Collectors.toList());
+
+		Map<String, Long> months = result.aggregation(monthKey);
+		Map<String, Long> years = new TreeMap<>();
+		months.forEach((month, count) -> years.merge(month.substring(0, 4), count, Long::sum));
+
+		Map<String, List<MFacetValue>> attributes = new LinkedHashMap<>();
+		attributeAggregations.forEach(
+				(attribute, key) -> attributes.put(attribute, plainFacet(result.aggregation(key))));
+		Map<String, List<MFacetValue>> ranges = new LinkedHashMap<>();
+		rangeFacets.forEach(facet -> ranges.put(facet.attribute(), rangeCounts(result, facet)));
+
+		return new MSearchFacets(
+				dtos,
+				result.total().hitCount(),
+				labeledFacet(result.aggregation(contextKey),
+						"SELECT c.uuid, c.name FROM DBContext c WHERE c.uuid IN :uuids"),
+				labeledFacet(result.aggregation(kindKey),
+						"SELECT c.uuid, c.name, p.uuid FROM DBCategory c LEFT JOIN c.parent p WHERE c.uuid IN :uuids"),
+				labeledFacet(result.aggregation(storeKey),
+						"SELECT s.uuid, s.shortname FROM DBStore s WHERE s.uuid IN :uuids"),
+				plainFacet(result.aggregation(sourceKey)),
+				plainFacet(years),
+				plainFacet(months),
+				attributes,
+				ranges);
+	}
+
+	/** Range facet of a number or date attribute: the buckets between the sorted bounds. */
+	private record RangeFacet<T>(String attribute, String field, Class<T> type, List<Range<T>> ranges,
+			AggregationKey<Map<Range<T>, Long>> key) {
+	}
+
+	private static RangeFacet<?> rangeFacet(String spec) {
+		int colon = spec != null ? spec.lastIndexOf(':') : -1;
+		if (colon <= 0) {
+			throw new MatrosServiceException("Invalid attribute range facet: " + spec);
+		}
+		String attribute = attributeKey(spec.substring(0, colon));
+		String[] bounds = spec.substring(colon + 1).split(";");
+		return switch (AttributeTypes.current().type(attribute)) {
+			case NUMBER, CURRENCY -> rangeFacet(attribute, Double.class, bounds);
+			case DATE -> rangeFacet(attribute, LocalDate.class, bounds);
+			default -> throw new MatrosServiceException(
+					"Range facets need a number or date attribute: " + spec.substring(0, colon));
+		};
+	}
+
+	private static <T extends Comparable<? super T>> RangeFacet<T> rangeFacet(String attribute, Class<T> type,
+			String[] bounds) {
+		List<T> values = new ArrayList<>();
+		for (String bound : bounds) {
+			Object value = AttributeTypes.current().typedValue(attribute, bound);
+			if (value == null) {
+				throw new MatrosServiceException("Invalid bound of attribute range facet: " + bound);
+			}
+			values.add(type.cast(value));
+		}
+		List<T> sorted = values.stream().distinct().sorted().toList();
+		List<Range<T>> ranges = new ArrayList<>();
+		for (int i = 0; i <= sorted.size(); i++) {
+			// Lower bound included, upper bound excluded, open ends at both sides
+			ranges.add(Range.canonical(i > 0 ? sorted.get(i - 1) : null, i < sorted.size() ? sorted.get(i) : null));
+		}
+		return new RangeFacet<>(attribute, AttributeTypes.current().field(attribute), type, ranges,
+				AggregationKey.of("range_" + attribute));
+	}
+
+	private static <T> void addRangeAggregation(SearchQueryOptionsStep<?, ?, ?, ?, ?> query, RangeFacet<T> facet) {
+		query.aggregation(facet.key(), f -> f.range().field(facet.field(), facet.type()).ranges(facet.ranges()));
+	}
+
+	private static <T> List<MFacetValue> rangeCounts(SearchResult<?> result, RangeFacet<T> facet) {
+		Map<Range<T>, Long> counts = result.aggregation(facet.key());
+		return facet.ranges().stream()
+				.map(range -> {
+					String value = range.lowerBoundValue().map(Object::toString).orElse("*") + ".."
+							+ range.upperBoundValue().map(Object::toString).orElse("*");
+					return new MFacetValue(value, value, counts.getOrDefault(range, 0L), null);
+				})
+				.toList();
+	}
+
+	/**
+	 * Attributes among the given ones whose values are in the index as
+	 * keywords but not in their typed field, i.e. were indexed before their
+	 * data type had a field or before it changed.
+	 */
+	@Transactional(readOnly = true)
+	public List<String> findUntypedAttributes(Collection<String> attributeKeys) {
+		SearchSession searchSession = org.hibernate.search.mapper.orm.Search.session(entityManager);
+		List<String> untyped = new ArrayList<>();
+		for (String attribute : attributeKeys) {
+			if (attribute == null || !ATTRIBUTE_KEY.matcher(attribute).matches()) {
+				continue;
+			}
+			String typedField = AttributeTypes.current().field(attribute);
+			long typed = searchSession.search(DBItem.class)
+					.where(f -> f.exists().field(typedField))
+					.fetchTotalHitCount();
+			if (typed > 0) {
+				continue;
+			}
+			long indexed = searchSession.search(DBItem.class)
+					.where(f -> f.exists().field(AttributeTypes.KEYWORD_FIELD + "." + attribute))
+					.fetchTotalHitCount();
+			if (indexed > 0) {
+				untyped.add(attribute);
+			}
+		}
+		return untyped;
+	}
+
+	/**
+	 * Most frequent values of the given attributes over all items (keyword
+	 * facets of the index), keyed by attribute.
+	 */
+	@Transactional(readOnly = true)
+	public Map<String, Map<String, Long>> attributeValueCounts(Collection<String> attributeKeys, int max) {
+		Map<String, AggregationKey<Map<String, Long>>> aggregations = new LinkedHashMap<>();
+		for (String attribute : attributeKeys) {
+			if (attribute != null && ATTRIBUTE_KEY.matcher(attribute).matches()) {
+				aggregations.putIfAbsent(attribute, AggregationKey.of("attr_" + attribute));
+			}
+		}
+		if (aggregations.isEmpty()) {
+			return Map.of();
+		}
+
+		SearchSession searchSession = org.hibernate.search.mapper.orm.Search.session(entityManager);
+		var query = searchSession
+				.search(DBItem.class)
+				.where(f -> f.matchAll());
+		aggregations.forEach((attribute, key) -> query.aggregation(key,
+				f -> f.terms().field("attrFacet." + attribute, String.class).maxTermCount(Math.max(1, max))));
+		SearchResult<DBItem> result = query.fetch(0);
+
+		Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+		aggregations.forEach((attribute, key) -> counts.put(attribute, result.aggregation(key)));
+		return counts;
+	}
+
+	private static List<MFacetValue> plainFacet(Map<String, Long> counts) {
+		return counts.entrySet().stream()
+				.map(e -> new MFacetValue(e.getKey(), e.getKey(), e.getValue(), null))
+				.toList();
+	}
+
+	/**
+	 * Facet of uuids with names from the database. The query selects uuid and
+	 * label, optionally followed by the parent uuid.
+	 */
+	private List<MFacetValue> labeledFacet(Map<String, Long> counts, String labelQuery) {
+		if (counts.isEmpty()) {
+			return List.of();
+		}
+		Map<String, Object[]> labels = new HashMap<>();
+		for (Object[] row : entityManager.createQuery(labelQuery, Object[].class)
+				.setParameter("uuids", counts.keySet())
+				.getResultList()) {
+			labels.put((String) row[0], row);
+		}
+		return counts.entrySet().stream()
+				.map(e -> {
+					Object[] row = labels.get(e.getKey());
+					String label = row != null && row[1] != null ? (String) row[1] : e.getKey();
+					String parent = row != null && row.length > 2 ? (String) row[2] : null;
+					return new MFacetValue(e.getKey(), label, e.getValue(), parent);
+				})
+				.toList();
+	}
+
+	/**
+	 * Fulltext snippets of the given (visible) hits of a search, so a result
+	 * list fetched without highlights can fill them in lazily.
+	 */
+	@Transactional(readOnly = true)
+	public Map<String, List<String>> highlight(SearchCriteria rootCriteria, List<String> uuids) {
+		if (rootCriteria == null || uuids == null || uuids.isEmpty()) {
+			return Map.of();
+		}
+		SearchSession searchSession = org.hibernate.search.mapper.orm.Search.session(entityManager);
+		List<List<?>> hits = searchSession
+				.search(DBItem.class)
+				.select(f -> f.composite(f.field("uuid", String.class), f.highlight("fulltext")))
+				.where(f -> f.bool()
+						.must(buildQuery(f, rootCriteria))
+						.filter(f.terms().field("uuid").matchingAny(uuids)))
+				.highlighter(this::highlighter)
+				.fetchHits(uuids.size());
+
+		Map<String, List<String>> result = new LinkedHashMap<>();
+		for (List<?> hit : hits) {
+			@SuppressWarnings("unchecked")
+			List<String> fragments = (List<String>) hit.get(1);
+			result.put((String) hit.get(0), fragments != null ? fragments : List.of());
+		}
+		return result;
+	}
+
+	/** Fast vector highlighter on the stored term vectors, bounded by the app.search.highlight settings. */
+	private HighlighterFinalStep highlighter(SearchHighlighterFactory h) {
+		Highlight options = config.getSearch().getHighlight();
+		return h.fastVector()
+				.numberOfFragments(options.getFragments())
+				.fragmentSize(options.getFragmentSize())
+				.phraseLimit(options.getPhraseLimit());
+	}
+
+	/** Continues after the cursor: beyond its value, same value with a greater uuid, or no value at all. */
+	private PredicateFinalStep afterPredicate(
+			SearchPredicateFactory f, ESearchSort order, String field, boolean descending, SearchCursor after) {
+		PredicateFinalStep uuidAfter = f.range().field("uuid").greaterThan(after.uuid());
+		if (after.value() == null) {
+			// Documents without a value sort last, so only those remain
+			return f.bool().mustNot(f.exists().field(field)).must(uuidAfter);
+		}
+		Object value = switch (order) {
+			case ISSUE_DATE -> LocalDate.parse(after.value());
+			case CREATED -> LocalDateTime.parse(after.value());
+			case ATTRIBUTE -> AttributeTypes.current().typedValue(after.attribute(), after.value());
+			default -> after.value();
+		};
+		return f.bool()
+				.should(descending ? f.range().field(field).lessThan(value) : f.range().field(field).greaterThan(value))
+				.should(f.bool().must(f.match().field(field).matching(value)).must(uuidAfter))
+				.should(f.bool().mustNot(f.exists().field(field)));
+	}
+
+	private static String sortValue(ESearchSort order, List<?> hit) {
+		Object value = switch (order) {
+			case ISSUE_DATE -> hit.get(9);
+			case CREATED -> hit.get(14);
+			case NAME -> hit.get(15);
+			case ATTRIBUTE -> hit.get(16);
+			default -> null;
+		};
+		return value != null ? value.toString() : null;
+	}
+
+	// 0:uuid, 1:name, 2:desc, 3:ctxName, 4:ctxUuid, 5:storeName, 6:storeUuid,
+	// 7:storeNum, 8:tags, 9:date, 10:stage, 11:filename, 12:score, 13:highlight,
+	// 14:created, 15:nameSort, 16:value of the extra field (attribute sort)
+	private static ProjectionFinalStep<List<?>> resultProjection(SearchProjectionFactory<?, ?> f, boolean highlight) {
+		return resultProjection(f, highlight, null);
+	}
+
+	private static ProjectionFinalStep<List<?>> resultProjection(SearchProjectionFactory<?, ?> f, boolean highlight,
+			String extraField) {
+		List<ProjectionFinalStep<?>> fields = new ArrayList<>(List.<ProjectionFinalStep<?>>of(
+				f.field("uuid", String.class),
+				f.field("name", String.class),
+				f.field("description", String.class),
+				f.field("infoContext.name", String.class),
+				f.field("infoContext.uuid", String.class),
+				f.field("store.shortname", String.class),
+				f.field("store.uuid", String.class),
+				f.field("storageItemIdentifier", String.class),
+				f.field("kindList.name", String.class).multi(),
+				f.field("issueDate", LocalDate.class),
+				f.field("stage", String.class),
+				f.field("filename", String.class),
+				f.score(),
+				highlight ? f.highlight("fulltext") : f.constant(List.of()),
+				f.field("dateCreated", LocalDateTime.class),
+				f.field("nameSort", String.class)));
+		if (extraField != null) {
+			fields.add(f.field(extraField, Object.class));
+		}
+		return f.composite(fields.toArray(ProjectionFinalStep<?>[]::new));
+	}
+
+	/** Best score of the hits, used to normalize scores to 0..1. */
+	private static float maxScore(List<List<?>> hits) {
+		float maxScore = hits.stream()
 				.map(hit -> (float) hit.get(12)) // Score is at index 12
 				.max(Float::compare)
 				.orElse(1f);
-		if (maxScore <= 0)
-			maxScore = 1f;
+		return maxScore > 0 ? maxScore : 1f;
+	}
 
-		final float normalizer = maxScore;
+	@SuppressWarnings("unchecked")
+	private static MSearchResult toResult(List<?> hit, float normalizer) {
+		List<String> fragments = (List<String>) hit.get(13);
+		String highlight = (fragments != null && !fragments.isEmpty())
+				? String.join("...", fragments)
+				: null;
 
-		List<MSearchResult> dtos = result.hits().stream()
-				.map(
-						hit -> {
-							// 0:uuid, 1:name, 2:desc, 3:ctxName, 4:ctxUuid, 5:storeName, 6:storeUuid,
-							// 7:storeNum, 8:tags, 9:date, 10:stage, 11:filename, 12:score, 13:highlight
-
-							List<String> fragments = (List<String>) hit.get(13);
-							String highlight = (fragments != null && !fragments.isEmpty())
-									? String.join("...", fragments)
-									: null;
-
-							float rawScore = (float) hit.get(12);
-							float normalizedScore = rawScore / normalizer;
-
-							return new MSearchResult(
-									(String) hit.get(0),
-									(String) hit.get(1),
-									(String) hit.get(2),
-									(String) hit.get(3),
-									(String) hit.get(4),
-									(String) hit.get(5),
-									(String) hit.get(6),
-									(String) hit.get(7),
-									(List<String>) hit.get(8),
-									(LocalDate) hit.get(9),
-									(String) hit.get(10),
-									(String) hit.get(11),
-									normalizedScore,
-									highlight);
-						})
-				.collect(Collectors.toList());
+		float rawScore = (float) hit.get(12);
+		float normalizedScore = rawScore / normalizer;
 
-		return new PageImpl<>(dtos, pageable, result.total().hitCount());
+		return new MSearchResult(
+				(String) hit.get(0),
+				(String) hit.get(1),
+				(String) hit.get(2),
+				(String) hit.get(3),
+				(String) hit.get(4),
+				(String) hit.get(5),
+				(String) hit.get(6),
+				(String) hit.get(7),
+				(List<String>) hit.get(8),
+				(LocalDate) hit.get(9),
+				(String) hit.get(10),
+				(String) hit.get(11),
+				normalizedScore,
+				highlight);
+	}
+
+	private PredicateFinalStep buildQuery(SearchPredicateFactory f, SearchCriteria root) {
+		PredicateFinalStep predicate = buildPredicate(f, root);
+		// A purely structured search is a cacheable filter as a whole
+		return isScoring(root) ? predicate : f.bool().filter(predicate);
 	}
 
 	private PredicateFinalStep buildPredicate(SearchPredicateFactory f, SearchCriteria node) {
@@ -130,12 +881,31 @@ public class SearchService {
 			var bool = f.bool();
 
 			if (node.getChildren() != null) {
+				// Nearest neighbours among the items matching the other AND criteria,
+				// not the global nearest ones intersected with them
+				List<SearchCriteria> semantic = node.getLogic() == SearchCriteria.Logic.AND
+						? node.getChildren().stream().filter(SearchService::isSemantic).toList()
+						: List.of();
+				for (SearchCriteria child : semantic) {
+					bool.must(semanticPredicate(f, child.getValue(), semanticFilter(f, node, semantic)));
+				}
+
 				for (SearchCriteria child : node.getChildren()) {
+					if (semantic.contains(child))
+						continue;
 					PredicateFinalStep childPred = buildPredicate(f, child);
 
+					// Structured criteria only restrict the hits: as filter clauses they
+					// add no score and can be answered from the Lucene query cache
+					boolean scoring = isScoring(child);
 					switch (node.getLogic()) {
-						case AND -> bool.must(childPred);
-						case OR -> bool.should(childPred);
+						case AND -> {
+							if (scoring)
+								bool.must(childPred);
+							else
+								bool.filter(childPred);
+						}
+						case OR -> bool.should(scoring ? childPred : f.bool().filter(childPred));
 						case NOT -> bool.mustNot(childPred);
 					}
 				}
@@ -147,6 +917,55 @@ public class SearchService {
 		return buildLeaf(f, node);
 	}
 
+	/**
+	 * True if the criterion should contribute to relevance: fulltext, semantic
+	 * and (fuzzy) CONTAINS terms. Everything else is a pure filter.
+	 */
+	static boolean isScoring(SearchCriteria node) {
+		if (node.getType() == SearchCriteria.Type.GROUP) {
+			return node.getLogic() != SearchCriteria.Logic.NOT
+					&& node.getChildren() != null
+					&& node.getChildren().stream().anyMatch(SearchService::isScoring);
+		}
+		return node.getField() == ESearchDimension.FULLTEXT
+				|| node.getField() == ESearchDimension.SEMANTIC
+				|| node.getOperator() == EOperator.CONTAINS;
+	}
+
+	private static boolean isSemantic(SearchCriteria node) {
+		return node.getType() == SearchCriteria.Type.FILTER && node.getField() == ESearchDimension.SEMANTIC;
+	}
+
+	/** The other criteria of an AND group as filter of its semantic criteria, null if there are none. */
+	private PredicateFinalStep semanticFilter(SearchPredicateFactory f, SearchCriteria group,
+			List<SearchCriteria> semantic) {
+		if (semantic.size() == group.getChildren().size()) {
+			return null;
+		}
+		var filter = f.bool();
+		for (SearchCriteria child : group.getChildren()) {
+			if (!semantic.contains(child))
+				filter.filter(buildPredicate(f, child));
+		}
+		return filter;
+	}
+
+	/**
+	 * The {@code searchK} items whose embedding is closest to the embedding of
+	 * the text. Without an embedding model the text is searched as fulltext.
+	 */
+	private PredicateFinalStep semanticPredicate(SearchPredicateFactory f, String text, PredicateFinalStep filter) {
+		if (text == null || text.isBlank()) {
+			return f.matchAll();
+		}
+		float[] vector = embeddingService.generateEmbedding(text);
+		if (vector == null) {
+			return buildLeaf(f, SearchCriteria.forText(text));
+		}
+		var knn = f.knn(config.getAi().getEmbedding().getSearchK()).field("embedding").matching(vector);
+		return filter != null ? knn.filter(filter) : knn;
+	}
+
 	private PredicateFinalStep buildLeaf(SearchPredicateFactory f, SearchCriteria node) {
 
 		// Handle missing field gracefully
@@ -160,13 +979,25 @@ public class SearchService {
 		if (val == null)
 			val = "";
 
+		// Not part of an AND group (alone, OR, NOT): nearest neighbours of the whole index
+		if (node.getField() == ESearchDimension.SEMANTIC) {
+			return semanticPredicate(f, val, null);
+		}
+		if (node.getField() == ESearchDimension.ATTRIBUTE) {
+			return attributePredicate(f, node.getAttribute(), node.getOperator(), val);
+		}
+
 		return switch (node.getOperator()) {
 			case EQ -> {
 				// FIXED: UUID Search Implementation
 				if ("uuid".equals(fieldBase)) {
 					yield f.match().field("uuid").matching(val);
 				}
-				if ("fulltext".equals(fieldBase) || "attr".equals(fieldBase)) {
+				if ("fulltext".equals(fieldBase)) {
+					yield f.match().field(fieldBase).matching(val);
+				}
+				// Flat keyword fields (HAS_TEXT, SOURCE) have no uuid sub field
+				if ("textParsed".equals(fieldBase) || "source".equals(fieldBase)) {
 					yield f.match().field(fieldBase).matching(val);
 				}
 				yield f.match().field(fieldBase + ".uuid").matching(val);
@@ -190,6 +1021,18 @@ public class SearchService {
 				yield f.match().field(fieldBase).matching(val).fuzzy(1);
 			}
 
+			case DESCENDANT_OF -> {
+				if (!"kindList".equals(fieldBase)) {
+					// No hierarchy below contexts or stores
+					yield f.match().field(fieldBase + ".uuid").matching(val);
+				}
+				// One term: the category's path is a prefix of all paths below it
+				String path = CategoryTree.current().path(val);
+				yield path != null
+						? f.match().field("categoryPath").matching(path)
+						: f.match().field("kindList.uuid").matching(val);
+			}
+
 			case GT -> f.range().field(fieldBase).greaterThan(val);
 			case LT -> f.range().field(fieldBase).lessThan(val);
 			case GTE -> f.range().field(fieldBase).atLeast(val);
@@ -199,12 +1042,44 @@ public class SearchService {
 		};
 	}
 
-	@Transactional
-	public void reindexAll() {
-		try {
-			org.hibernate.search.mapper.orm.Search.session(entityManager).massIndexer().startAndWait();
-		} catch (InterruptedException e) {
-			throw new RuntimeException(e);
+	/**
+	 * Criterion on one attribute, by its data type (see AttributeTypes):
+	 * numbers and dates compare as such, booleans match exactly, text and
+	 * links compare as keyword. CONTAINS searches the analyzed text of any
+	 * type. A value that does not parse as the type matches nothing.
+	 */
+	private PredicateFinalStep attributePredicate(SearchPredicateFactory f, String attribute, EOperator operator,
+			String val) {
+		AttributeTypes types = AttributeTypes.current();
+		String key = attributeKey(attribute);
+		if (operator == EOperator.CONTAINS) {
+			return f.match().field(AttributeTypes.TEXT_FIELD + "." + key).matching(val).fuzzy(1);
+		}
+		Object value = types.typedValue(key, val);
+		boolean ordered = types.type(key) != EAttributeType.BOOLEAN;
+		if (value == null || (!ordered && operator != EOperator.EQ && operator != EOperator.DESCENDANT_OF)) {
+			return f.not(f.matchAll());
+		}
+		String field = types.field(key);
+		return switch (operator) {
+			case GT -> f.range().field(field).greaterThan(value);
+			case LT -> f.range().field(field).lessThan(value);
+			case GTE -> f.range().field(field).atLeast(value);
+			case LTE -> f.range().field(field).atMost(value);
+			default -> f.match().field(field).matching(value);
+		};
+	}
+
+	/** Attribute uuid of a criterion, sort or facet (uuid or name), usable as field path. */
+	private static String attributeKey(String attribute) {
+		String key = AttributeTypes.current().resolve(attribute);
+		if (key == null && attribute != null && ATTRIBUTE_KEY.matcher(attribute).matches()) {
+			// Not (yet) in the snapshot, taken as the uuid of a text attribute
+			key = attribute;
+		}
+		if (key == null || !ATTRIBUTE_KEY.matcher(key).matches()) {
+			throw new MatrosServiceException("Unknown attribute: " + attribute);
 		}
+		return key;
 	}
 }
\ No newline at end of file
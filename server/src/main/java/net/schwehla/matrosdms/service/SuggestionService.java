@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.Suggest;
+import net.schwehla.matrosdms.domain.attribute.EAttributeType;
+import net.schwehla.matrosdms.domain.core.ERootCategory;
+import net.schwehla.matrosdms.domain.search.ESuggestionType;
+import net.schwehla.matrosdms.domain.search.MSuggestion;
+import net.schwehla.matrosdms.entity.DBAttributeType;
+import net.schwehla.matrosdms.entity.DBCategory;
+import net.schwehla.matrosdms.entity.DBContext;
+import net.schwehla.matrosdms.entity.DBStore;
+import net.schwehla.matrosdms.search.SuggestionIndex;
+import net.schwehla.matrosdms.search.SuggestionIndex.Entry;
+
+/**
+ * Autocomplete backed by an in-memory {@link SuggestionIndex}, so a keystroke
+ * costs a lookup instead of a LIKE scan.
+ *
+ * Each source (contexts, categories, ...) is loaded on its own; a change of
+ * one entity type only reloads that source and swaps in a new index. Reloads
+ * run on a single background thread and are coalesced, so a burst of updates
+ * causes one rebuild. Item counts (popularity), file names and attribute
+ * values are refreshed on app.search.suggest.refresh-interval.
+ */
+@Service
+public class SuggestionService {
+
+	private static final Logger log = LoggerFactory.getLogger(SuggestionService.class);
+
+	public static final int DEFAULT_LIMIT = 10;
+	private static final int MAX_LIMIT = 50;
+	private static final String PATH_SEPARATOR = " / ";
+
+	private static volatile SuggestionService instance;
+
+	private enum Source {
+		CONTEXTS, CATEGORIES, STORES, ATTRIBUTES, FILENAMES
+	}
+
+	@Autowired
+	EntityManager entityManager;
+
+	@Autowired
+	SearchService searchService;
+
+	@Autowired
+	AppServerSpringConfig config;
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "suggestion-index");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final Map<Source, List<Entry>> entries = new EnumMap<>(Source.class);
+	private final Set<Source> pending = EnumSet.noneOf(Source.class);
+	private final AtomicReference<SuggestionIndex> index = new AtomicReference<>(SuggestionIndex.EMPTY);
+
+	@PostConstruct
+	public void init() {
+		instance = this;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		instance = null;
+		executor.shutdownNow();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onReady() {
+		refresh(EnumSet.allOf(Source.class));
+	}
+
+	@Scheduled(initialDelayString = "${app.search.suggest.refresh-interval:10m}", fixedDelayString = "${app.search.suggest.refresh-interval:10m}")
+	public void refreshPeriodically() {
+		refresh(EnumSet.allOf(Source.class));
+	}
+
+	/**
+	 * Called by the entity listener after a commit. Static because JPA
+	 * instantiates listeners itself; a no-op until the service is up.
+	 */
+	public static void entityChanged(Object entity) {
+		SuggestionService service = instance;
+		if (service == null) {
+			return;
+		}
+		if (entity instanceof DBContext) {
+			service.refresh(EnumSet.of(Source.CONTEXTS));
+		} else if (entity instanceof DBCategory) {
+			service.refresh(EnumSet.of(Source.CATEGORIES));
+		} else if (entity instanceof DBStore) {
+			service.refresh(EnumSet.of(Source.STORES));
+		} else if (entity instanceof DBAttributeType) {
+			service.refresh(EnumSet.of(Source.ATTRIBUTES));
+		}
+	}
+
+	// --- Lookup ---
+
+	/**
+	 * Suggestions for an MQL dimension (who, where, folder, store, attr,
+	 * file...); an empty field or "any" searches everything.
+	 */
+	public List<MSuggestion> suggest(String field, String query, int limit) {
+		if (query == null || query.isBlank()) {
+			return List.of();
+		}
+		Predicate<Entry> filter = filterFor(field);
+		if (filter == null) {
+			// No suggestions for fulltext or dates
+			return List.of();
+		}
+		return index.get().suggest(query, filter, Math.min(Math.max(1, limit), MAX_LIMIT)).stream()
+				.map(e -> new MSuggestion(e.type(), e.value(), e.label(), e.path(), e.weight()))
+				.toList();
+	}
+
+	/** Distinct labels only, for the plain autocomplete list. */
+	public List<String> suggestLabels(String field, String query, int limit) {
+		Set<String> labels = new LinkedHashSet<>();
+		for (MSuggestion suggestion : suggest(field, query, MAX_LIMIT)) {
+			labels.add(suggestion.label());
+			if (labels.size() >= limit) {
+				break;
+			}
+		}
+		return new ArrayList<>(labels);
+	}
+
+	public int size() {
+		return index.get().size();
+	}
+
+	private static Predicate<Entry> filterFor(String field) {
+		String key = field == null ? "" : field.toLowerCase(Locale.ROOT);
+		return switch (key) {
+			case "", "any", "all" -> e -> true;
+			case "folder", "context", "ref" -> e -> e.type() == ESuggestionType.CONTEXT;
+			case "store", "box" -> e -> e.type() == ESuggestionType.STORE;
+			case "who" -> rootCategory(ERootCategory.WHO);
+			case "what" -> rootCategory(ERootCategory.WHAT);
+			case "where" -> rootCategory(ERootCategory.WHERE);
+			case "kind" -> rootCategory(ERootCategory.KIND);
+			case "tag", "cat", "category" -> e -> e.type() == ESuggestionType.CATEGORY;
+			case "attr", "attribute" -> e -> e.type() == ESuggestionType.ATTRIBUTE
+					|| e.type() == ESuggestionType.ATTRIBUTE_VALUE;
+			case "file", "filename" -> e -> e.type() == ESuggestionType.FILENAME;
+			default -> null;
+		};
+	}
+
+	private static Predicate<Entry> rootCategory(ERootCategory root) {
+		String uuid = root.getUuid();
+		return e -> e.type() == ESuggestionType.CATEGORY && uuid.equals(e.root());
+	}
+
+	// --- Loading ---
+
+	private void refresh(Set<Source> sources) {
+		synchronized (pending) {
+			boolean scheduled = !pending.isEmpty();
+			pending.addAll(sources);
+			if (scheduled) {
+				return;
+			}
+		}
+		try {
+			executor.execute(this::rebuild);
+		} catch (RuntimeException e) {
+			// Executor shut down (application stopping)
+			log.debug("Suggestion refresh skipped: {}", e.getMessage());
+		}
+	}
+
+	private void rebuild() {
+		Set<Source> sources;
+		synchronized (pending) {
+			sources = EnumSet.copyOf(pending);
+			pending.clear();
+		}
+		if (sources.isEmpty()) {
+			return;
+		}
+		long start = System.currentTimeMillis();
+		for (Source source : sources) {
+			try {
+				List<Entry> loaded = load(source);
+				synchronized (entries) {
+					entries.put(source, loaded);
+				}
+			} catch (Exception e) {
+				// Keep the previous entries of this source
+				log.warn("Suggestions for {} could not be loaded: {}", source, e.getMessage());
+			}
+		}
+		List<Entry> all = new ArrayList<>();
+		synchronized (entries) {
+			entries.values().forEach(all::addAll);
+		}
+		index.set(new SuggestionIndex(all));
+		log.debug("Suggestion index rebuilt ({}): {} entries in {} ms", sources, all.size(),
+				System.currentTimeMillis() - start);
+	}
+
+	private List<Entry> load(Source source) {
+		return switch (source) {
+			case CONTEXTS -> loadContexts();
+			case CATEGORIES -> loadCategories();
+			case STORES -> loadStores();
+			case ATTRIBUTES -> loadAttributes();
+			case FILENAMES -> loadFilenames();
+		};
+	}
+
+	private List<Entry> loadContexts() {
+		Map<String, Long> counts = counts(
+				"SELECT c.uuid, COUNT(i) FROM DBItem i JOIN i.infoContext c GROUP BY c.uuid");
+		List<Entry> result = new ArrayList<>();
+		for (Object[] row : rows("SELECT c.uuid, c.name FROM DBContext c WHERE c.dateArchived IS NULL")) {
+			String uuid = (String) row[0];
+			String name = (String) row[1];
+			if (name != null && !name.isBlank()) {
+				result.add(new Entry(ESuggestionType.CONTEXT, uuid, name, null, null, counts.getOrDefault(uuid, 0L)));
+			}
+		}
+		return result;
+	}
+
+	private List<Entry> loadCategories() {
+		Map<String, Long> counts = counts(
+				"SELECT k.uuid, COUNT(i) FROM DBItem i JOIN i.kindList k GROUP BY k.uuid");
+
+		Map<String, String> names = new HashMap<>();
+		Map<String, String> parents = new HashMap<>();
+		for (Object[] row : rows("SELECT c.uuid, c.name, p.uuid FROM DBCategory c LEFT JOIN c.parent p")) {
+			names.put((String) row[0], (String) row[1]);
+			if (row[2] != null) {
+				parents.put((String) row[0], (String) row[2]);
+			}
+		}
+
+		List<Entry> result = new ArrayList<>();
+		for (Map.Entry<String, String> category : names.entrySet()) {
+			String uuid = category.getKey();
+			if (!parents.containsKey(uuid) || category.getValue() == null || category.getValue().isBlank()) {
+				// Root categories are dimensions, not values
+				continue;
+			}
+			// Walk up to the root; the root itself is not part of the path
+			List<String> path = new ArrayList<>();
+			String root = uuid;
+			int depth = 0;
+			while (parents.containsKey(root) && depth++ < 64) {
+				path.add(0, names.get(root));
+				root = parents.get(root);
+			}
+			result.add(new Entry(ESuggestionType.CATEGORY, uuid, category.getValue(),
+					String.join(PATH_SEPARATOR, path), root, counts.getOrDefault(uuid, 0L)));
+		}
+		return result;
+	}
+
+	private List<Entry> loadStores() {
+		Map<String, Long> counts = counts(
+				"SELECT s.uuid, COUNT(i) FROM DBItem i JOIN i.store s GROUP BY s.uuid");
+		List<Entry> result = new ArrayList<>();
+		for (Object[] row : rows("SELECT s.uuid, s.shortname, s.name FROM DBStore s")) {
+			String uuid = (String) row[0];
+			String label = row[1] != null ? (String) row[1] : (String) row[2];
+			if (label != null && !label.isBlank()) {
+				result.add(new Entry(ESuggestionType.STORE, uuid, label, (String) row[2], null,
+						counts.getOrDefault(uuid, 0L)));
+			}
+		}
+		return result;
+	}
+
+	private List<Entry> loadAttributes() {
+		Suggest options = config.getSearch().getSuggest();
+		Map<String, String> names = new HashMap<>();
+		List<String> textAttributes = new ArrayList<>();
+		List<Entry> result = new ArrayList<>();
+		for (Object[] row : rows("SELECT a.uuid, a.name, a.dataType FROM DBAttributeType a")) {
+			String uuid = (String) row[0];
+			String name = (String) row[1];
+			if (name == null || name.isBlank()) {
+				continue;
+			}
+			names.put(uuid, name);
+			result.add(new Entry(ESuggestionType.ATTRIBUTE, uuid, name, null, null, 0));
+			if (row[2] == EAttributeType.TEXT) {
+				textAttributes.add(uuid);
+			}
+		}
+
+		searchService.attributeValueCounts(textAttributes, options.getMaxAttributeValues())
+				.forEach((attribute, values) -> values.forEach((value, count) -> {
+					if (!value.isBlank()) {
+						result.add(new Entry(ESuggestionType.ATTRIBUTE_VALUE, value, value, names.get(attribute),
+								attribute, count));
+					}
+				}));
+		return result;
+	}
+
+	private List<Entry> loadFilenames() {
+		List<Entry> result = new ArrayList<>();
+		for (Object[] row : entityManager.createQuery(
+				"SELECT f.filename, COUNT(i) FROM DBItem i JOIN i.file f WHERE f.filename IS NOT NULL"
+						+ " GROUP BY f.filename ORDER BY COUNT(i) DESC",
+				Object[].class)
+				.setMaxResults(config.getSearch().getSuggest().getMaxFilenames())
+				.getResultList()) {
+			String filename = (String) row[0];
+			result.add(new Entry(ESuggestionType.FILENAME, filename, filename, null, null, ((Number) row[1]).longValue()));
+		}
+		return result;
+	}
+
+	private List<Object[]> rows(String jpql) {
+		return entityManager.createQuery(jpql, Object[].class).getResultList();
+	}
+
+	private Map<String, Long> counts(String jpql) {
+		Map<String, Long> counts = new HashMap<>();
+		for (Object[] row : rows(jpql)) {
+			counts.put((String) row[0], ((Number) row[1]).longValue());
+		}
+		return counts;
+	}
+}
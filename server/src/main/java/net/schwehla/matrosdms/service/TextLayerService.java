@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import net.schwehla.matrosdms.store.MatrosObjectStoreService;
+import net.schwehla.matrosdms.util.TextLayerPageIndex;
+import net.schwehla.matrosdms.util.TextLayerPageIndex.Page;
+import net.schwehla.matrosdms.util.TextLayerReader;
+import net.schwehla.matrosdms.util.TextLayerUtils;
+
+/**
+ * Page level access to stored text layers. Only the byte range of the
+ * requested pages is read (and decrypted); the page offset table comes from
+ * the store, which builds it on first access for older layers.
+ */
+@Service
+public class TextLayerService {
+
+	private static final Logger log = LoggerFactory.getLogger(TextLayerService.class);
+
+	// Upper bound when scanning a page (legacy sections can be a whole document)
+	private static final int MAX_PAGE_CHARS = 1_000_000;
+
+	@Autowired
+	MatrosObjectStoreService storeService;
+
+	/** Page offset table, or null if the item has no text layer. */
+	public TextLayerPageIndex getPageIndex(String uuid) {
+		return storeService.loadTextLayerIndex(uuid);
+	}
+
+	public int getPageCount(String uuid) {
+		TextLayerPageIndex index = getPageIndex(uuid);
+		return index != null ? index.getPageCount() : 0;
+	}
+
+	/**
+	 * Opens a Reader over the clean text of pages {@code from..to} (inclusive,
+	 * 1-based). Returns null if the item has no text layer. Blank or missing
+	 * pages in the range yield no text.
+	 */
+	public Reader openPages(String uuid, int from, int to) {
+		return openPages(uuid, getPageIndex(uuid), from, to);
+	}
+
+	/** Reads at most {@code maxChars} characters of pages {@code from..to}. */
+	public String readPages(String uuid, int from, int to, int maxChars) {
+		return readPages(uuid, getPageIndex(uuid), from, to, maxChars);
+	}
+
+	/**
+	 * Returns the number of the first page that contains one of the terms
+	 * (case-insensitive), or 0 if none does. Pages are read one at a time, so
+	 * the scan stops at the hit instead of decrypting the whole layer.
+	 */
+	public int findFirstPage(String uuid, List<String> terms, int maxPages) {
+		TextLayerPageIndex index = getPageIndex(uuid);
+		if (index == null || terms.isEmpty())
+			return 0;
+
+		List<String> needles = terms.stream()
+				.filter(t -> !t.isBlank())
+				.map(t -> t.toLowerCase(Locale.ROOT))
+				.toList();
+
+		int checked = 0;
+		for (Page page : index.getPages()) {
+			if (checked++ >= maxPages)
+				break;
+			String text = readPages(uuid, index, page.number(), page.number(), MAX_PAGE_CHARS).toLowerCase(Locale.ROOT);
+			if (needles.stream().anyMatch(text::contains))
+				return page.number();
+		}
+		return 0;
+	}
+
+	private Reader openPages(String uuid, TextLayerPageIndex index, int from, int to) {
+		return openPages(uuid, index, from, to, true);
+	}
+
+	private Reader openPages(String uuid, TextLayerPageIndex index, int from, int to, boolean retryStale) {
+		if (index == null)
+			return null;
+
+		if (!index.isFragments()) {
+			// Unstructured layer: a single page spanning the whole file
+			if (from > 1)
+				return Reader.nullReader();
+			InputStream layer = storeService.openTextLayer(uuid);
+			return layer != null ? TextLayerUtils.openCleanText(layer) : null;
+		}
+
+		List<Page> pages = index.range(from, to);
+		if (pages.isEmpty())
+			return Reader.nullReader();
+
+		// Pages in a range are adjacent in the file, so one slice covers them all
+		Page first = pages.get(0);
+		Page last = pages.get(pages.size() - 1);
+		InputStream slice = storeService.openTextLayerRange(uuid, first.offset(),
+				last.offset() + last.length() - first.offset());
+		if (slice == null)
+			return null;
+
+		// Layer replaced since the index was loaded: its offsets do not fit the file just opened
+		if (!Objects.equals(index.getLayerStamp(), storeService.getTextLayerStamp(uuid))) {
+			closeQuietly(slice);
+			if (!retryStale)
+				return null;
+			log.debug("Text layer of {} changed while reading, reloading its page index", uuid);
+			return openPages(uuid, getPageIndex(uuid), from, to, false);
+		}
+		return new TextLayerReader(
+				new BufferedReader(new InputStreamReader(slice, StandardCharsets.UTF_8)), true);
+	}
+
+	private static void closeQuietly(InputStream in) {
+		try {
+			in.close();
+		} catch (IOException e) {
+			// Nothing was read from it
+		}
+	}
+
+	/** Like {@link #readPages(String, int, int, int)} with a page index already loaded. */
+	public String readPages(String uuid, TextLayerPageIndex index, int from, int to, int maxChars) {
+		try (Reader reader = openPages(uuid, index, from, to)) {
+			return reader != null ? TextLayerUtils.read(reader, maxChars) : "";
+		} catch (IOException e) {
+			log.warn("Pages {}-{} of {} could not be read: {}", from, to, uuid, e.getMessage());
+			return "";
+		}
+	}
+}
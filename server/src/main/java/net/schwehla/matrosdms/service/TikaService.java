@@ -7,15 +7,20 @@
  */
 package net.schwehla.matrosdms.service;
 
+import java.awt.image.BufferedImage;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
 import org.apache.tika.Tika;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.metadata.Metadata;
@@ -26,16 +31,29 @@ import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.ocr.TesseractOCRConfig;
 import org.apache.tika.parser.pdf.PDFParserConfig;
 import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.ToTextContentHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+
+import net.schwehla.matrosdms.domain.inbox.EOcrPolicy;
+import net.schwehla.matrosdms.service.PdfTextExtractor.TrackingWriter;
+import net.schwehla.matrosdms.service.ocr.ImagePreprocessor;
+import net.schwehla.matrosdms.util.TextLayerWriter;
 
 @Service
 @Lazy
 public class TikaService {
 
 	private static final Logger log = LoggerFactory.getLogger(TikaService.class);
+
+	@Autowired
+	ImagePreprocessor imagePreprocessor;
+
 	private Tika tika;
 	private MimeTypes mimeRepository;
 
@@ -90,55 +108,168 @@ public class TikaService {
 	}
 
 	public String extractText(Path file) {
-		try (InputStream stream = new BufferedInputStream(Files.newInputStream(file))) {
+		StringWriter text = new StringWriter();
+		extractText(file, text);
+		return text.toString().trim();
+	}
+
+	/**
+	 * Streaming variant: the text is written to {@code out} while the document is
+	 * parsed, so nothing of the size of the document is held in memory.
+	 * Returns false if extraction failed (partial text may have been written).
+	 */
+	public boolean extractText(Path file, Writer out) {
+		return extractText(file, out, EOcrPolicy.AUTO);
+	}
+
+	/**
+	 * As {@link #extractText(Path, Writer)}, with the OCR policy of a pipeline
+	 * profile: NEVER parses without Tesseract, ALWAYS skips the PDFBox text
+	 * shortcut so image content is OCRed as well. With OCR preprocessing
+	 * enabled, scans and images are normalized page by page before Tesseract
+	 * sees them.
+	 */
+	public boolean extractText(Path file, Writer out, EOcrPolicy ocr) {
+		try {
+			boolean pdf = file.toString().toLowerCase().endsWith(".pdf");
 			// PDF Fallback check - PDFBox is often better for layout preservation
-			if (file.toString().toLowerCase().endsWith(".pdf")) {
-				String text = extractPdfBox(file);
-				if (text != null && !text.isBlank())
-					return text;
+			if (ocr != EOcrPolicy.ALWAYS && pdf) {
+				TrackingWriter tracked = new TrackingWriter(out);
+				writePdfBox(file, tracked);
+				if (tracked.hasText())
+					return true;
+			}
+			if (ocr != EOcrPolicy.NEVER && imagePreprocessor.isEnabled()) {
+				if (pdf ? ocrPdf(file, out) : isImage(file) && ocrImage(file, out))
+					return true;
+			}
+			try (InputStream stream = new BufferedInputStream(Files.newInputStream(file))) {
+				return extractText(stream, out, ocr != EOcrPolicy.NEVER);
 			}
-			return extractText(stream);
 		} catch (Exception e) {
 			log.warn("Extraction failed for {}: {}", file.getFileName(), e.getMessage());
-			return "";
+			return false;
 		}
 	}
 
 	public String extractText(InputStream stream) {
+		StringWriter text = new StringWriter();
+		extractText(stream, text);
+		return text.toString().trim();
+	}
+
+	public boolean extractText(InputStream stream, Writer out) {
+		return extractText(stream, out, true);
+	}
+
+	public boolean extractText(InputStream stream, Writer out, boolean ocr) {
 		try {
 			AutoDetectParser parser = new AutoDetectParser();
-			BodyContentHandler handler = new BodyContentHandler(-1); // -1 disables the 100k length limit
+			// Writer based: no length limit, no buffering; page divs become page breaks
+			BodyContentHandler handler = new BodyContentHandler(new PageAwareTextHandler(out));
 			Metadata metadata = new Metadata();
 			ParseContext context = new ParseContext();
 
 			// 1. Configure PDF OCR Strategy (Crucial for scanned PDFs)
 			PDFParserConfig pdfConfig = new PDFParserConfig();
-			pdfConfig.setExtractInlineImages(true);
-			pdfConfig.setOcrStrategy(PDFParserConfig.OCR_STRATEGY.OCR_AND_TEXT_EXTRACTION);
+			pdfConfig.setExtractInlineImages(ocr);
+			pdfConfig.setOcrStrategy(ocr ? PDFParserConfig.OCR_STRATEGY.OCR_AND_TEXT_EXTRACTION
+					: PDFParserConfig.OCR_STRATEGY.NO_OCR);
 			context.set(PDFParserConfig.class, pdfConfig);
 
 			// 2. Configure Tesseract to use standard languages (German + English)
 			TesseractOCRConfig ocrConfig = new TesseractOCRConfig();
 			ocrConfig.setLanguage("deu+eng");
+			ocrConfig.setSkipOcr(!ocr);
 			context.set(TesseractOCRConfig.class, ocrConfig);
 
 			parser.parse(stream, handler, metadata, context);
-			return handler.toString().trim();
+			return true;
 		} catch (Exception e) {
-			log.warn("In-memory extraction failed: {}", e.getMessage());
-			return "";
+			log.warn("Stream extraction failed: {}", e.getMessage());
+			return false;
 		}
 	}
 
-	private String extractPdfBox(Path file) {
-		try (PDDocument document = Loader.loadPDF(file.toFile())) {
+	/**
+	 * OCR of a scanned PDF: every page is rendered at the target resolution in
+	 * grayscale, normalized and OCRed on its own, so memory stays at one page
+	 * and the text layer gets real page breaks. Returns false if the PDF could
+	 * not be opened.
+	 */
+	public boolean ocrPdf(Path file, Writer out) throws IOException {
+		PDDocument document;
+		try {
+			document = Loader.loadPDF(file.toFile());
+		} catch (IOException e) {
+			log.debug("PDF could not be opened for OCR {}: {}", file.getFileName(), e.getMessage());
+			return false;
+		}
+		try (document) {
 			if (document.isEncrypted())
-				return "";
-			PDFTextStripper stripper = new PDFTextStripper();
-			stripper.setSortByPosition(true);
-			return stripper.getText(document);
+				return false;
+			PDFRenderer renderer = new PDFRenderer(document);
+			int dpi = imagePreprocessor.getTargetDpi();
+			for (int i = 0; i < document.getNumberOfPages(); i++) {
+				if (i > 0)
+					TextLayerWriter.newPage(out);
+				BufferedImage page = imagePreprocessor.normalize(renderer.renderImageWithDPI(i, dpi, ImageType.GRAY));
+				ocrPage(imagePreprocessor.toPng(page, dpi), out);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * OCR of an image file (multi-page TIFFs page by page) after
+	 * normalization. Returns false if ImageIO cannot decode the file.
+	 */
+	public boolean ocrImage(Path file, Writer out) throws IOException {
+		int[] pages = {0};
+		return imagePreprocessor.normalizeImageFile(file, (page, dpi) -> {
+			if (pages[0]++ > 0)
+				TextLayerWriter.newPage(out);
+			ocrPage(imagePreprocessor.toPng(page, dpi), out);
+		}) > 0;
+	}
+
+	private void ocrPage(byte[] png, Writer out) {
+		extractText(new ByteArrayInputStream(png), out, true);
+	}
+
+	private boolean isImage(Path file) {
+		return detectMimeType(file).startsWith("image/");
+	}
+
+	private void writePdfBox(Path file, TrackingWriter out) {
+		try (PDDocument document = Loader.loadPDF(file.toFile())) {
+			PdfTextExtractor.writeText(document, out);
 		} catch (IOException e) {
-			return "";
+			log.debug("PDFBox extraction failed for {}: {}", file.getFileName(), e.getMessage());
+		}
+	}
+
+	/** Plain text output that turns Tika's {@code <div class="page">} into text layer page breaks. */
+	private static class PageAwareTextHandler extends ToTextContentHandler {
+
+		private final Writer out;
+		private int pages = 0;
+
+		PageAwareTextHandler(Writer out) {
+			super(out);
+			this.out = out;
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+			if ("div".equals(localName) && "page".equals(atts.getValue("class")) && pages++ > 0) {
+				try {
+					TextLayerWriter.newPage(out);
+				} catch (IOException e) {
+					throw new SAXException(e);
+				}
+			}
+			super.startElement(uri, localName, qName, atts);
 		}
 	}
 }
\ No newline at end of file
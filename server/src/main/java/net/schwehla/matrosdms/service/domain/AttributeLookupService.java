@@ -19,6 +19,7 @@ import org.springframework.transaction.annotation.Transactional;
 import net.schwehla.matrosdms.domain.attribute.EAttributeType;
 import net.schwehla.matrosdms.entity.DBAttributeType;
 import net.schwehla.matrosdms.repository.AttributeTypeRepository;
+import net.schwehla.matrosdms.search.AttributeTypes;
 
 @Service
 public class AttributeLookupService {
@@ -57,6 +58,8 @@ public class AttributeLookupService {
 			// Fixed: getDataType() now returns EAttributeType, so we store it directly
 			uuidToType.put(type.getUuid(), type.getDataType());
 		}
+		// Snapshot for the index bridge, which indexes attribute values by type
+		AttributeTypes.set(new AttributeTypes(uuidToType, nameToUuid));
 	}
 
 	public String getName(String uuid) {
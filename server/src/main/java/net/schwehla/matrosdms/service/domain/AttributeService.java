@@ -18,9 +18,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import net.schwehla.matrosdms.domain.attribute.EAttributeType;
 import net.schwehla.matrosdms.domain.attribute.MAttributeType;
 import net.schwehla.matrosdms.entity.DBAttributeType;
 import net.schwehla.matrosdms.repository.AttributeTypeRepository;
+import net.schwehla.matrosdms.service.DependentReindexService;
+import net.schwehla.matrosdms.service.SearchService;
 import net.schwehla.matrosdms.service.mapper.MAttributeMapper;
 import net.schwehla.matrosdms.service.message.CreateAttributeMessage;
 import net.schwehla.matrosdms.service.message.UpdateAttributeMessage;
@@ -30,6 +33,9 @@ import net.schwehla.matrosdms.util.UUIDProvider;
 @Transactional
 public class AttributeService {
 
+	// Config row per attribute: data type its items were last reindexed for
+	private static final String REINDEXED_KEY = "search.attribute-reindexed.";
+
 	@Autowired
 	AttributeTypeRepository attributeTypeRepository;
 	@Autowired
@@ -38,6 +44,12 @@ public class AttributeService {
 	UUIDProvider uuidProvider;
 	@Autowired
 	AttributeLookupService lookupService;
+	@Autowired
+	DependentReindexService dependentReindexService;
+	@Autowired
+	SearchService searchService;
+	@Autowired
+	ConfigService configService;
 
 	@Cacheable(value = "attributeTypes")
 	public List<MAttributeType> loadAttributeTypes() {
@@ -59,6 +71,13 @@ public class AttributeService {
 		return attributeMapper.entityToModel(entity);
 	}
 
+	/**
+	 * Updates name, description and icon, and the data type if the message
+	 * carries one. Stored values are kept as they are, nothing is converted:
+	 * after a type change the items having the attribute are reindexed, and
+	 * values that do not parse as the new type are only indexed as text and
+	 * keyword, so typed comparisons, sorting and range facets skip them.
+	 */
 	@Caching(evict = {
 			@CacheEvict(value = "attributeTypes", allEntries = true),
 			// FIX: Evict items because Attribute names are embedded in MItem DTOs
@@ -74,11 +93,52 @@ public class AttributeService {
 		entity.setDescription(message.getDescription());
 		entity.setIcon(message.getIcon());
 
+		// Values are indexed by data type, a change rewrites the items having the attribute
+		boolean typeChanged = message.getType() != null && message.getType() != entity.getDataType();
+		if (typeChanged) {
+			entity.setDataType(message.getType());
+		}
+
 		entity = attributeTypeRepository.save(entity);
 		lookupService.refresh();
+		if (typeChanged) {
+			dependentReindexService.attributeTypeChanged(uuid);
+			markReindexed(entity);
+		}
 		return attributeMapper.entityToModel(entity);
 	}
 
+	/**
+	 * Reindexes typed attributes whose values are in the index only as text,
+	 * i.e. items indexed before typed attribute fields existed. Runs once per
+	 * attribute and data type: values that never parse stay untyped after the
+	 * reindex and must not schedule it again on every start. Returns the
+	 * number of attributes scheduled.
+	 */
+	public int reindexUntypedAttributes() {
+		List<DBAttributeType> typed = attributeTypeRepository.findAll().stream()
+				.filter(type -> type.getDataType() != null && type.getDataType() != EAttributeType.TEXT
+						&& type.getDataType() != EAttributeType.LINK)
+				.filter(type -> !isReindexed(type))
+				.toList();
+		List<String> untyped = searchService.findUntypedAttributes(
+				typed.stream().map(DBAttributeType::getUuid).toList());
+		untyped.forEach(dependentReindexService::attributeTypeChanged);
+		// Also the ones already typed or without values: their items are indexed with the type
+		typed.forEach(this::markReindexed);
+		return untyped.size();
+	}
+
+	private boolean isReindexed(DBAttributeType type) {
+		return configService.getState(REINDEXED_KEY + type.getUuid())
+				.map(type.getDataType().name()::equals)
+				.orElse(false);
+	}
+
+	private void markReindexed(DBAttributeType type) {
+		configService.setState(REINDEXED_KEY + type.getUuid(), type.getDataType().name());
+	}
+
 	@Caching(evict = {
 			@CacheEvict(value = "attributeTypes", allEntries = true),
 			@CacheEvict(value = "items", allEntries = true),
@@ -7,6 +7,8 @@
  */
 package net.schwehla.matrosdms.service.domain;
 
+import java.util.Objects;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
@@ -19,6 +21,7 @@ import net.schwehla.matrosdms.entity.DBCategory;
 import net.schwehla.matrosdms.exception.EntityNotFoundException;
 import net.schwehla.matrosdms.repository.CategoryRepository;
 import net.schwehla.matrosdms.service.CategoryLookupService;
+import net.schwehla.matrosdms.service.DependentReindexService;
 import net.schwehla.matrosdms.service.mapper.MCategoryMapper;
 import net.schwehla.matrosdms.service.message.CreateCategoryMessage;
 import net.schwehla.matrosdms.service.message.UpdateCategoryMessage;
@@ -36,6 +39,8 @@ public class CategoryService {
 	UUIDProvider uuidProvider;
 	@Autowired
 	CategoryLookupService categoryLookupService;
+	@Autowired
+	DependentReindexService dependentReindexService;
 
 	@Transactional
 	@CacheEvict(value = "categories", allEntries = true)
@@ -64,6 +69,8 @@ public class CategoryService {
 		DBCategory category = categoryRepository
 				.findByUuid(uuid)
 				.orElseThrow(() -> new EntityNotFoundException("Category not found"));
+		// Name and ancestry are copied into the index documents of the items below
+		boolean renamed = !Objects.equals(category.getName(), message.getName());
 		category.setName(message.getName());
 		category.setDescription(message.getDescription());
 		category.setIcon(message.getIcon());
@@ -74,8 +81,13 @@ public class CategoryService {
 					.orElseThrow(() -> new EntityNotFoundException("New Parent not found"));
 			category.setParent(newParent);
 			categoryLookupService.evictAll(); // Tree changed, wipe cache
+			renamed = true;
+		}
+		DBCategory saved = categoryRepository.save(category);
+		if (renamed) {
+			dependentReindexService.categoryChanged(uuid);
 		}
-		return mapResult(categoryRepository.save(category));
+		return mapResult(saved);
 	}
 
 	@Cacheable(value = "categories", key = "#uuid + '-' + #transitive")
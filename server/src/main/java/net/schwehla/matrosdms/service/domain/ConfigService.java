@@ -42,9 +42,25 @@ public class ConfigService {
 	@Transactional
 	@CacheEvict(value = "config", key = "#key.name()")
 	public void setValue(EConfigKey key, String value) {
-		DBConfig config = configRepository.findByKey(key.name()).orElse(new DBConfig());
+		save(key.name(), value);
+	}
+
+	// Server state kept in the same table (not a setting): free keys, not cached and
+	// not listed by the config API, which only knows EConfigKey
+	@Transactional(readOnly = true)
+	public Optional<String> getState(String key) {
+		return configRepository.findByKey(key).map(DBConfig::getConfig_value);
+	}
+
+	@Transactional
+	public void setState(String key, String value) {
+		save(key, value);
+	}
+
+	private void save(String key, String value) {
+		DBConfig config = configRepository.findByKey(key).orElse(new DBConfig());
 		if (config.getId() == null) {
-			config.setConfig_key(key.name());
+			config.setConfig_key(key);
 		}
 		config.setConfig_value(value);
 		configRepository.save(config);
@@ -8,6 +8,7 @@
 package net.schwehla.matrosdms.service.domain;
 
 import java.util.List;
+import java.util.Objects;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
@@ -27,6 +28,7 @@ import net.schwehla.matrosdms.entity.view.VW_CONTEXT;
 import net.schwehla.matrosdms.repository.ContextRepository;
 import net.schwehla.matrosdms.repository.ContextViewRepository;
 import net.schwehla.matrosdms.repository.ItemRepository;
+import net.schwehla.matrosdms.service.DependentReindexService;
 import net.schwehla.matrosdms.service.mapper.MContextMapper;
 import net.schwehla.matrosdms.service.message.CreateContextMessage;
 import net.schwehla.matrosdms.service.message.UpdateContextMessage;
@@ -46,6 +48,8 @@ public class ContextService {
 	MContextMapper contextMapper;
 	@Autowired
 	UUIDProvider uuidProvider;
+	@Autowired
+	DependentReindexService dependentReindexService;
 
 	@CacheEvict(value = "contextList", allEntries = true)
 	public MContext createContext(CreateContextMessage message) {
@@ -63,8 +67,13 @@ public class ContextService {
 		DBContext dbContext = contextRepository.findByUuid(uuid)
 				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Context not found: " + uuid));
 
+		String previousName = dbContext.getName();
 		contextMapper.updateEntity(message, dbContext);
 		DBContext saved = contextRepository.save(dbContext);
+		// The name is copied into the index documents of the context's items
+		if (!Objects.equals(previousName, saved.getName())) {
+			dependentReindexService.contextChanged(uuid);
+		}
 		return contextMapper.entityToModel(saved);
 	}
 
@@ -7,6 +7,7 @@
  */
 package net.schwehla.matrosdms.service.domain;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import jakarta.persistence.EntityManager;
@@ -15,12 +16,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import net.schwehla.matrosdms.entity.DBCategory;
 import net.schwehla.matrosdms.entity.DBContext;
 import net.schwehla.matrosdms.repository.CategoryRepository;
 import net.schwehla.matrosdms.repository.ContextRepository;
 import net.schwehla.matrosdms.repository.ItemRepository;
+import net.schwehla.matrosdms.service.IndexQueueService;
+import net.schwehla.matrosdms.service.PassageIndexService;
+import net.schwehla.matrosdms.service.SavedSearchSubscriptionService;
 
 @Service
 @Transactional
@@ -34,6 +40,12 @@ public class ItemBatchService {
 	CategoryRepository categoryRepository;
 	@Autowired
 	EntityManager em;
+	@Autowired
+	PassageIndexService passageIndexService;
+	@Autowired
+	SavedSearchSubscriptionService subscriptionService;
+	@Autowired
+	IndexQueueService indexQueueService;
 
 	@CacheEvict(value = { "items", "itemList", "contexts", "contextList" }, allEntries = true)
 	public void batchMove(List<String> itemUuids, String contextUuid) {
@@ -41,16 +53,34 @@ public class ItemBatchService {
 				.findByUuid(contextUuid)
 				.orElseThrow(() -> new IllegalArgumentException("Target Context not found"));
 
+		List<Long> moved = new ArrayList<>();
 		for (String uuid : itemUuids) {
-			itemRepository.findByUuid(uuid).ifPresent(item -> item.setInfoContext(target));
+			itemRepository.findByUuid(uuid).ifPresent(item -> {
+				item.setInfoContext(target);
+				moved.add(item.getId());
+			});
 		}
+		indexQueueService.enqueueAll(moved);
 	}
 
 	@CacheEvict(value = { "items", "itemList" }, allEntries = true)
 	public void batchDelete(List<String> itemUuids) {
+		List<Long> deleted = new ArrayList<>();
 		for (String uuid : itemUuids) {
-			itemRepository.findByUuid(uuid).ifPresent(item -> itemRepository.delete(item));
+			itemRepository.findByUuid(uuid).ifPresent(item -> {
+				deleted.add(item.getId());
+				itemRepository.delete(item);
+			});
 		}
+		// Drained ids without an item are removed from the index
+		indexQueueService.enqueueAll(deleted, false);
+		subscriptionService.deleteItems(itemUuids);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				passageIndexService.deleteItems(itemUuids);
+			}
+		});
 	}
 
 	@CacheEvict(value = { "items", "itemList" }, allEntries = true)
@@ -63,11 +93,13 @@ public class ItemBatchService {
 						.toList()
 				: List.of();
 
+		List<Long> tagged = new ArrayList<>();
 		for (String uuid : itemUuids) {
 			itemRepository
 					.findByUuid(uuid)
 					.ifPresent(
 							item -> {
+								tagged.add(item.getId());
 								if (removeTags != null) {
 									item.getKindList().removeIf(cat -> removeTags.contains(cat.getUuid()));
 								}
@@ -78,5 +110,6 @@ public class ItemBatchService {
 								}
 							});
 		}
+		indexQueueService.enqueueAll(tagged);
 	}
 }
@@ -7,14 +7,19 @@
  */
 package net.schwehla.matrosdms.service.domain;
 
-import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -23,9 +28,7 @@ import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
-import com.github.kagkarlsson.scheduler.Scheduler;
-import com.github.kagkarlsson.scheduler.task.Task;
-
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
 import net.schwehla.matrosdms.domain.content.MDocumentStream;
 import net.schwehla.matrosdms.domain.core.EArchiveFilter;
 import net.schwehla.matrosdms.domain.core.MItem;
@@ -35,6 +38,9 @@ import net.schwehla.matrosdms.entity.management.DBUser;
 import net.schwehla.matrosdms.repository.ContextRepository;
 import net.schwehla.matrosdms.repository.ItemRepository;
 import net.schwehla.matrosdms.repository.UserRepository;
+import net.schwehla.matrosdms.service.IndexQueueService;
+import net.schwehla.matrosdms.service.PassageIndexService;
+import net.schwehla.matrosdms.service.SavedSearchSubscriptionService;
 import net.schwehla.matrosdms.service.SearchService;
 import net.schwehla.matrosdms.service.mapper.MItemMapper;
 import net.schwehla.matrosdms.service.message.UpdateItemMessage;
@@ -56,13 +62,17 @@ public class ItemService {
 	@Autowired
 	MatrosObjectStoreService storeService;
 	@Autowired
-	Scheduler scheduler;
+	IndexQueueService indexQueueService;
 	@Autowired
-	Task<Long> indexItemTask;
+	FileExtensionService extensionService;
 	@Autowired
 	SearchService searchService;
 	@Autowired
-	FileExtensionService extensionService;
+	PassageIndexService passageIndexService;
+	@Autowired
+	SavedSearchSubscriptionService subscriptionService;
+	@Autowired
+	AppServerSpringConfig config;
 
 	@Caching(evict = {
 			@CacheEvict(value = "items", key = "#uuid"),
@@ -92,9 +102,7 @@ public class ItemService {
 		}
 		DBItem saved = itemRepository.save(dbItem);
 
-		scheduler.schedule(
-				indexItemTask.instance("idx-" + saved.getUuid() + "-" + System.currentTimeMillis(), saved.getId()),
-				Instant.now());
+		indexQueueService.enqueue(saved.getId());
 
 		return itemMapper.entityToModel(saved);
 	}
@@ -134,6 +142,23 @@ public class ItemService {
 	public Page<MItem> loadItemPage(
 			String contextIdentifier, String query, EArchiveFilter archiveState, Pageable pageable) {
 
+		// Name filter through the n-gram fields of the index instead of a LIKE scan
+		if (query != null && !query.isEmpty() && contextIdentifier != null
+				&& config.getSearch().isIndexedItemFilter()) {
+			Page<Long> ids = searchService.findContextItemIds(contextIdentifier, query, archiveState, pageable);
+			if (ids != null) {
+				Map<Long, DBItem> items = itemRepository.findAllWithFileByIdIn(ids.getContent()).stream()
+						.collect(Collectors.toMap(DBItem::getId, Function.identity()));
+				// Keep the index order; ids deleted since indexing are skipped
+				List<MItem> content = ids.getContent().stream()
+						.map(items::get)
+						.filter(Objects::nonNull)
+						.map(itemMapper::entityToModel)
+						.toList();
+				return new PageImpl<>(content, pageable, ids.getTotalElements());
+			}
+		}
+
 		if (EArchiveFilter.ALL == archiveState) {
 			return itemRepository.findAllByContextAndQuery(contextIdentifier, query, pageable)
 					.map(itemMapper::entityToModel);
@@ -161,7 +186,7 @@ public class ItemService {
 		item.setDateArchived(LocalDateTime.now());
 		itemRepository.save(item);
 
-		searchService.indexSingleItem(item.getId());
+		indexQueueService.enqueue(item.getId());
 	}
 
 	@Caching(evict = {
@@ -176,7 +201,7 @@ public class ItemService {
 		item.setDateArchived(null);
 		itemRepository.save(item);
 
-		searchService.indexSingleItem(item.getId());
+		indexQueueService.enqueue(item.getId());
 	}
 
 	@Caching(evict = {
@@ -190,6 +215,9 @@ public class ItemService {
 				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Item not found"));
 
 		itemRepository.delete(item);
+		// Drained ids without an item are removed from the index
+		indexQueueService.enqueueAll(List.of(item.getId()), false);
+		subscriptionService.deleteItems(List.of(uuid));
 
 		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
 			@Override
@@ -199,6 +227,7 @@ public class ItemService {
 				} catch (Exception e) {
 					System.err.println("WARN: Failed to move file to trash: " + uuid);
 				}
+				passageIndexService.deleteItems(List.of(uuid));
 			}
 		});
 	}
@@ -210,7 +239,9 @@ public class ItemService {
 			@CacheEvict(value = "contextList", allEntries = true)
 	})
 	public void deleteAllItems() {
-		itemRepository.deleteAll();
+		List<DBItem> items = itemRepository.findAll();
+		indexQueueService.enqueueAll(items.stream().map(DBItem::getId).toList(), false);
+		itemRepository.deleteAll(items);
 	}
 
 	/**
@@ -8,6 +8,7 @@
 package net.schwehla.matrosdms.service.domain;
 
 import java.util.List;
+import java.util.Objects;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
@@ -21,6 +22,7 @@ import org.springframework.web.server.ResponseStatusException;
 import net.schwehla.matrosdms.domain.core.MStore;
 import net.schwehla.matrosdms.entity.DBStore;
 import net.schwehla.matrosdms.repository.StoreRepository;
+import net.schwehla.matrosdms.service.DependentReindexService;
 import net.schwehla.matrosdms.service.mapper.MStoreMapper;
 import net.schwehla.matrosdms.util.UUIDProvider;
 
@@ -34,6 +36,8 @@ public class StoreService {
 	MStoreMapper storeMapper;
 	@Autowired
 	UUIDProvider uuidProvider;
+	@Autowired
+	DependentReindexService dependentReindexService;
 
 	public Integer getNextStoreItemNumber(String storeUuid) {
 		long count = storeRepository.countItemsByStoreUuid(storeUuid);
@@ -58,9 +62,14 @@ public class StoreService {
 				.orElseThrow(
 						() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Store not found: " + uuid));
 
+		String previousShortname = existing.getShortname();
 		storeMapper.updateEntity(storeModel, existing);
 
 		DBStore saved = storeRepository.save(existing);
+		// The short name is copied into the index documents of the stored items
+		if (!Objects.equals(previousShortname, saved.getShortname())) {
+			dependentReindexService.storeChanged(uuid);
+		}
 		return storeMapper.entityToModel(saved);
 	}
 
@@ -28,6 +28,7 @@ import net.schwehla.matrosdms.entity.management.DBRefreshToken;
 import net.schwehla.matrosdms.entity.management.DBUser;
 import net.schwehla.matrosdms.repository.RefreshTokenRepository;
 import net.schwehla.matrosdms.repository.UserRepository;
+import net.schwehla.matrosdms.service.SavedSearchSubscriptionService;
 import net.schwehla.matrosdms.service.mapper.MUserMapper;
 import net.schwehla.matrosdms.service.message.CreateUserMessage;
 import net.schwehla.matrosdms.service.message.SavedSearchMessage;
@@ -48,6 +49,8 @@ public class UserService {
 	UUIDProvider uuidProvider;
 	@Autowired
 	PasswordEncoder passwordEncoder;
+	@Autowired
+	SavedSearchSubscriptionService subscriptionService;
 
 	@Value("${app.security.jwt-refresh-expiration-ms:2592000000}")
 	private Long refreshTokenDurationMs;
@@ -181,6 +184,7 @@ public class UserService {
 				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found: " + uuid));
 
 		refreshTokenRepository.deleteByUser(user);
+		subscriptionService.userDeleted(user.getPK());
 		userRepository.delete(user);
 	}
 
@@ -190,6 +194,7 @@ public class UserService {
 	})
 	public void deleteAllUsers() {
 		refreshTokenRepository.deleteAll();
+		subscriptionService.allUsersDeleted();
 		userRepository.deleteAll();
 	}
 
@@ -209,6 +214,8 @@ public class UserService {
 		user.getSavedSearches().removeIf(s -> s.getName().equalsIgnoreCase(search.getName()));
 		user.getSavedSearches().add(search);
 		userRepository.save(user);
+		// Matches of a previous version of the search no longer apply
+		subscriptionService.searchChanged(user.getPK(), search.getName());
 	}
 
 	@Transactional
@@ -219,6 +226,7 @@ public class UserService {
 		boolean removed = user.getSavedSearches().removeIf(s -> s.getName().equalsIgnoreCase(name));
 		if (removed) {
 			userRepository.save(user);
+			subscriptionService.searchChanged(user.getPK(), name);
 		}
 	}
 }
\ No newline at end of file
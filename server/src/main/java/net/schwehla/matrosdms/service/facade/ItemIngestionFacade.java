@@ -9,7 +9,6 @@ package net.schwehla.matrosdms.service.facade;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.Instant;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,8 +21,6 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.github.kagkarlsson.scheduler.Scheduler;
-import com.github.kagkarlsson.scheduler.task.Task;
 
 import net.schwehla.matrosdms.domain.api.EPipelineStatus;
 import net.schwehla.matrosdms.domain.core.EItemSource;
@@ -39,6 +36,8 @@ import net.schwehla.matrosdms.repository.ContextRepository;
 import net.schwehla.matrosdms.repository.ItemRepository;
 import net.schwehla.matrosdms.repository.UserRepository;
 import net.schwehla.matrosdms.service.InboxPipelineService;
+import net.schwehla.matrosdms.service.IndexQueueService;
+import net.schwehla.matrosdms.service.ItemEmbeddingService;
 import net.schwehla.matrosdms.service.mapper.MItemMapper;
 import net.schwehla.matrosdms.service.message.CreateItemMessage;
 import net.schwehla.matrosdms.service.message.PipelineStatusMessage;
@@ -67,9 +66,9 @@ public class ItemIngestionFacade {
 	@Autowired
 	InboxFileManager inboxManager;
 	@Autowired
-	Scheduler scheduler;
+	IndexQueueService indexQueueService;
 	@Autowired
-	Task<Long> indexItemTask;
+	ItemEmbeddingService itemEmbeddingService;
 	@Autowired
 	ObjectMapper objectMapper;
 	@Autowired
@@ -136,13 +135,9 @@ public class ItemIngestionFacade {
 			Path processedFile = pipelineService.getProcessedFile(hashOriginal, extension);
 			Path textFile = pipelineService.getTextLayerFile(hashOriginal);
 
-			if (Files.exists(textFile) && Files.size(textFile) > 0) {
-				String rawXml = Files.readString(textFile, java.nio.charset.StandardCharsets.UTF_8);
-				String cleanText = net.schwehla.matrosdms.util.TextLayerUtils.extractCleanText(rawXml);
-				dbItem.setTextParsed(!cleanText.isBlank());
-			} else {
-				dbItem.setTextParsed(false);
-			}
+			// Stops at the first character of text, the layer is not loaded
+			dbItem.setTextParsed(net.schwehla.matrosdms.util.TextLayerUtils.hasCleanText(textFile));
+			dbItem.nextTextVersion();
 
 			// 2. Calculate Canonical Hash (The file after processing, before encryption)
 			String hashCanonical = fileUtils.getSHA256(processedFile);
@@ -157,11 +152,11 @@ public class ItemIngestionFacade {
 			metadata.setCryptSettings(storeResult.getCryptSettings());
 
 			dbItem.setFile(metadata);
+			itemEmbeddingService.attachFromPipeline(dbItem, pipelineService.getEmbeddingFile(hashOriginal));
 
 			DBItem saved = itemRepository.save(dbItem);
 
-			scheduler.schedule(
-					indexItemTask.instance("idx-" + saved.getUuid(), saved.getId()), Instant.now());
+			indexQueueService.enqueue(saved.getId());
 
 			inboxManager.moveToProcessed(hashOriginal);
 			pipelineService.cleanup(hashOriginal);
@@ -114,6 +114,9 @@ public abstract class MItemMapper implements BasicMapper {
 	@Mapping(target = "user", ignore = true)
 	@Mapping(target = "file", ignore = true)
 	@Mapping(target = "storageItemIdentifier", source = "storeItemNumber")
+	@Mapping(target = "textVersion", ignore = true)
+	@Mapping(target = "embedding", ignore = true)
+	@Mapping(target = "passageVersion", ignore = true)
 	public abstract DBItem modelToEntity(CreateItemMessage message);
 
 	@AfterMapping
@@ -133,6 +136,9 @@ public abstract class MItemMapper implements BasicMapper {
 	@Mapping(target = "store", ignore = true)
 	@Mapping(target = "attributes", ignore = true)
 	@Mapping(target = "storageItemIdentifier", source = "storeItemNumber")
+	@Mapping(target = "textVersion", ignore = true)
+	@Mapping(target = "embedding", ignore = true)
+	@Mapping(target = "passageVersion", ignore = true)
 	public abstract void updateEntity(UpdateItemMessage message, @MappingTarget DBItem entity);
 
 	@AfterMapping
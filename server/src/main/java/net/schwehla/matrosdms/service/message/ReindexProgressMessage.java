@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service.message;
+
+import java.time.Instant;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Live progress of a running reindex job")
+public record ReindexProgressMessage(
+		@Schema(description = "Admin job id") Long jobId,
+		@Schema(description = "Reindexed items") String scope,
+		@Schema(description = "Items to index (grows while ids are still being fetched)") long total,
+		@Schema(description = "Documents written to the index") long indexed,
+		@Schema(description = "Documents per second since start") double docsPerSecond,
+		@Schema(description = "Estimated seconds until completion, -1 if unknown") long etaSeconds,
+		@Schema(description = "True once the indexer has finished") boolean finished,
+		@Schema(description = "Time of this update") Instant timestamp) {
+
+	/** Compact form for the progress column of the job table. */
+	public String summary() {
+		return String.format("%d/%d indexed, %.0f docs/s%s", indexed, total, docsPerSecond,
+				etaSeconds >= 0 && !finished ? ", ~" + etaSeconds + " s left" : "");
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service.message;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "New items matching a watched saved search")
+public class SavedSearchMatchMessage {
+
+	@Schema(description = "Name of the saved search")
+	private String search;
+
+	@Schema(description = "Uuids of the newly matching items")
+	private List<String> items;
+
+	@Schema(description = "Unseen matches of the search, including these")
+	private long unseen;
+
+	public SavedSearchMatchMessage() {
+	}
+
+	public SavedSearchMatchMessage(String search, List<String> items, long unseen) {
+		this.search = search;
+		this.items = items;
+		this.unseen = unseen;
+	}
+
+	public String getSearch() {
+		return search;
+	}
+
+	public void setSearch(String search) {
+		this.search = search;
+	}
+
+	public List<String> getItems() {
+		return items;
+	}
+
+	public void setItems(List<String> items) {
+		this.items = items;
+	}
+
+	public long getUnseen() {
+		return unseen;
+	}
+
+	public void setUnseen(long unseen) {
+		this.unseen = unseen;
+	}
+}
@@ -9,12 +9,18 @@ package net.schwehla.matrosdms.service.message;
 
 import java.io.Serializable;
 
+import net.schwehla.matrosdms.search.SearchCriteria;
+
 public class SavedSearchMessage implements Serializable {
 
 	private static final long serialVersionUID = 1L;
 
 	private String name;
 	private String query; // The MQL string
+	// The parsed query, required to watch the search (MQL is parsed by the client)
+	private SearchCriteria criteria;
+	// Watch: notify about new items matching the search
+	private boolean notify;
 
 	public SavedSearchMessage() {
 	}
@@ -40,6 +46,22 @@ public class SavedSearchMessage implements Serializable {
 		this.query = query;
 	}
 
+	public SearchCriteria getCriteria() {
+		return criteria;
+	}
+
+	public void setCriteria(SearchCriteria criteria) {
+		this.criteria = criteria;
+	}
+
+	public boolean isNotify() {
+		return notify;
+	}
+
+	public void setNotify(boolean notify) {
+		this.notify = notify;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o)
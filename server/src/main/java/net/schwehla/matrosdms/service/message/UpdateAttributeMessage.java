@@ -12,7 +12,7 @@ public class UpdateAttributeMessage extends BaseAttributeMessage {
 	// Optimistic Locking
 	private Long version;
 
-	// Usually type cannot be changed, but for simplicity reusing base
+	// A changed type reindexes the items having the attribute
 
 	public Long getVersion() {
 		return version;
@@ -0,0 +1,450 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service.ocr;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.NodeList;
+
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.OcrPreprocessing;
+
+/**
+ * Prepares scans and photos for Tesseract with plain Java2D:
+ * <ol>
+ * <li>downscale to the target resolution (subsampled while decoding, so a
+ * 600 dpi colour scan never exists in memory at full size)</li>
+ * <li>grayscale</li>
+ * <li>deskew (projection profile search)</li>
+ * <li>crop dark scanner borders</li>
+ * <li>optional Otsu binarization</li>
+ * </ol>
+ * The result is written as PNG with its resolution, so Tesseract does not
+ * have to guess the dpi.
+ */
+@Service
+public class ImagePreprocessor {
+
+	private static final Logger log = LoggerFactory.getLogger(ImagePreprocessor.class);
+
+	// Below this an image dpi is a default of the camera/encoder, not a scan resolution
+	private static final double MIN_TRUSTED_DPI = 100;
+	private static final double MAX_TRUSTED_DPI = 2400;
+	private static final String PNG_FORMAT = "javax_imageio_png_1.0";
+	private static final String STANDARD_FORMAT = "javax_imageio_1.0";
+	// Width the skew search works on (accuracy of ~0.1 degree is plenty)
+	private static final int SKEW_SAMPLE_WIDTH = 1000;
+	private static final double SKEW_STEP = 0.1;
+	private static final double MIN_SKEW_CORRECTION = 0.2;
+	private static final int DARK = 80;
+	private static final double MAX_BORDER_FRACTION = 0.1;
+
+	/** Receives the normalized pages of an image file. */
+	@FunctionalInterface
+	public interface PageSink {
+		void accept(BufferedImage page, double dpi) throws IOException;
+	}
+
+	@Autowired
+	AppServerSpringConfig config;
+
+	public boolean isEnabled() {
+		return options().isEnabled();
+	}
+
+	public int getTargetDpi() {
+		return options().getTargetDpi();
+	}
+
+	/**
+	 * Decodes every page of an image file (multi-page TIFFs have several),
+	 * normalizes it and hands it to {@code sink}. Returns the number of pages,
+	 * 0 if no ImageIO reader understands the file.
+	 */
+	public int normalizeImageFile(Path file, PageSink sink) throws IOException {
+		OcrPreprocessing opts = options();
+		try (ImageInputStream iis = ImageIO.createImageInputStream(file.toFile())) {
+			if (iis == null)
+				return 0;
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+			if (!readers.hasNext())
+				return 0;
+
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(iis, false, false);
+				int pages = reader.getNumImages(true);
+				for (int i = 0; i < pages; i++) {
+					int width = reader.getWidth(i);
+					int height = reader.getHeight(i);
+					double dpi = readDpi(reader, i);
+					double scale = scaleFor(width, height, dpi, opts);
+
+					// Decimate while decoding down to ~2x the target, smooth scaling does the rest
+					ImageReadParam param = reader.getDefaultReadParam();
+					int subsampling = Math.max(1, (int) Math.floor(1 / (scale * 2)));
+					if (subsampling > 1)
+						param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+					BufferedImage decoded = reader.read(i, param);
+
+					double effectiveDpi = dpi > 0 ? dpi * scale : opts.getTargetDpi();
+					BufferedImage page = scale(decoded, scale * subsampling, opts.isGrayscale());
+					log.debug("OCR preprocessing {} page {}: {}x{} @{} dpi -> {}x{} @{} dpi", file.getFileName(), i + 1,
+							width, height, Math.round(dpi), page.getWidth(), page.getHeight(), Math.round(effectiveDpi));
+					sink.accept(clean(page, opts), effectiveDpi);
+				}
+				return pages;
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	/** Normalizes an image that already has the right resolution (a rendered PDF page). */
+	public BufferedImage normalize(BufferedImage image) {
+		OcrPreprocessing opts = options();
+		BufferedImage working = opts.isGrayscale() && image.getType() != BufferedImage.TYPE_BYTE_GRAY
+				? scale(image, 1.0, true)
+				: image;
+		return clean(working, opts);
+	}
+
+	/** PNG bytes with the resolution stored in the pHYs chunk. */
+	public byte[] toPng(BufferedImage image, double dpi) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+		try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image),
+					param);
+			if (dpi > 0) {
+				String pixelsPerMeter = Long.toString(Math.round(dpi / 0.0254));
+				IIOMetadataNode phys = new IIOMetadataNode("pHYs");
+				phys.setAttribute("pixelsPerUnitXAxis", pixelsPerMeter);
+				phys.setAttribute("pixelsPerUnitYAxis", pixelsPerMeter);
+				phys.setAttribute("unitSpecifier", "meter");
+				IIOMetadataNode root = new IIOMetadataNode(PNG_FORMAT);
+				root.appendChild(phys);
+				metadata.mergeTree(PNG_FORMAT, root);
+			}
+			writer.setOutput(out);
+			writer.write(null, new IIOImage(image, null, metadata), param);
+			out.flush();
+			return bytes.toByteArray();
+		} finally {
+			writer.dispose();
+		}
+	}
+
+	private OcrPreprocessing options() {
+		return config.getProcessing().getOcrPreprocessing();
+	}
+
+	private BufferedImage clean(BufferedImage image, OcrPreprocessing opts) {
+		BufferedImage result = image;
+		if (opts.isDeskew()) {
+			double angle = estimateSkew(result, opts.getMaxSkewAngle());
+			if (Math.abs(angle) >= MIN_SKEW_CORRECTION) {
+				result = rotate(result, -angle);
+			}
+		}
+		if (opts.isCropBorders()) {
+			result = cropDarkBorders(result);
+		}
+		if (opts.isBinarize() && result.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+			binarize(result, otsuThreshold(result));
+		}
+		return result;
+	}
+
+	// --- Resolution ---
+
+	/**
+	 * Resolution from the image metadata, or 0 if missing or implausible. PNG
+	 * is read from its pHYs chunk, the standard tree is not reliable there.
+	 */
+	private static double readDpi(ImageReader reader, int index) {
+		try {
+			IIOMetadata metadata = reader.getImageMetadata(index);
+			if (metadata == null)
+				return 0;
+			double dpi = 0;
+			if (PNG_FORMAT.equals(metadata.getNativeMetadataFormatName())) {
+				NodeList phys = ((IIOMetadataNode) metadata.getAsTree(PNG_FORMAT)).getElementsByTagName("pHYs");
+				if (phys.getLength() > 0) {
+					IIOMetadataNode node = (IIOMetadataNode) phys.item(0);
+					if ("meter".equals(node.getAttribute("unitSpecifier")))
+						dpi = Double.parseDouble(node.getAttribute("pixelsPerUnitXAxis")) * 0.0254;
+				}
+			} else if (metadata.isStandardMetadataFormatSupported()) {
+				NodeList sizes = ((IIOMetadataNode) metadata.getAsTree(STANDARD_FORMAT))
+						.getElementsByTagName("HorizontalPixelSize");
+				if (sizes.getLength() > 0) {
+					double mmPerPixel = Double.parseDouble(((IIOMetadataNode) sizes.item(0)).getAttribute("value"));
+					dpi = mmPerPixel > 0 ? 25.4 / mmPerPixel : 0;
+				}
+			}
+			return dpi >= MIN_TRUSTED_DPI && dpi <= MAX_TRUSTED_DPI ? dpi : 0;
+		} catch (Exception e) {
+			return 0;
+		}
+	}
+
+	/** Downscale factor (never upscales): target dpi if known, else the maximum dimension. */
+	static double scaleFor(int width, int height, double dpi, OcrPreprocessing opts) {
+		double scale = 1.0;
+		if (dpi > 0)
+			scale = opts.getTargetDpi() / dpi;
+		int longest = Math.max(width, height);
+		if (opts.getMaxDimension() > 0 && longest * scale > opts.getMaxDimension())
+			scale = opts.getMaxDimension() / (double) longest;
+		return Math.min(1.0, scale);
+	}
+
+	/**
+	 * Smooth scaling into a white background (transparent areas must not turn
+	 * black), halving in steps for large factors to avoid aliasing.
+	 */
+	static BufferedImage scale(BufferedImage source, double factor, boolean gray) {
+		BufferedImage current = source;
+		double remaining = Math.min(1.0, factor);
+		do {
+			double step = Math.max(remaining, 0.5);
+			int w = Math.max(1, (int) Math.round(current.getWidth() * step));
+			int h = Math.max(1, (int) Math.round(current.getHeight() * step));
+			BufferedImage next = new BufferedImage(w, h, gray ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = next.createGraphics();
+			try {
+				g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+				g.setColor(Color.WHITE);
+				g.fillRect(0, 0, w, h);
+				g.drawImage(current, 0, 0, w, h, null);
+			} finally {
+				g.dispose();
+			}
+			current = next;
+			remaining /= step;
+		} while (remaining < 0.999);
+		return current;
+	}
+
+	// --- Deskew ---
+
+	/**
+	 * Skew of the text lines in degrees (positive = lines descend to the
+	 * right). Dark pixels are projected onto rows for each candidate angle;
+	 * the angle with the sharpest profile (highest sum of squares) wins.
+	 */
+	static double estimateSkew(BufferedImage image, double maxAngle) {
+		int step = Math.max(1, image.getWidth() / SKEW_SAMPLE_WIDTH);
+		Raster raster = image.getRaster();
+		boolean gray = image.getType() == BufferedImage.TYPE_BYTE_GRAY;
+		int w = image.getWidth() / step;
+		int h = image.getHeight() / step;
+
+		// Dark pixel coordinates of the sample grid
+		int[] xs = new int[1024];
+		int[] ys = new int[1024];
+		int n = 0;
+		for (int y = 0; y < h; y++) {
+			for (int x = 0; x < w; x++) {
+				int v = gray ? raster.getSample(x * step, y * step, 0) : luminance(image.getRGB(x * step, y * step));
+				if (v < DARK * 1.5) {
+					if (n == xs.length) {
+						xs = Arrays.copyOf(xs, n * 2);
+						ys = Arrays.copyOf(ys, n * 2);
+					}
+					xs[n] = x;
+					ys[n] = y;
+					n++;
+				}
+			}
+		}
+		if (n < 100)
+			return 0;
+
+		int margin = (int) Math.ceil(w * Math.tan(Math.toRadians(maxAngle))) + 1;
+		int[] rows = new int[h + 2 * margin];
+		double best = 0;
+		long bestScore = -1;
+		for (double angle = -maxAngle; angle <= maxAngle + 1e-9; angle += SKEW_STEP) {
+			double t = Math.tan(Math.toRadians(angle));
+			Arrays.fill(rows, 0);
+			for (int i = 0; i < n; i++) {
+				int r = (int) Math.round(ys[i] - xs[i] * t) + margin;
+				if (r >= 0 && r < rows.length)
+					rows[r]++;
+			}
+			long score = 0;
+			for (int c : rows)
+				score += (long) c * c;
+			if (score > bestScore) {
+				bestScore = score;
+				best = angle;
+			}
+		}
+		return Math.round(best * 10) / 10.0;
+	}
+
+	/** Rotates around the centre (clockwise on screen for positive degrees), white fill. */
+	static BufferedImage rotate(BufferedImage image, double degrees) {
+		BufferedImage rotated = new BufferedImage(image.getWidth(), image.getHeight(), image.getType() == 0
+				? BufferedImage.TYPE_INT_RGB
+				: image.getType());
+		Graphics2D g = rotated.createGraphics();
+		try {
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, image.getWidth(), image.getHeight());
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.drawImage(image, AffineTransform.getRotateInstance(Math.toRadians(degrees),
+					image.getWidth() / 2.0, image.getHeight() / 2.0), null);
+		} finally {
+			g.dispose();
+		}
+		return rotated;
+	}
+
+	// --- Borders ---
+
+	/**
+	 * Removes the black frame a flatbed scanner leaves around a page: edge
+	 * rows/columns that are mostly dark, at most 10% per side.
+	 */
+	static BufferedImage cropDarkBorders(BufferedImage image) {
+		int w = image.getWidth();
+		int h = image.getHeight();
+		int maxX = (int) (w * MAX_BORDER_FRACTION);
+		int maxY = (int) (h * MAX_BORDER_FRACTION);
+
+		int top = 0;
+		while (top < maxY && darkRow(image, top))
+			top++;
+		int bottom = h - 1;
+		while (h - 1 - bottom < maxY && darkRow(image, bottom))
+			bottom--;
+		int left = 0;
+		while (left < maxX && darkColumn(image, left, top, bottom))
+			left++;
+		int right = w - 1;
+		while (w - 1 - right < maxX && darkColumn(image, right, top, bottom))
+			right--;
+
+		if (top == 0 && left == 0 && bottom == h - 1 && right == w - 1)
+			return image;
+		return image.getSubimage(left, top, right - left + 1, bottom - top + 1);
+	}
+
+	private static boolean darkRow(BufferedImage image, int y) {
+		int dark = 0;
+		int w = image.getWidth();
+		for (int x = 0; x < w; x += 2) {
+			if (value(image, x, y) < DARK)
+				dark++;
+		}
+		return dark > (w / 2) / 2;
+	}
+
+	private static boolean darkColumn(BufferedImage image, int x, int top, int bottom) {
+		int dark = 0;
+		for (int y = top; y <= bottom; y += 2) {
+			if (value(image, x, y) < DARK)
+				dark++;
+		}
+		return dark > ((bottom - top + 1) / 2) / 2;
+	}
+
+	// --- Binarization ---
+
+	/** Global Otsu threshold of a grayscale image. */
+	static int otsuThreshold(BufferedImage gray) {
+		int[] histogram = new int[256];
+		Raster raster = gray.getRaster();
+		for (int y = 0; y < gray.getHeight(); y++) {
+			for (int x = 0; x < gray.getWidth(); x++) {
+				histogram[raster.getSample(x, y, 0)]++;
+			}
+		}
+		long total = (long) gray.getWidth() * gray.getHeight();
+		double sum = 0;
+		for (int i = 0; i < 256; i++)
+			sum += (double) i * histogram[i];
+
+		double sumBackground = 0;
+		long weightBackground = 0;
+		double bestVariance = -1;
+		int threshold = 128;
+		for (int t = 0; t < 256; t++) {
+			weightBackground += histogram[t];
+			if (weightBackground == 0)
+				continue;
+			long weightForeground = total - weightBackground;
+			if (weightForeground == 0)
+				break;
+			sumBackground += (double) t * histogram[t];
+			double meanBackground = sumBackground / weightBackground;
+			double meanForeground = (sum - sumBackground) / weightForeground;
+			double variance = (double) weightBackground * weightForeground
+					* (meanBackground - meanForeground) * (meanBackground - meanForeground);
+			if (variance > bestVariance) {
+				bestVariance = variance;
+				threshold = t;
+			}
+		}
+		return threshold;
+	}
+
+	static void binarize(BufferedImage gray, int threshold) {
+		WritableRaster raster = gray.getRaster();
+		for (int y = 0; y < gray.getHeight(); y++) {
+			for (int x = 0; x < gray.getWidth(); x++) {
+				raster.setSample(x, y, 0, raster.getSample(x, y, 0) <= threshold ? 0 : 255);
+			}
+		}
+	}
+
+	private static int value(BufferedImage image, int x, int y) {
+		return image.getType() == BufferedImage.TYPE_BYTE_GRAY
+				? image.getRaster().getSample(x, y, 0)
+				: luminance(image.getRGB(x, y));
+	}
+
+	private static int luminance(int rgb) {
+		int r = (rgb >> 16) & 0xFF;
+		int g = (rgb >> 8) & 0xFF;
+		int b = rgb & 0xFF;
+		return (r * 299 + g * 587 + b * 114) / 1000;
+	}
+}
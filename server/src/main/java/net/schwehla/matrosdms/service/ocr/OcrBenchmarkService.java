@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service.ocr;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.DoubleStream;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.OcrPreprocessing;
+import net.schwehla.matrosdms.domain.admin.OcrBenchmarkReport;
+import net.schwehla.matrosdms.domain.admin.OcrBenchmarkReport.Entry;
+import net.schwehla.matrosdms.service.TikaService;
+
+/**
+ * Measures OCR time per page for a folder of sample scans, once with Tika on
+ * the original file and once through {@link ImagePreprocessor}. A file
+ * {@code <name>.gt.txt} next to a sample is taken as its ground truth and
+ * yields a word recall for both runs.
+ *
+ * Samples are only read below the configured benchmark folder. Every report
+ * is saved with its preprocessing settings in the "reports" folder there, so
+ * runs with different settings can be compared.
+ */
+@Service
+public class OcrBenchmarkService {
+
+	private static final Logger log = LoggerFactory.getLogger(OcrBenchmarkService.class);
+
+	private static final Set<String> EXTENSIONS = Set.of("pdf", "png", "jpg", "jpeg", "tif", "tiff", "bmp", "gif");
+	private static final String REPORTS_FOLDER = "reports";
+	private static final DateTimeFormatter REPORT_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")
+			.withZone(ZoneId.systemDefault());
+
+	@Autowired
+	TikaService tikaService;
+	@Autowired
+	AppServerSpringConfig config;
+	@Autowired
+	ObjectMapper objectMapper;
+
+	/**
+	 * @param folder
+	 *            corpus folder relative to the benchmark folder, null or blank
+	 *            for the benchmark folder itself
+	 */
+	public OcrBenchmarkReport run(String folder, int maxFiles) throws IOException {
+		Path root = root();
+		Path corpus = resolveCorpus(root, folder);
+
+		List<Path> samples;
+		try (Stream<Path> files = Files.list(corpus)) {
+			samples = files.filter(Files::isRegularFile).filter(OcrBenchmarkService::isSample).sorted()
+					.limit(maxFiles).toList();
+		}
+
+		List<Entry> entries = new ArrayList<>();
+		for (Path sample : samples) {
+			entries.add(benchmark(sample));
+		}
+
+		long pages = entries.stream().mapToLong(Entry::getPages).sum();
+		double rawPerPage = pages > 0 ? entries.stream().mapToLong(Entry::getRawMillis).sum() / (double) pages : 0;
+		double preprocessedPerPage = pages > 0
+				? entries.stream().mapToLong(Entry::getPreprocessedMillis).sum() / (double) pages
+				: 0;
+		OcrBenchmarkReport report = new OcrBenchmarkReport(Instant.now(), root.relativize(corpus).toString(),
+				settings(), entries, rawPerPage, preprocessedPerPage,
+				averageRecall(entries.stream().mapToDouble(Entry::getRawRecall)),
+				averageRecall(entries.stream().mapToDouble(Entry::getPreprocessedRecall)));
+		save(root, report);
+		return report;
+	}
+
+	/** Saved reports, newest first. */
+	public List<JsonNode> reports(int limit) throws IOException {
+		Path reports = root().resolve(REPORTS_FOLDER);
+		if (!Files.isDirectory(reports)) {
+			return List.of();
+		}
+		List<Path> files;
+		try (Stream<Path> list = Files.list(reports)) {
+			files = list.filter(f -> f.getFileName().toString().endsWith(".json"))
+					.sorted(Comparator.comparing(Path::getFileName).reversed())
+					.limit(Math.max(1, limit))
+					.toList();
+		}
+		List<JsonNode> result = new ArrayList<>();
+		for (Path file : files) {
+			try {
+				result.add(objectMapper.readTree(file.toFile()));
+			} catch (IOException e) {
+				log.warn("OCR benchmark report {} unreadable: {}", file.getFileName(), e.getMessage());
+			}
+		}
+		return result;
+	}
+
+	private Path root() throws IOException {
+		String path = config.getProcessing().getOcrPreprocessing().getBenchmarkPath();
+		if (path == null || path.isBlank()) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"No OCR benchmark folder configured (app.processing.ocr-preprocessing.benchmark-path)");
+		}
+		Path root = Path.of(path).toAbsolutePath().normalize();
+		Files.createDirectories(root);
+		return root.toRealPath();
+	}
+
+	/** The corpus folder, which has to be below the benchmark folder (also after resolving links). */
+	private static Path resolveCorpus(Path root, String folder) throws IOException {
+		Path corpus = folder == null || folder.isBlank() ? root : root.resolve(folder).normalize();
+		if (!corpus.startsWith(root) || !Files.isDirectory(corpus) || !corpus.toRealPath().startsWith(root)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"Not a folder in the OCR benchmark folder: " + folder);
+		}
+		return corpus.toRealPath();
+	}
+
+	private void save(Path root, OcrBenchmarkReport report) {
+		try {
+			Path reports = Files.createDirectories(root.resolve(REPORTS_FOLDER));
+			Path file = reports.resolve("ocr-benchmark-" + REPORT_NAME.format(report.getCreated()) + ".json");
+			objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+			log.info("OCR benchmark report saved: {}", file);
+		} catch (IOException e) {
+			// The caller still gets the report
+			log.warn("OCR benchmark report could not be saved: {}", e.getMessage());
+		}
+	}
+
+	private String settings() {
+		OcrPreprocessing options = config.getProcessing().getOcrPreprocessing();
+		return String.format(Locale.ROOT,
+				"enabled=%s, targetDpi=%d, maxDimension=%d, grayscale=%s, binarize=%s, deskew=%s, maxSkewAngle=%.1f, cropBorders=%s",
+				options.isEnabled(), options.getTargetDpi(), options.getMaxDimension(), options.isGrayscale(),
+				options.isBinarize(), options.isDeskew(), options.getMaxSkewAngle(), options.isCropBorders());
+	}
+
+	private Entry benchmark(Path sample) throws IOException {
+		boolean pdf = extension(sample).equals("pdf");
+
+		StringWriter raw = new StringWriter();
+		long start = System.nanoTime();
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(sample))) {
+			tikaService.extractText(in, raw, true);
+		}
+		long rawMillis = (System.nanoTime() - start) / 1_000_000;
+
+		StringWriter preprocessed = new StringWriter();
+		start = System.nanoTime();
+		if (pdf) {
+			tikaService.ocrPdf(sample, preprocessed);
+		} else {
+			tikaService.ocrImage(sample, preprocessed);
+		}
+		long preprocessedMillis = (System.nanoTime() - start) / 1_000_000;
+
+		Set<String> truth = groundTruth(sample);
+		int pages = pdf ? pdfPages(sample) : imagePages(sample);
+		log.info("OCR benchmark {}: {} pages, raw {} ms, preprocessed {} ms", sample.getFileName(), pages, rawMillis,
+				preprocessedMillis);
+		return new Entry(sample.getFileName().toString(), pages, rawMillis, preprocessedMillis,
+				raw.toString().strip().length(), preprocessed.toString().strip().length(),
+				recall(truth, raw.toString()), recall(truth, preprocessed.toString()));
+	}
+
+	private static boolean isSample(Path file) {
+		return EXTENSIONS.contains(extension(file));
+	}
+
+	private static String extension(Path file) {
+		String name = file.getFileName().toString();
+		int dot = name.lastIndexOf('.');
+		return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+	}
+
+	private static int pdfPages(Path file) {
+		try (PDDocument document = Loader.loadPDF(file.toFile())) {
+			return document.getNumberOfPages();
+		} catch (IOException e) {
+			return 1;
+		}
+	}
+
+	private static int imagePages(Path file) {
+		try (ImageInputStream iis = ImageIO.createImageInputStream(file.toFile())) {
+			var readers = iis != null ? ImageIO.getImageReaders(iis) : null;
+			if (readers == null || !readers.hasNext())
+				return 1;
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(iis);
+				return Math.max(1, reader.getNumImages(true));
+			} finally {
+				reader.dispose();
+			}
+		} catch (IOException e) {
+			return 1;
+		}
+	}
+
+	// --- Quality ---
+
+	private static Set<String> groundTruth(Path sample) throws IOException {
+		String name = sample.getFileName().toString();
+		Path truth = sample.resolveSibling(name.substring(0, name.lastIndexOf('.')) + ".gt.txt");
+		return Files.exists(truth) ? words(Files.readString(truth, StandardCharsets.UTF_8)) : Set.of();
+	}
+
+	/** Share of ground truth words that occur in the OCR text, -1 without ground truth. */
+	private static double recall(Set<String> truth, String text) {
+		if (truth.isEmpty())
+			return -1;
+		Set<String> found = words(text);
+		return truth.stream().filter(found::contains).count() / (double) truth.size();
+	}
+
+	private static Set<String> words(String text) {
+		return new HashSet<>(Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+				.filter(w -> w.length() > 1)
+				.toList());
+	}
+
+	private static double averageRecall(DoubleStream recalls) {
+		return recalls.filter(r -> r >= 0).average().orElse(-1);
+	}
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service.pipeline;
+
+import java.io.IOException;
+
+/**
+ * Thrown at a checkpoint when the document or step budget is used up. An
+ * IOException, so it passes through Writers and parsers that stream into the
+ * text layer; the step that owns the budget catches it and degrades.
+ */
+public class BudgetExceededException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public BudgetExceededException(String message) {
+		super(message);
+	}
+}
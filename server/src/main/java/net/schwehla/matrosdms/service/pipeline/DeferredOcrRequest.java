@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service.pipeline;
+
+import java.io.Serializable;
+
+import net.schwehla.matrosdms.domain.inbox.EOcrPolicy;
+
+/**
+ * Task data of the deferred full extraction (db-scheduler stores it
+ * serialized). Identifies the document by the hash of the inbox file, which
+ * is also the original hash of the item once it has been committed.
+ */
+public record DeferredOcrRequest(String hash, String extension, String filename, String mimeType, EOcrPolicy ocr)
+		implements Serializable {
+}
@@ -13,10 +13,16 @@ import java.util.List;
 
 import org.springframework.context.ApplicationEventPublisher;
 
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.PipelineProfile;
+import net.schwehla.matrosdms.domain.inbox.EAiPolicy;
+import net.schwehla.matrosdms.domain.inbox.EDegradation;
+import net.schwehla.matrosdms.domain.inbox.EOcrPolicy;
 import net.schwehla.matrosdms.domain.inbox.InboxFile;
 import net.schwehla.matrosdms.service.PdfConversionService.AnalysisResult;
 import net.schwehla.matrosdms.service.message.DigestResultMessage;
 import net.schwehla.matrosdms.service.pipeline.PipelineEvents.PipelineProgressEvent;
+import net.schwehla.matrosdms.service.pipeline.PipelineEvents.PipelineStatusEvent;
+import net.schwehla.matrosdms.util.TextLayerUtils;
 
 public class PipelineContext {
 	private final String hash;
@@ -30,13 +36,16 @@ public class PipelineContext {
 
 	// --- State Cache ---
 	private Path processedFile;
-	private String extractedText;
+	private Path textLayer; // XML text layer file in the working dir
 	private DigestResultMessage aiResult;
 	private List<String> warnings = new ArrayList<>();
 
 	// NEW: Optimization Flags
 	private String cachedMimeType;
 	private AnalysisResult pdfAnalysis; // Caches PDF text layer info
+	private PipelineProfile profile;
+	private ProcessingBudget budget = ProcessingBudget.unlimited();
+	private DeferredOcrRequest deferredOcr; // scheduled once the result is saved
 
 	public PipelineContext(
 			String hash,
@@ -72,6 +81,15 @@ public class PipelineContext {
 		this.warnings.add(warning);
 	}
 
+	/** Records a budget shortcut and pushes the new state to the UI right away. */
+	public void degrade(EDegradation degradation, String reason) {
+		currentState.addDegradation(degradation);
+		addWarning(reason);
+		if (publisher != null) {
+			publisher.publishEvent(new PipelineStatusEvent(currentState));
+		}
+	}
+
 	// --- Getters / Setters ---
 
 	public InboxFile getCurrentState() {
@@ -120,12 +138,22 @@ public class PipelineContext {
 		this.processedFile = processedFile;
 	}
 
-	public String getExtractedText() {
-		return extractedText;
+	public Path getTextLayer() {
+		return textLayer;
+	}
+
+	public void setTextLayer(Path textLayer) {
+		this.textLayer = textLayer;
 	}
 
-	public void setExtractedText(String extractedText) {
-		this.extractedText = extractedText;
+	/**
+	 * Clean text of the layer, cut at {@code maxChars}. The layer itself stays on
+	 * disk; each step reads only as much as it needs.
+	 */
+	public String readExtractedText(int maxChars) {
+		if (textLayer == null)
+			return "";
+		return TextLayerUtils.readCleanText(textLayer, maxChars);
 	}
 
 	public DigestResultMessage getAiResult() {
@@ -152,4 +180,38 @@ public class PipelineContext {
 	public void setPdfAnalysis(AnalysisResult pdfAnalysis) {
 		this.pdfAnalysis = pdfAnalysis;
 	}
-}
\ No newline at end of file
+
+	// Pipeline profile (selected before the first step)
+	public PipelineProfile getProfile() {
+		return profile;
+	}
+
+	public void setProfile(PipelineProfile profile) {
+		this.profile = profile;
+		currentState.setProfile(profile != null ? profile.getName() : null);
+	}
+
+	public EOcrPolicy getOcrPolicy() {
+		return profile != null ? profile.getOcr() : EOcrPolicy.AUTO;
+	}
+
+	public EAiPolicy getAiPolicy() {
+		return profile != null ? profile.getAi() : EAiPolicy.DEFAULT;
+	}
+
+	public ProcessingBudget getBudget() {
+		return budget;
+	}
+
+	public void setBudget(ProcessingBudget budget) {
+		this.budget = budget;
+	}
+
+	public DeferredOcrRequest getDeferredOcr() {
+		return deferredOcr;
+	}
+
+	public void setDeferredOcr(DeferredOcrRequest deferredOcr) {
+		this.deferredOcr = deferredOcr;
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service.pipeline;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.PipelineProfile;
+import net.schwehla.matrosdms.domain.inbox.PipelineProfileStats;
+
+/**
+ * Selects the pipeline profile for an inbox file (by source folder, mime type
+ * and size) and keeps per-profile throughput counters.
+ */
+@Service
+public class PipelineProfileService {
+
+	private static final Logger log = LoggerFactory.getLogger(PipelineProfileService.class);
+
+	public static final String DEFAULT_PROFILE = "default";
+
+	@Autowired
+	AppServerSpringConfig config;
+
+	@Autowired
+	List<PipelineStep> pipelineSteps;
+
+	private final PipelineProfile defaultProfile = new PipelineProfile();
+	private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void init() {
+		defaultProfile.setName(DEFAULT_PROFILE);
+
+		List<String> knownSteps = pipelineSteps.stream().map(PipelineStep::getId).toList();
+		for (PipelineProfile profile : config.getProcessing().getProfiles()) {
+			if (profile.getName() == null || profile.getName().isBlank()) {
+				throw new IllegalStateException("Pipeline profile without name in app.processing.profiles");
+			}
+			for (String step : profile.getSteps()) {
+				if (knownSteps.stream().noneMatch(step::equalsIgnoreCase)) {
+					throw new IllegalStateException(
+							"Pipeline profile '" + profile.getName() + "' references unknown step '" + step
+									+ "'. Known steps: " + knownSteps);
+				}
+			}
+			log.info("Pipeline profile '{}': sources={} mime={} steps={} ocr={} ai={}",
+					profile.getName(), profile.getSourceFolders(), profile.getMimeTypes(),
+					profile.getSteps().isEmpty() ? "ALL" : profile.getSteps(), profile.getOcr(), profile.getAi());
+		}
+	}
+
+	/** First configured profile that matches, otherwise the built-in default (all steps). */
+	public PipelineProfile select(String sourceFolder, String mimeType, long size) {
+		for (PipelineProfile profile : config.getProcessing().getProfiles()) {
+			if (matches(profile, sourceFolder, mimeType, size)) {
+				return profile;
+			}
+		}
+		return defaultProfile;
+	}
+
+	private boolean matches(PipelineProfile profile, String sourceFolder, String mimeType, long size) {
+		if (!profile.getSourceFolders().isEmpty()
+				&& (sourceFolder == null
+						|| profile.getSourceFolders().stream().noneMatch(sourceFolder::equalsIgnoreCase))) {
+			return false;
+		}
+		if (!profile.getMimeTypes().isEmpty()
+				&& (mimeType == null
+						|| profile.getMimeTypes().stream().noneMatch(m -> mimeType.toLowerCase().startsWith(m.toLowerCase())))) {
+			return false;
+		}
+		if (profile.getMinSize() != null && size < profile.getMinSize().toBytes()) {
+			return false;
+		}
+		if (profile.getMaxSize() != null && size > profile.getMaxSize().toBytes()) {
+			return false;
+		}
+		return true;
+	}
+
+	// --- Metrics ---
+
+	public void recordStep(String profile, String stepId, long millis) {
+		counters(profile).stepMillis.computeIfAbsent(stepId, k -> new LongAdder()).add(millis);
+	}
+
+	public void recordTimeout(String profile) {
+		counters(profile).timeouts.increment();
+	}
+
+	public void recordRun(String profile, long bytes, long millis, boolean success) {
+		Counters c = counters(profile);
+		(success ? c.documents : c.failed).increment();
+		c.bytes.add(bytes);
+		c.millis.add(millis);
+		c.lastRun.set(Instant.now());
+	}
+
+	public List<PipelineProfileStats> getStats() {
+		return counters.entrySet().stream()
+				.map(e -> e.getValue().snapshot(e.getKey()))
+				.sorted(Comparator.comparing(PipelineProfileStats::getProfile))
+				.toList();
+	}
+
+	private Counters counters(String profile) {
+		return counters.computeIfAbsent(profile, k -> new Counters());
+	}
+
+	private static class Counters {
+		final LongAdder documents = new LongAdder();
+		final LongAdder failed = new LongAdder();
+		final LongAdder timeouts = new LongAdder();
+		final LongAdder bytes = new LongAdder();
+		final LongAdder millis = new LongAdder();
+		final Map<String, LongAdder> stepMillis = new ConcurrentHashMap<>();
+		final AtomicReference<Instant> lastRun = new AtomicReference<>();
+
+		PipelineProfileStats snapshot(String profile) {
+			Map<String, Long> steps = new TreeMap<>();
+			stepMillis.forEach((k, v) -> steps.put(k, v.sum()));
+			return new PipelineProfileStats(profile, documents.sum(), failed.sum(), timeouts.sum(),
+					bytes.sum(), millis.sum(), steps, lastRun.get());
+		}
+	}
+}
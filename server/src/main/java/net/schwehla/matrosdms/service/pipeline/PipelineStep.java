@@ -7,6 +7,25 @@
  */
 package net.schwehla.matrosdms.service.pipeline;
 
+import org.springframework.util.ClassUtils;
+
+import net.schwehla.matrosdms.domain.inbox.EDegradation;
+
 public interface PipelineStep {
 	void execute(PipelineContext ctx) throws Exception;
+
+	/** Id used by pipeline profiles: the class name without the "Step" suffix. */
+	default String getId() {
+		String name = ClassUtils.getUserClass(this).getSimpleName();
+		return name.endsWith("Step") ? name.substring(0, name.length() - 4) : name;
+	}
+
+	/**
+	 * Degradation recorded if the step is skipped or cut off because the budget
+	 * is used up. Null (the default) marks an essential step: running out of
+	 * budget fails the pipeline.
+	 */
+	default EDegradation getSkipDegradation() {
+		return null;
+	}
 }
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service.pipeline;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a pipeline step exceeds the timeout of its profile.
+ */
+public class PipelineTimeoutException extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String stepId;
+
+	public PipelineTimeoutException(String stepId, Duration timeout) {
+		super("Step " + stepId + " exceeded its timeout of " + timeout.toSeconds() + "s");
+		this.stepId = stepId;
+	}
+
+	public String getStepId() {
+		return stepId;
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service.pipeline;
+
+import java.time.Duration;
+
+/**
+ * Time and text budget of one document in the pipeline. Steps call
+ * {@link #checkpoint()} (or {@link #checkText(long)} while extracting) at
+ * points where they can stop cleanly, and degrade instead of failing when the
+ * budget is used up. The hard step timeout in InboxPipelineService is only
+ * the backstop for code that never reaches a checkpoint.
+ */
+public class ProcessingBudget {
+
+	private static final long UNLIMITED = Long.MAX_VALUE;
+
+	private final long documentDeadline; // System.nanoTime() based
+	private final long maxTextChars;
+
+	private volatile long stepDeadline = UNLIMITED;
+	private volatile String stepId;
+	private volatile String exceeded;
+	private volatile boolean textExceeded;
+
+	public ProcessingBudget(Duration document, long maxTextChars) {
+		this.documentDeadline = deadline(document);
+		this.maxTextChars = maxTextChars > 0 ? maxTextChars : UNLIMITED;
+	}
+
+	public static ProcessingBudget unlimited() {
+		return new ProcessingBudget(null, 0);
+	}
+
+	/** Starts the step budget; the document budget keeps running. */
+	public void startStep(String stepId, Duration timeout) {
+		this.stepId = stepId;
+		this.stepDeadline = deadline(timeout);
+		this.exceeded = null;
+		this.textExceeded = false;
+	}
+
+	/** Milliseconds left for the current step, {@link Long#MAX_VALUE} if unlimited. */
+	public long remainingMillis() {
+		long deadline = Math.min(documentDeadline, stepDeadline);
+		if (deadline == UNLIMITED)
+			return UNLIMITED;
+		return Math.max(0, (deadline - System.nanoTime()) / 1_000_000);
+	}
+
+	public boolean isExhausted() {
+		return remainingMillis() == 0;
+	}
+
+	public boolean isDocumentExhausted() {
+		return documentDeadline != UNLIMITED && System.nanoTime() - documentDeadline >= 0;
+	}
+
+	public void checkpoint() throws BudgetExceededException {
+		if (exceeded != null)
+			throw new BudgetExceededException(exceeded);
+		if (isExhausted()) {
+			exceeded = (isDocumentExhausted() ? "Document" : "Step " + stepId) + " time budget exceeded";
+			throw new BudgetExceededException(exceeded);
+		}
+	}
+
+	/** Checkpoint for extractors: also enforces the text budget. */
+	public void checkText(long chars) throws BudgetExceededException {
+		if (exceeded == null && chars > maxTextChars) {
+			textExceeded = true;
+			exceeded = "Text budget of " + maxTextChars + " characters exceeded";
+		}
+		checkpoint();
+	}
+
+	/** Why the current step ran out of budget, or null. */
+	public String getExceededReason() {
+		return exceeded;
+	}
+
+	/** True if the current step stopped at the text (not the time) budget. */
+	public boolean isTextExceeded() {
+		return textExceeded;
+	}
+
+	private static long deadline(Duration timeout) {
+		if (timeout == null || timeout.isZero() || timeout.isNegative())
+			return UNLIMITED;
+		// Anything beyond ~100 years is as good as unlimited (and would overflow)
+		if (timeout.toDays() > 36_500)
+			return UNLIMITED;
+		return System.nanoTime() + timeout.toNanos();
+	}
+}
@@ -7,24 +7,67 @@
  */
 package net.schwehla.matrosdms.service.pipeline.steps;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.domain.inbox.EAiPolicy;
+import net.schwehla.matrosdms.domain.inbox.EDegradation;
+import net.schwehla.matrosdms.domain.inbox.Prediction;
 import net.schwehla.matrosdms.service.PredictionService;
 import net.schwehla.matrosdms.service.message.DigestResultMessage;
 import net.schwehla.matrosdms.service.pipeline.PipelineContext;
 import net.schwehla.matrosdms.service.pipeline.PipelineStep;
+import net.schwehla.matrosdms.service.pipeline.ProcessingBudget;
 
 @Component
 @Order(6)
 public class AiPredictionStep implements PipelineStep {
 
+	private static final Logger log = LoggerFactory.getLogger(AiPredictionStep.class);
+
+	private static final String HEURISTIC_STRATEGY = "heuristic";
+
 	@Autowired
 	PredictionService predictionService;
 
+	@Autowired
+	AppServerSpringConfig appConfig;
+
+	// The preferred strategy runs here, so a slow LLM can be abandoned at the budget
+	private final ExecutorService predictionExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+	@PreDestroy
+	public void shutdown() {
+		predictionExecutor.shutdownNow();
+	}
+
+	@Override
+	public EDegradation getSkipDegradation() {
+		return EDegradation.AI_SKIPPED;
+	}
+
 	@Override
 	public void execute(PipelineContext ctx) throws Exception {
+		if (ctx.getAiPolicy() == EAiPolicy.OFF) {
+			ctx.addWarning("AI Skipped: disabled by profile " + ctx.getProfile().getName() + ".");
+			return;
+		}
+
 		ctx.log("AI Classification...");
 
 		DigestResultMessage result = ctx.getAiResult();
@@ -32,12 +75,16 @@ public class AiPredictionStep implements PipelineStep {
 		result.setSha256(ctx.getHash());
 		result.setMimeType(ctx.getMimeType());
 
-		String text = ctx.getExtractedText();
+		String text = ctx.readExtractedText(appConfig.getProcessing().getPredictionTextLimit());
 		String filename = ctx.getDisplayFilename();
 
 		if (text != null && !text.isBlank()) {
 			try {
-				predictionService.predictMetadata(text, filename, result);
+				if (ctx.getAiPolicy() == EAiPolicy.HEURISTIC) {
+					predictionService.predictMetadata(text, filename, result, HEURISTIC_STRATEGY);
+				} else {
+					predictWithinBudget(ctx, text, filename, result);
+				}
 
 				if (result.getPrediction() != null) {
 					ctx.getCurrentState().setPrediction(result.getPrediction());
@@ -50,4 +97,70 @@ public class AiPredictionStep implements PipelineStep {
 			ctx.addWarning("AI Skipped: No text.");
 		}
 	}
+
+	/**
+	 * Runs the preferred strategy as long as the budget allows and falls back
+	 * to the heuristic if too little budget is left or the strategy does not
+	 * answer in time.
+	 */
+	private void predictWithinBudget(PipelineContext ctx, String text, String filename, DigestResultMessage result)
+			throws Exception {
+		ProcessingBudget budget = ctx.getBudget();
+		long reserve = appConfig.getProcessing().getBudget().getAiReserve().toMillis();
+		long remaining = budget.remainingMillis();
+
+		if (remaining < reserve) {
+			ctx.degrade(EDegradation.AI_HEURISTIC,
+					"AI: only " + remaining / 1000 + "s budget left, using heuristic prediction.");
+			predictionService.predictMetadata(text, filename, result, HEURISTIC_STRATEGY);
+			return;
+		}
+
+		// Separate result: an abandoned call must not write into the real one.
+		// Starts from a copy of the prediction, which already holds the mail
+		// date and sender/recipient from metadata extraction.
+		DigestResultMessage attempt = new DigestResultMessage();
+		attempt.setSha256(result.getSha256());
+		attempt.setMimeType(result.getMimeType());
+		attempt.setPrediction(copyOf(result.getPrediction()));
+
+		Future<?> future = predictionExecutor.submit(() -> {
+			predictionService.predictMetadata(text, filename, attempt);
+			return null;
+		});
+		try {
+			if (remaining == Long.MAX_VALUE)
+				future.get();
+			else
+				future.get(remaining, TimeUnit.MILLISECONDS);
+			result.setPrediction(attempt.getPrediction());
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			log.warn("Prediction for {} exceeded the budget, falling back to heuristic", ctx.getHash());
+			ctx.degrade(EDegradation.AI_HEURISTIC, "AI: prediction exceeded the budget, using heuristic prediction.");
+			predictionService.predictMetadata(text, filename, result, HEURISTIC_STRATEGY);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception cause)
+				throw cause;
+			throw e;
+		}
+	}
+
+	private static Prediction copyOf(Prediction source) {
+		Prediction copy = new Prediction();
+		if (source == null)
+			return copy;
+		copy.setKind(source.getKind());
+		copy.setContext(source.getContext());
+		copy.setDocumentDate(source.getDocumentDate());
+		copy.setSummary(source.getSummary());
+		copy.setConfidence(source.getConfidence());
+		copy.setStrategyId(source.getStrategyId());
+		copy.setManuallyAssigned(source.getManuallyAssigned());
+		if (source.getFieldConfidences() != null)
+			copy.setFieldConfidences(new LinkedHashMap<>(source.getFieldConfidences()));
+		if (source.getAttributes() != null)
+			copy.setAttributes(new HashMap<>(source.getAttributes()));
+		return copy;
+	}
 }
@@ -7,23 +7,26 @@
  */
 package net.schwehla.matrosdms.service.pipeline.steps;
 
-import java.util.HashMap;
+import java.nio.file.Files;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
-import net.schwehla.matrosdms.domain.inbox.Prediction;
+import net.schwehla.matrosdms.domain.inbox.EAiPolicy;
+import net.schwehla.matrosdms.domain.inbox.EDegradation;
+import net.schwehla.matrosdms.entity.converter.FloatVectorConverter;
 import net.schwehla.matrosdms.service.EmbeddingService;
+import net.schwehla.matrosdms.service.InboxPipelineService;
 import net.schwehla.matrosdms.service.pipeline.PipelineContext;
 import net.schwehla.matrosdms.service.pipeline.PipelineStep;
 
 /**
- * Generates semantic embeddings for vector search (pgvector).
- * Disabled by default - enable when vector DB is configured.
+ * Generates the semantic embedding for vector search. The vector is written
+ * to the job directory and stored with the item on ingestion.
+ * Disabled by default - enable when an embedding model is configured.
  * 
  * Enable via: matros.ai.embedding.enabled=true
  */
@@ -33,18 +36,24 @@ public class EmbeddingStep implements PipelineStep {
 
 	private static final Logger log = LoggerFactory.getLogger(EmbeddingStep.class);
 
-	@Value("${matros.ai.embedding.enabled:false}")
-	private boolean embeddingEnabled;
-
 	@Autowired
 	EmbeddingService embeddingService;
 
+	@Override
+	public EDegradation getSkipDegradation() {
+		return EDegradation.EMBEDDING_SKIPPED;
+	}
+
 	@Override
 	public void execute(PipelineContext ctx) throws Exception {
-		if (!embeddingEnabled) {
+		if (!embeddingService.isEnabled()) {
 			log.debug("Embedding step skipped (disabled)");
 			return;
 		}
+		if (ctx.getAiPolicy() != EAiPolicy.DEFAULT) {
+			log.debug("Embedding step skipped (AI policy {})", ctx.getAiPolicy());
+			return;
+		}
 
 		StringBuilder prompt = new StringBuilder();
 
@@ -53,21 +62,15 @@ public class EmbeddingStep implements PipelineStep {
 			prompt.append(ctx.getAiResult().getPrediction().getSummary()).append(" ");
 		}
 
-		String text = ctx.getExtractedText();
-		if (text != null) {
-			prompt.append(text.substring(0, Math.min(text.length(), 2000)));
-		}
+		prompt.append(ctx.readExtractedText(2000));
 
 		if (prompt.length() > 0) {
 			ctx.log("Generating Semantic Vector...");
 			float[] vector = embeddingService.generateEmbedding(prompt.toString());
 
-			if (ctx.getAiResult() != null && vector != null) {
-				Prediction p = ctx.getAiResult().getPrediction();
-				if (p.getAttributes() == null) {
-					p.setAttributes(new HashMap<>());
-				}
-				p.getAttributes().put("_vector", vector);
+			if (vector != null) {
+				Files.write(ctx.getWorkingDir().resolve(InboxPipelineService.EMBEDDING_FILE),
+						new FloatVectorConverter().convertToDatabaseColumn(vector));
 				log.info("Generated embedding with {} dimensions", vector.length);
 			}
 		}
@@ -32,6 +32,12 @@ public class SignatureAnalysisStep implements PipelineStep {
 
 	@Override
 	public void execute(PipelineContext ctx) throws Exception {
+		// Already detected for profile selection
+		if (ctx.getMimeType() != null) {
+			log.debug("MIME already known for {}: {}", ctx.getHash(), ctx.getMimeType());
+			return;
+		}
+
 		ctx.log("Analyzing file signature...");
 
 		// 1. Try Magic Bytes (Instant)
@@ -8,9 +8,14 @@
 package net.schwehla.matrosdms.service.pipeline.steps;
 
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 
 import org.apache.james.mime4j.dom.BinaryBody;
@@ -26,15 +31,21 @@ import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.domain.inbox.EDegradation;
+import net.schwehla.matrosdms.domain.inbox.EOcrPolicy;
 import net.schwehla.matrosdms.domain.inbox.EmailMetadata;
 import net.schwehla.matrosdms.service.PdfConversionService;
 import net.schwehla.matrosdms.service.PdfConversionService.AnalysisResult;
 import net.schwehla.matrosdms.service.PdfConversionService.ConversionResult;
 import net.schwehla.matrosdms.service.PdfTextExtractor;
 import net.schwehla.matrosdms.service.TikaService;
+import net.schwehla.matrosdms.service.ocr.ImagePreprocessor;
+import net.schwehla.matrosdms.service.pipeline.BudgetExceededException;
+import net.schwehla.matrosdms.service.pipeline.DeferredOcrRequest;
 import net.schwehla.matrosdms.service.pipeline.PipelineContext;
 import net.schwehla.matrosdms.service.pipeline.PipelineStep;
-import net.schwehla.matrosdms.util.TextLayerBuilder;
+import net.schwehla.matrosdms.service.pipeline.ProcessingBudget;
+import net.schwehla.matrosdms.util.TextLayerWriter;
 
 @Component
 @Order(4)
@@ -50,6 +61,8 @@ public class TextExtractionStep implements PipelineStep {
 	PdfTextExtractor pdfTextExtractor;
 	@Autowired
 	AppServerSpringConfig appConfig;
+	@Autowired
+	ImagePreprocessor imagePreprocessor;
 
 	@Override
 	public void execute(PipelineContext ctx) throws Exception {
@@ -61,10 +74,10 @@ public class TextExtractionStep implements PipelineStep {
 		}
 
 		String extension = ctx.getExtension() != null ? ctx.getExtension().toLowerCase() : "";
-		String finalXml = "";
+		Path layerFile = ctx.getWorkingDir().resolve("textlayer.txt");
 
 		if (originalFilename.toLowerCase().endsWith(".eml") || ".eml".equals(extension)) {
-			finalXml = extractEmailContent(ctx, originalFilename);
+			extractEmailContent(ctx, originalFilename, layerFile);
 			ctx.setMimeType("message/rfc822");
 			ctx.setExtension(".eml");
 			ctx.setProcessedFile(ctx.getOriginalFile());
@@ -81,92 +94,161 @@ public class TextExtractionStep implements PipelineStep {
 			ctx.setExtension(res.extension());
 			ctx.setMimeType(res.mimeType());
 
-			String rawText = "";
-			boolean isPdf = "application/pdf".equals(res.mimeType());
+			// Text is streamed straight into the layer file, never held as a whole
+			try (TextLayerWriter layer = new TextLayerWriter(layerFile, "FILE")) {
+				layer.addMeta("filename", originalFilename);
+				layer.addMeta("processed_date", LocalDate.now().toString());
+				layer.closeMeta();
 
-			// 1. Smart PDF Inspection (Replaces the dumb > 50 chars shortcut)
-			if (isPdf && appConfig.getProcessing().isPreferScannerText()) {
-				ctx.log("Inspecting PDF text layer density...");
-				AnalysisResult analysis = conversionService.inspectPdf(res.path());
+				// Stops the extractors cooperatively once the budget is used up
+				layer.setCheckpoint(ctx.getBudget()::checkText);
 
-				if (!analysis.needsOcr()) {
-					rawText = analysis.extractedText();
-					ctx.log(String.format("Good text layer found (%d chars, %d pages). Skipping OCR.",
-							rawText.length(), analysis.pageCount()));
-				} else {
-					ctx.log(String.format("Insufficient text layer (%d chars, %d pages). Forcing Tika/OCR.",
-							analysis.extractedText().length(), analysis.pageCount()));
+				try (Writer content = layer.openContent(res.mimeType())) {
+					extractFile(ctx, res, layer, content);
+				} catch (BudgetExceededException e) {
+					// Partial text stays in the layer
 				}
-			}
 
-			if ("text/plain".equals(res.mimeType())) {
-				ctx.log("Reading plain text file directly...");
-				try {
-					rawText = Files.readString(res.path(), StandardCharsets.UTF_8);
-				} catch (Exception e) {
-					log.warn("Failed to read text file as UTF-8, falling back to Tika");
+				if (ctx.getBudget().getExceededReason() != null) {
+					degrade(ctx, res, originalFilename, layer.getContentLength());
 				}
-			}
 
-			// 2. Fallback to full Tika OCR if the smart inspector flagged needsOcr = true
-			if (rawText == null || rawText.isBlank()) {
-				ctx.log("Performing full text extraction / OCR...");
-				rawText = tikaService.extractText(res.path());
+				if (!layer.hasContent()) {
+					ctx.addWarning("No text or OCR content could be extracted.");
+				} else {
+					log.info("Extracted {} characters from {}", layer.getContentLength(), originalFilename);
+				}
 			}
+		}
+
+		ctx.setTextLayer(layerFile);
+	}
+
+	private void extractFile(PipelineContext ctx, ConversionResult res, TextLayerWriter layer, Writer content)
+		throws IOException {
+		boolean isPdf = "application/pdf".equals(res.mimeType());
+		EOcrPolicy ocr = ctx.getOcrPolicy();
+
+		if (isPdf && ocr == EOcrPolicy.TRUST_TEXT_LAYER) {
+			// Born-digital source: no density inspection, OCR only if there is no text at all
+			pdfTextExtractor.writeText(res.path(), content);
+			ctx.log(String.format("Trusted text layer (%d chars).", layer.getContentLength()));
 
-			if (rawText == null || rawText.isBlank()) {
-				ctx.addWarning("No text or OCR content could be extracted.");
-				rawText = "";
+		// 1. Smart PDF Inspection (Replaces the dumb > 50 chars shortcut)
+		} else if (isPdf && ocr == EOcrPolicy.AUTO && appConfig.getProcessing().isPreferScannerText()) {
+			ctx.log("Inspecting PDF text layer density...");
+			// A good text layer is streamed page by page by the inspection itself
+			AnalysisResult analysis = conversionService.inspectPdf(res.path(), content);
+			ctx.setPdfAnalysis(analysis);
+
+			if (!analysis.needsOcr()) {
+				ctx.log(String.format("Good text layer found (%d chars, %d pages). Skipping OCR.",
+						layer.getContentLength(), analysis.pageCount()));
+			} else if (imagePreprocessor.isEnabled()) {
+				// Rendered pages instead of Tika, whose PDF shortcut would return the thin text layer
+				ctx.log(String.format("Insufficient text layer (%d chars, %d pages). OCR of normalized pages...",
+						analysis.extractedText().length(), analysis.pageCount()));
+				ctx.getBudget().checkpoint();
+				tikaService.ocrPdf(res.path(), content);
 			} else {
-				log.info("Extracted {} characters from {}", rawText.length(), originalFilename);
+				ctx.log(String.format("Insufficient text layer (%d chars, %d pages). Forcing Tika/OCR.",
+						analysis.extractedText().length(), analysis.pageCount()));
 			}
+		}
 
-			TextLayerBuilder builder = new TextLayerBuilder("FILE");
-			builder.addMeta("filename", originalFilename);
-			builder.addMeta("processed_date", LocalDate.now().toString());
-			builder.closeMeta();
-			builder.addContent(rawText, res.mimeType());
-			finalXml = builder.toString();
+		if ("text/plain".equals(res.mimeType())) {
+			ctx.log("Reading plain text file directly...");
+			if (isValidUtf8(res.path())) {
+				try (Reader reader = Files.newBufferedReader(res.path(), StandardCharsets.UTF_8)) {
+					reader.transferTo(content);
+				}
+			} else {
+				log.warn("Failed to read text file as UTF-8, falling back to Tika");
+			}
 		}
 
-		ctx.setExtractedText(finalXml);
-		Files.writeString(
-				ctx.getWorkingDir().resolve("textlayer.txt"), finalXml, StandardCharsets.UTF_8);
+		// 2. Fallback to full Tika OCR if the smart inspector flagged needsOcr = true
+		if (!layer.hasContent()) {
+			ctx.getBudget().checkpoint();
+			ctx.log(ocr == EOcrPolicy.NEVER ? "Performing full text extraction (OCR disabled)..."
+					: "Performing full text extraction / OCR...");
+			tikaService.extractText(res.path(), content, ocr);
+		}
 	}
 
-	private String extractEmailContent(PipelineContext ctx, String originalFilename) throws Exception {
-		TextLayerBuilder xml = new TextLayerBuilder("EMAIL");
-		EmailMetadata meta = ctx.getAiResult().getEmailMetadata();
+	/**
+	 * The budget ran out while extracting: keep the partial text and, for time
+	 * budgets, extract everything later in a background job.
+	 */
+	private void degrade(PipelineContext ctx, ConversionResult res, String originalFilename, long chars) {
+		ProcessingBudget budget = ctx.getBudget();
+		ctx.degrade(EDegradation.TEXT_PARTIAL,
+				String.format("Text extraction stopped: %s (%d characters kept).", budget.getExceededReason(), chars));
 
-		xml.addMeta("filename", originalFilename);
-		xml.addMeta("processed_date", LocalDate.now().toString());
-		if (meta != null) {
-			xml.addMeta("subject", meta.getSubject());
-			xml.addMeta("sender", meta.getSender());
+		// A text budget would be exceeded again, and NEVER forbids the OCR
+		if (!budget.isTextExceeded() && ctx.getOcrPolicy() != EOcrPolicy.NEVER
+				&& appConfig.getProcessing().getBudget().isDeferOcr()) {
+			ctx.setDeferredOcr(new DeferredOcrRequest(ctx.getHash(), res.extension(), originalFilename,
+					res.mimeType(), ctx.getOcrPolicy()));
+			ctx.degrade(EDegradation.OCR_DEFERRED, "Full text extraction scheduled in background.");
 		}
-		xml.closeMeta();
-
-		if (meta != null) {
-			StringBuilder header = new StringBuilder();
-			header.append("Subject: ").append(meta.getSubject()).append("\n");
-			header.append("From: ").append(meta.getSender()).append("\n");
-			if (meta.getRecipients() != null && !meta.getRecipients().isEmpty()) {
-				header.append("To: ").append(String.join(", ", meta.getRecipients())).append("\n");
+	}
+
+	/**
+	 * Decodes the file once without keeping it, so a charset problem is found
+	 * before anything has been written to the layer.
+	 */
+	private boolean isValidUtf8(Path file) {
+		try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			char[] buf = new char[8192];
+			while (reader.read(buf) != -1) {
+				// decode only
 			}
-			header.append("Date: ").append(meta.getSentDate()).append("\n");
-			header.append("--------------------------------------------------\n");
-			xml.addContent(header.toString(), "text/plain");
+			return true;
+		} catch (IOException e) {
+			return false;
 		}
+	}
 
-		DefaultMessageBuilder builder = new DefaultMessageBuilder();
-		try (InputStream is = new FileInputStream(ctx.getOriginalFile().toFile())) {
-			Message message = builder.parseMessage(is);
-			extractRecursive(message, xml, ctx);
+	private void extractEmailContent(PipelineContext ctx, String originalFilename, Path layerFile) throws Exception {
+		EmailMetadata meta = ctx.getAiResult().getEmailMetadata();
+
+		try (TextLayerWriter xml = new TextLayerWriter(layerFile, "EMAIL")) {
+			xml.addMeta("filename", originalFilename);
+			xml.addMeta("processed_date", LocalDate.now().toString());
+			if (meta != null) {
+				xml.addMeta("subject", meta.getSubject());
+				xml.addMeta("sender", meta.getSender());
+			}
+			xml.closeMeta();
+			xml.setCheckpoint(ctx.getBudget()::checkText);
+
+			if (meta != null) {
+				StringBuilder header = new StringBuilder();
+				header.append("Subject: ").append(meta.getSubject()).append("\n");
+				header.append("From: ").append(meta.getSender()).append("\n");
+				if (meta.getRecipients() != null && !meta.getRecipients().isEmpty()) {
+					header.append("To: ").append(String.join(", ", meta.getRecipients())).append("\n");
+				}
+				header.append("Date: ").append(meta.getSentDate()).append("\n");
+				header.append("--------------------------------------------------\n");
+				xml.addContent(header.toString(), "text/plain");
+			}
+
+			DefaultMessageBuilder builder = new DefaultMessageBuilder();
+			try (InputStream is = new FileInputStream(ctx.getOriginalFile().toFile())) {
+				Message message = builder.parseMessage(is);
+				extractRecursive(message, xml, ctx);
+			}
+
+			if (ctx.getBudget().getExceededReason() != null) {
+				ctx.degrade(EDegradation.TEXT_PARTIAL, String.format("Email text extraction stopped: %s (%d characters kept).",
+						ctx.getBudget().getExceededReason(), xml.getContentLength()));
+			}
 		}
-		return xml.toString();
 	}
 
-	private void extractRecursive(Entity entity, TextLayerBuilder xml, PipelineContext ctx) {
+	private void extractRecursive(Entity entity, TextLayerWriter xml, PipelineContext ctx) {
 		try {
 			if (entity.getBody() instanceof Multipart) {
 				Multipart mp = (Multipart) entity.getBody();
@@ -174,11 +256,15 @@ public class TextExtractionStep implements PipelineStep {
 					extractRecursive(part, xml, ctx);
 			} else if (entity.getBody() instanceof TextBody) {
 				TextBody tb = (TextBody) entity.getBody();
-				String text = new String(tb.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
 				if (entity.getMimeType().contains("html")) {
+					String text = new String(tb.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
 					text = text.replaceAll("<[^>]*>", " ").replaceAll("\\s+", " ").trim();
+					xml.addContent(text, entity.getMimeType());
+				} else {
+					try (Reader reader = new InputStreamReader(tb.getInputStream(), StandardCharsets.UTF_8)) {
+						xml.addContent(reader, entity.getMimeType());
+					}
 				}
-				xml.addContent(text, entity.getMimeType());
 			} else if (entity.getBody() instanceof BinaryBody) {
 				String fname = entity.getFilename();
 				if (fname == null)
@@ -189,11 +275,9 @@ public class TextExtractionStep implements PipelineStep {
 				}
 
 				BinaryBody bb = (BinaryBody) entity.getBody();
-				try (InputStream stream = bb.getInputStream()) {
-					String extracted = tikaService.extractText(stream);
-					if (extracted != null && !extracted.isBlank()) {
-						xml.addAttachment(fname, extracted);
-					}
+				try (InputStream stream = bb.getInputStream();
+						Writer attachment = xml.openAttachment(fname)) {
+					tikaService.extractText(stream, attachment, ctx.getOcrPolicy() != EOcrPolicy.NEVER);
 				} catch (Exception e) {
 					ctx.addWarning("Attachment extraction failed: " + fname);
 				}
@@ -202,4 +286,4 @@ public class TextExtractionStep implements PipelineStep {
 			/* log */
 		}
 	}
-}
\ No newline at end of file
+}
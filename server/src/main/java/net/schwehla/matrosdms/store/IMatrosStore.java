@@ -7,9 +7,11 @@
  */
 package net.schwehla.matrosdms.store;
 
+import java.io.InputStream;
 import java.nio.file.Path;
 
 import net.schwehla.matrosdms.domain.content.MDocumentStream;
+import net.schwehla.matrosdms.util.TextLayerPageIndex;
 
 /**
  * Interface for document storage operations.
@@ -42,13 +44,63 @@ public interface IMatrosStore {
 	MDocumentStream loadStream(String uuid);
 
 	/**
-	 * Loads the text layer for a document.
+	 * Opens the (decrypted) text layer of a document as a stream.
+	 * The caller is responsible for closing the stream.
 	 * 
 	 * @param uuid
 	 *            Document UUID
-	 * @return Extracted text content
+	 * @return Text layer stream, or null if the document has no text layer
 	 */
-	String loadTextLayer(String uuid);
+	InputStream openTextLayer(String uuid);
+
+	/**
+	 * Loads the page offset table of the text layer. Layers stored before the
+	 * table existed are indexed on first access and the table is persisted
+	 * (lazy migration).
+	 * 
+	 * @param uuid
+	 *            Document UUID
+	 * @return Page index, or null if the document has no text layer
+	 */
+	TextLayerPageIndex loadTextLayerIndex(String uuid);
+
+	/**
+	 * Identifies the current text layer file; changes whenever the layer is
+	 * replaced. A page index with another stamp describes a different layer.
+	 * 
+	 * @param uuid
+	 *            Document UUID
+	 * @return Stamp, or null if the document has no text layer
+	 */
+	String getTextLayerStamp(String uuid);
+
+	/**
+	 * Opens a byte range of the (decrypted) text layer, as described by
+	 * {@link TextLayerPageIndex}. The caller is responsible for closing the
+	 * stream. The file is opened before the method returns, so comparing
+	 * {@link #getTextLayerStamp(String)} afterwards tells whether the range
+	 * was read from the layer the index belongs to.
+	 * 
+	 * @param uuid
+	 *            Document UUID
+	 * @param offset
+	 *            Offset in the plain layer
+	 * @param length
+	 *            Number of bytes
+	 * @return Range stream, or null if the document has no text layer
+	 */
+	InputStream openTextLayerRange(String uuid, long offset, long length);
+
+	/**
+	 * Replaces the text layer of a stored document (e.g. after a deferred full
+	 * OCR run) and rebuilds its page index.
+	 * 
+	 * @param uuid
+	 *            Document UUID
+	 * @param textFile
+	 *            New plain text layer
+	 */
+	void replaceTextLayer(String uuid, Path textFile);
 
 	/**
 	 * Moves a document to trash.
@@ -8,12 +8,15 @@
 package net.schwehla.matrosdms.store;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
 
 import jakarta.annotation.PostConstruct;
 
@@ -34,6 +37,7 @@ import net.schwehla.matrosdms.store.path.StoragePathService;
 import net.schwehla.matrosdms.store.service.TrashService;
 import net.schwehla.matrosdms.store.util.FileExtensionService;
 import net.schwehla.matrosdms.store.util.FileHashService;
+import net.schwehla.matrosdms.util.TextLayerPageIndex;
 
 /**
  * Local filesystem implementation of document storage.
@@ -45,6 +49,9 @@ public class MatrosLocalStore implements IMatrosStore {
 
 	private static final Logger log = LoggerFactory.getLogger(MatrosLocalStore.class);
 
+	// Contains ".txt" so that StoragePathService and AdminService skip it like the layer itself
+	private static final String PAGE_INDEX_SUFFIX = ".pages.txt";
+
 	private final AppServerSpringConfig config;
 	private final EncryptionConfig encryptionConfig;
 	private final EncryptionService encryptionService;
@@ -125,6 +132,11 @@ public class MatrosLocalStore implements IMatrosStore {
 				} else {
 					Files.copy(textFile, sidecarText, StandardCopyOption.REPLACE_EXISTING);
 				}
+
+				// Page offset table, taken from the plain layer before it is gone
+				try (InputStream plain = Files.newInputStream(textFile)) {
+					storePageIndex(uuid, TextLayerPageIndex.scan(plain).withLayerStamp(layerStamp(sidecarText)));
+				}
 			}
 
 			log.info("✓ Document stored: uuid={}, hash={}, encrypted={}",
@@ -168,27 +180,158 @@ public class MatrosLocalStore implements IMatrosStore {
 	}
 
 	@Override
-	public String loadTextLayer(String uuid) {
-		log.debug("Loading text layer: uuid={}", uuid);
+	public InputStream openTextLayer(String uuid) {
+		log.debug("Opening text layer: uuid={}", uuid);
 
 		String encSuffix = encryptionConfig.getEncryptedFileSuffix();
 		Path textFile = pathService.resolveFilePath(rootFolder, uuid, ".txt" + encSuffix);
 
 		if (!Files.exists(textFile)) {
 			log.debug("No text layer found for {}", uuid);
-			return "";
+			return null;
 		}
 
 		try {
 			if (encryptionConfig.isEncryptionEnabled()) {
 				byte[] key = encryptionConfig.getEncryptionKey();
-				return encryptionService.decryptTextFile(textFile, key);
+				return encryptionService.decryptFile(textFile, key);
 			} else {
-				return Files.readString(textFile, StandardCharsets.UTF_8);
+				return new BufferedInputStream(Files.newInputStream(textFile));
+			}
+		} catch (IOException e) {
+			log.error("Failed to open text layer for {}", uuid, e);
+			return null;
+		}
+	}
+
+	@Override
+	public TextLayerPageIndex loadTextLayerIndex(String uuid) {
+		String encSuffix = encryptionConfig.getEncryptedFileSuffix();
+		Path indexFile = pathService.resolveFilePath(rootFolder, uuid, PAGE_INDEX_SUFFIX + encSuffix);
+
+		String stamp = getTextLayerStamp(uuid);
+		if (stamp == null) {
+			return null;
+		}
+
+		if (Files.exists(indexFile)) {
+			try (InputStream is = encryptionConfig.isEncryptionEnabled()
+					? encryptionService.decryptFile(indexFile, encryptionConfig.getEncryptionKey())
+					: Files.newInputStream(indexFile)) {
+				TextLayerPageIndex index = TextLayerPageIndex.read(is);
+				if (stamp.equals(index.getLayerStamp())) {
+					return index;
+				}
+				// Layer replaced after the table was written (or table from before stamps)
+				log.debug("Page index of {} is stale, rebuilding", uuid);
+			} catch (Exception e) {
+				log.warn("Page index of {} unreadable, rebuilding: {}", uuid, e.getMessage());
+			}
+		}
+
+		// Lazy migration: layers stored before page indexes existed. The stamp
+		// is taken before opening, a layer replaced meanwhile is caught as stale.
+		try (InputStream layer = openTextLayer(uuid)) {
+			if (layer == null) {
+				return null;
+			}
+			TextLayerPageIndex index = TextLayerPageIndex.scan(layer).withLayerStamp(stamp);
+			storePageIndex(uuid, index);
+			log.info("Page index built for {} ({} pages)", uuid, index.getPageCount());
+			return index;
+		} catch (IOException e) {
+			log.error("Failed to index text layer for {}", uuid, e);
+			return null;
+		}
+	}
+
+	@Override
+	public InputStream openTextLayerRange(String uuid, long offset, long length) {
+		String encSuffix = encryptionConfig.getEncryptedFileSuffix();
+		Path textFile = pathService.resolveFilePath(rootFolder, uuid, ".txt" + encSuffix);
+
+		if (!Files.exists(textFile)) {
+			return null;
+		}
+
+		try {
+			if (encryptionConfig.isEncryptionEnabled()) {
+				byte[] key = encryptionConfig.getEncryptionKey();
+				return encryptionService.decryptRange(textFile, key, offset, length);
+			} else {
+				return encryptionService.openRange(textFile, offset, length);
+			}
+		} catch (IOException e) {
+			log.error("Failed to open text layer range for {}", uuid, e);
+			return null;
+		}
+	}
+
+	@Override
+	public String getTextLayerStamp(String uuid) {
+		String encSuffix = encryptionConfig.getEncryptedFileSuffix();
+		try {
+			return layerStamp(pathService.resolveFilePath(rootFolder, uuid, ".txt" + encSuffix));
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			log.warn("Text layer of {} not accessible: {}", uuid, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Size, modification time and file key (inode) of the layer file. Every
+	 * replacement moves a new file into place, so the file key alone changes;
+	 * size and time cover file systems without file keys.
+	 */
+	private static String layerStamp(Path layerFile) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(layerFile, BasicFileAttributes.class);
+		return attributes.size() + "." + attributes.lastModifiedTime().toMillis() + "."
+				+ Integer.toHexString(Objects.hashCode(attributes.fileKey()));
+	}
+
+	private void storePageIndex(String uuid, TextLayerPageIndex index) throws IOException {
+		String encSuffix = encryptionConfig.getEncryptedFileSuffix();
+		Path indexFile = pathService.resolveFilePath(rootFolder, uuid, PAGE_INDEX_SUFFIX + encSuffix);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		index.write(bytes);
+
+		// Written to a temp file and moved, concurrent lazy migrations must not see half a table
+		Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+		if (encryptionConfig.isEncryptionEnabled()) {
+			encryptionService.encryptBytes(bytes.toByteArray(), tmp, encryptionConfig.getEncryptionKey());
+		} else {
+			Files.write(tmp, bytes.toByteArray());
+		}
+		Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	@Override
+	public void replaceTextLayer(String uuid, Path textFile) {
+		log.debug("Replacing text layer: uuid={}", uuid);
+
+		String encSuffix = encryptionConfig.getEncryptedFileSuffix();
+		Path sidecarText = pathService.resolveFilePath(rootFolder, uuid, ".txt" + encSuffix);
+		Path tmp = sidecarText.resolveSibling(sidecarText.getFileName() + ".tmp");
+
+		try {
+			// Readers keep seeing the old layer until the move
+			if (encryptionConfig.isEncryptionEnabled()) {
+				encryptionService.encryptFile(textFile, tmp, encryptionConfig.getEncryptionKey());
+			} else {
+				Files.copy(textFile, tmp, StandardCopyOption.REPLACE_EXISTING);
+			}
+			Files.move(tmp, sidecarText, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+			// Until the table is replaced its stamp no longer matches; readers
+			// rescan the new layer instead of applying the old offsets to it
+			try (InputStream plain = Files.newInputStream(textFile)) {
+				storePageIndex(uuid, TextLayerPageIndex.scan(plain).withLayerStamp(layerStamp(sidecarText)));
 			}
 		} catch (IOException e) {
-			log.error("Failed to read text layer for {}", uuid, e);
-			return "";
+			throw new MatrosServiceException("Failed to replace text layer: " + uuid, e);
 		}
 	}
 
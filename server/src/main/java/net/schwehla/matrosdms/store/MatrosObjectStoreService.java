@@ -7,12 +7,14 @@
  */
 package net.schwehla.matrosdms.store;
 
+import java.io.InputStream;
 import java.nio.file.Path;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import net.schwehla.matrosdms.domain.content.MDocumentStream;
+import net.schwehla.matrosdms.util.TextLayerPageIndex;
 
 @Service
 public class MatrosObjectStoreService {
@@ -28,8 +30,24 @@ public class MatrosObjectStoreService {
 		return store.loadStream(uuid);
 	}
 
-	public String loadTextLayer(String uuid) {
-		return store.loadTextLayer(uuid);
+	public InputStream openTextLayer(String uuid) {
+		return store.openTextLayer(uuid);
+	}
+
+	public TextLayerPageIndex loadTextLayerIndex(String uuid) {
+		return store.loadTextLayerIndex(uuid);
+	}
+
+	public String getTextLayerStamp(String uuid) {
+		return store.getTextLayerStamp(uuid);
+	}
+
+	public InputStream openTextLayerRange(String uuid, long offset, long length) {
+		return store.openTextLayerRange(uuid, offset, length);
+	}
+
+	public void replaceTextLayer(String uuid, Path textFile) {
+		store.replaceTextLayer(uuid, textFile);
 	}
 
 	public void moveToTrash(String uuid) {
@@ -7,6 +7,8 @@
  */
 package net.schwehla.matrosdms.store;
 
+import java.io.InputStream;
+
 import jakarta.annotation.PostConstruct;
 
 import org.springframework.stereotype.Component;
@@ -33,17 +35,17 @@ public class StoreContext {
 	}
 
 	/**
-	 * Reads a text file for the given UUID.
+	 * Opens the text layer for the given UUID.
 	 * Used by Hibernate Search ItemTextBridge for indexing.
 	 * 
 	 * @param uuid
 	 *            Document UUID
-	 * @return Text content, or empty string if not found
+	 * @return Decrypted text layer stream, or null if not found
 	 */
-	public static String readTextFile(String uuid) {
+	public static InputStream openTextFile(String uuid) {
 		if (store == null) {
-			return "";
+			return null;
 		}
-		return store.loadTextLayer(uuid);
+		return store.openTextLayer(uuid);
 	}
-}
\ No newline at end of file
+}
@@ -9,20 +9,27 @@ package net.schwehla.matrosdms.store.encryption;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.SecureRandom;
+import java.security.Security;
 
 import javax.crypto.Cipher;
 import javax.crypto.CipherInputStream;
 import javax.crypto.CipherOutputStream;
 import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -40,10 +47,12 @@ public class EncryptionService {
 
 	private static final String AES_ALGORITHM = "AES";
 	private static final String CIPHER_ALGORITHM = "AES/GCM/NoPadding";
+	private static final String CTR_ALGORITHM = "AES/CTR/NoPadding";
 
 	private static final int IV_LENGTH = 12; // GCM standard
 	private static final int TAG_LENGTH_BIT = 128;
 	private static final int BUFFER_SIZE = 8192;
+	private static final int AES_BLOCK = 16;
 
 	private final SecureRandom secureRandom;
 
@@ -92,6 +101,11 @@ public class EncryptionService {
 	 * Decrypts a file using AES-256-GCM and returns an input stream.
 	 * The caller is responsible for closing the stream.
 	 * 
+	 * Uses the BouncyCastle provider when registered: SunJCE buffers the whole
+	 * ciphertext in GCM decrypt mode until the tag is verified, which makes
+	 * memory grow with the file size. BouncyCastle streams and fails on read
+	 * at the end if the tag does not match.
+	 * 
 	 * @param encryptedFile
 	 *            Encrypted source file
 	 * @param key
@@ -113,7 +127,9 @@ public class EncryptionService {
 				throw new MatrosServiceException("Invalid encrypted file: missing or incomplete IV");
 			}
 
-			Cipher cipher = Cipher.getInstance(CIPHER_ALGORITHM);
+			Cipher cipher = Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) != null
+					? Cipher.getInstance(CIPHER_ALGORITHM, BouncyCastleProvider.PROVIDER_NAME)
+					: Cipher.getInstance(CIPHER_ALGORITHM);
 			GCMParameterSpec spec = new GCMParameterSpec(TAG_LENGTH_BIT, iv);
 			cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, AES_ALGORITHM), spec);
 
@@ -124,6 +140,75 @@ public class EncryptionService {
 		}
 	}
 
+	/**
+	 * Decrypts a byte range of the plaintext without reading the file from the
+	 * start. GCM encrypts in counter mode (counter block = IV || 2 + block
+	 * index for a 96 bit IV), so the range is decrypted with AES/CTR starting
+	 * at the right block.
+	 * 
+	 * The authentication tag covers the whole file and cannot be checked for a
+	 * slice; range reads rely on the offsets recorded at write time. Full reads
+	 * via {@link #decryptFile(Path, byte[])} remain authenticated.
+	 * 
+	 * @param encryptedFile
+	 *            Encrypted source file
+	 * @param key
+	 *            Decryption key
+	 * @param offset
+	 *            Plaintext offset of the range
+	 * @param length
+	 *            Number of plaintext bytes to read
+	 * @return InputStream for reading the decrypted range
+	 * @throws IOException
+	 *             if file operations fail
+	 */
+	public InputStream decryptRange(Path encryptedFile, byte[] key, long offset, long length) throws IOException {
+		validateKey(key);
+
+		SeekableByteChannel channel = Files.newByteChannel(encryptedFile);
+		try {
+			ByteBuffer iv = ByteBuffer.allocate(IV_LENGTH);
+			while (iv.hasRemaining() && channel.read(iv) != -1) {
+				// fill
+			}
+			if (iv.hasRemaining()) {
+				throw new MatrosServiceException("Invalid encrypted file: missing or incomplete IV");
+			}
+
+			long block = offset / AES_BLOCK;
+			int skip = (int) (offset % AES_BLOCK);
+
+			byte[] counter = new byte[AES_BLOCK];
+			System.arraycopy(iv.array(), 0, counter, 0, IV_LENGTH);
+			ByteBuffer.wrap(counter, IV_LENGTH, 4).putInt((int) (2 + block));
+
+			Cipher cipher = Cipher.getInstance(CTR_ALGORITHM);
+			cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, AES_ALGORITHM), new IvParameterSpec(counter));
+
+			channel.position(IV_LENGTH + block * AES_BLOCK);
+			InputStream raw = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE);
+			InputStream plain = new CipherInputStream(new RangeInputStream(raw, skip + length), cipher);
+			plain.skipNBytes(skip);
+			return plain;
+
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		} catch (Exception e) {
+			channel.close();
+			throw new MatrosServiceException("Decryption failed: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Opens a byte range of an unencrypted file.
+	 */
+	public InputStream openRange(Path file, long offset, long length) throws IOException {
+		SeekableByteChannel channel = Files.newByteChannel(file);
+		channel.position(offset);
+		return new RangeInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE), length);
+	}
+
 	/**
 	 * Decrypts a text file and returns the content as a string.
 	 * 
@@ -220,6 +305,54 @@ public class EncryptionService {
 		return iv;
 	}
 
+	/** Reads at most {@code remaining} bytes from the wrapped stream. */
+	private static class RangeInputStream extends FilterInputStream {
+
+		private long remaining;
+
+		RangeInputStream(InputStream in, long length) {
+			super(in);
+			this.remaining = length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (remaining <= 0)
+				return -1;
+			int b = super.read();
+			if (b != -1)
+				remaining--;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (remaining <= 0)
+				return -1;
+			int n = super.read(b, off, (int) Math.min(len, remaining));
+			if (n > 0)
+				remaining -= n;
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(Math.min(n, remaining));
+			remaining -= skipped;
+			return skipped;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return (int) Math.min(super.available(), remaining);
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+
 	private void validateKey(byte[] key) {
 		if (key == null || key.length != 32) {
 			throw new IllegalArgumentException("Encryption key must be 32 bytes for AES-256");
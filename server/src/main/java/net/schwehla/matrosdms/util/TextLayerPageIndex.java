@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Page offset table of a text layer: maps page numbers to byte ranges of the
+ * (decrypted) layer file, so single pages can be read without the rest.
+ *
+ * Built by {@link #scan(InputStream)}, which walks the layer once on byte
+ * level. Layers written by {@link TextLayerWriter} have {@code <page>}
+ * elements; older layers only have sections, each of which becomes one page.
+ * Anything that is not a structured layer is a single page spanning the whole
+ * file ({@link #isFragments()} is false then).
+ *
+ * The offsets only fit the layer file they were scanned from, which the store
+ * records as {@link #getLayerStamp()}; a table whose stamp no longer matches
+ * the stored layer is stale.
+ */
+public class TextLayerPageIndex {
+
+	private static final String HEADER = "MATROS-PAGES";
+	private static final int VERSION = 2;
+	private static final String NO_STAMP = "-";
+	private static final int MAX_TAG = 1024;
+	private static final Pattern PAGE_NUMBER = Pattern.compile("\\bn\\s*=\\s*[\"'](\\d+)[\"']");
+
+	public record Page(int number, long offset, long length) {
+	}
+
+	private final List<Page> pages;
+	private final boolean fragments;
+	private final String layerStamp;
+
+	public TextLayerPageIndex(List<Page> pages, boolean fragments) {
+		this(pages, fragments, null);
+	}
+
+	public TextLayerPageIndex(List<Page> pages, boolean fragments, String layerStamp) {
+		this.pages = Collections.unmodifiableList(pages);
+		this.fragments = fragments;
+		this.layerStamp = layerStamp;
+	}
+
+	/** The same table, stamped as belonging to the given layer file. */
+	public TextLayerPageIndex withLayerStamp(String stamp) {
+		return new TextLayerPageIndex(pages, fragments, stamp);
+	}
+
+	/**
+	 * Identifies the layer file the offsets were scanned from (see
+	 * IMatrosStore#getTextLayerStamp), null for tables written before stamps.
+	 */
+	public String getLayerStamp() {
+		return layerStamp;
+	}
+
+	public List<Page> getPages() {
+		return pages;
+	}
+
+	/** Highest page number (blank pages have no entry but keep their number). */
+	public int getPageCount() {
+		return pages.isEmpty() ? 0 : pages.get(pages.size() - 1).number();
+	}
+
+	/**
+	 * True if the ranges are element slices that must be read with
+	 * {@code new TextLayerReader(reader, true)}; false for a whole-file page.
+	 */
+	public boolean isFragments() {
+		return fragments;
+	}
+
+	/** Pages with {@code from <= number <= to}, in file order. */
+	public List<Page> range(int from, int to) {
+		return pages.stream().filter(p -> p.number() >= from && p.number() <= to).toList();
+	}
+
+	// --- Persistence (small text sidecar) ---
+
+	public void write(OutputStream out) throws IOException {
+		Writer w = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+		w.write(HEADER + " " + VERSION + " " + (fragments ? 1 : 0) + " " + (layerStamp != null ? layerStamp : NO_STAMP)
+				+ "\n");
+		for (Page p : pages) {
+			w.write(p.number() + " " + p.offset() + " " + p.length() + "\n");
+		}
+		w.flush();
+	}
+
+	public static TextLayerPageIndex read(InputStream in) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		String header = reader.readLine();
+		if (header == null || !header.startsWith(HEADER + " "))
+			throw new IOException("Not a text layer page index");
+		String[] head = header.split(" ");
+		// Version 1 tables have no stamp, they count as stale
+		if (head.length < 3 || Integer.parseInt(head[1]) < 1 || Integer.parseInt(head[1]) > VERSION)
+			throw new IOException("Unsupported page index version: " + header);
+		String stamp = head.length > 3 && !NO_STAMP.equals(head[3]) ? head[3] : null;
+
+		List<Page> pages = new ArrayList<>();
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (line.isBlank())
+				continue;
+			String[] parts = line.split(" ");
+			pages.add(new Page(Integer.parseInt(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+		}
+		return new TextLayerPageIndex(pages, "1".equals(head[2]), stamp);
+	}
+
+	// --- Scanner ---
+
+	/** Builds the index from the plain layer bytes. The stream is consumed, not closed. */
+	public static TextLayerPageIndex scan(InputStream layer) throws IOException {
+		return new Scanner(layer instanceof BufferedInputStream ? layer : new BufferedInputStream(layer)).run();
+	}
+
+	/**
+	 * Byte level walk over the markup. Safe for UTF-8 because every byte of a
+	 * multi-byte sequence is >= 0x80 and never looks like markup.
+	 */
+	private static class Scanner {
+
+		private final InputStream in;
+		private long pos = 0;
+
+		private final List<Page> pages = new ArrayList<>();
+		private boolean firstElement = true;
+		private boolean structured = false;
+		private int lastNumber = 0;
+
+		private long sectionStart = -1;
+		private boolean sectionHasPages = false;
+		private long pageStart = -1;
+		private int pageNumber = 0;
+
+		Scanner(InputStream in) {
+			this.in = in;
+		}
+
+		private int next() throws IOException {
+			int b = in.read();
+			if (b != -1)
+				pos++;
+			return b;
+		}
+
+		TextLayerPageIndex run() throws IOException {
+			int b;
+			while ((b = next()) != -1) {
+				if (b != '<')
+					continue;
+				long start = pos - 1;
+				b = next();
+				if (b == '!') {
+					skipDeclaration();
+				} else if (b == '?') {
+					skipUntil("?>");
+				} else if (b != -1) {
+					readTag(b, start);
+				}
+				if (!firstElement && !structured) {
+					break;
+				}
+			}
+
+			if (!structured) {
+				// Raw text or foreign markup: one page, read as a whole
+				while (next() != -1) {
+					// count the remaining bytes
+				}
+				List<Page> whole = new ArrayList<>();
+				if (pos > 0)
+					whole.add(new Page(1, 0, pos));
+				return new TextLayerPageIndex(whole, false);
+			}
+			return new TextLayerPageIndex(pages, true);
+		}
+
+		private void readTag(int first, long start) throws IOException {
+			StringBuilder tag = new StringBuilder();
+			tag.append((char) first);
+			char quote = 0;
+			int b;
+			while ((b = next()) != -1) {
+				if (quote != 0) {
+					if (b == quote)
+						quote = 0;
+				} else if (b == '"' || b == '\'') {
+					quote = (char) b;
+				} else if (b == '>') {
+					handleTag(tag, start, pos);
+					return;
+				}
+				if (tag.length() < MAX_TAG)
+					tag.append((char) b);
+			}
+		}
+
+		private void handleTag(StringBuilder tag, long start, long end) {
+			boolean closing = tag.charAt(0) == '/';
+			boolean selfClosing = tag.charAt(tag.length() - 1) == '/';
+			int from = closing ? 1 : 0;
+			int to = from;
+			while (to < tag.length() && !Character.isWhitespace(tag.charAt(to)) && tag.charAt(to) != '/')
+				to++;
+			String name = tag.substring(from, to);
+
+			if (firstElement && !closing) {
+				firstElement = false;
+				structured = "root".equals(name);
+				return;
+			}
+
+			switch (name) {
+				case "page" -> {
+					if (closing) {
+						if (pageStart >= 0) {
+							pages.add(new Page(pageNumber, pageStart, end - pageStart));
+							sectionHasPages = true;
+						}
+						pageStart = -1;
+					} else if (!selfClosing) {
+						Matcher m = PAGE_NUMBER.matcher(tag);
+						pageNumber = m.find() ? Integer.parseInt(m.group(1)) : lastNumber + 1;
+						lastNumber = Math.max(lastNumber, pageNumber);
+						pageStart = start;
+					}
+				}
+				case "content", "attachment" -> {
+					if (closing) {
+						if (sectionStart >= 0 && !sectionHasPages) {
+							// Legacy section without page elements
+							lastNumber++;
+							pages.add(new Page(lastNumber, sectionStart, end - sectionStart));
+						}
+						sectionStart = -1;
+					} else if (!selfClosing) {
+						sectionStart = start;
+						sectionHasPages = false;
+					}
+				}
+				default -> {
+				}
+			}
+		}
+
+		private void skipDeclaration() throws IOException {
+			String cdata = "[CDATA[";
+			int b = next();
+			if (b == '-') {
+				skipUntil("-->");
+				return;
+			}
+			int i = 0;
+			while (b != -1 && i < cdata.length() && b == cdata.charAt(i)) {
+				i++;
+				if (i < cdata.length())
+					b = next();
+			}
+			if (i == cdata.length()) {
+				skipUntil("]]>");
+			} else if (b != '>') {
+				skipUntil(">");
+			}
+		}
+
+		private void skipUntil(String terminator) throws IOException {
+			int len = terminator.length();
+			int[] window = new int[len];
+			int filled = 0;
+			int b;
+			while ((b = next()) != -1) {
+				System.arraycopy(window, 1, window, 0, len - 1);
+				window[len - 1] = b;
+				if (filled < len)
+					filled++;
+				if (filled == len) {
+					boolean match = true;
+					for (int i = 0; i < len && match; i++)
+						match = window[i] == terminator.charAt(i);
+					if (match)
+						return;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming reader for the XML Text Layer (see spec/textlayer.xsd).
+ * Pull-parses the layer and yields only the clean text of the
+ * {@code <content>} and {@code <attachment>} sections, separated by blank
+ * lines (as are the {@code <page>} elements inside them). Works on a fixed buffer, so memory use does not depend on the size
+ * of the layer.
+ *
+ * Deliberately tolerant (unlike a strict StAX parser): legacy layers may
+ * contain characters that are illegal in XML, or be raw text / foreign markup.
+ * Anything that does not start with a {@code <root>} element is treated like
+ * the old regex fallback did: tags are stripped and whitespace collapsed.
+ */
+public class TextLayerReader extends Reader {
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final int BINARY_PROBE = 512;
+	private static final int MAX_TAG = 1024;
+	private static final int MAX_ENTITY = 10;
+	private static final int MAX_PENDING_WS = 1024;
+
+	private enum State {
+		TEXT, MARKUP, ENTITY, CDATA, COMMENT
+	}
+
+	private enum Mode {
+		UNKNOWN, STRUCTURED, STRIPPED
+	}
+
+	private final Reader in;
+	private final char[] buf = new char[BUFFER_SIZE];
+	private int bufPos = 0;
+	private int bufLen = 0;
+	private boolean started = false;
+	private boolean finished = false;
+
+	// Produced but not yet consumed text (bounded by one buffer of input)
+	private final StringBuilder out = new StringBuilder(BUFFER_SIZE);
+	private int outPos = 0;
+
+	// Parser state
+	private State state = State.TEXT;
+	private Mode mode = Mode.UNKNOWN;
+	private final StringBuilder token = new StringBuilder();
+	private char quote = 0;
+	private int run = 0; // pending ']' in CDATA, '-' in comments
+
+	// Emission state
+	private int sectionDepth = 0;
+	private boolean sectionHasText = false;
+	private boolean anyText = false;
+	private boolean pendingSpace = false;
+	private final StringBuilder pendingWs = new StringBuilder();
+
+	public TextLayerReader(Reader in) {
+		this(in, false);
+	}
+
+	/**
+	 * @param fragment
+	 *            true if {@code in} is a slice of a layer (one or more page or
+	 *            section elements, see {@link TextLayerPageIndex}) instead of a
+	 *            whole document
+	 */
+	public TextLayerReader(Reader in, boolean fragment) {
+		this.in = in;
+		if (fragment)
+			this.mode = Mode.STRUCTURED;
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		if (len == 0)
+			return 0;
+		while (outPos >= out.length()) {
+			out.setLength(0);
+			outPos = 0;
+			if (finished)
+				return -1;
+			pump();
+		}
+		int n = Math.min(len, out.length() - outPos);
+		out.getChars(outPos, outPos + n, cbuf, off);
+		outPos += n;
+		return n;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	// --- Input ---
+
+	private void pump() throws IOException {
+		if (!started) {
+			started = true;
+			if (!probe())
+				return;
+		} else if (bufPos >= bufLen) {
+			bufLen = in.read(buf, 0, buf.length);
+			bufPos = 0;
+			if (bufLen < 0) {
+				finish();
+				return;
+			}
+		}
+		while (bufPos < bufLen) {
+			process(buf[bufPos++]);
+		}
+	}
+
+	/**
+	 * Fills the first buffer and rejects binary content (PDF bytes masquerading
+	 * as text). Returns false if nothing should be produced.
+	 */
+	private boolean probe() throws IOException {
+		while (bufLen < BINARY_PROBE) {
+			int n = in.read(buf, bufLen, buf.length - bufLen);
+			if (n < 0)
+				break;
+			bufLen += n;
+		}
+		if (bufLen == 0) {
+			finished = true;
+			return false;
+		}
+		int checkLen = Math.min(bufLen, BINARY_PROBE);
+		int nonPrintable = 0;
+		for (int i = 0; i < checkLen; i++) {
+			char c = buf[i];
+			if (c < 0x09 || (c > 0x0D && c < 0x20)) { // Strict control chars
+				nonPrintable++;
+			}
+		}
+		if (nonPrintable > checkLen * 0.10) { // >10% garbage = binary
+			finished = true;
+			return false;
+		}
+		if (buf[0] == '\uFEFF')
+			bufPos = 1;
+		return true;
+	}
+
+	private void finish() {
+		finished = true;
+		switch (state) {
+			case ENTITY -> {
+				emit('&');
+				emitAll(token);
+			}
+			case MARKUP -> {
+				if (mode != Mode.STRUCTURED) {
+					emit('<');
+					emitAll(token);
+				}
+			}
+			case CDATA -> flushRun();
+			default -> {
+			}
+		}
+		state = State.TEXT;
+	}
+
+	// --- Parser ---
+
+	private void process(char c) {
+		switch (state) {
+			case TEXT -> {
+				if (c == '<') {
+					state = State.MARKUP;
+					token.setLength(0);
+					quote = 0;
+				} else if (c == '&') {
+					state = State.ENTITY;
+					token.setLength(0);
+				} else {
+					emit(c);
+				}
+			}
+			case ENTITY -> {
+				if (c == ';') {
+					state = State.TEXT;
+					emitEntity();
+				} else if (token.length() >= MAX_ENTITY || Character.isWhitespace(c) || c == '<' || c == '&') {
+					// Not an entity after all (legacy plain text)
+					state = State.TEXT;
+					emit('&');
+					emitAll(token);
+					process(c);
+				} else {
+					token.append(c);
+				}
+			}
+			case MARKUP -> processMarkup(c);
+			case CDATA -> {
+				if (c == ']') {
+					if (run == 2)
+						emit(']');
+					else
+						run++;
+				} else if (c == '>' && run == 2) {
+					run = 0;
+					state = State.TEXT;
+				} else {
+					flushRun();
+					emit(c);
+				}
+			}
+			case COMMENT -> {
+				if (c == '-') {
+					run++;
+				} else if (c == '>' && run >= 2) {
+					run = 0;
+					state = State.TEXT;
+				} else {
+					run = 0;
+				}
+			}
+		}
+	}
+
+	private void processMarkup(char c) {
+		if (quote != 0) {
+			if (c == quote)
+				quote = 0;
+			token.append(c);
+		} else if (c == '>') {
+			state = State.TEXT;
+			handleTag();
+			return;
+		} else {
+			if ((c == '"' || c == '\'') && token.length() > 0 && token.charAt(0) != '!')
+				quote = c;
+			token.append(c);
+		}
+
+		if (token.length() == 3 && token.charAt(0) == '!' && "!--".contentEquals(token)) {
+			state = State.COMMENT;
+			run = 0;
+		} else if (token.length() == 8 && token.charAt(0) == '!' && "![CDATA[".contentEquals(token)) {
+			state = State.CDATA;
+			run = 0;
+		} else if (token.length() > MAX_TAG) {
+			// A stray '<' in legacy plain text: give the characters back
+			state = State.TEXT;
+			emit('<');
+			emitAll(token);
+		}
+	}
+
+	private void handleTag() {
+		if (token.length() == 0)
+			return;
+		char first = token.charAt(0);
+		if (first == '?' || first == '!') {
+			if (mode != Mode.STRUCTURED)
+				breakText();
+			return;
+		}
+
+		boolean closing = first == '/';
+		boolean selfClosing = token.charAt(token.length() - 1) == '/';
+		int start = closing ? 1 : 0;
+		int end = start;
+		while (end < token.length()) {
+			char ch = token.charAt(end);
+			if (Character.isWhitespace(ch) || ch == '/')
+				break;
+			end++;
+		}
+		String name = token.substring(start, end);
+
+		if (mode == Mode.UNKNOWN && !closing) {
+			mode = "root".equals(name) ? Mode.STRUCTURED : Mode.STRIPPED;
+		}
+
+		if (mode != Mode.STRUCTURED) {
+			breakText();
+			return;
+		}
+
+		if ("content".equals(name) || "attachment".equals(name) || "page".equals(name)) {
+			if (closing) {
+				sectionDepth = Math.max(0, sectionDepth - 1);
+				sectionHasText = false;
+				pendingWs.setLength(0);
+			} else if (!selfClosing) {
+				sectionDepth++;
+			}
+		}
+	}
+
+	// --- Output ---
+
+	private void emitEntity() {
+		String name = token.toString();
+		switch (name) {
+			case "lt" -> emit('<');
+			case "gt" -> emit('>');
+			case "amp" -> emit('&');
+			case "quot" -> emit('"');
+			case "apos" -> emit('\'');
+			default -> {
+				int cp = -1;
+				try {
+					if (name.startsWith("#x") || name.startsWith("#X"))
+						cp = Integer.parseInt(name.substring(2), 16);
+					else if (name.startsWith("#"))
+						cp = Integer.parseInt(name.substring(1));
+				} catch (NumberFormatException ignored) {
+				}
+				if (cp >= 0 && Character.isValidCodePoint(cp)) {
+					for (char ch : Character.toChars(cp))
+						emit(ch);
+				} else {
+					emit('&');
+					emitAll(token);
+					emit(';');
+				}
+			}
+		}
+	}
+
+	private void flushRun() {
+		while (run > 0) {
+			emit(']');
+			run--;
+		}
+	}
+
+	private void emitAll(CharSequence chars) {
+		for (int i = 0; i < chars.length(); i++)
+			emit(chars.charAt(i));
+	}
+
+	/** Tags separate words in stripped mode (the old regex replaced them by a space). */
+	private void breakText() {
+		if (anyText)
+			pendingSpace = true;
+	}
+
+	private void emit(char c) {
+		if (mode == Mode.STRUCTURED) {
+			if (sectionDepth == 0)
+				return;
+			if (Character.isWhitespace(c)) {
+				// Sections are trimmed: drop leading blanks, hold trailing ones back
+				if (sectionHasText && pendingWs.length() < MAX_PENDING_WS)
+					pendingWs.append(c);
+				return;
+			}
+			if (!sectionHasText) {
+				if (anyText)
+					out.append("\n\n");
+				sectionHasText = true;
+			} else if (pendingWs.length() > 0) {
+				out.append(pendingWs);
+				pendingWs.setLength(0);
+			}
+			out.append(c);
+			anyText = true;
+			return;
+		}
+
+		// Stripped / plain text: collapse whitespace runs into one space
+		if (Character.isWhitespace(c)) {
+			breakText();
+			return;
+		}
+		if (pendingSpace) {
+			out.append(' ');
+			pendingSpace = false;
+		}
+		out.append(c);
+		anyText = true;
+	}
+}
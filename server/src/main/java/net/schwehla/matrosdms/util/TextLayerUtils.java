@@ -7,74 +7,88 @@
  */
 package net.schwehla.matrosdms.util;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Static helpers around {@link TextLayerReader}. All methods stream the layer;
+ * callers that need a String must state how many characters they want.
+ */
 public class TextLayerUtils {
 
 	private static final Logger log = LoggerFactory.getLogger(TextLayerUtils.class);
 
-	// Regex to extract content inside CDATA
-	private static final Pattern CONTENT_PATTERN = Pattern.compile("<!\\[CDATA\\[(.*?)\\]\\]>", Pattern.DOTALL);
-
-	// Fallback: Strip all XML-like tags
-	private static final Pattern TAG_STRIP_PATTERN = Pattern.compile("<[^>]+>");
+	/** Opens a Reader that yields the clean text of a (decrypted) layer stream. */
+	public static Reader openCleanText(InputStream xmlTextLayer) {
+		return new TextLayerReader(
+				new BufferedReader(new InputStreamReader(xmlTextLayer, StandardCharsets.UTF_8)));
+	}
 
-	public static String extractCleanText(String xmlTextLayer) {
-		if (xmlTextLayer == null || xmlTextLayer.isEmpty())
+	/**
+	 * Reads at most {@code maxChars} characters of clean text. The stream is
+	 * consumed but not closed.
+	 */
+	public static String readCleanText(InputStream xmlTextLayer, int maxChars) {
+		if (xmlTextLayer == null)
 			return "";
-
-		// SAFETY 1: Reject binary content (PDF bytes masquerading as text)
-		if (isBinaryContent(xmlTextLayer)) {
+		try {
+			return read(openCleanText(xmlTextLayer), maxChars);
+		} catch (IOException e) {
+			log.warn("Text layer could not be read: {}", e.getMessage());
 			return "";
 		}
+	}
 
-		StringBuilder sb = new StringBuilder();
-
-		// STRATEGY A: Try to find structured CDATA content
-		Matcher m = CONTENT_PATTERN.matcher(xmlTextLayer);
-		boolean foundCdata = false;
-		while (m.find()) {
-			sb.append(m.group(1).trim()).append("\n\n");
-			foundCdata = true;
+	/** Reads at most {@code maxChars} characters of clean text from a layer file. */
+	public static String readCleanText(Path textLayerFile, int maxChars) {
+		try (InputStream is = Files.newInputStream(textLayerFile)) {
+			return readCleanText(is, maxChars);
+		} catch (IOException e) {
+			log.warn("Text layer {} could not be read: {}", textLayerFile, e.getMessage());
+			return "";
 		}
+	}
 
-		if (foundCdata) {
-			return sb.toString().trim();
-		}
+	/**
+	 * True if the layer file contains any non-blank text. Stops at the first
+	 * character, so this is cheap even for huge layers.
+	 */
+	public static boolean hasCleanText(Path textLayerFile) {
+		if (textLayerFile == null || !Files.exists(textLayerFile))
+			return false;
+		return !readCleanText(textLayerFile, 1).isEmpty();
+	}
 
-		// STRATEGY B (Fallback): If no CDATA found, it might be raw text or malformed
-		// XML.
-		// Just strip any <tags> and return the rest. This ensures we index *something*.
+	/** In-memory variant for small layers (kept for callers holding a String). */
+	public static String extractCleanText(String xmlTextLayer) {
+		if (xmlTextLayer == null || xmlTextLayer.isEmpty())
+			return "";
 		try {
-			String stripped = TAG_STRIP_PATTERN.matcher(xmlTextLayer).replaceAll(" ");
-			String clean = stripped.replaceAll("\\s+", " ").trim();
-
-			if (!clean.isEmpty()) {
-				log.debug("Fallback extraction used (XML tags stripped)");
-				return clean;
-			}
-		} catch (Exception e) {
+			return read(new TextLayerReader(new StringReader(xmlTextLayer)), Integer.MAX_VALUE);
+		} catch (IOException e) {
 			log.warn("Text extraction error", e);
+			return "";
 		}
-
-		// STRATEGY C: Return raw (Last resort)
-		return xmlTextLayer.trim();
 	}
 
-	private static boolean isBinaryContent(String content) {
-		// Check first 512 chars for excessive nulls or control chars
-		int checkLen = Math.min(content.length(), 512);
-		int nonPrintable = 0;
-		for (int i = 0; i < checkLen; i++) {
-			char c = content.charAt(i);
-			if (c < 0x09 || (c > 0x0D && c < 0x20)) { // Strict control chars
-				nonPrintable++;
-			}
+	/** Reads at most {@code maxChars} characters from a clean text Reader. */
+	public static String read(Reader reader, int maxChars) throws IOException {
+		StringBuilder sb = new StringBuilder(Math.min(maxChars, 8192));
+		char[] chunk = new char[Math.min(maxChars, 8192)];
+		int n;
+		while (sb.length() < maxChars && (n = reader.read(chunk, 0, Math.min(chunk.length, maxChars - sb.length()))) != -1) {
+			sb.append(chunk, 0, n);
 		}
-		return nonPrintable > checkLen * 0.10; // >10% garbage = binary
+		return sb.toString();
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Streaming writer for the XML Text Layer (see spec/textlayer.xsd).
+ * Content is written in CDATA chunks as it arrives, so memory use does not
+ * depend on the document size. Replaces the old StringBuilder based builder.
+ *
+ * Section text is wrapped in {@code <page n="..">} elements. Page numbers run
+ * through the whole layer; extractors that know the page structure call
+ * {@link #newPage(Writer)}, every other section is a single page. Blank pages
+ * are not written but keep their number. {@link TextLayerPageIndex} maps the
+ * page elements to byte ranges for random access.
+ */
+public class TextLayerWriter implements Closeable {
+
+	private static final int CHUNK_SIZE = 8192;
+
+	/**
+	 * Called every chunk and at every page break while section text is
+	 * written. Throwing aborts the extractor that writes; the text written so
+	 * far stays in the layer.
+	 */
+	@FunctionalInterface
+	public interface Checkpoint {
+		void check(long contentChars) throws IOException;
+	}
+
+	private final OutputStream out;
+	private final XMLStreamWriter xml;
+
+	private boolean metaOpen = true;
+	private boolean closed = false;
+	private long contentChars = 0;
+	private int lastPage = 0;
+	private Checkpoint checkpoint;
+
+	public TextLayerWriter(Path target, String source) throws IOException {
+		this(new BufferedOutputStream(Files.newOutputStream(target)), source);
+	}
+
+	public TextLayerWriter(OutputStream out, String source) throws IOException {
+		this.out = out;
+		try {
+			this.xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+			xml.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+			xml.writeCharacters("\n");
+			xml.writeStartElement("root");
+			xml.writeAttribute("source", source);
+			xml.writeCharacters("\n  ");
+			xml.writeStartElement("meta");
+		} catch (XMLStreamException e) {
+			throw new IOException("Failed to start text layer", e);
+		}
+	}
+
+	public TextLayerWriter addMeta(String key, String value) throws IOException {
+		if (value == null || value.isBlank() || !metaOpen)
+			return this;
+		try {
+			xml.writeCharacters("\n    ");
+			xml.writeStartElement(key);
+			xml.writeCharacters(sanitize(value));
+			xml.writeEndElement();
+		} catch (XMLStreamException e) {
+			throw new IOException("Failed to write meta " + key, e);
+		}
+		return this;
+	}
+
+	// Call this before adding content
+	public TextLayerWriter closeMeta() throws IOException {
+		if (!metaOpen)
+			return this;
+		try {
+			xml.writeCharacters("\n  ");
+			xml.writeEndElement();
+			metaOpen = false;
+		} catch (XMLStreamException e) {
+			throw new IOException("Failed to close meta", e);
+		}
+		return this;
+	}
+
+	public TextLayerWriter addContent(String text, String mimeType) throws IOException {
+		if (text == null || text.isBlank())
+			return this;
+		try (Writer w = openContent(mimeType)) {
+			w.write(text);
+		}
+		return this;
+	}
+
+	public TextLayerWriter addContent(Reader text, String mimeType) throws IOException {
+		try (Writer w = openContent(mimeType)) {
+			text.transferTo(w);
+		}
+		return this;
+	}
+
+	public TextLayerWriter addAttachment(String filename, String text) throws IOException {
+		if (text == null || text.isBlank())
+			return this;
+		try (Writer w = openAttachment(filename)) {
+			w.write(text);
+		}
+		return this;
+	}
+
+	/**
+	 * Opens a {@code <content>} section and returns a Writer that streams into
+	 * it. The element is only emitted once the first non-whitespace character
+	 * arrives, so blank extraction results leave no empty section behind.
+	 * Closing the returned Writer ends the section (not the layer).
+	 */
+	public SectionWriter openContent(String mimeType) throws IOException {
+		closeMeta();
+		return new SectionWriter("content", "type", mimeType);
+	}
+
+	/** Same as {@link #openContent(String)} for {@code <attachment>} sections. */
+	public SectionWriter openAttachment(String filename) throws IOException {
+		closeMeta();
+		return new SectionWriter("attachment", "filename", filename);
+	}
+
+	/**
+	 * Page break for extractors that only know a plain Writer. No-op unless the
+	 * writer is a section of a text layer.
+	 */
+	public static void newPage(Writer out) throws IOException {
+		if (out instanceof SectionWriter section) {
+			section.newPage();
+		}
+	}
+
+	public TextLayerWriter setCheckpoint(Checkpoint checkpoint) {
+		this.checkpoint = checkpoint;
+		return this;
+	}
+
+	/** Number of characters written into content/attachment sections so far. */
+	public long getContentLength() {
+		return contentChars;
+	}
+
+	public boolean hasContent() {
+		return contentChars > 0;
+	}
+
+	/** Highest page number written so far. */
+	public int getPageCount() {
+		return lastPage;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		try {
+			closeMeta();
+			xml.writeCharacters("\n");
+			xml.writeEndElement();
+			xml.writeEndDocument();
+			xml.flush();
+			xml.close();
+		} catch (XMLStreamException e) {
+			throw new IOException("Failed to finish text layer", e);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * XML 1.0 forbids most control characters, even inside CDATA. PDF and OCR
+	 * output regularly contains form feeds or NULs, so replace them.
+	 */
+	static String sanitize(String input) {
+		StringBuilder sb = null;
+		for (int i = 0; i < input.length(); i++) {
+			char c = input.charAt(i);
+			boolean invalid = (c < 0x20 && c != '\t' && c != '\n' && c != '\r') || c == 0xFFFE || c == 0xFFFF;
+			if (invalid) {
+				if (sb == null) {
+					sb = new StringBuilder(input.length());
+					sb.append(input, 0, i);
+				}
+				sb.append(' ');
+			} else if (sb != null) {
+				sb.append(c);
+			}
+		}
+		return sb == null ? input : sb.toString();
+	}
+
+	public class SectionWriter extends Writer {
+
+		private final String element;
+		private final String attribute;
+		private final String attributeValue;
+
+		private final StringBuilder chunk = new StringBuilder(CHUNK_SIZE);
+		private boolean started = false;
+		private boolean pageOpen = false;
+		private boolean ended = false;
+		private int page;
+
+		SectionWriter(String element, String attribute, String attributeValue) {
+			this.element = element;
+			this.attribute = attribute;
+			this.attributeValue = attributeValue;
+			this.page = lastPage + 1;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			if (ended)
+				throw new IOException("Section already closed");
+			for (int i = off; i < off + len; i++) {
+				char c = cbuf[i];
+				if (!pageOpen) {
+					if (Character.isWhitespace(c))
+						continue; // leading blanks carry no information
+					startPage();
+				}
+				chunk.append(c);
+				contentChars++;
+				if (chunk.length() >= CHUNK_SIZE) {
+					flushChunk(false);
+					check();
+				}
+			}
+		}
+
+		/** Ends the current page; following text belongs to the next page number. */
+		public void newPage() throws IOException {
+			if (ended)
+				throw new IOException("Section already closed");
+			endPage();
+			page++;
+			check();
+		}
+
+		@Override
+		public void flush() throws IOException {
+			// Chunks are flushed as CDATA sections when full or on close.
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (ended)
+				return;
+			ended = true;
+			if (!started)
+				return;
+			endPage();
+			// Trailing blank pages still count
+			lastPage = Math.max(lastPage, page);
+			try {
+				xml.writeCharacters("\n  ");
+				xml.writeEndElement();
+			} catch (XMLStreamException e) {
+				throw new IOException("Failed to close " + element, e);
+			}
+		}
+
+		private void check() throws IOException {
+			if (checkpoint != null)
+				checkpoint.check(contentChars);
+		}
+
+		private void startPage() throws IOException {
+			try {
+				if (!started) {
+					started = true;
+					xml.writeCharacters("\n  ");
+					xml.writeStartElement(element);
+					xml.writeAttribute(attribute, attributeValue != null ? sanitize(attributeValue) : "");
+				}
+				xml.writeCharacters("\n    ");
+				xml.writeStartElement("page");
+				xml.writeAttribute("n", String.valueOf(page));
+				pageOpen = true;
+				lastPage = Math.max(lastPage, page);
+			} catch (XMLStreamException e) {
+				throw new IOException("Failed to open " + element, e);
+			}
+		}
+
+		private void endPage() throws IOException {
+			if (!pageOpen)
+				return;
+			flushChunk(true);
+			pageOpen = false;
+			try {
+				xml.writeEndElement();
+			} catch (XMLStreamException e) {
+				throw new IOException("Failed to close page " + page, e);
+			}
+		}
+
+		/**
+		 * Writes the buffered chunk as one CDATA section. "]]>" cannot appear
+		 * inside CDATA, so the sequence is split across two sections. Trailing
+		 * ']' characters are held back (unless final) because the closing '>'
+		 * may arrive with the next chunk. Dangling high surrogates likewise.
+		 */
+		private void flushChunk(boolean last) throws IOException {
+			int keep = 0;
+			if (!last) {
+				while (keep < 2 && keep < chunk.length() && chunk.charAt(chunk.length() - 1 - keep) == ']') {
+					keep++;
+				}
+				// Never split a surrogate pair across two sections
+				if (keep == 0 && chunk.length() > 0 && Character.isHighSurrogate(chunk.charAt(chunk.length() - 1))) {
+					keep = 1;
+				}
+			}
+			String text = sanitize(chunk.substring(0, chunk.length() - keep));
+			String carry = chunk.substring(chunk.length() - keep);
+			chunk.setLength(0);
+			chunk.append(carry);
+
+			if (text.isEmpty())
+				return;
+			try {
+				int from = 0;
+				int idx;
+				while ((idx = text.indexOf("]]>", from)) != -1) {
+					xml.writeCData(text.substring(from, idx + 2));
+					from = idx + 2;
+				}
+				xml.writeCData(text.substring(from));
+			} catch (XMLStreamException e) {
+				throw new IOException("Failed to write " + element + " text", e);
+			}
+		}
+	}
+}
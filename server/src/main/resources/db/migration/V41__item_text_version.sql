@@ -0,0 +1,4 @@
+-- Incremented whenever the stored text layer of an item is rewritten. The
+-- search index keeps the version it was built from, so metadata-only
+-- reindexing can reuse the indexed fulltext instead of decrypting the layer.
+alter table item add column text_version integer default 0 not null;
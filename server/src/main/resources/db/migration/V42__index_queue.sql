@@ -0,0 +1,7 @@
+-- Durable search indexing queue. One row per change; repeated item ids are
+-- coalesced when a batch is drained. No foreign key: deleted items must still
+-- be removed from the index.
+create sequence index_queue_seq start with 1 increment by 50;
+create table index_queue (id bigint not null, item_id bigint not null, enqueued_at timestamp(6) not null, attempts integer default 0 not null, primary key (id));
+create index idx_index_queue_item on index_queue (item_id);
+create index idx_index_queue_attempts on index_queue (attempts, id);
@@ -0,0 +1,8 @@
+-- Semantic embedding of an item (little-endian float32, unit length), written
+-- by the inbox pipeline or the embedding backfill. Indexed as a vector field
+-- for nearest-neighbour search; kept in its own table so item lists do not
+-- load the vectors.
+create sequence item_embedding_seq start with 1 increment by 50;
+create table item_embedding (id bigint not null, dimension integer not null, created_at timestamp(6) not null, model varchar(100) not null, vector_data bytea not null, primary key (id));
+alter table item add column embedding_id bigint unique;
+alter table if exists item add constraint FK_ITEM_EMBEDDING foreign key (embedding_id) references item_embedding;
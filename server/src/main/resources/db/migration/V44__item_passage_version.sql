@@ -0,0 +1,3 @@
+-- Text version the RAG passage index was built from; items whose passages are
+-- older than their text layer are (re)split by the passage indexer.
+alter table item add column passage_version integer default -1 not null;
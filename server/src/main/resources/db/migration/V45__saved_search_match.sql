@@ -0,0 +1,8 @@
+-- Saved-search subscriptions: items that matched a watched saved search when
+-- they were indexed. One row per user, search and item, so later changes of an
+-- item that already matched notify nobody again; unseen rows are the counters.
+-- Names compare case-insensitively: search_key is the lower-case name (H2 has
+-- no expression indexes, so lower(search_name) cannot be the unique key).
+create sequence saved_search_match_seq start with 1 increment by 50;
+create table saved_search_match (id bigint not null, user_id bigint not null, search_name varchar(255) not null, search_key varchar(255) not null, item_uuid varchar(16) not null, matched_at timestamp(6) not null, seen boolean default false not null, primary key (id), constraint UK_SAVED_SEARCH_MATCH unique (user_id, search_key, item_uuid));
+create index idx_saved_search_match_item on saved_search_match (item_uuid);
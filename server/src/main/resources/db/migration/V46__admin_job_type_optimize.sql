@@ -0,0 +1,9 @@
+-- Own job type for index optimization. The check constraint of V10 has a
+-- generated name that differs between H2 and PostgreSQL, so the column is
+-- rebuilt (dropping a column drops its constraint) with a named constraint.
+alter table admin_job add column job_type varchar(255);
+update admin_job set job_type = type;
+alter table admin_job drop column type;
+alter table admin_job add column type varchar(255) constraint CK_ADMIN_JOB_TYPE check (type in ('INTEGRITY_CHECK','EXPORT_ARCHIVE','REINDEX_SEARCH','OPTIMIZE_SEARCH_INDEX'));
+update admin_job set type = job_type;
+alter table admin_job drop column job_type;
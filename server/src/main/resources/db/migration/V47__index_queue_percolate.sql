@@ -0,0 +1,3 @@
+-- Index queue entries of background jobs (embedding backfill) are not matched
+-- against the saved-search subscriptions
+alter table index_queue add column percolate boolean default true not null;
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.entity.converter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class FloatVectorConverterTest {
+
+	private final FloatVectorConverter converter = new FloatVectorConverter();
+
+	@Test
+	void roundTripKeepsEveryValue() {
+		float[] vector = { 0f, -1.5f, 3.25f, Float.MIN_VALUE, Float.MAX_VALUE, -0f };
+
+		byte[] column = converter.convertToDatabaseColumn(vector);
+
+		assertEquals(vector.length * Float.BYTES, column.length);
+		assertArrayEquals(vector, converter.convertToEntityAttribute(column));
+	}
+
+	@Test
+	void storesLittleEndianFloat32() {
+		// 1.0f is 0x3F800000
+		assertArrayEquals(new byte[] { 0, 0, (byte) 0x80, 0x3F },
+				converter.convertToDatabaseColumn(new float[] { 1f }));
+	}
+
+	@Test
+	void nullStaysNull() {
+		assertNull(converter.convertToDatabaseColumn(null));
+		assertNull(converter.convertToEntityAttribute(null));
+	}
+
+	@Test
+	void emptyVectorIsEmptyColumn() {
+		assertEquals(0, converter.convertToDatabaseColumn(new float[0]).length);
+		assertEquals(0, converter.convertToEntityAttribute(new byte[0]).length);
+	}
+}
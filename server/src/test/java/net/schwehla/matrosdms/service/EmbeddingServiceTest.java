@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig;
+import net.schwehla.matrosdms.config.model.AppServerSpringConfig.EmbeddingConfig;
+
+class EmbeddingServiceTest {
+
+	private static final int DIMENSION = 256;
+
+	private EmbeddingService service;
+
+	@BeforeEach
+	void setUp() {
+		AppServerSpringConfig config = new AppServerSpringConfig();
+		config.getAi().getEmbedding().setProvider(EmbeddingConfig.Provider.HASHING);
+		config.getAi().getEmbedding().setDimension(DIMENSION);
+		service = new EmbeddingService();
+		service.appConfig = config;
+	}
+
+	@Test
+	void hashingEmbeddingIsDeterministic() {
+		float[] first = EmbeddingService.hashingEmbedding("Rechnung Stadtwerke Strom 2024", DIMENSION);
+		float[] second = EmbeddingService.hashingEmbedding("Rechnung Stadtwerke Strom 2024", DIMENSION);
+
+		assertEquals(DIMENSION, first.length);
+		assertArrayEquals(first, second);
+	}
+
+	@Test
+	void hashingEmbeddingIgnoresCaseAndPunctuation() {
+		assertArrayEquals(
+				EmbeddingService.hashingEmbedding("Invoice, electricity!", DIMENSION),
+				EmbeddingService.hashingEmbedding("invoice electricity", DIMENSION));
+	}
+
+	@Test
+	void similarWordingIsCloserThanUnrelatedText() {
+		float[] query = service.generateEmbedding("electricity invoice for march from the city utility");
+		float[] similar = service.generateEmbedding("city utility electricity invoice for april");
+		float[] unrelated = service.generateEmbedding("vaccination certificate of the dog");
+
+		assertTrue(dot(query, similar) > dot(query, unrelated));
+	}
+
+	@Test
+	void generateEmbeddingReturnsUnitVectors() {
+		float[] vector = service.generateEmbedding("tax return 2023");
+
+		assertNotNull(vector);
+		assertEquals(DIMENSION, vector.length);
+		assertEquals(1.0, dot(vector, vector), 1e-5);
+	}
+
+	@Test
+	void generateEmbeddingWithoutFeaturesIsNull() {
+		assertNull(service.generateEmbedding(null));
+		assertNull(service.generateEmbedding("   "));
+		// Single characters are no features, the vector stays zero
+		assertNull(service.generateEmbedding("a b c"));
+	}
+
+	@Test
+	void normalizeScalesToUnitLength() {
+		float[] unit = EmbeddingService.normalize(new float[] { 3f, 0f, -4f });
+
+		assertArrayEquals(new float[] { 0.6f, 0f, -0.8f }, unit, 1e-6f);
+	}
+
+	@Test
+	void normalizeRejectsVectorsWithoutDirection() {
+		assertNull(EmbeddingService.normalize(null));
+		assertNull(EmbeddingService.normalize(new float[4]));
+		assertNull(EmbeddingService.normalize(new float[] { Float.NaN, 1f }));
+	}
+
+	@Test
+	void modelIdNamesProviderAndDimension() {
+		EmbeddingConfig config = new EmbeddingConfig();
+		config.setModel("nomic-embed-text");
+		config.setDimension(768);
+		assertEquals("nomic-embed-text:768", EmbeddingService.modelId(config));
+
+		config.setProvider(EmbeddingConfig.Provider.HASHING);
+		assertEquals("hashing:768", EmbeddingService.modelId(config));
+	}
+
+	private static double dot(float[] a, float[] b) {
+		double sum = 0;
+		for (int i = 0; i < a.length; i++) {
+			sum += a[i] * b[i];
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.KnnFloatVectorField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.KnnFloatVectorQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The restriction of {@link SearchService#findSimilar} (not the item itself,
+ * same context) is passed to the knn predicate as filter, not added around
+ * it. Checks on a plain index with hashing embeddings that such a filter is
+ * applied while searching the graph: the k nearest matching items come back
+ * even when the overall nearest ones are elsewhere.
+ */
+class KnnFilterTest {
+
+	private static final int DIMENSION = 128;
+
+	private Directory directory;
+	private DirectoryReader reader;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		directory = new ByteBuffersDirectory();
+		try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+			add(writer, "source", "taxes", "electricity invoice city utility march");
+			// Nearest neighbours, all in another context
+			for (int i = 0; i < 10; i++) {
+				add(writer, "near-" + i, "household", "electricity invoice city utility month " + i);
+			}
+			add(writer, "far-1", "taxes", "tax return income statement");
+			add(writer, "far-2", "taxes", "donation receipt church");
+			add(writer, "far-3", "taxes", "property tax notice");
+		}
+		reader = DirectoryReader.open(directory);
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		reader.close();
+		directory.close();
+	}
+
+	@Test
+	void filterIsAppliedDuringTheSearch() throws IOException {
+		Query filter = new BooleanQuery.Builder()
+				.add(new MatchAllDocsQuery(), Occur.FILTER)
+				.add(new TermQuery(new Term("uuid", "source")), Occur.MUST_NOT)
+				.add(new TermQuery(new Term("context", "taxes")), Occur.FILTER)
+				.build();
+
+		List<String> hits = search(new KnnFloatVectorQuery("embedding", vector("source"), 3, filter));
+
+		assertEquals(List.of("far-1", "far-2", "far-3"), hits.stream().sorted().toList());
+	}
+
+	@Test
+	void filteringAfterTheSearchLosesTheMatches() throws IOException {
+		Query knn = new KnnFloatVectorQuery("embedding", vector("source"), 3);
+		Query postFilter = new BooleanQuery.Builder()
+				.add(knn, Occur.MUST)
+				.add(new TermQuery(new Term("uuid", "source")), Occur.MUST_NOT)
+				.add(new TermQuery(new Term("context", "taxes")), Occur.FILTER)
+				.build();
+
+		assertEquals(List.of(), search(postFilter));
+	}
+
+	@Test
+	void nearestItemsComeFirst() throws IOException {
+		Query filter = new BooleanQuery.Builder()
+				.add(new MatchAllDocsQuery(), Occur.FILTER)
+				.add(new TermQuery(new Term("uuid", "source")), Occur.MUST_NOT)
+				.build();
+
+		List<String> hits = search(new KnnFloatVectorQuery("embedding", vector("source"), 5, filter));
+
+		assertEquals(5, hits.size());
+		hits.forEach(uuid -> assertTrue(uuid.startsWith("near-"), uuid));
+	}
+
+	private List<String> search(Query query) throws IOException {
+		IndexSearcher searcher = new IndexSearcher(reader);
+		List<String> uuids = new ArrayList<>();
+		for (ScoreDoc hit : searcher.search(query, 20).scoreDocs) {
+			uuids.add(searcher.storedFields().document(hit.doc).get("uuid"));
+		}
+		return uuids;
+	}
+
+	private float[] vector(String uuid) throws IOException {
+		IndexSearcher searcher = new IndexSearcher(reader);
+		ScoreDoc hit = searcher.search(new TermQuery(new Term("uuid", uuid)), 1).scoreDocs[0];
+		return EmbeddingService.normalize(
+				EmbeddingService.hashingEmbedding(searcher.storedFields().document(hit.doc).get("text"), DIMENSION));
+	}
+
+	private static void add(IndexWriter writer, String uuid, String context, String text) throws IOException {
+		Document doc = new Document();
+		doc.add(new StringField("uuid", uuid, Field.Store.YES));
+		doc.add(new StringField("context", context, Field.Store.NO));
+		doc.add(new StringField("text", text, Field.Store.YES));
+		doc.add(new KnnFloatVectorField("embedding",
+				EmbeddingService.normalize(EmbeddingService.hashingEmbedding(text, DIMENSION)),
+				VectorSimilarityFunction.DOT_PRODUCT));
+		writer.addDocument(doc);
+	}
+}
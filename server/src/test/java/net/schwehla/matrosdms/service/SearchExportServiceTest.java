@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2026 Matrosdms
+ * This program is dual-licensed under:
+ * GNU Affero General Public License (AGPL v3) - Open Source, Copyleft.
+ * Commercial License - Proprietary, Closed Source.
+ * See the LICENSE file for full details.
+ */
+package net.schwehla.matrosdms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class SearchExportServiceTest {
+
+	@Test
+	void contextNameIsOneFolder() {
+		assertEquals("Finance", SearchExportService.folderName("Finance"));
+		assertEquals("Tax_2024", SearchExportService.folderName("Tax/2024"));
+		assertEquals("_etc_passwd", SearchExportService.folderName("/etc/passwd"));
+		assertEquals(".._.._x", SearchExportService.folderName("../../x"));
+	}
+
+	@Test
+	void dotNamesCannotLeaveTheArchive() {
+		assertEquals("_unsorted", SearchExportService.folderName("."));
+		assertEquals("_unsorted", SearchExportService.folderName(".."));
+		assertEquals("_unsorted", SearchExportService.folderName(" .. "));
+		assertEquals("_unsorted", SearchExportService.folderName("..."));
+	}
+
+	@Test
+	void blankNamesGoToUnsorted() {
+		assertEquals("_unsorted", SearchExportService.folderName(null));
+		assertEquals("_unsorted", SearchExportService.folderName(""));
+		assertEquals("_unsorted", SearchExportService.folderName("   "));
+	}
+
+	@Test
+	void controlCharactersAreReplaced() {
+		assertEquals("a_b", SearchExportService.sanitizeFilename("a\nb"));
+		assertEquals("a_b.pdf", SearchExportService.sanitizeFilename("a:b.pdf"));
+	}
+}